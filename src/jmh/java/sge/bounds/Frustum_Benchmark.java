@@ -0,0 +1,95 @@
+package sge.bounds;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sge.math.Matrix4;
+import sge.renderer.gl.GLPerspectiveProjection;
+
+/**
+ * Frustum culling of boxes and spheres scattered around the camera,
+ * one at a time from AABB objects and in batches from arrays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class Frustum_Benchmark {
+
+    private static final float WORLD = 500.0f;
+
+    @Param({"100000"})
+    public int objects;
+
+    private Frustum frustum;
+    private AABB[] boxes;
+    private float[] cx, cy, cz, ex, ey, ez;
+    private long[] visible;
+    private int[] lastPlane;
+
+    @Setup
+    public void setup () {
+        Random random = new Random(1L);
+        Matrix4 projection = new GLPerspectiveProjection(60.0f, 0.1f, WORLD).getProjectionMatrix(16, 9);
+        frustum = new Frustum(projection);
+
+        boxes = new AABB[objects];
+        cx = new float[objects];
+        cy = new float[objects];
+        cz = new float[objects];
+        ex = new float[objects];
+        ey = new float[objects];
+        ez = new float[objects];
+        visible = new long[(objects + 63) / 64];
+        lastPlane = new int[objects];
+
+        for (int i = 0; i < objects; i++) {
+            cx[i] = (random.nextFloat() * 2.0f - 1.0f) * WORLD;
+            cy[i] = (random.nextFloat() * 2.0f - 1.0f) * WORLD;
+            cz[i] = (random.nextFloat() * 2.0f - 1.0f) * WORLD;
+            ex[i] = ey[i] = ez[i] = 0.5f + random.nextFloat() * 2.0f;
+            boxes[i] = new AABB(cx[i] - ex[i], cy[i] - ey[i], cz[i] - ez[i],
+                                cx[i] + ex[i], cy[i] + ey[i], cz[i] + ez[i]);
+        }
+    }
+
+    @Benchmark
+    public int boxObjects () {
+        int found = 0;
+        for (AABB box : boxes) {
+            if (frustum.intersects(box)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int cullBoxes () {
+        return frustum.cullBoxes(cx, cy, cz, ex, ey, ez, objects, visible);
+    }
+
+    @Benchmark
+    public int cullBoxesCoherent () {
+        return frustum.cullBoxes(cx, cy, cz, ex, ey, ez, objects, visible, lastPlane);
+    }
+
+    @Benchmark
+    public int cullSpheresCoherent () {
+        return frustum.cullSpheres(cx, cy, cz, ex, objects, visible, lastPlane);
+    }
+}
@@ -0,0 +1,170 @@
+package sge.bounds;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sge.math.Vector2;
+import sge.util.IntList;
+
+/**
+ * Loose octree and quadtree against linear scans: moving every object
+ * one frame, and box, sphere and frustum queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class LooseOctree_Benchmark {
+
+    private static final float WORLD = 500.0f;
+    private static final float QUERY = 100.0f;
+
+    @Param({"10000", "100000"})
+    public int objects;
+
+    private float[] positions;
+    private float[] velocities;
+    private float[] sizes;
+    private AABB[] boxes;
+    private Rectangle[] rects;
+    private LooseOctree octree;
+    private LooseQuadtree quadtree;
+    private IntList results;
+    private Random random;
+
+    /** A 90 degree view frustum looking along +z, with a far plane. */
+    private final float[] frustum = new float[6 * 4];
+
+    @Setup
+    public void setup () {
+        random = new Random(1L);
+        positions = new float[objects * 3];
+        velocities = new float[objects * 3];
+        sizes = new float[objects];
+        boxes = new AABB[objects];
+        rects = new Rectangle[objects];
+        octree = new LooseOctree(new AABB(-WORLD, -WORLD, -WORLD, WORLD, WORLD, WORLD));
+        quadtree = new LooseQuadtree(new Rectangle(-WORLD, -WORLD, WORLD, WORLD));
+        results = new IntList(4096);
+
+        for (int i = 0; i < objects; i++) {
+            for (int k = 0; k < 3; k++) {
+                positions[i * 3 + k] = (random.nextFloat() * 2.0f - 1.0f) * WORLD;
+                velocities[i * 3 + k] = random.nextFloat() - 0.5f;
+            }
+            sizes[i] = 0.5f + random.nextFloat() * 2.0f;
+
+            float x = positions[i * 3], y = positions[i * 3 + 1], z = positions[i * 3 + 2], s = sizes[i];
+            boxes[i] = new AABB(x - s, y - s, z - s, x + s, y + s, z + s);
+            rects[i] = new Rectangle(x - s, y - s, x + s, y + s);
+            octree.insert(boxes[i]);
+            quadtree.insert(rects[i]);
+        }
+
+        float n = (float) (1.0 / Math.sqrt(2.0));
+        float[] planes = {
+                n, 0, n, 0,
+                -n, 0, n, 0,
+                0, n, n, 0,
+                0, -n, n, 0,
+                0, 0, 1, 0,
+                0, 0, -1, QUERY * 2.0f
+        };
+        System.arraycopy(planes, 0, frustum, 0, planes.length);
+    }
+
+    @Benchmark
+    public int octreeMoveAll () {
+        for (int i = 0; i < objects; i++) {
+            int o = i * 3;
+            for (int k = 0; k < 3; k++) {
+                positions[o + k] += velocities[o + k];
+                if (Math.abs(positions[o + k]) > WORLD) {
+                    velocities[o + k] = -velocities[o + k];
+                }
+            }
+
+            float s = sizes[i];
+            octree.update(i, positions[o] - s, positions[o + 1] - s, positions[o + 2] - s,
+                          positions[o] + s, positions[o + 1] + s, positions[o + 2] + s);
+        }
+        return octree.size();
+    }
+
+    @Benchmark
+    public int octreeBox () {
+        float x = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+        float y = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+        float z = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+
+        results.clear();
+        return octree.queryBox(x, y, z, x + QUERY, y + QUERY, z + QUERY, results);
+    }
+
+    @Benchmark
+    public int octreeSphere () {
+        results.clear();
+        return octree.querySphere(random.nextFloat() * WORLD, random.nextFloat() * WORLD,
+                                  random.nextFloat() * WORLD, QUERY * 0.5f, results);
+    }
+
+    @Benchmark
+    public int octreeFrustum () {
+        results.clear();
+        return octree.queryPlanes(frustum, 6, results);
+    }
+
+    @Benchmark
+    public int linearBox () {
+        float x = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+        float y = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+        float z = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+        AABB query = new AABB(x, y, z, x + QUERY, y + QUERY, z + QUERY);
+        int found = 0;
+
+        for (AABB box : boxes) {
+            if (query.intersects(box)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int quadtreeRegion () {
+        float x = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+        float y = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+
+        results.clear();
+        return quadtree.queryRegion(x, y, x + QUERY, y + QUERY, results);
+    }
+
+    @Benchmark
+    public int linearRegion () {
+        float x = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+        float y = random.nextFloat() * (2.0f * WORLD - QUERY) - WORLD;
+        Rectangle query = new Rectangle(new Vector2(x, y), new Vector2(x + QUERY, y + QUERY));
+        int found = 0;
+
+        for (Rectangle rect : rects) {
+            if (query.intersects(rect)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,88 @@
+package sge.bounds;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sge.math.Vector2;
+import sge.util.IntList;
+
+/**
+ * Neighbour queries among 200k circles, against testing every circle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SpatialHash2D_Benchmark {
+
+    private static final int ENTITIES = 200000;
+    private static final float RADIUS = 6.0f;
+
+    private Circle[] circles;
+    private SpatialHash2D hash;
+    private IntList results;
+    private Random random;
+    private float extent;
+
+    @Setup
+    public void setup () {
+        random = new Random(1L);
+        extent = (float) Math.sqrt(ENTITIES * 25.0);
+        circles = new Circle[ENTITIES];
+        hash = new SpatialHash2D(4.0f);
+        results = new IntList(1024);
+
+        for (int i = 0; i < ENTITIES; i++) {
+            Vector2 p = new Vector2(random.nextFloat() * extent, random.nextFloat() * extent);
+            circles[i] = new Circle(p, 0.5f + random.nextFloat());
+            hash.insert(circles[i]);
+        }
+    }
+
+    @Benchmark
+    public int radius () {
+        results.clear();
+        return hash.queryRadius(random.nextFloat() * extent, random.nextFloat() * extent, RADIUS, results);
+    }
+
+    @Benchmark
+    public int nearest () {
+        results.clear();
+        return hash.nearest(random.nextFloat() * extent, random.nextFloat() * extent, 8, results);
+    }
+
+    @Benchmark
+    public int update () {
+        int i = random.nextInt(ENTITIES);
+        Circle c = circles[i];
+        c.setOrigin(new Vector2(c.getOrigin().x + random.nextFloat() - 0.5f, c.getOrigin().y + random.nextFloat() - 0.5f));
+        hash.update(i);
+        return i;
+    }
+
+    @Benchmark
+    public int linearScan () {
+        Circle query = new Circle(new Vector2(random.nextFloat() * extent, random.nextFloat() * extent), RADIUS);
+        int found = 0;
+
+        for (Circle c : circles) {
+            if (query.intersects(c)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,134 @@
+package sge.bounds;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One frame of a broadphase: every body takes a small random step, then
+ * the overlapping pairs are found. Bodies are small boxes and spheres
+ * spread over a volume which keeps the density the same for each
+ * body count.
+ *
+ * bruteForce() is the O(n^2) AABB.intersects() loop it replaces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SweepAndPrune_Benchmark {
+
+    @Param({"10000", "50000", "100000"})
+    public int bodies;
+
+    private float[] positions;
+    private float[] sizes;
+    private AABB[] boxes;
+    private SweepAndPrune sap;
+    private Random random;
+    private final Counter counter = new Counter();
+
+    private static final class Counter implements OverlapListener {
+        int begun, persisted, ended;
+
+        @Override
+        public void begin (final int a, final int b) {
+            begun++;
+        }
+
+        @Override
+        public void persist (final int a, final int b) {
+            persisted++;
+        }
+
+        @Override
+        public void end (final int a, final int b) {
+            ended++;
+        }
+    }
+
+    @Setup
+    public void setup () {
+        random = new Random(1L);
+        positions = new float[bodies * 3];
+        sizes = new float[bodies];
+        boxes = new AABB[bodies];
+        sap = new SweepAndPrune();
+
+        // About 10 bodies per 10x10x10 cell.
+        float extent = (float) Math.cbrt(bodies * 100.0);
+
+        for (int i = 0; i < bodies; i++) {
+            positions[i * 3] = random.nextFloat() * extent;
+            positions[i * 3 + 1] = random.nextFloat() * extent;
+            positions[i * 3 + 2] = random.nextFloat() * extent;
+            sizes[i] = 0.5f + random.nextFloat();
+            boxes[i] = new AABB();
+            move(i, 0.0f);
+
+            if (i % 2 == 0) {
+                sap.add(boxes[i]);
+            } else {
+                sap.add(new Sphere(boxes[i].getCenter(), sizes[i]));
+            }
+        }
+
+        sap.updatePairs(null);
+    }
+
+    private void move (final int i, final float step) {
+        int o = i * 3;
+        float x = positions[o] += (random.nextFloat() - 0.5f) * step;
+        float y = positions[o + 1] += (random.nextFloat() - 0.5f) * step;
+        float z = positions[o + 2] += (random.nextFloat() - 0.5f) * step;
+        float s = sizes[i];
+
+        boxes[i].xMin = x - s;
+        boxes[i].yMin = y - s;
+        boxes[i].zMin = z - s;
+        boxes[i].xMax = x + s;
+        boxes[i].yMax = y + s;
+        boxes[i].zMax = z + s;
+    }
+
+    @Benchmark
+    public int sweepAndPrune () {
+        for (int i = 0; i < bodies; i++) {
+            move(i, 0.1f);
+            sap.update(i, boxes[i]);
+        }
+
+        sap.updatePairs(counter);
+        return sap.getPairCount();
+    }
+
+    @Benchmark
+    public int bruteForce () {
+        for (int i = 0; i < bodies; i++) {
+            move(i, 0.1f);
+        }
+
+        int pairs = 0;
+        for (int a = 0; a < bodies; a++) {
+            for (int b = a + 1; b < bodies; b++) {
+                if (boxes[a].intersects(boxes[b])) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,87 @@
+package sge.geometry;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cast rays down onto a heightfield of about a million faces, and
+ * build the hierarchy over it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+@State(Scope.Thread)
+public class MeshBVH_Benchmark {
+
+    private static final int GRID = 708;
+    private static final int RAYS = 4096;
+
+    private PackedMesh mesh;
+    private MeshBVH bvh;
+    private RayHit hit;
+    private float[] rays;
+    private int ray;
+
+    @Setup
+    public void setup () {
+        mesh = new PackedMesh((GRID + 1) * (GRID + 1), GRID * GRID * 6);
+
+        for (int z = 0; z <= GRID; z++) {
+            for (int x = 0; x <= GRID; x++) {
+                float y = (float) (Math.sin(x * 0.05) * Math.cos(z * 0.07) * 5.0 + Math.sin(x * 0.9 + z * 0.4) * 0.3);
+                mesh.addVert(x * 0.1f, y, z * 0.1f);
+            }
+        }
+
+        for (int z = 0; z < GRID; z++) {
+            for (int x = 0; x < GRID; x++) {
+                int i = z * (GRID + 1) + x;
+                mesh.addFace(i, i + GRID + 1, i + 1);
+                mesh.addFace(i + 1, i + GRID + 1, i + GRID + 2);
+            }
+        }
+
+        bvh = MeshBVH.build(mesh);
+        hit = new RayHit();
+
+        Random r = new Random(1L);
+        rays = new float[RAYS * 6];
+        for (int i = 0; i < rays.length; i += 6) {
+            rays[i] = r.nextFloat() * GRID * 0.1f;
+            rays[i + 1] = 20.0f;
+            rays[i + 2] = r.nextFloat() * GRID * 0.1f;
+            rays[i + 3] = r.nextFloat() - 0.5f;
+            rays[i + 4] = -1.0f;
+            rays[i + 5] = r.nextFloat() - 0.5f;
+        }
+    }
+
+    @Benchmark
+    public boolean intersect () {
+        int i = ray;
+        ray = (ray + 6) % rays.length;
+
+        return bvh.intersect(rays[i], rays[i + 1], rays[i + 2], rays[i + 3], rays[i + 4], rays[i + 5],
+                             Float.POSITIVE_INFINITY, hit);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MeshBVH build () {
+        return MeshBVH.build(mesh);
+    }
+}
@@ -0,0 +1,136 @@
+package sge.geometry;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sge.math.Vector3;
+
+/**
+ * Mesh and PackedMesh buffer export and normal generation over a square
+ * grid of (size * size * 2) triangles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Mesh_Benchmark {
+
+    @Param({"64", "512"})
+    public int size;
+
+    private Mesh mesh;
+    private PackedMesh packed;
+
+    private FloatBuffer vertexBuffer;
+    private IntBuffer indexBuffer;
+
+    @Setup
+    public void setup () {
+        mesh = grid(size);
+        packed = new PackedMesh(mesh);
+    }
+
+    /**
+     * Build a flat grid mesh in the XZ plane with a little height variation
+     * so that smoothNormals has real work to do.
+     */
+    static Mesh grid (final int size) {
+        Mesh m = new Mesh();
+        int stride = size + 1;
+
+        for (int z = 0; z <= size; z++) {
+            for (int x = 0; x <= size; x++) {
+                Vertex v = new Vertex(new Vector3(x, (float) Math.sin(x * 0.1f + z * 0.3f), z));
+                v.setTexCoords((float) x / size, (float) z / size);
+                m.addVert(v);
+            }
+        }
+
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                int i = z * stride + x;
+                m.addFace(i, i + stride, i + 1);
+                m.addFace(i + 1, i + stride, i + stride + 1);
+            }
+        }
+
+        return m;
+    }
+
+    @Benchmark
+    public FloatBuffer vertexArray () {
+        return mesh.vertexArray();
+    }
+
+    @Benchmark
+    public FloatBuffer vertexArrayReuse () {
+        return vertexBuffer = mesh.vertexArray(vertexBuffer);
+    }
+
+    @Benchmark
+    public IntBuffer indexArray () {
+        return mesh.indexArray();
+    }
+
+    @Benchmark
+    public IntBuffer indexArrayReuse () {
+        return indexBuffer = mesh.indexArray(indexBuffer);
+    }
+
+    @Benchmark
+    public FloatBuffer faceArray () {
+        return mesh.faceArray(false);
+    }
+
+    @Benchmark
+    public FloatBuffer faceArraySolid () {
+        return mesh.faceArray(true);
+    }
+
+    @Benchmark
+    public Mesh smoothNormals () {
+        mesh.smoothNormals();
+        return mesh;
+    }
+
+    @Benchmark
+    public FloatBuffer packedVertexArray () {
+        return packed.vertexArray();
+    }
+
+    @Benchmark
+    public FloatBuffer packedVertexArrayReuse () {
+        return vertexBuffer = packed.vertexArray(vertexBuffer);
+    }
+
+    @Benchmark
+    public FloatBuffer packedFaceArray () {
+        return packed.faceArray(false);
+    }
+
+    @Benchmark
+    public PackedMesh packedSmoothNormals () {
+        packed.smoothNormals();
+        return packed;
+    }
+
+    @Benchmark
+    public PackedMesh pack () {
+        return new PackedMesh(mesh);
+    }
+}
@@ -0,0 +1,90 @@
+package sge.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sge.geometry.Mesh;
+import sge.geometry.MeshData;
+import sge.geometry.PackedMesh;
+
+/**
+ * Load a grid mesh of `size' * `size' quads from a warm cache, against
+ * building it from scratch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeshCache_Benchmark {
+
+    @Param({"64", "512"})
+    public int size;
+
+    private File directory;
+    private File source;
+    private MeshCache cache;
+
+    @Setup
+    public void setup () throws IOException {
+        directory = Files.createTempDirectory("sge-bench-").toFile();
+        source = new File(directory, "grid.src");
+        source.createNewFile();
+
+        cache = new MeshCache(new File(directory, "cache"));
+        cache.store(source.getPath(), grid(size));
+    }
+
+    @TearDown
+    public void tearDown () {
+        cache.invalidate(source.getPath());
+        cache.getDirectory().delete();
+        source.delete();
+        directory.delete();
+    }
+
+    static PackedMesh grid (final int size) {
+        PackedMesh m = new PackedMesh((size + 1) * (size + 1), size * size * 6);
+
+        for (int z = 0; z <= size; z++) {
+            for (int x = 0; x <= size; x++) {
+                m.addVert(x, 0.0f, z);
+            }
+        }
+
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                int i = z * (size + 1) + x;
+                m.addFace(i, i + size + 1, i + 1);
+                m.addFace(i + 1, i + size + 1, i + size + 2);
+            }
+        }
+
+        return m;
+    }
+
+    @Benchmark
+    public MeshData load () {
+        return cache.load(source.getPath());
+    }
+
+    @Benchmark
+    public Mesh build () {
+        return grid(size).toMesh();
+    }
+}
@@ -0,0 +1,104 @@
+package sge.importer.obj;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse a generated .obj grid with roughly `faces' triangles, using
+ * positions, texture coordinates and normals on every face corner.
+ * parseSplit is the original String.split based reader for comparison.
+ * parseParallel uses {@link ParallelObjReader} with one thread per core.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class ObjDocument_Benchmark {
+
+    @Param({"1000000", "4000000"})
+    public int faces;
+
+    private File objFile;
+
+    @Setup
+    public void setup () throws IOException {
+        objFile = File.createTempFile("sge-bench-", ".obj");
+        objFile.deleteOnExit();
+        writeGrid(objFile, (int) Math.ceil(Math.sqrt(faces / 2.0)));
+    }
+
+    @TearDown
+    public void tearDown () {
+        objFile.delete();
+    }
+
+    /**
+     * Write a size * size quad grid as triangles, 1 position and texture
+     * coordinate per grid point and a single shared normal.
+     */
+    static void writeGrid (final File f, final int size) throws IOException {
+        int stride = size + 1;
+
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(f), 1 << 16)) {
+            out.write("# Generated benchmark grid\n");
+            out.write("o bench_grid\n");
+
+            for (int z = 0; z <= size; z++) {
+                for (int x = 0; x <= size; x++) {
+                    out.write("v " + x + ".000000 " + (x ^ z) % 7 * 0.125f + " " + z + ".000000\n");
+                }
+            }
+
+            for (int z = 0; z <= size; z++) {
+                for (int x = 0; x <= size; x++) {
+                    out.write("vt " + (float) x / size + " " + (float) z / size + "\n");
+                }
+            }
+
+            out.write("vn 0.000000 1.000000 0.000000\n");
+            out.write("g grid\n");
+
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    int i = z * stride + x + 1;
+                    int j = i + stride;
+                    out.write("f " + i + "/" + i + "/1 " + j + "/" + j + "/1 " + (i + 1) + "/" + (i + 1) + "/1\n");
+                    out.write("f " + (i + 1) + "/" + (i + 1) + "/1 " + j + "/" + j + "/1 " + (j + 1) + "/" + (j + 1) + "/1\n");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public ObjDocument parse () {
+        return new ObjDocument(objFile.getPath());
+    }
+
+    @Benchmark
+    public ObjDocument parseParallel () {
+        return ParallelObjReader.read(objFile.getPath());
+    }
+
+    @Benchmark
+    public SplitObjReader parseSplit () throws IOException {
+        return new SplitObjReader(objFile.getPath());
+    }
+}
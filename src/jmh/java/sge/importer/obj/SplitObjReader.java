@@ -0,0 +1,77 @@
+package sge.importer.obj;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import sge.math.Vector2;
+import sge.math.Vector3;
+
+/**
+ * The original String.split based .obj reader, kept as a baseline for
+ * {@link ObjDocument_Benchmark}. Builds the same boxed lists the old
+ * ObjDocument and ObjGroup held.
+ */
+final class SplitObjReader {
+
+    final ArrayList<Vector3> positions = new ArrayList<Vector3>(ObjDocument.DEFAULT_SIZE);
+    final ArrayList<Vector3> normals = new ArrayList<Vector3>(ObjDocument.DEFAULT_SIZE);
+    final ArrayList<Vector2> texCoords = new ArrayList<Vector2>(ObjDocument.DEFAULT_SIZE);
+
+    final ArrayList<Integer> positionIndices = new ArrayList<Integer>(ObjDocument.DEFAULT_SIZE);
+    final ArrayList<Integer> normalIndices = new ArrayList<Integer>(ObjDocument.DEFAULT_SIZE);
+    final ArrayList<Integer> texCoordIndices = new ArrayList<Integer>(ObjDocument.DEFAULT_SIZE);
+
+    SplitObjReader (final String filename) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                if (line.length() <= 1 || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] tokens = line.split(" +");
+                switch (tokens[0]) {
+                    case "v":
+                        positions.add(new Vector3(Float.parseFloat(tokens[1]),
+                                                  Float.parseFloat(tokens[2]),
+                                                  Float.parseFloat(tokens[3])));
+                        break;
+                    case "vn":
+                        normals.add(new Vector3(Float.parseFloat(tokens[1]),
+                                                Float.parseFloat(tokens[2]),
+                                                Float.parseFloat(tokens[3])));
+                        break;
+                    case "vt":
+                        texCoords.add(new Vector2(Float.parseFloat(tokens[1]),
+                                                  Float.parseFloat(tokens[2])));
+                        break;
+                    case "f":
+                        parseFace(tokens);
+                        break;
+                }
+            }
+        }
+    }
+
+    private void parseFace (final String[] tokens) {
+        for (int i = 3; i < tokens.length; i++) {
+            addVertex(tokens[1].split("/"));
+            addVertex(tokens[i - 1].split("/"));
+            addVertex(tokens[i].split("/"));
+        }
+    }
+
+    private void addVertex (final String[] indices) {
+        positionIndices.add(Integer.parseInt(indices[0]) - 1);
+
+        if (!texCoords.isEmpty()) {
+            texCoordIndices.add(Integer.parseInt(indices[1]) - 1);
+        }
+
+        if (!normals.isEmpty()) {
+            normalIndices.add(Integer.parseInt(indices[2]) - 1);
+        }
+    }
+}
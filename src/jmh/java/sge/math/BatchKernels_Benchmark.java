@@ -0,0 +1,105 @@
+package sge.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scalar kernels against BatchKernels.get(). Run with -Psimd for the
+ * Vector API kernels; otherwise both are the scalar loops.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchKernels_Benchmark {
+
+    @Param({"scalar", "default"})
+    public String kernels;
+
+    @Param({"4096"})
+    public int count;
+
+    private BatchKernels k;
+    private float[] m;
+    private float[] x, y, z, w;
+    private float[] minX, minY, minZ, maxX, maxY, maxZ;
+    private float[] dest;
+    private long[] hits;
+
+    private static float[] random (final Random r, final int n, final float offset) {
+        float[] a = new float[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = offset + r.nextFloat() * 2.0f - 1.0f;
+        }
+        return a;
+    }
+
+    @Setup
+    public void setup () {
+        Random r = new Random(1L);
+        k = "scalar".equals(kernels) ? BatchKernels.scalar() : BatchKernels.get();
+        m = Matrix4.initRotation(0.1f, 0.2f, 0.3f).translate(1.0f, 2.0f, 3.0f).mat;
+        x = random(r, count, 0.0f);
+        y = random(r, count, 0.0f);
+        z = random(r, count, 0.0f);
+        w = random(r, count, 1.0f);
+        minX = random(r, count, 0.0f);
+        minY = random(r, count, 0.0f);
+        minZ = random(r, count, 0.0f);
+        maxX = random(r, count, 1.0f);
+        maxY = random(r, count, 1.0f);
+        maxZ = random(r, count, 1.0f);
+        dest = new float[count];
+        hits = new long[(count + 63) / 64];
+    }
+
+    @Benchmark
+    public float[] add () {
+        k.add(x, minX, count);
+        return x;
+    }
+
+    @Benchmark
+    public float[] dot () {
+        k.dot(x, y, z, minX, minY, minZ, dest, count);
+        return dest;
+    }
+
+    @Benchmark
+    public float[] normalize () {
+        k.normalize(x, y, z, count);
+        return x;
+    }
+
+    @Benchmark
+    public float[] transform () {
+        k.transform(m, x, y, z, w, count);
+        return x;
+    }
+
+    @Benchmark
+    public float[] latticeRow () {
+        k.latticeRow(dest, count, -100 + 17 * 57);
+        return dest;
+    }
+
+    @Benchmark
+    public int overlaps () {
+        return k.overlaps(-0.5f, -0.5f, -0.5f, 0.5f, 0.5f, 0.5f,
+                          minX, minY, minZ, maxX, maxY, maxZ, count, hits);
+    }
+}
@@ -0,0 +1,94 @@
+package sge.math;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Spawn 1024 random particle directions, through the per-thread FRandom
+ * against the original HashMap of java.util.Random per thread id.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class FRandom_Benchmark {
+
+    private static final int COUNT = 1024;
+
+    /** The original FRandom lookup, plus the lock it needed, kept as a baseline. */
+    private static final HashMap<Long, Random> generators = new HashMap<Long, Random>();
+
+    private static Random hashMapRandom () {
+        long thread = Thread.currentThread().getId();
+        synchronized (generators) {
+            if (!generators.containsKey(thread)) {
+                generators.put(thread, new Random());
+            }
+            return generators.get(thread);
+        }
+    }
+
+    private Vector3Batch batch;
+    private float[] floats;
+
+    @Setup
+    public void setup () {
+        batch = new Vector3Batch(COUNT);
+        floats = new float[COUNT];
+    }
+
+    @Benchmark
+    public float[] hashMapFloats () {
+        for (int i = 0; i < COUNT; i++) {
+            floats[i] = hashMapRandom().nextFloat();
+        }
+        return floats;
+    }
+
+    @Benchmark
+    public float[] currentFloats () {
+        for (int i = 0; i < COUNT; i++) {
+            floats[i] = FRandom.current().nextFloat();
+        }
+        return floats;
+    }
+
+    @Benchmark
+    public float[] bulkFloats () {
+        return FRandom.current().nextFloats(floats);
+    }
+
+    @Benchmark
+    public Vector3Batch vector3Random () {
+        for (int i = 0; i < COUNT; i++) {
+            batch.set(i, Vector3.random());
+        }
+        return batch;
+    }
+
+    @Benchmark
+    public Vector3Batch bulkUnitVectors () {
+        return FRandom.current().randomUnitVectors(batch);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Vector3Batch bulkUnitVectors4Threads () {
+        return FRandom.current().randomUnitVectors(batch);
+    }
+}
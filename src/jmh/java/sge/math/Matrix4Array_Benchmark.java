@@ -0,0 +1,126 @@
+package sge.math;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sge.util.DirectBuffer;
+
+/**
+ * Preparing instance transforms for upload: multiplying by a shared
+ * view-projection Matrix and composing TRS in place in a Matrix4Array,
+ * against Matrix4 objects copied into a FloatBuffer. Batch inverses and
+ * normal matrices against the general Matrix4 inverse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class Matrix4Array_Benchmark {
+
+    @Param({"10000"})
+    public int count;
+
+    private Matrix4 viewProjection;
+    private Matrix4Array models;
+    private Matrix4Array mvp;
+    private Matrix4[] modelMatrices;
+    private Matrix4[] mvpMatrices;
+    private FloatBuffer upload;
+    private int[] bones;
+    private float[] normals;
+
+    @Setup
+    public void setup () {
+        Random random = new Random(1L);
+        viewProjection = Matrix4.initRotation(0.1f, 0.2f, 0.3f).translate(0.0f, 0.0f, -10.0f);
+        models = new Matrix4Array(count);
+        mvp = new Matrix4Array(count);
+        modelMatrices = new Matrix4[count];
+        mvpMatrices = new Matrix4[count];
+        upload = DirectBuffer.createFloatBuffer(count * Matrix4.SIZE);
+        bones = new int[count];
+        normals = new float[count * Matrix3.SIZE];
+
+        for (int i = 0; i < count; i++) {
+            models.compose_(i, random.nextFloat(), random.nextFloat(), random.nextFloat(),
+                            0.0f, 0.0f, random.nextFloat(), 1.0f, 1.0f, 1.0f, 1.0f);
+            modelMatrices[i] = models.get(i);
+            mvpMatrices[i] = new Matrix4(modelMatrices[i]);
+            mvp.set(i, modelMatrices[i]);
+            bones[i] = (i % 64 == 0) ? -1 : i - 1 - random.nextInt(i % 64);
+        }
+    }
+
+    @Benchmark
+    public FloatBuffer arrayMul () {
+        Matrix4Array.mul(viewProjection, models, 0, mvp, 0, count);
+        return mvp.buffer;
+    }
+
+    /** Multiply Matrix4 objects, then copy each into a buffer. */
+    @Benchmark
+    public FloatBuffer matrix4MulAndCopy () {
+        upload.clear();
+        for (int i = 0; i < count; i++) {
+            upload.put(Matrix4.mul(viewProjection, modelMatrices[i], mvpMatrices[i]).mat);
+        }
+        upload.flip();
+        return upload;
+    }
+
+    @Benchmark
+    public FloatBuffer compose () {
+        for (int i = 0; i < count; i++) {
+            models.compose_(i, i, 0.0f, 0.0f, 0.0f, 0.0f, 0.2f, 1.0f, 1.0f, 1.0f, 1.0f);
+        }
+        return models.buffer;
+    }
+
+    /** Skeletons of 64 bones, accumulated from the root down. */
+    @Benchmark
+    public FloatBuffer multParents () {
+        models.multParents_(bones, count);
+        return models.buffer;
+    }
+
+    @Benchmark
+    public boolean inverseAffine_ () {
+        return mvp.inverseAffine_(0, count);
+    }
+
+    @Benchmark
+    public FloatBuffer inverseRigid_ () {
+        mvp.inverseRigid_(0, count);
+        return mvp.buffer;
+    }
+
+    /** General inverse of Matrix4 objects. */
+    @Benchmark
+    public Matrix4[] matrix4Inverse_ () {
+        for (int i = 0; i < count; i++) {
+            mvpMatrices[i].inverse_();
+        }
+        return mvpMatrices;
+    }
+
+    @Benchmark
+    public float[] normalMatrices () {
+        models.normalMatrices(0, count, normals, 0);
+        return normals;
+    }
+}
@@ -0,0 +1,95 @@
+package sge.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matrix4 multiplication, inversion and normal matrices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Matrix4_Benchmark {
+
+    private Matrix4 a;
+    private Matrix4 b;
+    private Matrix4 dest;
+    private Matrix3 normal;
+
+    @Setup
+    public void setup () {
+        a = Matrix4.initRotation(0.3f, 0.7f, 1.1f).translate(1.0f, 2.0f, 3.0f);
+        b = Matrix4.initScale(new Vector3(2.0f, 3.0f, 4.0f)).rotateY(0.5f);
+        dest = new Matrix4();
+        normal = new Matrix3();
+    }
+
+    @Benchmark
+    public Matrix4 mult () {
+        return a.mult(b);
+    }
+
+    @Benchmark
+    public Matrix4 mult_ () {
+        dest.set_(a);
+        return dest.mult_(b);
+    }
+
+    @Benchmark
+    public Matrix4 mul () {
+        return Matrix4.mul(a, b, dest);
+    }
+
+    @Benchmark
+    public Vector4 multVector () {
+        return a.mult(Vector4.ONE);
+    }
+
+    @Benchmark
+    public Matrix4 inverse () {
+        return a.inverse();
+    }
+
+    @Benchmark
+    public boolean inverse_ () {
+        dest.set_(a);
+        return dest.inverse_();
+    }
+
+    @Benchmark
+    public boolean inverseAffine_ () {
+        dest.set_(a);
+        return dest.inverseAffine_();
+    }
+
+    @Benchmark
+    public Matrix4 inverseRigid_ () {
+        dest.set_(a);
+        return dest.inverseRigid_();
+    }
+
+    @Benchmark
+    public Matrix3 normalMatrix () {
+        return Matrix3.normalMatrix(a, normal);
+    }
+
+    /** Normal matrix by the general inverse of the upper 3x3. */
+    @Benchmark
+    public Matrix3 normalMatrixGeneral () {
+        return new Matrix3(a.mat[0], a.mat[1], a.mat[2], a.mat[4], a.mat[5], a.mat[6],
+                           a.mat[8], a.mat[9], a.mat[10]).inverse().transpose_();
+    }
+}
@@ -0,0 +1,47 @@
+package sge.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Quaternion composition and vector rotation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Quaternion_Benchmark {
+
+    private Quaternion a;
+    private Quaternion b;
+    private Vector3 v;
+
+    @Setup
+    public void setup () {
+        a = new Quaternion(0.1f, 0.2f, 0.3f, 0.9f).normalize();
+        b = new Quaternion(-0.4f, 0.1f, 0.2f, 0.8f).normalize();
+        v = new Vector3(1.0f, 2.0f, 3.0f);
+    }
+
+    @Benchmark
+    public Quaternion mult () {
+        return a.mult(b);
+    }
+
+    @Benchmark
+    public Quaternion multVector () {
+        return a.mult(v);
+    }
+}
@@ -0,0 +1,120 @@
+package sge.math;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * World matrix updates of a three level hierarchy (1% roots, 9% middle,
+ * 90% leaves), against rebuilding every world matrix with Matrix4.mult.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformHierarchy_Benchmark {
+
+    @Param({"100000"})
+    public int nodes;
+
+    private TransformHierarchy hierarchy;
+    private ForkJoinPool pool;
+    private int[] handles;
+    private int roots;
+    private Random random;
+    private float time;
+
+    private int[] parents;
+    private Matrix4[] locals;
+    private Matrix4[] worlds;
+
+    @Setup
+    public void setup () {
+        random = new Random(1L);
+        pool = new ForkJoinPool();
+        hierarchy = new TransformHierarchy(nodes);
+        handles = new int[nodes];
+        parents = new int[nodes];
+        locals = new Matrix4[nodes];
+        worlds = new Matrix4[nodes];
+        roots = nodes / 100;
+
+        for (int i = 0; i < nodes; i++) {
+            if (i < roots) {
+                parents[i] = -1;
+            } else if (i < roots * 10) {
+                parents[i] = random.nextInt(roots);
+            } else {
+                parents[i] = roots + random.nextInt(roots * 9);
+            }
+
+            handles[i] = hierarchy.add((parents[i] < 0) ? TransformHierarchy.NO_PARENT : handles[parents[i]]);
+            hierarchy.setPosition(handles[i], random.nextFloat(), random.nextFloat(), random.nextFloat());
+            hierarchy.setRotation(handles[i], 0.0f, 0.0f, random.nextFloat(), 1.0f);
+            locals[i] = Matrix4.initTranslation(random.nextFloat(), random.nextFloat(), random.nextFloat())
+                    .rotateZ(random.nextFloat());
+        }
+        hierarchy.update();
+    }
+
+    @TearDown
+    public void tearDown () {
+        pool.shutdown();
+    }
+
+    /** Every root moves, so every world matrix is recomputed. */
+    @Benchmark
+    public int updateAll () {
+        time += 0.01f;
+        for (int i = 0; i < roots; i++) {
+            hierarchy.setPosition(handles[i], time, 0.0f, 0.0f);
+        }
+        hierarchy.update();
+        return hierarchy.getUpdatedCount();
+    }
+
+    @Benchmark
+    public int updateAllParallel () {
+        time += 0.01f;
+        for (int i = 0; i < roots; i++) {
+            hierarchy.setPosition(handles[i], time, 0.0f, 0.0f);
+        }
+        hierarchy.update(pool);
+        return hierarchy.getUpdatedCount();
+    }
+
+    /** 1% of random nodes move. */
+    @Benchmark
+    public int updateFew () {
+        time += 0.01f;
+        for (int i = 0; i < roots; i++) {
+            hierarchy.setPosition(handles[random.nextInt(nodes)], time, 0.0f, 0.0f);
+        }
+        hierarchy.update();
+        return hierarchy.getUpdatedCount();
+    }
+
+    /** Rebuild every world matrix from scratch, allocating. */
+    @Benchmark
+    public Matrix4[] matrix4Mult () {
+        for (int i = 0; i < nodes; i++) {
+            worlds[i] = (parents[i] < 0) ? locals[i] : worlds[parents[i]].mult(locals[i]);
+        }
+        return worlds;
+    }
+}
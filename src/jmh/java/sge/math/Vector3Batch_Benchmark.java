@@ -0,0 +1,104 @@
+package sge.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vector3Batch bulk kernels against the equivalent per-object MVector3
+ * loops over the same data.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Vector3Batch_Benchmark {
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private Vector3Batch position;
+    private Vector3Batch velocity;
+    private float[] dots;
+
+    private MVector3[] mPosition;
+    private MVector3[] mVelocity;
+    private MVector3 tmp;
+
+    private Matrix4 transform;
+
+    @Setup
+    public void setup () {
+        position = new Vector3Batch(size);
+        velocity = new Vector3Batch(size);
+        dots = new float[size];
+        mPosition = new MVector3[size];
+        mVelocity = new MVector3[size];
+        tmp = new MVector3();
+
+        for (int i = 0; i < size; i++) {
+            position.set(i, i, i * 0.5f, -i);
+            velocity.set(i, 1.0f, (i & 7) - 3.5f, 0.25f);
+            mPosition[i] = new MVector3(i, i * 0.5f, -i);
+            mVelocity[i] = new MVector3(1.0f, (i & 7) - 3.5f, 0.25f);
+        }
+
+        transform = Matrix4.initRotation(0.1f, 0.2f, 0.3f).translate(1.0f, 2.0f, 3.0f);
+    }
+
+    @Benchmark
+    public Vector3Batch batchAddScaled () {
+        return position.addScaled_(velocity, 0.016f);
+    }
+
+    @Benchmark
+    public MVector3[] objectAddScaled () {
+        for (int i = 0; i < size; i++) {
+            mPosition[i].add_(tmp.set_(mVelocity[i]).scale_(0.016f));
+        }
+        return mPosition;
+    }
+
+    @Benchmark
+    public float[] batchDot () {
+        return position.dot(velocity, dots);
+    }
+
+    @Benchmark
+    public float[] objectDot () {
+        for (int i = 0; i < size; i++) {
+            dots[i] = mPosition[i].dot(mVelocity[i]);
+        }
+        return dots;
+    }
+
+    @Benchmark
+    public Vector3Batch batchNormalize () {
+        return velocity.normalize_();
+    }
+
+    @Benchmark
+    public MVector3[] objectNormalize () {
+        for (int i = 0; i < size; i++) {
+            mVelocity[i].normalize_();
+        }
+        return mVelocity;
+    }
+
+    @Benchmark
+    public Vector3Batch batchTransformDirection () {
+        return velocity.transformDirection_(transform);
+    }
+}
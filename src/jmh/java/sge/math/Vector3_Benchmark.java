@@ -0,0 +1,83 @@
+package sge.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Immutable Vector3 arithmetic against the destructive MVector3 equivalents.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Vector3_Benchmark {
+
+    private Vector3 a;
+    private Vector3 b;
+
+    private MVector3 ma;
+    private MVector3 mb;
+    private MVector3 mDest;
+
+    @Setup
+    public void setup () {
+        a = new Vector3(1.0f, 2.0f, 3.0f);
+        b = new Vector3(-4.0f, 0.5f, 2.0f);
+
+        ma = new MVector3(a);
+        mb = new MVector3(b);
+        mDest = new MVector3();
+    }
+
+    @Benchmark
+    public Vector3 add () {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public float dot () {
+        return a.dot(b);
+    }
+
+    @Benchmark
+    public Vector3 cross () {
+        return a.cross(b);
+    }
+
+    @Benchmark
+    public Vector3 normalize () {
+        return a.normalize();
+    }
+
+    @Benchmark
+    public MVector3 madd_ () {
+        return mDest.set_(ma).add_(mb);
+    }
+
+    @Benchmark
+    public float mdot () {
+        return ma.dot(mb);
+    }
+
+    @Benchmark
+    public MVector3 mcross_ () {
+        return mDest.set_(ma).cross_(mb);
+    }
+
+    @Benchmark
+    public MVector3 mnormalize_ () {
+        return mDest.set_(ma).normalize_();
+    }
+}
@@ -0,0 +1,55 @@
+package sge.noise;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generate a 2048 * 2048 Perlin heightmap on pools of different sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class NoiseField_Benchmark {
+
+    private static final int SIZE = 2048;
+
+    @Param({"1", "4", "16"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private NoiseField field;
+    private float[] out;
+
+    @Setup
+    public void setup () {
+        pool = new ForkJoinPool(threads);
+        field = new NoiseField(new Perlin(0.05f, 1.0f, 0.5f, 4, 12345L), pool);
+        out = new float[SIZE * SIZE];
+    }
+
+    @TearDown
+    public void tearDown () {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public float[] generate () {
+        return field.generate(out, SIZE, SIZE, 0.0f, 0.0f, 0.37f);
+    }
+}
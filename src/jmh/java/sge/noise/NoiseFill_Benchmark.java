@@ -0,0 +1,92 @@
+package sge.noise;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generate a size * size heightmap with fill() against a loop of get()
+ * calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class NoiseFill_Benchmark {
+
+    private static final float STEP = 0.37f;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    private Perlin perlin;
+    private Worley worley;
+    private SimpleNoise simple;
+
+    private float[] out;
+
+    @Setup
+    public void setup () {
+        perlin = new Perlin(0.05f, 1.0f, 0.5f, 4, 12345L);
+        worley = new Worley(0.05f, 1.0f, 12345L);
+        simple = new SimpleNoise(0.05f, 1.0f, 12345L);
+        out = new float[size * size];
+    }
+
+    @Benchmark
+    public float[] perlinFill () {
+        return perlin.fill(out, size, size, 0.0f, 0.0f, STEP);
+    }
+
+    @Benchmark
+    public float[] perlinGet () {
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                out[j * size + i] = perlin.get(i * STEP, j * STEP);
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public float[] worleyFill () {
+        return worley.fill(out, size, size, 0.0f, 0.0f, STEP);
+    }
+
+    @Benchmark
+    public float[] worleyGet () {
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                out[j * size + i] = worley.get(i * STEP, j * STEP);
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public float[] simpleFill () {
+        return simple.fill(out, size, size, 0.0f, 0.0f, STEP);
+    }
+
+    @Benchmark
+    public float[] simpleGet () {
+        for (int j = 0; j < size; j++) {
+            for (int i = 0; i < size; i++) {
+                out[j * size + i] = simple.get(i * STEP, j * STEP);
+            }
+        }
+        return out;
+    }
+}
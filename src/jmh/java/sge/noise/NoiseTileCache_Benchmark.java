@@ -0,0 +1,70 @@
+package sge.noise;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Walk a camera over a ring of tiles, fetching the 5x5 block of tiles
+ * around it from the cache, against generating the block each time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class NoiseTileCache_Benchmark {
+
+    private static final int TILE = 64;
+    private static final int RING = 16;
+
+    private Perlin perlin;
+    private NoiseTileCache cache;
+    private float[] tile;
+    private int position;
+
+    @Setup
+    public void setup () {
+        perlin = new Perlin(0.05f, 1.0f, 0.5f, 4, 12345L);
+        cache = new NoiseTileCache(TILE, 0.37f, NoiseTileCache.DEFAULT_MAX_BYTES);
+        tile = new float[TILE * TILE];
+        position = 0;
+    }
+
+    @Benchmark
+    public float cached () {
+        position = (position + 1) % RING;
+        float sum = 0.0f;
+
+        for (int j = -2; j <= 2; j++) {
+            for (int i = -2; i <= 2; i++) {
+                sum += cache.get(perlin, position + i, j, 0)[0];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float uncached () {
+        position = (position + 1) % RING;
+        float sum = 0.0f;
+
+        for (int j = -2; j <= 2; j++) {
+            for (int i = -2; i <= 2; i++) {
+                perlin.fill(tile, 0, TILE, (position + i) * TILE, j * TILE, TILE, TILE, 0.0f, 0.0f, 0.37f);
+                sum += tile[0];
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,77 @@
+package sge.noise;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-sample cost of the noise generators. The sample position walks
+ * across the field so that successive calls hit different lattice cells.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Noise_Benchmark {
+
+    private static final float STEP = 0.37f;
+
+    private Perlin perlin;
+    private Worley worley;
+    private SimpleNoise simple;
+
+    private float x;
+    private float y;
+
+    @Setup
+    public void setup () {
+        perlin = new Perlin(0.05f, 1.0f, 0.5f, 4, 12345L);
+        worley = new Worley(0.05f, 1.0f, 12345L);
+        simple = new SimpleNoise(0.05f, 1.0f, 12345L);
+        x = 0.0f;
+        y = 0.0f;
+    }
+
+    private void step () {
+        x += STEP;
+        if (x > 4096.0f) {
+            x = 0.0f;
+            y += STEP;
+        }
+    }
+
+    @Benchmark
+    public float perlin1D () {
+        step();
+        return perlin.get(x);
+    }
+
+    @Benchmark
+    public float perlin2D () {
+        step();
+        return perlin.get(x, y);
+    }
+
+    @Benchmark
+    public float worley2D () {
+        step();
+        return worley.get(x, y);
+    }
+
+    @Benchmark
+    public float simple2D () {
+        step();
+        return simple.get(x, y);
+    }
+}
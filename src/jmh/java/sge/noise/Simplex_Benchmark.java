@@ -0,0 +1,100 @@
+package sge.noise;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-sample cost of Simplex noise in 2, 3 and 4 dimensions against
+ * Perlin, for a single octave and for four octaves of fBm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Simplex_Benchmark {
+
+    private static final float STEP = 0.37f;
+
+    private Perlin perlin;
+    private Perlin perlin4;
+    private Simplex simplex;
+    private FractalNoise fbm4;
+
+    private float x;
+    private float y;
+    private float z;
+
+    @Setup
+    public void setup () {
+        perlin = new Perlin(0.05f, 1.0f, 0.5f, 1, 12345L);
+        perlin4 = new Perlin(0.05f, 1.0f, 0.5f, 4, 12345L);
+        simplex = new Simplex(12345L);
+        fbm4 = new FractalNoise(0.05f, 1.0f, 0.5f, 4, 12345L);
+        x = 0.0f;
+        y = 0.0f;
+        z = 0.0f;
+    }
+
+    private void step () {
+        x += STEP;
+        if (x > 4096.0f) {
+            x = 0.0f;
+            y += STEP;
+            z += 0.5f * STEP;
+        }
+    }
+
+    @Benchmark
+    public float perlin2D () {
+        step();
+        return perlin.get(x, y);
+    }
+
+    @Benchmark
+    public float simplex2D () {
+        step();
+        return simplex.get(x * 0.05f, y * 0.05f);
+    }
+
+    @Benchmark
+    public float simplex3D () {
+        step();
+        return simplex.get(x * 0.05f, y * 0.05f, z * 0.05f);
+    }
+
+    @Benchmark
+    public float simplex4D () {
+        step();
+        return simplex.get(x * 0.05f, y * 0.05f, z * 0.05f, x * 0.01f);
+    }
+
+    @Benchmark
+    public float perlinOctaves2D () {
+        step();
+        return perlin4.get(x, y);
+    }
+
+    @Benchmark
+    public float fbmOctaves2D () {
+        step();
+        return fbm4.get(x, y);
+    }
+
+    @Benchmark
+    public float fbmOctaves3D () {
+        step();
+        return fbm4.get(x, y, z);
+    }
+}
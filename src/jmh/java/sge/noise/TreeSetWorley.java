@@ -0,0 +1,58 @@
+package sge.noise;
+
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import sge.math.FMath;
+import sge.math.Vector2;
+
+/**
+ * The original 2D Worley evaluation, with a Random per cell, Vector2
+ * points and a TreeSet of boxed distances, kept as a baseline for
+ * {@link Worley_Benchmark}. Uses Euclidian distance and F1.
+ */
+final class TreeSetWorley {
+
+    private static final int MAX_FEATURE_POINTS = 8;
+
+    private final int seed;
+    private final float frequency;
+    private final float amplitude;
+
+    TreeSetWorley (final float freq, final float amp, final long seed) {
+        this.seed = (int) (seed << 16);
+        frequency = freq;
+        amplitude = amp;
+    }
+
+    float get (final float x, final float y) {
+        return FMath.clamp(amplitude * worley(x * frequency, y * frequency), -1f, 1f);
+    }
+
+    private float worley (final float x, final float y) {
+        NavigableSet<Float> distanceArray = new TreeSet<Float>();
+        int cellX = (int) x;
+        int cellY = (int) y;
+        Vector2 v = new Vector2(x, y);
+
+        for (int p = -1; p <= 1; p++) {
+            for (int q = -1; q <= 1; q++) {
+                int sqX = cellX + p;
+                int sqY = cellY + q;
+                Random r = new Random(Noise.hash(sqX + seed, sqY + seed));
+                int featurePoints = r.nextInt(MAX_FEATURE_POINTS - 1) + 1;
+
+                for (int i = 0; i < featurePoints; i++) {
+                    Vector2 point = new Vector2(sqX + r.nextFloat(), sqY + r.nextFloat());
+                    float distance = (v.x - point.x) * (v.x - point.x) + (v.y - point.y) * (v.y - point.y);
+                    if (distanceArray.isEmpty() || distance < distanceArray.last()) {
+                        distanceArray.add(distance);
+                    }
+                }
+            }
+        }
+
+        return (distanceArray.first() - 0.5f) * 2.0f;
+    }
+}
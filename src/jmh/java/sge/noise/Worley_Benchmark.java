@@ -0,0 +1,63 @@
+package sge.noise;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-sample cost of 2D Worley noise against the original TreeSet
+ * based evaluation. Check gc.alloc.rate.norm for allocation per sample.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Worley_Benchmark {
+
+    private static final float STEP = 0.37f;
+
+    private Worley worley;
+    private TreeSetWorley treeSet;
+
+    private float x;
+    private float y;
+
+    @Setup
+    public void setup () {
+        worley = new Worley(0.05f, 1.0f, 12345L);
+        treeSet = new TreeSetWorley(0.05f, 1.0f, 12345L);
+        x = 0.0f;
+        y = 0.0f;
+    }
+
+    private void step () {
+        x += STEP;
+        if (x > 4096.0f) {
+            x = 0.0f;
+            y += STEP;
+        }
+    }
+
+    @Benchmark
+    public float worley () {
+        step();
+        return worley.get(x, y);
+    }
+
+    @Benchmark
+    public float treeSet () {
+        step();
+        return treeSet.get(x, y);
+    }
+}
@@ -0,0 +1,47 @@
+package sge.util;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fresh direct buffer allocation against pooled allocate/release, for
+ * uniform sized (16 float) and vertex sized uploads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DirectBufferPool_Benchmark {
+
+    @Param({"16", "65536"})
+    public int floats;
+
+    @Benchmark
+    public FloatBuffer create () {
+        FloatBuffer f = DirectBuffer.createFloatBuffer(floats);
+        f.put(0, 1.0f);
+        return f;
+    }
+
+    @Benchmark
+    public FloatBuffer pooled () {
+        PooledBuffer<FloatBuffer> pooled = DirectBufferPool.allocateFloatBuffer(floats);
+        FloatBuffer f = pooled.buffer();
+        f.put(0, 1.0f);
+        DirectBufferPool.release(pooled);
+        return f;
+    }
+}
@@ -1,5 +1,6 @@
 package sge.bounds;
 
+import sge.math.BatchKernels;
 import sge.math.MVector3;
 import sge.math.Vector3;
 import sge.math.Vectors;
@@ -9,8 +10,10 @@ import sge.math.Vectors;
  */
 public final class AABB {
 
-    private float xMin, yMin, zMin;
-    private float xMax, yMax, zMax;
+    // Package access so that broadphase structures can read bounds
+    // without allocating min()/max() vectors.
+    float xMin, yMin, zMin;
+    float xMax, yMax, zMax;
 
     /**
      * Create a zero sized AABB at the origin.
@@ -163,6 +166,22 @@ public final class AABB {
         return true;
     }
 
+    /**
+     * Test boxes given as arrays of min and max corners against this.
+     * Bit i of hits is set if box i intersects this, and cleared
+     * otherwise. Runs on {@link BatchKernels#get()}.
+     *
+     * @param count Number of boxes.
+     * @param hits Bitset with at least (count + 63) / 64 words.
+     * @return Number of intersecting boxes.
+     */
+    public int intersects (final float[] minX, final float[] minY, final float[] minZ,
+                           final float[] maxX, final float[] maxY, final float[] maxZ,
+                           final int count, final long[] hits) {
+        return BatchKernels.get().overlaps(xMin, yMin, zMin, xMax, yMax, zMax,
+                                           minX, minY, minZ, maxX, maxY, maxZ, count, hits);
+    }
+
     /**
      * Minimum bounding box for a set of points.
      * Destructive.
@@ -0,0 +1,257 @@
+package sge.bounds;
+
+import sge.math.Matrix4;
+import sge.math.Vector3;
+import sge.math.Vector4;
+
+/**
+ * View frustum as six inward facing planes, extracted from a
+ * view-projection Matrix4 with OpenGL clip space (-w <= x, y, z <= w).
+ *
+ * Tests are conservative: nothing visible is rejected, but a box or
+ * sphere near a corner of the frustum may be accepted while lying
+ * just outside it.
+ */
+public final class Frustum {
+
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int BOTTOM = 2;
+    public static final int TOP = 3;
+    public static final int NEAR = 4;
+    public static final int FAR = 5;
+
+    public static final int PLANE_COUNT = 6;
+
+    // Package access so that scene indexes can walk the planes directly.
+    // Plane i is (a, b, c, d) at planes[i * 4], with unit normal (a, b, c)
+    // and a * x + b * y + c * z + d >= 0 on the inside.
+    final float[] planes = new float[PLANE_COUNT * 4];
+
+    /** |a|, |b|, |c| for each plane, to project box extents. */
+    private final float[] extents = new float[PLANE_COUNT * 3];
+
+    /**
+     * Create a frustum for the identity matrix: the -1..1 cube.
+     */
+    public Frustum () {
+        set_(Matrix4.IDENTITY);
+    }
+
+    /**
+     * Create the frustum of a view-projection matrix.
+     */
+    public Frustum (final Matrix4 viewProjection) {
+        set_(viewProjection);
+    }
+
+    /**
+     * Extract the planes of a view-projection matrix.
+     * Destructive.
+     */
+    public Frustum set_ (final Matrix4 viewProjection) {
+        final float[] m = viewProjection.mat;
+
+        // Each plane is the w row plus or minus the x, y or z row.
+        for (int i = 0; i < PLANE_COUNT; i++) {
+            int row = i >> 1;
+            float sign = ((i & 1) == 0) ? 1.0f : -1.0f;
+
+            float a = m[3] + sign * m[row];
+            float b = m[7] + sign * m[row + 4];
+            float c = m[11] + sign * m[row + 8];
+            float d = m[15] + sign * m[row + 12];
+
+            float length = (float) Math.sqrt(a * a + b * b + c * c);
+            float scale = (length > 0.0f) ? 1.0f / length : 0.0f;
+
+            int p = i * 4;
+            planes[p] = a * scale;
+            planes[p + 1] = b * scale;
+            planes[p + 2] = c * scale;
+            planes[p + 3] = d * scale;
+
+            int e = i * 3;
+            extents[e] = Math.abs(planes[p]);
+            extents[e + 1] = Math.abs(planes[p + 1]);
+            extents[e + 2] = Math.abs(planes[p + 2]);
+        }
+        return this;
+    }
+
+    /**
+     * @param plane One of LEFT, RIGHT, BOTTOM, TOP, NEAR or FAR.
+     * @return Plane (a, b, c, d) with unit normal pointing inside.
+     */
+    public Vector4 getPlane (final int plane) {
+        int p = plane * 4;
+        return new Vector4(planes[p], planes[p + 1], planes[p + 2], planes[p + 3]);
+    }
+
+    /**
+     * Test if a point lies inside the frustum, including touching.
+     */
+    public boolean contains (final Vector3 point) {
+        for (int p = 0; p < PLANE_COUNT * 4; p += 4) {
+            if (planes[p] * point.x + planes[p + 1] * point.y + planes[p + 2] * point.z + planes[p + 3] < 0.0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Test if a box may be visible.
+     */
+    public boolean intersects (final AABB box) {
+        return intersects(box.xMin, box.yMin, box.zMin, box.xMax, box.yMax, box.zMax);
+    }
+
+    /**
+     * Test if a box may be visible.
+     */
+    public boolean intersects (final float xMin, final float yMin, final float zMin,
+                               final float xMax, final float yMax, final float zMax) {
+        float cx = (xMin + xMax) * 0.5f, cy = (yMin + yMax) * 0.5f, cz = (zMin + zMax) * 0.5f;
+        float ex = (xMax - xMin) * 0.5f, ey = (yMax - yMin) * 0.5f, ez = (zMax - zMin) * 0.5f;
+
+        return outsidePlane(0, cx, cy, cz, ex, ey, ez) < 0;
+    }
+
+    /**
+     * Test if a sphere may be visible.
+     */
+    public boolean intersects (final Sphere sphere) {
+        Vector3 origin = sphere.getOrigin();
+        return intersects(origin.x, origin.y, origin.z, sphere.getRadius());
+    }
+
+    /**
+     * Test if a sphere may be visible.
+     */
+    public boolean intersects (final float x, final float y, final float z, final float radius) {
+        return outsidePlane(0, x, y, z, radius) < 0;
+    }
+
+    /**
+     * Cull boxes given as arrays of centres and half extents. Bit i of
+     * visible is set if box i may be visible, and cleared otherwise.
+     *
+     * @param count Number of boxes.
+     * @param visible Bitset with at least (count + 63) / 64 words.
+     * @return Number of boxes which may be visible.
+     */
+    public int cullBoxes (final float[] cx, final float[] cy, final float[] cz,
+                          final float[] ex, final float[] ey, final float[] ez,
+                          final int count, final long[] visible) {
+        return cullBoxes(cx, cy, cz, ex, ey, ez, count, visible, null);
+    }
+
+    /**
+     * Cull boxes given as arrays of centres and half extents, as
+     * cullBoxes above.
+     *
+     * Each entry of lastPlane holds the plane which culled that box
+     * last time, or 0. It is tested first and updated, which usually
+     * culls an object which has stayed out of view with a single test.
+     */
+    public int cullBoxes (final float[] cx, final float[] cy, final float[] cz,
+                          final float[] ex, final float[] ey, final float[] ez,
+                          final int count, final long[] visible, final int[] lastPlane) {
+        clearBits(visible, count);
+
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int first = (null == lastPlane) ? 0 : lastPlane[i];
+            int plane = outsidePlane(first, cx[i], cy[i], cz[i], ex[i], ey[i], ez[i]);
+
+            if (plane < 0) {
+                visible[i >>> 6] |= 1L << i;
+                found++;
+            } else if (null != lastPlane) {
+                lastPlane[i] = plane;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Cull spheres given as arrays of centres and radii. Bit i of
+     * visible is set if sphere i may be visible, and cleared otherwise.
+     *
+     * @param count Number of spheres.
+     * @param visible Bitset with at least (count + 63) / 64 words.
+     * @return Number of spheres which may be visible.
+     */
+    public int cullSpheres (final float[] x, final float[] y, final float[] z, final float[] radius,
+                            final int count, final long[] visible) {
+        return cullSpheres(x, y, z, radius, count, visible, null);
+    }
+
+    /**
+     * Cull spheres given as arrays of centres and radii, using and
+     * updating the plane which culled each one last time, as cullBoxes.
+     */
+    public int cullSpheres (final float[] x, final float[] y, final float[] z, final float[] radius,
+                            final int count, final long[] visible, final int[] lastPlane) {
+        clearBits(visible, count);
+
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int first = (null == lastPlane) ? 0 : lastPlane[i];
+            int plane = outsidePlane(first, x[i], y[i], z[i], radius[i]);
+
+            if (plane < 0) {
+                visible[i >>> 6] |= 1L << i;
+                found++;
+            } else if (null != lastPlane) {
+                lastPlane[i] = plane;
+            }
+        }
+        return found;
+    }
+
+    private static void clearBits (final long[] bits, final int count) {
+        for (int w = 0, wMax = (count + 63) >>> 6; w < wMax; w++) {
+            bits[w] = 0L;
+        }
+    }
+
+    /**
+     * Find a plane with the box entirely behind it, starting at plane
+     * first. A box is outside a plane when the corner furthest along
+     * its normal is behind it.
+     *
+     * @return The plane, or -1 if the box may be visible.
+     */
+    private int outsidePlane (final int first,
+                              final float cx, final float cy, final float cz,
+                              final float ex, final float ey, final float ez) {
+        for (int n = 0, i = first; n < PLANE_COUNT; n++, i = (i == PLANE_COUNT - 1) ? 0 : i + 1) {
+            int p = i * 4, e = i * 3;
+
+            if (planes[p] * cx + planes[p + 1] * cy + planes[p + 2] * cz + planes[p + 3] +
+                    extents[e] * ex + extents[e + 1] * ey + extents[e + 2] * ez < 0.0f) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find a plane with the sphere entirely behind it, starting at
+     * plane first.
+     *
+     * @return The plane, or -1 if the sphere may be visible.
+     */
+    private int outsidePlane (final int first, final float x, final float y, final float z, final float radius) {
+        for (int n = 0, i = first; n < PLANE_COUNT; n++, i = (i == PLANE_COUNT - 1) ? 0 : i + 1) {
+            int p = i * 4;
+
+            if (planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3] < -radius) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
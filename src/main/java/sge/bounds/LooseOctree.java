@@ -0,0 +1,802 @@
+package sge.bounds;
+
+import java.util.Arrays;
+
+import sge.util.IntList;
+
+/**
+ * Loose octree of AABBs and Spheres, for finding the objects inside a
+ * box, sphere or frustum in a scene where many objects move each frame.
+ *
+ * Each node's loose bounds are twice the size of its cell, so an object
+ * belongs in the node whose cell holds its centre, at the deepest level
+ * whose cells are at least as large as the object. That node is found
+ * by walking down from the root, or from an object's current node when
+ * it moves, so insert, update and remove take O(depth), and an update
+ * which stays in the same node is O(1).
+ *
+ * A leaf is split when it holds more than the leaf capacity, and
+ * children are merged back when their subtree holds at most half of it.
+ * Nodes are allocated eight at a time from a pool, so once the tree has
+ * grown, updates and queries allocate nothing. Objects outside the
+ * world bounds, or larger than it, are kept in the root.
+ *
+ * Objects are given an integer id when inserted, and their bounds are
+ * copied. Not thread safe, including queries.
+ */
+public final class LooseOctree {
+
+    public static final int DEFAULT_LEAF_CAPACITY = 8;
+    public static final int DEFAULT_MAX_DEPTH = 8;
+
+    private static final byte BOX = 0;
+    private static final byte SPHERE = 1;
+
+    private final int leafCapacity;
+    private final int maxDepth;
+
+    // Nodes. Geometry is the cell centre and half size, 4 floats per
+    // node. Children are 8 consecutive nodes, the first of which is
+    // firstChild (-1 for a leaf); free blocks of children are chained
+    // through firstChild. Objects directly in a node form a doubly
+    // linked list from head; total counts the node's whole subtree.
+    private float[] geometry;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] depth;
+    private int[] head;
+    private int[] count;
+    private int[] total;
+    private int nodeCount = 1;
+    private int freeBlock = -1;
+
+    // Objects, by id. Bounds are xMin, yMin, zMin, xMax, yMax, zMax for
+    // every object, and spheres also keep x, y, z, radius.
+    private float[] boxes = new float[16 * 6];
+    private float[] spheres = new float[16 * 4];
+    private byte[] kinds = new byte[16];
+    private int[] node = new int[16];
+    private int[] prev = new int[16];
+    private int[] next = new int[16];
+    private int idCount = 0;
+    private int size = 0;
+
+    private int[] free = new int[16];
+    private int freeCount = 0;
+
+    private int[] stack = new int[64];
+
+    /**
+     * Create an octree over a world volume with the default leaf
+     * capacity and maximum depth.
+     */
+    public LooseOctree (final AABB world) {
+        this(world, DEFAULT_LEAF_CAPACITY, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param world Volume to divide. It is treated as a cube around
+     *              its centre, as large as its longest side.
+     * @param leafCapacity Objects a leaf may hold before it is split.
+     * @param maxDepth Deepest level of nodes, the root being level 0.
+     */
+    public LooseOctree (final AABB world, final int leafCapacity, final int maxDepth) {
+        if (leafCapacity < 1) {
+            throw new IllegalArgumentException("Leaf capacity must be positive: " + leafCapacity);
+        }
+        if (maxDepth < 0 || maxDepth > 20) {
+            throw new IllegalArgumentException("Max depth must be in 0..20: " + maxDepth);
+        }
+
+        this.leafCapacity = leafCapacity;
+        this.maxDepth = maxDepth;
+
+        int capacity = 1 + 8 * 16;
+        geometry = new float[capacity * 4];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        depth = new int[capacity];
+        head = new int[capacity];
+        count = new int[capacity];
+        total = new int[capacity];
+
+        geometry[0] = (world.xMin + world.xMax) * 0.5f;
+        geometry[1] = (world.yMin + world.yMax) * 0.5f;
+        geometry[2] = (world.zMin + world.zMax) * 0.5f;
+        geometry[3] = Math.max(world.xMax - world.xMin, Math.max(world.yMax - world.yMin, world.zMax - world.zMin)) * 0.5f;
+        parent[0] = -1;
+        firstChild[0] = -1;
+        head[0] = -1;
+    }
+
+    public int getLeafCapacity () {
+        return leafCapacity;
+    }
+
+    public int getMaxDepth () {
+        return maxDepth;
+    }
+
+    /**
+     * @return Number of objects.
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * @return Number of nodes in use, including the root.
+     */
+    public int getNodeCount () {
+        int n = nodeCount;
+        for (int b = freeBlock; b >= 0; b = firstChild[b]) {
+            n -= 8;
+        }
+        return n;
+    }
+
+    /**
+     * @return Level of the node holding an object, the root being 0.
+     */
+    public int getDepth (final int id) {
+        check(id);
+        return depth[node[id]];
+    }
+
+    // OBJECTS
+
+    /**
+     * Insert a box.
+     *
+     * @return The object's id.
+     */
+    public int insert (final AABB box) {
+        int id = allocate();
+        setBox(id, box.xMin, box.yMin, box.zMin, box.xMax, box.yMax, box.zMax);
+        place(id, 0);
+        return id;
+    }
+
+    /**
+     * Insert a sphere.
+     *
+     * @return The object's id.
+     */
+    public int insert (final Sphere sphere) {
+        int id = allocate();
+        setSphere(id, sphere);
+        place(id, 0);
+        return id;
+    }
+
+    /**
+     * Move an object to a new box.
+     */
+    public void update (final int id, final AABB box) {
+        check(id);
+        setBox(id, box.xMin, box.yMin, box.zMin, box.xMax, box.yMax, box.zMax);
+        move(id);
+    }
+
+    /**
+     * Move an object to a new sphere.
+     */
+    public void update (final int id, final Sphere sphere) {
+        check(id);
+        setSphere(id, sphere);
+        move(id);
+    }
+
+    /**
+     * Move an object to a new box.
+     */
+    public void update (final int id, final float xMin, final float yMin, final float zMin,
+                        final float xMax, final float yMax, final float zMax) {
+        check(id);
+        setBox(id, xMin, yMin, zMin, xMax, yMax, zMax);
+        move(id);
+    }
+
+    /**
+     * Remove an object. Its id may be reused by the next insert.
+     */
+    public void remove (final int id) {
+        check(id);
+
+        int n = node[id];
+        unlink(id);
+        node[id] = -1;
+        size--;
+
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = id;
+
+        merge(n);
+    }
+
+    private void check (final int id) {
+        if (id < 0 || id >= idCount || node[id] < 0) {
+            throw new IllegalArgumentException("No such object: " + id);
+        }
+    }
+
+    private int allocate () {
+        int id;
+
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        } else {
+            id = idCount++;
+            if (idCount > kinds.length) {
+                int capacity = Math.max(idCount, kinds.length * 2);
+                boxes = Arrays.copyOf(boxes, capacity * 6);
+                spheres = Arrays.copyOf(spheres, capacity * 4);
+                kinds = Arrays.copyOf(kinds, capacity);
+                node = Arrays.copyOf(node, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+        }
+
+        size++;
+        return id;
+    }
+
+    private void setBox (final int id, final float xMin, final float yMin, final float zMin,
+                         final float xMax, final float yMax, final float zMax) {
+        int o = id * 6;
+        kinds[id] = BOX;
+        boxes[o] = xMin;
+        boxes[o + 1] = yMin;
+        boxes[o + 2] = zMin;
+        boxes[o + 3] = xMax;
+        boxes[o + 4] = yMax;
+        boxes[o + 5] = zMax;
+    }
+
+    private void setSphere (final int id, final Sphere sphere) {
+        float x = sphere.getOrigin().x, y = sphere.getOrigin().y, z = sphere.getOrigin().z;
+        float r = sphere.getRadius();
+
+        setBox(id, x - r, y - r, z - r, x + r, y + r, z + r);
+        kinds[id] = SPHERE;
+
+        int o = id * 4;
+        spheres[o] = x;
+        spheres[o + 1] = y;
+        spheres[o + 2] = z;
+        spheres[o + 3] = r;
+    }
+
+    /**
+     * @return true if an object belongs in a node or one of its
+     *   descendants: its centre is in the node's cell and it is no
+     *   larger than the cell.
+     */
+    private boolean fits (final int id, final int n) {
+        final float[] b = boxes;
+        final float[] g = geometry;
+        int o = id * 6, p = n * 4;
+        float h = g[p + 3];
+
+        float x = (b[o] + b[o + 3]) * 0.5f - g[p];
+        float y = (b[o + 1] + b[o + 4]) * 0.5f - g[p + 1];
+        float z = (b[o + 2] + b[o + 5]) * 0.5f - g[p + 2];
+
+        return x >= -h && x < h && y >= -h && y < h && z >= -h && z < h
+                && b[o + 3] - b[o] <= 2.0f * h && b[o + 4] - b[o + 1] <= 2.0f * h && b[o + 5] - b[o + 2] <= 2.0f * h;
+    }
+
+    /**
+     * @return The child of n whose cell holds an object's centre.
+     */
+    private int child (final int id, final int n) {
+        final float[] b = boxes;
+        final float[] g = geometry;
+        int o = id * 6, p = n * 4;
+        int i = 0;
+
+        if (b[o] + b[o + 3] >= 2.0f * g[p]) {
+            i |= 1;
+        }
+        if (b[o + 1] + b[o + 4] >= 2.0f * g[p + 1]) {
+            i |= 2;
+        }
+        if (b[o + 2] + b[o + 5] >= 2.0f * g[p + 2]) {
+            i |= 4;
+        }
+        return firstChild[n] + i;
+    }
+
+    /**
+     * Find the deepest existing node an object belongs in, starting
+     * from a node it belongs in (or the root).
+     */
+    private int descend (final int id, int n) {
+        if (0 == n && !fits(id, 0)) {
+            return 0;
+        }
+
+        while (firstChild[n] >= 0) {
+            int c = child(id, n);
+            if (!fits(id, c)) {
+                break;
+            }
+            n = c;
+        }
+        return n;
+    }
+
+    private void place (final int id, final int from) {
+        int n = descend(id, from);
+        link(id, n);
+        split(n);
+    }
+
+    private void move (final int id) {
+        int from = node[id];
+        int n = from;
+
+        while (n != 0 && !fits(id, n)) {
+            n = parent[n];
+        }
+        n = descend(id, n);
+
+        if (n != from) {
+            unlink(id);
+            link(id, n);
+            merge(from);
+            split(node[id]);
+        }
+    }
+
+    private void link (final int id, final int n) {
+        node[id] = n;
+        prev[id] = -1;
+        next[id] = head[n];
+        if (head[n] >= 0) {
+            prev[head[n]] = id;
+        }
+        head[n] = id;
+        count[n]++;
+
+        for (int p = n; p >= 0; p = parent[p]) {
+            total[p]++;
+        }
+    }
+
+    private void unlink (final int id) {
+        int n = node[id];
+
+        if (prev[id] >= 0) {
+            next[prev[id]] = next[id];
+        } else {
+            head[n] = next[id];
+        }
+        if (next[id] >= 0) {
+            prev[next[id]] = prev[id];
+        }
+        count[n]--;
+
+        for (int p = n; p >= 0; p = parent[p]) {
+            total[p]--;
+        }
+    }
+
+    // NODES
+
+    /**
+     * Split a leaf holding too many objects, moving down the objects
+     * which fit in its children.
+     */
+    private void split (final int n) {
+        if (firstChild[n] >= 0 || count[n] <= leafCapacity || depth[n] >= maxDepth) {
+            return;
+        }
+
+        int c = allocateBlock();
+        float[] g = geometry;
+        int p = n * 4;
+        float h = g[p + 3] * 0.5f;
+
+        for (int i = 0; i < 8; i++) {
+            int q = (c + i) * 4;
+            g[q] = g[p] + (((i & 1) != 0) ? h : -h);
+            g[q + 1] = g[p + 1] + (((i & 2) != 0) ? h : -h);
+            g[q + 2] = g[p + 2] + (((i & 4) != 0) ? h : -h);
+            g[q + 3] = h;
+            parent[c + i] = n;
+            firstChild[c + i] = -1;
+            depth[c + i] = depth[n] + 1;
+            head[c + i] = -1;
+            count[c + i] = 0;
+            total[c + i] = 0;
+        }
+        firstChild[n] = c;
+
+        // Objects at the root may lie outside its cell.
+        for (int id = head[n]; id >= 0; ) {
+            int following = next[id];
+
+            if (0 != n || fits(id, 0)) {
+                int target = child(id, n);
+                if (fits(id, target)) {
+                    unlink(id);
+                    link(id, target);
+                }
+            }
+            id = following;
+        }
+
+        for (int i = 0; i < 8; i++) {
+            split(c + i);
+        }
+    }
+
+    /**
+     * After an object has left node n, merge the children of its
+     * ancestors back into them while their subtrees are small.
+     */
+    private void merge (final int n) {
+        int p = (firstChild[n] >= 0) ? n : parent[n];
+
+        while (p >= 0 && total[p] <= leafCapacity / 2 && childrenAreLeaves(p)) {
+            int c = firstChild[p];
+
+            for (int i = 0; i < 8; i++) {
+                for (int id = head[c + i]; id >= 0; ) {
+                    int following = next[id];
+                    unlink(id);
+                    link(id, p);
+                    id = following;
+                }
+            }
+
+            firstChild[p] = -1;
+            firstChild[c] = freeBlock;
+            freeBlock = c;
+
+            p = parent[p];
+        }
+    }
+
+    private boolean childrenAreLeaves (final int n) {
+        int c = firstChild[n];
+        if (c < 0) {
+            return false;
+        }
+
+        for (int i = 0; i < 8; i++) {
+            if (firstChild[c + i] >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int allocateBlock () {
+        if (freeBlock >= 0) {
+            int c = freeBlock;
+            freeBlock = firstChild[c];
+            return c;
+        }
+
+        if (nodeCount + 8 > parent.length) {
+            int capacity = parent.length * 2;
+            geometry = Arrays.copyOf(geometry, capacity * 4);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            head = Arrays.copyOf(head, capacity);
+            count = Arrays.copyOf(count, capacity);
+            total = Arrays.copyOf(total, capacity);
+        }
+
+        int c = nodeCount;
+        nodeCount += 8;
+        return c;
+    }
+
+    // QUERIES
+
+    private static final int OUTSIDE = 0;
+    private static final int INTERSECTS = 1;
+    private static final int INSIDE = 2;
+
+    /** Query shapes: a box, sphere or set of planes. */
+    private static final int QUERY_BOX = 0;
+    private static final int QUERY_SPHERE = 1;
+    private static final int QUERY_PLANES = 2;
+
+    private int queryKind;
+    private float qxMin, qyMin, qzMin, qxMax, qyMax, qzMax;
+    private float qx, qy, qz, qr;
+    private float[] qPlanes;
+    private int qPlaneCount;
+
+    /**
+     * Find the objects which intersect a box, including touching.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryBox (final AABB box, final IntList results) {
+        return queryBox(box.xMin, box.yMin, box.zMin, box.xMax, box.yMax, box.zMax, results);
+    }
+
+    /**
+     * Find the objects which intersect a box, including touching.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryBox (final float xMin, final float yMin, final float zMin,
+                         final float xMax, final float yMax, final float zMax, final IntList results) {
+        queryKind = QUERY_BOX;
+        qxMin = xMin;
+        qyMin = yMin;
+        qzMin = zMin;
+        qxMax = xMax;
+        qyMax = yMax;
+        qzMax = zMax;
+        return query(results);
+    }
+
+    /**
+     * Find the objects which intersect a sphere, including touching.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int querySphere (final Sphere sphere, final IntList results) {
+        return querySphere(sphere.getOrigin().x, sphere.getOrigin().y, sphere.getOrigin().z,
+                           sphere.getRadius(), results);
+    }
+
+    /**
+     * Find the objects which intersect a sphere, including touching.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int querySphere (final float x, final float y, final float z, final float radius,
+                            final IntList results) {
+        queryKind = QUERY_SPHERE;
+        qx = x;
+        qy = y;
+        qz = z;
+        qr = radius;
+        return query(results);
+    }
+
+    /**
+     * Find the objects which are at least partly inside a convex volume,
+     * such as a view frustum, given as the intersection of the half
+     * spaces a * x + b * y + c * z + d >= 0.
+     *
+     * Boxes are tested exactly against each plane, so a box lying
+     * outside the volume but crossing several of its planes may be
+     * included. For spheres to be tested correctly, (a, b, c) must be
+     * unit length.
+     *
+     * @param planes planeCount planes, 4 floats (a, b, c, d) each.
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryPlanes (final float[] planes, final int planeCount, final IntList results) {
+        queryKind = QUERY_PLANES;
+        qPlanes = planes;
+        qPlaneCount = planeCount;
+
+        try {
+            return query(results);
+        } finally {
+            qPlanes = null;
+        }
+    }
+
+    /**
+     * Find the objects which may be visible in a view frustum.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryFrustum (final Frustum frustum, final IntList results) {
+        return queryPlanes(frustum.planes, Frustum.PLANE_COUNT, results);
+    }
+
+    private int query (final IntList results) {
+        final int start = results.size();
+        int sp = 0;
+
+        // The root's objects may lie outside its loose bounds, so they
+        // are always tested.
+        testObjects(0, results);
+        if (firstChild[0] >= 0) {
+            sp = pushChildren(0, sp);
+        }
+
+        while (sp > 0) {
+            int n = stack[--sp];
+            int relation = relation(n);
+
+            if (OUTSIDE == relation) {
+                continue;
+            }
+
+            if (INSIDE == relation) {
+                addSubtree(n, results);
+                continue;
+            }
+
+            testObjects(n, results);
+            if (firstChild[n] >= 0) {
+                sp = pushChildren(n, sp);
+            }
+        }
+
+        return results.size() - start;
+    }
+
+    private int pushChildren (final int n, int sp) {
+        if (sp + 8 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+
+        int c = firstChild[n];
+        for (int i = 0; i < 8; i++) {
+            if (total[c + i] > 0) {
+                stack[sp++] = c + i;
+            }
+        }
+        return sp;
+    }
+
+    /**
+     * Add every object in a subtree, without testing them.
+     */
+    private void addSubtree (final int n, final IntList results) {
+        for (int id = head[n]; id >= 0; id = next[id]) {
+            results.add(id);
+        }
+
+        int c = firstChild[n];
+        if (c >= 0) {
+            for (int i = 0; i < 8; i++) {
+                if (total[c + i] > 0) {
+                    addSubtree(c + i, results);
+                }
+            }
+        }
+    }
+
+    private void testObjects (final int n, final IntList results) {
+        for (int id = head[n]; id >= 0; id = next[id]) {
+            if (intersects(id)) {
+                results.add(id);
+            }
+        }
+    }
+
+    /**
+     * @return How a node's loose bounds relate to the query.
+     */
+    private int relation (final int n) {
+        final float[] g = geometry;
+        int p = n * 4;
+        float cx = g[p], cy = g[p + 1], cz = g[p + 2];
+        float e = g[p + 3] * 2.0f;
+
+        switch (queryKind) {
+            case QUERY_BOX:
+                if (cx - e > qxMax || cx + e < qxMin || cy - e > qyMax || cy + e < qyMin
+                        || cz - e > qzMax || cz + e < qzMin) {
+                    return OUTSIDE;
+                }
+                if (cx - e >= qxMin && cx + e <= qxMax && cy - e >= qyMin && cy + e <= qyMax
+                        && cz - e >= qzMin && cz + e <= qzMax) {
+                    return INSIDE;
+                }
+                return INTERSECTS;
+
+            case QUERY_SPHERE: {
+                float r2 = qr * qr;
+                if (distanceSqr(qx, qy, qz, cx - e, cy - e, cz - e, cx + e, cy + e, cz + e) > r2) {
+                    return OUTSIDE;
+                }
+
+                float fx = Math.abs(qx - cx) + e, fy = Math.abs(qy - cy) + e, fz = Math.abs(qz - cz) + e;
+                return (fx * fx + fy * fy + fz * fz <= r2) ? INSIDE : INTERSECTS;
+            }
+
+            default:
+                return planeRelation(cx, cy, cz, e, e, e);
+        }
+    }
+
+    private int planeRelation (final float cx, final float cy, final float cz,
+                               final float ex, final float ey, final float ez) {
+        final float[] pl = qPlanes;
+        int relation = INSIDE;
+
+        for (int i = 0, o = 0; i < qPlaneCount; i++, o += 4) {
+            float a = pl[o], b = pl[o + 1], c = pl[o + 2];
+            float s = a * cx + b * cy + c * cz + pl[o + 3];
+            float r = Math.abs(a) * ex + Math.abs(b) * ey + Math.abs(c) * ez;
+
+            if (s < -r) {
+                return OUTSIDE;
+            }
+            if (s < r) {
+                relation = INTERSECTS;
+            }
+        }
+        return relation;
+    }
+
+    private boolean intersects (final int id) {
+        final float[] b = boxes;
+        int o = id * 6;
+
+        if (kinds[id] == SPHERE) {
+            final float[] s = spheres;
+            int p = id * 4;
+            float x = s[p], y = s[p + 1], z = s[p + 2], r = s[p + 3];
+
+            switch (queryKind) {
+                case QUERY_BOX:
+                    return distanceSqr(x, y, z, qxMin, qyMin, qzMin, qxMax, qyMax, qzMax) <= r * r;
+
+                case QUERY_SPHERE: {
+                    float dx = x - qx, dy = y - qy, dz = z - qz, rr = r + qr;
+                    return dx * dx + dy * dy + dz * dz <= rr * rr;
+                }
+
+                default: {
+                    final float[] pl = qPlanes;
+                    for (int i = 0, q = 0; i < qPlaneCount; i++, q += 4) {
+                        if (pl[q] * x + pl[q + 1] * y + pl[q + 2] * z + pl[q + 3] < -r) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+
+        switch (queryKind) {
+            case QUERY_BOX:
+                return b[o] <= qxMax && b[o + 3] >= qxMin && b[o + 1] <= qyMax && b[o + 4] >= qyMin
+                        && b[o + 2] <= qzMax && b[o + 5] >= qzMin;
+
+            case QUERY_SPHERE:
+                return distanceSqr(qx, qy, qz, b[o], b[o + 1], b[o + 2], b[o + 3], b[o + 4], b[o + 5]) <= qr * qr;
+
+            default:
+                return planeRelation((b[o] + b[o + 3]) * 0.5f, (b[o + 1] + b[o + 4]) * 0.5f, (b[o + 2] + b[o + 5]) * 0.5f,
+                                     (b[o + 3] - b[o]) * 0.5f, (b[o + 4] - b[o + 1]) * 0.5f, (b[o + 5] - b[o + 2]) * 0.5f)
+                        != OUTSIDE;
+        }
+    }
+
+    /**
+     * Squared distance from a point to a box, 0 inside it.
+     */
+    private static float distanceSqr (final float x, final float y, final float z,
+                                      final float xMin, final float yMin, final float zMin,
+                                      final float xMax, final float yMax, final float zMax) {
+        float dx = (x < xMin) ? xMin - x : (x > xMax) ? x - xMax : 0.0f;
+        float dy = (y < yMin) ? yMin - y : (y > yMax) ? y - yMax : 0.0f;
+        float dz = (z < zMin) ? zMin - z : (z > zMax) ? z - zMax : 0.0f;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // JAVA HOUSEKEEPING
+
+    @Override
+    public String toString () {
+        return String.format("<LooseOctree %d objects %d nodes>", size, getNodeCount());
+    }
+}
@@ -0,0 +1,748 @@
+package sge.bounds;
+
+import java.util.Arrays;
+
+import sge.util.IntList;
+
+/**
+ * Loose quadtree of Rectangles and Circles, the 2D counterpart of
+ * {@link LooseOctree}.
+ *
+ * Each node's loose bounds are twice the size of its cell, so an object
+ * belongs in the node whose cell holds its centre, at the deepest level
+ * whose cells are at least as large as the object. Insert, update and
+ * remove take O(depth), and an update which stays in the same node is
+ * O(1). Leaves split above the leaf capacity and merge back at half of
+ * it, and nodes come from a pool, so once the tree has grown, updates
+ * and queries allocate nothing. Objects outside the world bounds, or
+ * larger than it, are kept in the root.
+ *
+ * Objects are given an integer id when inserted, and their bounds are
+ * copied. Not thread safe, including queries.
+ */
+public final class LooseQuadtree {
+
+    public static final int DEFAULT_LEAF_CAPACITY = 8;
+    public static final int DEFAULT_MAX_DEPTH = 10;
+
+    private static final byte RECTANGLE = 0;
+    private static final byte CIRCLE = 1;
+
+    private final int leafCapacity;
+    private final int maxDepth;
+
+    // Nodes, as in LooseOctree: cell centre and half size, 3 floats per
+    // node, and children as 4 consecutive nodes.
+    private float[] geometry;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] depth;
+    private int[] head;
+    private int[] count;
+    private int[] total;
+    private int nodeCount = 1;
+    private int freeBlock = -1;
+
+    // Objects, by id. Bounds are xMin, yMin, xMax, yMax for every object,
+    // and circles also keep x, y, radius.
+    private float[] boxes = new float[16 * 4];
+    private float[] circles = new float[16 * 3];
+    private byte[] kinds = new byte[16];
+    private int[] node = new int[16];
+    private int[] prev = new int[16];
+    private int[] next = new int[16];
+    private int idCount = 0;
+    private int size = 0;
+
+    private int[] free = new int[16];
+    private int freeCount = 0;
+
+    private int[] stack = new int[64];
+
+    /**
+     * Create a quadtree over a world area with the default leaf
+     * capacity and maximum depth.
+     */
+    public LooseQuadtree (final Rectangle world) {
+        this(world, DEFAULT_LEAF_CAPACITY, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param world Area to divide. It is treated as a square around its
+     *              centre, as large as its longest side.
+     * @param leafCapacity Objects a leaf may hold before it is split.
+     * @param maxDepth Deepest level of nodes, the root being level 0.
+     */
+    public LooseQuadtree (final Rectangle world, final int leafCapacity, final int maxDepth) {
+        if (leafCapacity < 1) {
+            throw new IllegalArgumentException("Leaf capacity must be positive: " + leafCapacity);
+        }
+        if (maxDepth < 0 || maxDepth > 20) {
+            throw new IllegalArgumentException("Max depth must be in 0..20: " + maxDepth);
+        }
+
+        this.leafCapacity = leafCapacity;
+        this.maxDepth = maxDepth;
+
+        int capacity = 1 + 4 * 16;
+        geometry = new float[capacity * 3];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        depth = new int[capacity];
+        head = new int[capacity];
+        count = new int[capacity];
+        total = new int[capacity];
+
+        geometry[0] = (world.xMin + world.xMax) * 0.5f;
+        geometry[1] = (world.yMin + world.yMax) * 0.5f;
+        geometry[2] = Math.max(world.xMax - world.xMin, world.yMax - world.yMin) * 0.5f;
+        parent[0] = -1;
+        firstChild[0] = -1;
+        head[0] = -1;
+    }
+
+    public int getLeafCapacity () {
+        return leafCapacity;
+    }
+
+    public int getMaxDepth () {
+        return maxDepth;
+    }
+
+    /**
+     * @return Number of objects.
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * @return Number of nodes in use, including the root.
+     */
+    public int getNodeCount () {
+        int n = nodeCount;
+        for (int b = freeBlock; b >= 0; b = firstChild[b]) {
+            n -= 4;
+        }
+        return n;
+    }
+
+    /**
+     * @return Level of the node holding an object, the root being 0.
+     */
+    public int getDepth (final int id) {
+        check(id);
+        return depth[node[id]];
+    }
+
+    // OBJECTS
+
+    /**
+     * Insert a Rectangle or Circle.
+     *
+     * @return The object's id.
+     */
+    public int insert (final Bounds2D bounds) {
+        int id = allocate();
+        setShape(id, bounds);
+        place(id, 0);
+        return id;
+    }
+
+    /**
+     * Move an object to a new Rectangle or Circle.
+     */
+    public void update (final int id, final Bounds2D bounds) {
+        check(id);
+        setShape(id, bounds);
+        move(id);
+    }
+
+    /**
+     * Move an object to a new rectangle.
+     */
+    public void update (final int id, final float xMin, final float yMin, final float xMax, final float yMax) {
+        check(id);
+        setBox(id, xMin, yMin, xMax, yMax);
+        move(id);
+    }
+
+    /**
+     * Remove an object. Its id may be reused by the next insert.
+     */
+    public void remove (final int id) {
+        check(id);
+
+        int n = node[id];
+        unlink(id);
+        node[id] = -1;
+        size--;
+
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = id;
+
+        merge(n);
+    }
+
+    private void check (final int id) {
+        if (id < 0 || id >= idCount || node[id] < 0) {
+            throw new IllegalArgumentException("No such object: " + id);
+        }
+    }
+
+    private int allocate () {
+        int id;
+
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        } else {
+            id = idCount++;
+            if (idCount > kinds.length) {
+                int capacity = Math.max(idCount, kinds.length * 2);
+                boxes = Arrays.copyOf(boxes, capacity * 4);
+                circles = Arrays.copyOf(circles, capacity * 3);
+                kinds = Arrays.copyOf(kinds, capacity);
+                node = Arrays.copyOf(node, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+        }
+
+        size++;
+        return id;
+    }
+
+    private void setBox (final int id, final float xMin, final float yMin, final float xMax, final float yMax) {
+        int o = id * 4;
+        kinds[id] = RECTANGLE;
+        boxes[o] = xMin;
+        boxes[o + 1] = yMin;
+        boxes[o + 2] = xMax;
+        boxes[o + 3] = yMax;
+    }
+
+    private void setShape (final int id, final Bounds2D bounds) {
+        if (bounds instanceof Rectangle) {
+            Rectangle r = (Rectangle) bounds;
+            setBox(id, r.xMin, r.yMin, r.xMax, r.yMax);
+        } else if (bounds instanceof Circle) {
+            Circle c = (Circle) bounds;
+            float x = c.origin.x, y = c.origin.y, r = c.radius;
+
+            setBox(id, x - r, y - r, x + r, y + r);
+            kinds[id] = CIRCLE;
+
+            int o = id * 3;
+            circles[o] = x;
+            circles[o + 1] = y;
+            circles[o + 2] = r;
+        } else {
+            throw new IllegalArgumentException("Unsupported bounds: " + bounds);
+        }
+    }
+
+    /**
+     * @return true if an object belongs in a node or one of its
+     *   descendants: its centre is in the node's cell and it is no
+     *   larger than the cell.
+     */
+    private boolean fits (final int id, final int n) {
+        final float[] b = boxes;
+        final float[] g = geometry;
+        int o = id * 4, p = n * 3;
+        float h = g[p + 2];
+
+        float x = (b[o] + b[o + 2]) * 0.5f - g[p];
+        float y = (b[o + 1] + b[o + 3]) * 0.5f - g[p + 1];
+
+        return x >= -h && x < h && y >= -h && y < h
+                && b[o + 2] - b[o] <= 2.0f * h && b[o + 3] - b[o + 1] <= 2.0f * h;
+    }
+
+    /**
+     * @return The child of n whose cell holds an object's centre.
+     */
+    private int child (final int id, final int n) {
+        final float[] b = boxes;
+        final float[] g = geometry;
+        int o = id * 4, p = n * 3;
+        int i = 0;
+
+        if (b[o] + b[o + 2] >= 2.0f * g[p]) {
+            i |= 1;
+        }
+        if (b[o + 1] + b[o + 3] >= 2.0f * g[p + 1]) {
+            i |= 2;
+        }
+        return firstChild[n] + i;
+    }
+
+    /**
+     * Find the deepest existing node an object belongs in, starting
+     * from a node it belongs in (or the root).
+     */
+    private int descend (final int id, int n) {
+        if (0 == n && !fits(id, 0)) {
+            return 0;
+        }
+
+        while (firstChild[n] >= 0) {
+            int c = child(id, n);
+            if (!fits(id, c)) {
+                break;
+            }
+            n = c;
+        }
+        return n;
+    }
+
+    private void place (final int id, final int from) {
+        int n = descend(id, from);
+        link(id, n);
+        split(n);
+    }
+
+    private void move (final int id) {
+        int from = node[id];
+        int n = from;
+
+        while (n != 0 && !fits(id, n)) {
+            n = parent[n];
+        }
+        n = descend(id, n);
+
+        if (n != from) {
+            unlink(id);
+            link(id, n);
+            merge(from);
+            split(node[id]);
+        }
+    }
+
+    private void link (final int id, final int n) {
+        node[id] = n;
+        prev[id] = -1;
+        next[id] = head[n];
+        if (head[n] >= 0) {
+            prev[head[n]] = id;
+        }
+        head[n] = id;
+        count[n]++;
+
+        for (int p = n; p >= 0; p = parent[p]) {
+            total[p]++;
+        }
+    }
+
+    private void unlink (final int id) {
+        int n = node[id];
+
+        if (prev[id] >= 0) {
+            next[prev[id]] = next[id];
+        } else {
+            head[n] = next[id];
+        }
+        if (next[id] >= 0) {
+            prev[next[id]] = prev[id];
+        }
+        count[n]--;
+
+        for (int p = n; p >= 0; p = parent[p]) {
+            total[p]--;
+        }
+    }
+
+    // NODES
+
+    /**
+     * Split a leaf holding too many objects, moving down the objects
+     * which fit in its children.
+     */
+    private void split (final int n) {
+        if (firstChild[n] >= 0 || count[n] <= leafCapacity || depth[n] >= maxDepth) {
+            return;
+        }
+
+        int c = allocateBlock();
+        float[] g = geometry;
+        int p = n * 3;
+        float h = g[p + 2] * 0.5f;
+
+        for (int i = 0; i < 4; i++) {
+            int q = (c + i) * 3;
+            g[q] = g[p] + (((i & 1) != 0) ? h : -h);
+            g[q + 1] = g[p + 1] + (((i & 2) != 0) ? h : -h);
+            g[q + 2] = h;
+            parent[c + i] = n;
+            firstChild[c + i] = -1;
+            depth[c + i] = depth[n] + 1;
+            head[c + i] = -1;
+            count[c + i] = 0;
+            total[c + i] = 0;
+        }
+        firstChild[n] = c;
+
+        // Objects at the root may lie outside its cell.
+        for (int id = head[n]; id >= 0; ) {
+            int following = next[id];
+
+            if (0 != n || fits(id, 0)) {
+                int target = child(id, n);
+                if (fits(id, target)) {
+                    unlink(id);
+                    link(id, target);
+                }
+            }
+            id = following;
+        }
+
+        for (int i = 0; i < 4; i++) {
+            split(c + i);
+        }
+    }
+
+    /**
+     * After an object has left node n, merge the children of its
+     * ancestors back into them while their subtrees are small.
+     */
+    private void merge (final int n) {
+        int p = (firstChild[n] >= 0) ? n : parent[n];
+
+        while (p >= 0 && total[p] <= leafCapacity / 2 && childrenAreLeaves(p)) {
+            int c = firstChild[p];
+
+            for (int i = 0; i < 4; i++) {
+                for (int id = head[c + i]; id >= 0; ) {
+                    int following = next[id];
+                    unlink(id);
+                    link(id, p);
+                    id = following;
+                }
+            }
+
+            firstChild[p] = -1;
+            firstChild[c] = freeBlock;
+            freeBlock = c;
+
+            p = parent[p];
+        }
+    }
+
+    private boolean childrenAreLeaves (final int n) {
+        int c = firstChild[n];
+        if (c < 0) {
+            return false;
+        }
+
+        for (int i = 0; i < 4; i++) {
+            if (firstChild[c + i] >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int allocateBlock () {
+        if (freeBlock >= 0) {
+            int c = freeBlock;
+            freeBlock = firstChild[c];
+            return c;
+        }
+
+        if (nodeCount + 4 > parent.length) {
+            int capacity = parent.length * 2;
+            geometry = Arrays.copyOf(geometry, capacity * 3);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            head = Arrays.copyOf(head, capacity);
+            count = Arrays.copyOf(count, capacity);
+            total = Arrays.copyOf(total, capacity);
+        }
+
+        int c = nodeCount;
+        nodeCount += 4;
+        return c;
+    }
+
+    // QUERIES
+
+    private static final int OUTSIDE = 0;
+    private static final int INTERSECTS = 1;
+    private static final int INSIDE = 2;
+
+    /** Query shapes: a rectangle, circle or set of lines. */
+    private static final int QUERY_BOX = 0;
+    private static final int QUERY_CIRCLE = 1;
+    private static final int QUERY_LINES = 2;
+
+    private int queryKind;
+    private float qxMin, qyMin, qxMax, qyMax;
+    private float qx, qy, qr;
+    private float[] qLines;
+    private int qLineCount;
+
+    /**
+     * Find the objects which intersect a rectangle, including touching.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryRegion (final Rectangle region, final IntList results) {
+        return queryRegion(region.xMin, region.yMin, region.xMax, region.yMax, results);
+    }
+
+    /**
+     * Find the objects which intersect a rectangle, including touching.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryRegion (final float xMin, final float yMin, final float xMax, final float yMax,
+                            final IntList results) {
+        queryKind = QUERY_BOX;
+        qxMin = xMin;
+        qyMin = yMin;
+        qxMax = xMax;
+        qyMax = yMax;
+        return query(results);
+    }
+
+    /**
+     * Find the objects which intersect a circle, including touching.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryRadius (final Circle circle, final IntList results) {
+        return queryRadius(circle.origin.x, circle.origin.y, circle.radius, results);
+    }
+
+    /**
+     * Find the objects which intersect a circle, including touching.
+     *
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryRadius (final float x, final float y, final float radius, final IntList results) {
+        queryKind = QUERY_CIRCLE;
+        qx = x;
+        qy = y;
+        qr = radius;
+        return query(results);
+    }
+
+    /**
+     * Find the objects which are at least partly inside a convex area,
+     * such as a 2D view cone, given as the intersection of the half
+     * planes a * x + b * y + c >= 0.
+     *
+     * Rectangles are tested exactly against each line, so a rectangle
+     * lying outside the area but crossing several of its lines may be
+     * included. For circles to be tested correctly, (a, b) must be unit
+     * length.
+     *
+     * @param lines lineCount lines, 3 floats (a, b, c) each.
+     * @param results Ids of the objects found are appended to this.
+     * @return Number of objects found.
+     */
+    public int queryLines (final float[] lines, final int lineCount, final IntList results) {
+        queryKind = QUERY_LINES;
+        qLines = lines;
+        qLineCount = lineCount;
+
+        try {
+            return query(results);
+        } finally {
+            qLines = null;
+        }
+    }
+
+    private int query (final IntList results) {
+        final int start = results.size();
+        int sp = 0;
+
+        // The root's objects may lie outside its loose bounds, so they
+        // are always tested.
+        testObjects(0, results);
+        if (firstChild[0] >= 0) {
+            sp = pushChildren(0, sp);
+        }
+
+        while (sp > 0) {
+            int n = stack[--sp];
+            int relation = relation(n);
+
+            if (OUTSIDE == relation) {
+                continue;
+            }
+
+            if (INSIDE == relation) {
+                addSubtree(n, results);
+                continue;
+            }
+
+            testObjects(n, results);
+            if (firstChild[n] >= 0) {
+                sp = pushChildren(n, sp);
+            }
+        }
+
+        return results.size() - start;
+    }
+
+    private int pushChildren (final int n, int sp) {
+        if (sp + 4 > stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+
+        int c = firstChild[n];
+        for (int i = 0; i < 4; i++) {
+            if (total[c + i] > 0) {
+                stack[sp++] = c + i;
+            }
+        }
+        return sp;
+    }
+
+    /**
+     * Add every object in a subtree, without testing them.
+     */
+    private void addSubtree (final int n, final IntList results) {
+        for (int id = head[n]; id >= 0; id = next[id]) {
+            results.add(id);
+        }
+
+        int c = firstChild[n];
+        if (c >= 0) {
+            for (int i = 0; i < 4; i++) {
+                if (total[c + i] > 0) {
+                    addSubtree(c + i, results);
+                }
+            }
+        }
+    }
+
+    private void testObjects (final int n, final IntList results) {
+        for (int id = head[n]; id >= 0; id = next[id]) {
+            if (intersects(id)) {
+                results.add(id);
+            }
+        }
+    }
+
+    /**
+     * @return How a node's loose bounds relate to the query.
+     */
+    private int relation (final int n) {
+        final float[] g = geometry;
+        int p = n * 3;
+        float cx = g[p], cy = g[p + 1];
+        float e = g[p + 2] * 2.0f;
+
+        switch (queryKind) {
+            case QUERY_BOX:
+                if (cx - e > qxMax || cx + e < qxMin || cy - e > qyMax || cy + e < qyMin) {
+                    return OUTSIDE;
+                }
+                if (cx - e >= qxMin && cx + e <= qxMax && cy - e >= qyMin && cy + e <= qyMax) {
+                    return INSIDE;
+                }
+                return INTERSECTS;
+
+            case QUERY_CIRCLE: {
+                float r2 = qr * qr;
+                if (distanceSqr(qx, qy, cx - e, cy - e, cx + e, cy + e) > r2) {
+                    return OUTSIDE;
+                }
+
+                float fx = Math.abs(qx - cx) + e, fy = Math.abs(qy - cy) + e;
+                return (fx * fx + fy * fy <= r2) ? INSIDE : INTERSECTS;
+            }
+
+            default:
+                return lineRelation(cx, cy, e, e);
+        }
+    }
+
+    private int lineRelation (final float cx, final float cy, final float ex, final float ey) {
+        final float[] ln = qLines;
+        int relation = INSIDE;
+
+        for (int i = 0, o = 0; i < qLineCount; i++, o += 3) {
+            float a = ln[o], b = ln[o + 1];
+            float s = a * cx + b * cy + ln[o + 2];
+            float r = Math.abs(a) * ex + Math.abs(b) * ey;
+
+            if (s < -r) {
+                return OUTSIDE;
+            }
+            if (s < r) {
+                relation = INTERSECTS;
+            }
+        }
+        return relation;
+    }
+
+    private boolean intersects (final int id) {
+        final float[] b = boxes;
+        int o = id * 4;
+
+        if (kinds[id] == CIRCLE) {
+            final float[] s = circles;
+            int p = id * 3;
+            float x = s[p], y = s[p + 1], r = s[p + 2];
+
+            switch (queryKind) {
+                case QUERY_BOX:
+                    return distanceSqr(x, y, qxMin, qyMin, qxMax, qyMax) <= r * r;
+
+                case QUERY_CIRCLE: {
+                    float dx = x - qx, dy = y - qy, rr = r + qr;
+                    return dx * dx + dy * dy <= rr * rr;
+                }
+
+                default: {
+                    final float[] ln = qLines;
+                    for (int i = 0, q = 0; i < qLineCount; i++, q += 3) {
+                        if (ln[q] * x + ln[q + 1] * y + ln[q + 2] < -r) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+
+        switch (queryKind) {
+            case QUERY_BOX:
+                return b[o] <= qxMax && b[o + 2] >= qxMin && b[o + 1] <= qyMax && b[o + 3] >= qyMin;
+
+            case QUERY_CIRCLE:
+                return distanceSqr(qx, qy, b[o], b[o + 1], b[o + 2], b[o + 3]) <= qr * qr;
+
+            default:
+                return lineRelation((b[o] + b[o + 2]) * 0.5f, (b[o + 1] + b[o + 3]) * 0.5f,
+                                    (b[o + 2] - b[o]) * 0.5f, (b[o + 3] - b[o + 1]) * 0.5f) != OUTSIDE;
+        }
+    }
+
+    /**
+     * Squared distance from a point to a box, 0 inside it.
+     */
+    private static float distanceSqr (final float x, final float y, final float xMin, final float yMin,
+                                      final float xMax, final float yMax) {
+        float dx = (x < xMin) ? xMin - x : (x > xMax) ? x - xMax : 0.0f;
+        float dy = (y < yMin) ? yMin - y : (y > yMax) ? y - yMax : 0.0f;
+        return dx * dx + dy * dy;
+    }
+
+    // JAVA HOUSEKEEPING
+
+    @Override
+    public String toString () {
+        return String.format("<LooseQuadtree %d objects %d nodes>", size, getNodeCount());
+    }
+}
@@ -0,0 +1,24 @@
+package sge.bounds;
+
+/**
+ * Receives changes in overlapping pairs from a {@link SweepAndPrune}.
+ * Each pair is reported with the lower proxy id first.
+ */
+public interface OverlapListener {
+
+    /**
+     * Proxies a and b started overlapping this update.
+     */
+    void begin (int a, int b);
+
+    /**
+     * Proxies a and b overlapped last update and still do.
+     */
+    void persist (int a, int b);
+
+    /**
+     * Proxies a and b overlapped last update and no longer do, or one
+     * of them was removed.
+     */
+    void end (int a, int b);
+}
@@ -9,7 +9,9 @@ import sge.math.Vectors;
  */
 public final class Rectangle implements Bounds2D {
 
-    private float xMin, yMin, xMax, yMax;
+    // Package access so that spatial structures can read bounds
+    // without allocating min()/max() vectors.
+    float xMin, yMin, xMax, yMax;
 
     /**
      * Default Constructor
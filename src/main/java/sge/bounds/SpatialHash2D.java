@@ -0,0 +1,783 @@
+package sge.bounds;
+
+import java.util.Arrays;
+
+import sge.math.Point2D;
+import sge.math.Vector2;
+import sge.util.IntList;
+
+/**
+ * Uniform grid of square cells for finding the Circles and Rectangles
+ * near a point or region without scanning every one.
+ *
+ * Each entry is given an integer id when inserted, and is listed in
+ * every cell its bounds touch. Only occupied cells are stored, in an
+ * open addressed hash map keyed on the cell's packed (x, y) integer
+ * coordinates, so the grid is unbounded. Queries append entry ids to an
+ * IntList and allocate nothing once the hash's scratch space has grown
+ * to fit.
+ *
+ * The cell size should be around the size of a typical entry: much
+ * smaller and large entries are listed in many cells, much larger and
+ * queries test many distant entries.
+ *
+ * Bounds are copied when inserted, so call update() after moving or
+ * resizing an entry. Not thread safe, including queries.
+ */
+public final class SpatialHash2D {
+
+    private static final byte RECTANGLE = 0;
+    private static final byte CIRCLE = 1;
+
+    private final float cellSize;
+    private final float invCellSize;
+
+    // Entries, by id. Shapes are xMin, yMin, xMax, yMax for rectangles
+    // and x, y, radius for circles. Cells are the range of cells each
+    // entry is listed in: x0, y0, x1, y1.
+    private Bounds2D[] entries = new Bounds2D[16];
+    private byte[] kinds = new byte[16];
+    private float[] shapes = new float[16 * 4];
+    private int[] cells = new int[16 * 4];
+    private int[] stamps = new int[16];
+    private int idCount = 0;
+    private int size = 0;
+
+    private int[] free = new int[16];
+    private int freeCount = 0;
+
+    // Cell contents: singly linked lists of nodes, each naming an entry.
+    private int[] nodeEntry = new int[64];
+    private int[] nodeNext = new int[64];
+    private int nodeCount = 0;
+    private int freeNode = -1;
+
+    // Occupied cells: packed coordinates and the first node of each
+    // cell's list, or -1 for an empty slot.
+    private long[] cellKeys = new long[64];
+    private int[] cellHeads;
+    private int cellCount = 0;
+
+    // Extent of the occupied cells, which bounds queries. Refitted
+    // before the next query once a cell on its edge is emptied.
+    private int minCellX = Integer.MAX_VALUE, minCellY = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE, maxCellY = Integer.MIN_VALUE;
+    private boolean extentDirty = false;
+
+    private int stamp = 0;
+
+    // Nearest search max-heap, by distance.
+    private float[] heapDist = new float[16];
+    private int[] heapId = new int[16];
+
+    /**
+     * @param cellSize Width and height of a cell.
+     */
+    public SpatialHash2D (final float cellSize) {
+        if (!(cellSize > 0.0f)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+
+        this.cellSize = cellSize;
+        this.invCellSize = 1.0f / cellSize;
+
+        cellHeads = new int[cellKeys.length];
+        Arrays.fill(cellHeads, -1);
+    }
+
+    public float getCellSize () {
+        return cellSize;
+    }
+
+    /**
+     * @return Number of entries.
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * @return Number of occupied cells.
+     */
+    public int getCellCount () {
+        return cellCount;
+    }
+
+    /**
+     * @return Coordinates of the cell containing a point.
+     */
+    public Point2D getCell (final Vector2 point) {
+        return new Point2D(cell(point.x), cell(point.y));
+    }
+
+    private int cell (final float v) {
+        float c = v * invCellSize;
+        int i = (int) c;
+        return (c < i) ? i - 1 : i;
+    }
+
+    /**
+     * @return The Circle or Rectangle with an id.
+     */
+    public Bounds2D get (final int id) {
+        check(id);
+        return entries[id];
+    }
+
+    // ENTRIES
+
+    /**
+     * Insert a Circle or Rectangle.
+     *
+     * @return The entry's id.
+     */
+    public int insert (final Bounds2D bounds) {
+        int id;
+
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        } else {
+            id = idCount++;
+            if (idCount > entries.length) {
+                int capacity = Math.max(idCount, entries.length * 2);
+                entries = Arrays.copyOf(entries, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                shapes = Arrays.copyOf(shapes, capacity * 4);
+                cells = Arrays.copyOf(cells, capacity * 4);
+                stamps = Arrays.copyOf(stamps, capacity);
+            }
+        }
+
+        setShape(id, bounds);
+        entries[id] = bounds;
+        size++;
+
+        int o = id * 4;
+        cellRange(id, cells, o);
+        addToCells(id, cells[o], cells[o + 1], cells[o + 2], cells[o + 3]);
+
+        return id;
+    }
+
+    /**
+     * Re-read an entry's bounds after it has moved or changed size.
+     */
+    public void update (final int id) {
+        check(id);
+        update(id, entries[id]);
+    }
+
+    /**
+     * Replace an entry's bounds with a different Circle or Rectangle.
+     */
+    public void update (final int id, final Bounds2D bounds) {
+        check(id);
+        setShape(id, bounds);
+        entries[id] = bounds;
+
+        final int[] cells = this.cells;
+        int o = id * 4;
+        int x0 = cells[o], y0 = cells[o + 1], x1 = cells[o + 2], y1 = cells[o + 3];
+        cellRange(id, cells, o);
+
+        // Most moves stay within the same cells.
+        if (x0 != cells[o] || y0 != cells[o + 1] || x1 != cells[o + 2] || y1 != cells[o + 3]) {
+            removeFromCells(id, x0, y0, x1, y1);
+            addToCells(id, cells[o], cells[o + 1], cells[o + 2], cells[o + 3]);
+        }
+    }
+
+    /**
+     * Remove an entry. Its id may be reused by the next insert.
+     */
+    public void remove (final int id) {
+        check(id);
+
+        int o = id * 4;
+        removeFromCells(id, cells[o], cells[o + 1], cells[o + 2], cells[o + 3]);
+        entries[id] = null;
+        size--;
+
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = id;
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear () {
+        Arrays.fill(entries, null);
+        Arrays.fill(cellHeads, -1);
+        idCount = size = freeCount = 0;
+        nodeCount = cellCount = 0;
+        freeNode = -1;
+        minCellX = minCellY = Integer.MAX_VALUE;
+        maxCellX = maxCellY = Integer.MIN_VALUE;
+        extentDirty = false;
+    }
+
+    private void check (final int id) {
+        if (id < 0 || id >= idCount || null == entries[id]) {
+            throw new IllegalArgumentException("No such entry: " + id);
+        }
+    }
+
+    private void setShape (final int id, final Bounds2D bounds) {
+        int o = id * 4;
+
+        if (bounds instanceof Rectangle) {
+            Rectangle r = (Rectangle) bounds;
+            kinds[id] = RECTANGLE;
+            shapes[o] = r.xMin;
+            shapes[o + 1] = r.yMin;
+            shapes[o + 2] = r.xMax;
+            shapes[o + 3] = r.yMax;
+        } else if (bounds instanceof Circle) {
+            Circle c = (Circle) bounds;
+            kinds[id] = CIRCLE;
+            shapes[o] = c.origin.x;
+            shapes[o + 1] = c.origin.y;
+            shapes[o + 2] = c.radius;
+        } else {
+            throw new IllegalArgumentException("Unsupported bounds: " + bounds);
+        }
+    }
+
+    /**
+     * Write the range of cells an entry's bounds touch to dest.
+     */
+    private void cellRange (final int id, final int[] dest, final int o) {
+        final float[] s = shapes;
+        int p = id * 4;
+
+        if (kinds[id] == RECTANGLE) {
+            dest[o] = cell(s[p]);
+            dest[o + 1] = cell(s[p + 1]);
+            dest[o + 2] = cell(s[p + 2]);
+            dest[o + 3] = cell(s[p + 3]);
+        } else {
+            float r = s[p + 2];
+            dest[o] = cell(s[p] - r);
+            dest[o + 1] = cell(s[p + 1] - r);
+            dest[o + 2] = cell(s[p] + r);
+            dest[o + 3] = cell(s[p + 1] + r);
+        }
+    }
+
+    private void addToCells (final int id, final int x0, final int y0, final int x1, final int y1) {
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                int slot = findCell(key(x, y));
+                int node = allocateNode();
+
+                nodeEntry[node] = id;
+                nodeNext[node] = cellHeads[slot];
+
+                if (cellHeads[slot] < 0) {
+                    cellKeys[slot] = key(x, y);
+                    cellHeads[slot] = node;
+                    if (++cellCount * 2 > cellKeys.length) {
+                        growCells();
+                    }
+                } else {
+                    cellHeads[slot] = node;
+                }
+            }
+        }
+
+        minCellX = Math.min(minCellX, x0);
+        minCellY = Math.min(minCellY, y0);
+        maxCellX = Math.max(maxCellX, x1);
+        maxCellY = Math.max(maxCellY, y1);
+    }
+
+    private void removeFromCells (final int id, final int x0, final int y0, final int x1, final int y1) {
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                int slot = findCell(key(x, y));
+                int prev = -1;
+                int node = cellHeads[slot];
+
+                while (nodeEntry[node] != id) {
+                    prev = node;
+                    node = nodeNext[node];
+                }
+
+                if (prev < 0) {
+                    cellHeads[slot] = nodeNext[node];
+                } else {
+                    nodeNext[prev] = nodeNext[node];
+                }
+
+                nodeNext[node] = freeNode;
+                freeNode = node;
+
+                if (cellHeads[slot] < 0) {
+                    removeCell(slot);
+                    if (x == minCellX || x == maxCellX || y == minCellY || y == maxCellY) {
+                        extentDirty = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private int allocateNode () {
+        if (freeNode >= 0) {
+            int node = freeNode;
+            freeNode = nodeNext[node];
+            return node;
+        }
+
+        if (nodeCount == nodeEntry.length) {
+            nodeEntry = Arrays.copyOf(nodeEntry, nodeCount * 2);
+            nodeNext = Arrays.copyOf(nodeNext, nodeCount * 2);
+        }
+        return nodeCount++;
+    }
+
+    /**
+     * Shrink the extent to the cells still occupied.
+     */
+    private void fitExtent () {
+        minCellX = minCellY = Integer.MAX_VALUE;
+        maxCellX = maxCellY = Integer.MIN_VALUE;
+
+        for (int i = 0; i < cellKeys.length; i++) {
+            if (cellHeads[i] >= 0) {
+                int cx = (int) (cellKeys[i] >> 32), cy = (int) cellKeys[i];
+                minCellX = Math.min(minCellX, cx);
+                minCellY = Math.min(minCellY, cy);
+                maxCellX = Math.max(maxCellX, cx);
+                maxCellY = Math.max(maxCellY, cy);
+            }
+        }
+        extentDirty = false;
+    }
+
+    // CELL MAP
+
+    private static long key (final int x, final int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int hash (final long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return Slot holding a cell, or the empty slot where it would go.
+     */
+    private int findCell (final long k) {
+        final long[] keys = cellKeys;
+        final int[] heads = cellHeads;
+        final int mask = keys.length - 1;
+        int i = hash(k) & mask;
+
+        while (heads[i] >= 0 && keys[i] != k) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @return First node of a cell's list, or -1 if it's empty.
+     */
+    private int head (final int x, final int y) {
+        return cellHeads[findCell(key(x, y))];
+    }
+
+    private void removeCell (int gap) {
+        final long[] keys = cellKeys;
+        final int[] heads = cellHeads;
+        final int mask = keys.length - 1;
+        int i = gap;
+
+        // Shift later entries of the probe sequence back into the gap.
+        while (true) {
+            i = (i + 1) & mask;
+            if (heads[i] < 0) {
+                break;
+            }
+
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                heads[gap] = heads[i];
+                gap = i;
+            }
+        }
+
+        heads[gap] = -1;
+        cellCount--;
+    }
+
+    private void growCells () {
+        long[] oldKeys = cellKeys;
+        int[] oldHeads = cellHeads;
+
+        cellKeys = new long[oldKeys.length * 2];
+        cellHeads = new int[oldKeys.length * 2];
+        Arrays.fill(cellHeads, -1);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] >= 0) {
+                int j = findCell(oldKeys[i]);
+                cellKeys[j] = oldKeys[i];
+                cellHeads[j] = oldHeads[i];
+            }
+        }
+    }
+
+    // QUERIES
+
+    /**
+     * Start a query, so that each entry is visited once.
+     */
+    private void nextStamp () {
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+
+    /**
+     * Find the entries which intersect a region, including touching.
+     *
+     * @param results Ids of the entries found are appended to this.
+     * @return Number of entries found.
+     */
+    public int queryRegion (final Rectangle region, final IntList results) {
+        return queryRegion(region.xMin, region.yMin, region.xMax, region.yMax, results);
+    }
+
+    /**
+     * Find the entries which intersect a region, including touching.
+     *
+     * @param results Ids of the entries found are appended to this.
+     * @return Number of entries found.
+     */
+    public int queryRegion (final float xMin, final float yMin, final float xMax, final float yMax,
+                            final IntList results) {
+        return query(xMin, yMin, xMax, yMax, 0.0f, 0.0f, -1.0f, results);
+    }
+
+    /**
+     * Find the entries which intersect a circle, including touching.
+     *
+     * @param results Ids of the entries found are appended to this.
+     * @return Number of entries found.
+     */
+    public int queryRadius (final Vector2 point, final float radius, final IntList results) {
+        return queryRadius(point.x, point.y, radius, results);
+    }
+
+    /**
+     * Find the entries which intersect a circle, including touching.
+     *
+     * @param results Ids of the entries found are appended to this.
+     * @return Number of entries found.
+     */
+    public int queryRadius (final float x, final float y, final float radius, final IntList results) {
+        return query(x - radius, y - radius, x + radius, y + radius, x, y, radius, results);
+    }
+
+    /**
+     * Visit the cells overlapping a box, testing each entry once
+     * against the box, or against the circle (x, y, radius) if radius
+     * is not negative.
+     */
+    private int query (final float xMin, final float yMin, final float xMax, final float yMax,
+                       final float x, final float y, final float radius, final IntList results) {
+        if (0 == size || xMin > xMax || yMin > yMax) {
+            return 0;
+        }
+        if (extentDirty) {
+            fitExtent();
+        }
+
+        final int x0 = Math.max(cell(xMin), minCellX), y0 = Math.max(cell(yMin), minCellY);
+        final int x1 = Math.min(cell(xMax), maxCellX), y1 = Math.min(cell(yMax), maxCellY);
+        if (x0 > x1 || y0 > y1) {
+            return 0;
+        }
+
+        nextStamp();
+        final int start = results.size();
+
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) > cellCount) {
+            // Fewer occupied cells than cells in the region, so check
+            // each occupied cell instead.
+            for (int i = 0; i < cellKeys.length; i++) {
+                if (cellHeads[i] >= 0) {
+                    int cx = (int) (cellKeys[i] >> 32), cy = (int) cellKeys[i];
+                    if (cx >= x0 && cx <= x1 && cy >= y0 && cy <= y1) {
+                        visit(cellHeads[i], xMin, yMin, xMax, yMax, x, y, radius, results);
+                    }
+                }
+            }
+        } else {
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cx = x0; cx <= x1; cx++) {
+                    int node = head(cx, cy);
+                    if (node >= 0) {
+                        visit(node, xMin, yMin, xMax, yMax, x, y, radius, results);
+                    }
+                }
+            }
+        }
+
+        return results.size() - start;
+    }
+
+    private void visit (int node, final float xMin, final float yMin, final float xMax, final float yMax,
+                        final float x, final float y, final float radius, final IntList results) {
+        final float[] s = shapes;
+
+        for (; node >= 0; node = nodeNext[node]) {
+            int id = nodeEntry[node];
+            if (stamps[id] == stamp) {
+                continue;
+            }
+            stamps[id] = stamp;
+
+            int p = id * 4;
+            boolean hit;
+
+            if (radius >= 0.0f) {
+                if (kinds[id] == RECTANGLE) {
+                    hit = distanceSqr(x, y, s[p], s[p + 1], s[p + 2], s[p + 3]) <= radius * radius;
+                } else {
+                    float dx = s[p] - x, dy = s[p + 1] - y, r = s[p + 2] + radius;
+                    hit = dx * dx + dy * dy <= r * r;
+                }
+            } else if (kinds[id] == RECTANGLE) {
+                hit = s[p] <= xMax && s[p + 2] >= xMin && s[p + 1] <= yMax && s[p + 3] >= yMin;
+            } else {
+                float r = s[p + 2];
+                hit = distanceSqr(s[p], s[p + 1], xMin, yMin, xMax, yMax) <= r * r;
+            }
+
+            if (hit) {
+                results.add(id);
+            }
+        }
+    }
+
+    /**
+     * Squared distance from a point to a box, 0 inside it.
+     */
+    private static float distanceSqr (final float x, final float y, final float xMin, final float yMin,
+                                      final float xMax, final float yMax) {
+        float dx = (x < xMin) ? xMin - x : (x > xMax) ? x - xMax : 0.0f;
+        float dy = (y < yMin) ? yMin - y : (y > yMax) ? y - yMax : 0.0f;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Distance from a point to an entry's bounds, 0 inside them.
+     */
+    private float distance (final int id, final float x, final float y) {
+        final float[] s = shapes;
+        int p = id * 4;
+
+        if (kinds[id] == RECTANGLE) {
+            return (float) Math.sqrt(distanceSqr(x, y, s[p], s[p + 1], s[p + 2], s[p + 3]));
+        }
+
+        float dx = s[p] - x, dy = s[p + 1] - y;
+        return Math.max(0.0f, (float) Math.sqrt(dx * dx + dy * dy) - s[p + 2]);
+    }
+
+    /**
+     * Find the k entries nearest a point, by distance to their bounds.
+     * Searches outwards ring by ring of cells, stopping once no nearer
+     * entry can be found. Once more cells have been walked than are
+     * occupied, the remaining occupied cells are checked directly.
+     *
+     * @param results Ids of the entries found are appended to this,
+     *                nearest first.
+     * @return Number of entries found, at most k.
+     */
+    public int nearest (final Vector2 point, final int k, final IntList results) {
+        return nearest(point.x, point.y, k, results);
+    }
+
+    /**
+     * Find the k entries nearest a point, by distance to their bounds.
+     * Searches outwards ring by ring of cells, stopping once no nearer
+     * entry can be found. Once more cells have been walked than are
+     * occupied, the remaining occupied cells are checked directly.
+     *
+     * @param results Ids of the entries found are appended to this,
+     *                nearest first.
+     * @return Number of entries found, at most k.
+     */
+    public int nearest (final float x, final float y, final int k, final IntList results) {
+        if (0 == size || k < 1) {
+            return 0;
+        }
+
+        if (k > heapId.length) {
+            heapId = new int[k];
+            heapDist = new float[k];
+        }
+
+        if (extentDirty) {
+            fitExtent();
+        }
+
+        nextStamp();
+        final int cx = cell(x), cy = cell(y);
+        final int limit = k < size ? k : size;
+        int count = 0;
+        int seen = 0;
+        long walked = 0;
+
+        // Rings beyond this hold no cells.
+        long maxRing = Math.max(Math.max((long) cx - minCellX, (long) maxCellX - cx),
+                                Math.max((long) cy - minCellY, (long) maxCellY - cy));
+
+        int d = 0;
+        for (; d <= maxRing && seen < size && walked <= cellCount; d++) {
+            if (count == limit && d > 0) {
+                // Anything not yet seen lies outside rings 0..d-1.
+                float edge = Math.min(Math.min(x - (cx - d + 1) * cellSize, (cx + d) * cellSize - x),
+                                      Math.min(y - (cy - d + 1) * cellSize, (cy + d) * cellSize - y));
+                if (heapDist[0] <= edge) {
+                    break;
+                }
+            }
+
+            for (int j = cy - d; j <= cy + d; j++) {
+                // Whole rows at the top and bottom, ends of the others.
+                int step = (j == cy - d || j == cy + d) ? 1 : Math.max(1, 2 * d);
+
+                for (int i = cx - d; i <= cx + d; i += step) {
+                    int node = head(i, j);
+                    if (node >= 0) {
+                        seen += nearest(node, x, y, limit, count);
+                        count = Math.min(limit, seen);
+                    }
+                    walked++;
+                }
+            }
+        }
+
+        if (d <= maxRing && seen < size && walked > cellCount) {
+            // Sparse, far apart cells: cheaper to check every occupied
+            // cell than keep walking empty rings. Rings 0..d-1 are done.
+            for (int slot = 0; slot < cellKeys.length; slot++) {
+                if (cellHeads[slot] < 0) {
+                    continue;
+                }
+
+                int i = (int) (cellKeys[slot] >> 32), j = (int) cellKeys[slot];
+                if (Math.max(Math.abs((long) i - cx), Math.abs((long) j - cy)) < d) {
+                    continue;
+                }
+                if (count == limit) {
+                    float cellDist = distanceSqr(x, y, i * cellSize, j * cellSize,
+                                                 (i + 1) * cellSize, (j + 1) * cellSize);
+                    if (cellDist >= heapDist[0] * heapDist[0]) {
+                        continue;
+                    }
+                }
+
+                seen += nearest(cellHeads[slot], x, y, limit, count);
+                count = Math.min(limit, seen);
+            }
+        }
+
+        // Pop the farthest first, filling the results from the back.
+        int start = results.size();
+        for (int n = 0; n < count; n++) {
+            results.add(0);
+        }
+        for (int n = count; n > 0; n--) {
+            results.set(start + n - 1, heapId[0]);
+            heapReplaceTop(n - 1, heapId[n - 1], heapDist[n - 1]);
+        }
+
+        return count;
+    }
+
+    /**
+     * Offer the unseen entries in a cell's list to the heap of count
+     * nearest so far.
+     *
+     * @return Number of entries not seen before.
+     */
+    private int nearest (int node, final float x, final float y, final int limit, int count) {
+        int seen = 0;
+
+        for (; node >= 0; node = nodeNext[node]) {
+            int id = nodeEntry[node];
+            if (stamps[id] == stamp) {
+                continue;
+            }
+            stamps[id] = stamp;
+            seen++;
+
+            float dist = distance(id, x, y);
+            if (count < limit) {
+                heapPush(count++, id, dist);
+            } else if (dist < heapDist[0]) {
+                heapReplaceTop(count, id, dist);
+            }
+        }
+        return seen;
+    }
+
+    private void heapPush (int i, final int id, final float dist) {
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (heapDist[parent] >= dist) {
+                break;
+            }
+            heapDist[i] = heapDist[parent];
+            heapId[i] = heapId[parent];
+            i = parent;
+        }
+
+        heapDist[i] = dist;
+        heapId[i] = id;
+    }
+
+    /**
+     * Replace the farthest of n heap entries and restore the heap.
+     */
+    private void heapReplaceTop (final int n, final int id, final float dist) {
+        int i = 0;
+
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && heapDist[child + 1] > heapDist[child]) {
+                child++;
+            }
+            if (heapDist[child] <= dist) {
+                break;
+            }
+
+            heapDist[i] = heapDist[child];
+            heapId[i] = heapId[child];
+            i = child;
+        }
+
+        heapDist[i] = dist;
+        heapId[i] = id;
+    }
+
+    // JAVA HOUSEKEEPING
+
+    @Override
+    public String toString () {
+        return String.format("<SpatialHash2D %d entries %d cells>", size, cellCount);
+    }
+}
@@ -0,0 +1,640 @@
+package sge.bounds;
+
+import java.util.Arrays;
+
+/**
+ * Sweep and prune broadphase, finding the overlapping pairs among a
+ * large number of moving bounding boxes.
+ *
+ * Each box (proxy) is given an integer id when added. The min and max
+ * endpoints of every proxy are kept sorted along each axis between
+ * updates with an insertion sort. Two proxies can only start or stop
+ * overlapping when one's min endpoint passes the other's max, so the
+ * swaps made by the sort are the only pairs that need testing. When
+ * proxies move a little each frame, an update costs close to O(n) plus
+ * the number of overlapping pairs. After many additions or large moves
+ * the endpoints are sorted from scratch instead.
+ *
+ * Spheres are added by their bounding box, as Sphere.toAABB(), so
+ * pairs are candidates for an exact test rather than confirmed
+ * contacts. Touching boxes overlap, as in AABB.intersects().
+ *
+ * Not thread safe.
+ */
+public final class SweepAndPrune {
+
+    /** Floats of bounds per proxy: xMin, yMin, zMin, xMax, yMax, zMax. */
+    private static final int STRIDE = 6;
+
+    /** Insertion sort moves allowed per endpoint before sorting from scratch. */
+    private static final int MAX_SHIFTS = 32;
+
+    private static final long EMPTY = -1L;
+
+    private float[] bounds = new float[16 * STRIDE];
+    private boolean[] used = new boolean[16];
+    private int idCount = 0;
+    private int proxyCount = 0;
+
+    /** Ids free for reuse, and ids removed since the last update. */
+    private int[] free = new int[16];
+    private int freeCount = 0;
+    private int[] removed = new int[16];
+    private int removedCount = 0;
+
+    /**
+     * Endpoints along each axis, as id << 1 for a min and id << 1 | 1
+     * for a max, and their values.
+     */
+    private final int[][] endData = new int[3][32];
+    private final float[][] endValue = new float[3][32];
+    private int endCount = 0;
+
+    /** Endpoints appended since the last sort. */
+    private int unsorted = 0;
+
+    /**
+     * Overlapping pairs, as lowId << 32 | highId, in an open addressed
+     * hash set, with the update number at which each began.
+     */
+    private long[] pairKeys;
+    private int[] pairBegan;
+    private int pairCount = 0;
+
+    /** Pairs which ended during the current update. */
+    private long[] ended = new long[16];
+    private int endedCount = 0;
+
+    private int frame = 0;
+
+    /**
+     * Create an empty broadphase.
+     */
+    public SweepAndPrune () {
+        pairKeys = new long[64];
+        pairBegan = new int[64];
+        Arrays.fill(pairKeys, EMPTY);
+    }
+
+    /**
+     * @return Number of proxies.
+     */
+    public int getProxyCount () {
+        return proxyCount;
+    }
+
+    /**
+     * @return Number of overlapping pairs found by the last update.
+     */
+    public int getPairCount () {
+        return pairCount;
+    }
+
+    /**
+     * Add a proxy for a bounding box.
+     *
+     * @return The proxy's id.
+     */
+    public int add (final AABB box) {
+        return add(box.xMin, box.yMin, box.zMin, box.xMax, box.yMax, box.zMax);
+    }
+
+    /**
+     * Add a proxy for a sphere's bounding box.
+     *
+     * @return The proxy's id.
+     */
+    public int add (final Sphere sphere) {
+        int id = add(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f);
+        update(id, sphere);
+        return id;
+    }
+
+    /**
+     * Add a proxy for a bounding box. It is included from the next
+     * update.
+     *
+     * @return The proxy's id.
+     */
+    public int add (final float xMin, final float yMin, final float zMin,
+                    final float xMax, final float yMax, final float zMax) {
+        int id;
+
+        if (freeCount > 0) {
+            id = free[--freeCount];
+        } else {
+            id = idCount++;
+            if (idCount > used.length) {
+                int capacity = Math.max(idCount, used.length * 2);
+                used = Arrays.copyOf(used, capacity);
+                bounds = Arrays.copyOf(bounds, capacity * STRIDE);
+            }
+        }
+
+        used[id] = true;
+        proxyCount++;
+        set(id, xMin, yMin, zMin, xMax, yMax, zMax);
+
+        if (endCount + 2 > endData[0].length) {
+            for (int axis = 0; axis < 3; axis++) {
+                endData[axis] = Arrays.copyOf(endData[axis], endCount * 2);
+                endValue[axis] = Arrays.copyOf(endValue[axis], endCount * 2);
+            }
+        }
+
+        for (int axis = 0; axis < 3; axis++) {
+            endData[axis][endCount] = id << 1;
+            endData[axis][endCount + 1] = (id << 1) | 1;
+        }
+        endCount += 2;
+        unsorted += 2;
+
+        return id;
+    }
+
+    /**
+     * Remove a proxy. Its overlaps are reported as ended by the next
+     * update, after which its id may be reused.
+     */
+    public void remove (final int id) {
+        check(id);
+
+        used[id] = false;
+        proxyCount--;
+
+        if (removedCount == removed.length) {
+            removed = Arrays.copyOf(removed, removedCount * 2);
+        }
+        removed[removedCount++] = id;
+    }
+
+    /**
+     * Move a proxy to a new bounding box.
+     */
+    public void update (final int id, final AABB box) {
+        check(id);
+        set(id, box.xMin, box.yMin, box.zMin, box.xMax, box.yMax, box.zMax);
+    }
+
+    /**
+     * Move a proxy to a sphere's bounding box.
+     */
+    public void update (final int id, final Sphere sphere) {
+        check(id);
+
+        float x = sphere.getOrigin().x, y = sphere.getOrigin().y, z = sphere.getOrigin().z;
+        float r = sphere.getRadius();
+        set(id, x - r, y - r, z - r, x + r, y + r, z + r);
+    }
+
+    /**
+     * Move a proxy to a new bounding box.
+     */
+    public void update (final int id, final float xMin, final float yMin, final float zMin,
+                        final float xMax, final float yMax, final float zMax) {
+        check(id);
+        set(id, xMin, yMin, zMin, xMax, yMax, zMax);
+    }
+
+    private void check (final int id) {
+        if (id < 0 || id >= idCount || !used[id]) {
+            throw new IllegalArgumentException("No such proxy: " + id);
+        }
+    }
+
+    private void set (final int id, final float xMin, final float yMin, final float zMin,
+                      final float xMax, final float yMax, final float zMax) {
+        int o = id * STRIDE;
+        bounds[o] = xMin;
+        bounds[o + 1] = yMin;
+        bounds[o + 2] = zMin;
+        bounds[o + 3] = xMax;
+        bounds[o + 4] = yMax;
+        bounds[o + 5] = zMax;
+    }
+
+    /**
+     * @return true if the last update found proxies a and b overlapping.
+     */
+    public boolean isOverlapping (final int a, final int b) {
+        return pairKeys[find(key(a, b))] != EMPTY;
+    }
+
+    /**
+     * Find the overlapping pairs for the proxies' current bounds, and
+     * report how they have changed since the last update.
+     *
+     * @param listener Listener for pair changes, or null.
+     */
+    public void updatePairs (final OverlapListener listener) {
+        frame++;
+        endedCount = 0;
+
+        if (removedCount > 0) {
+            removeProxies();
+        }
+
+        for (int axis = 0; axis < 3; axis++) {
+            refresh(axis);
+        }
+
+        boolean sorted = unsorted * 8 <= endCount;
+        for (int axis = 0; axis < 3 && sorted; axis++) {
+            sorted = insertionSort(axis);
+        }
+
+        if (sorted) {
+            report(listener);
+        } else {
+            rebuild(listener);
+        }
+        unsorted = 0;
+
+        // Removed ids have now been reported as ended, so may be reused.
+        if (freeCount + removedCount > free.length) {
+            free = Arrays.copyOf(free, Math.max(freeCount + removedCount, free.length * 2));
+        }
+        System.arraycopy(removed, 0, free, freeCount, removedCount);
+        freeCount += removedCount;
+        removedCount = 0;
+    }
+
+    /**
+     * Drop the endpoints and pairs of removed proxies.
+     */
+    private void removeProxies () {
+        // Endpoints appended since the last sort stay at the end.
+        final int tail = endCount - unsorted;
+        int n = 0;
+
+        for (int axis = 0; axis < 3; axis++) {
+            final int[] data = endData[axis];
+            n = 0;
+
+            for (int i = 0; i < endCount; i++) {
+                int d = data[i];
+                if (used[d >>> 1]) {
+                    data[n++] = d;
+                } else if (0 == axis && i >= tail) {
+                    unsorted--;
+                }
+            }
+        }
+        endCount = n;
+
+        // Collect the pairs first, as removing from the table moves
+        // entries.
+        int count = endedCount;
+        for (long k : pairKeys) {
+            if (k != EMPTY && (!used[(int) (k >>> 32)] || !used[(int) k])) {
+                addEnded(k);
+            }
+        }
+        for (int i = count; i < endedCount; i++) {
+            removePair(ended[i]);
+        }
+    }
+
+    /**
+     * Copy the proxies' current bounds into an axis' endpoint values.
+     * Adding 0 turns -0.0 into 0.0, which would otherwise sort
+     * differently from 0.0 in a full sort.
+     */
+    private void refresh (final int axis) {
+        final float[] bounds = this.bounds;
+        final int[] data = endData[axis];
+        final float[] value = endValue[axis];
+
+        for (int i = 0; i < endCount; i++) {
+            int d = data[i];
+            value[i] = bounds[(d >>> 1) * STRIDE + axis + (d & 1) * 3] + 0.0f;
+        }
+    }
+
+    /**
+     * Sort an axis' endpoints by value, mins before maxes of equal
+     * value, adding and removing the pairs of proxies whose min and max
+     * swap places.
+     *
+     * @return false if the endpoints moved too far for an insertion
+     *   sort to be quick, leaving them partly sorted.
+     */
+    private boolean insertionSort (final int axis) {
+        final int[] data = endData[axis];
+        final float[] value = endValue[axis];
+        long budget = (long) endCount * MAX_SHIFTS;
+
+        for (int i = 1; i < endCount; i++) {
+            int d = data[i];
+            float v = value[i];
+            int j = i - 1;
+
+            while (j >= 0 && (v < value[j] || (v == value[j] && (d & 1) < (data[j] & 1)))) {
+                int other = data[j];
+
+                if ((d & 1) != (other & 1) && (d >>> 1) != (other >>> 1)) {
+                    if ((d & 1) == 0) {
+                        // A min passed a max: now overlapping on this axis.
+                        if (overlaps(d >>> 1, other >>> 1)) {
+                            addPair(key(d >>> 1, other >>> 1));
+                        }
+                    } else {
+                        // A max passed a min: now apart on this axis.
+                        long k = key(d >>> 1, other >>> 1);
+                        if (removePair(k)) {
+                            addEnded(k);
+                        }
+                    }
+                }
+
+                data[j + 1] = other;
+                value[j + 1] = value[j];
+                j--;
+            }
+
+            data[j + 1] = d;
+            value[j + 1] = v;
+
+            budget -= i - 1 - j;
+            if (budget < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean overlaps (final int a, final int b) {
+        final float[] bounds = this.bounds;
+        int p = a * STRIDE, q = b * STRIDE;
+
+        return bounds[p] <= bounds[q + 3] && bounds[q] <= bounds[p + 3]
+                && bounds[p + 1] <= bounds[q + 4] && bounds[q + 1] <= bounds[p + 4]
+                && bounds[p + 2] <= bounds[q + 5] && bounds[q + 2] <= bounds[p + 5];
+    }
+
+    /**
+     * Report the pairs ended by this update, then those which began or
+     * persisted.
+     */
+    private void report (final OverlapListener listener) {
+        if (null == listener) {
+            return;
+        }
+
+        for (int i = 0; i < endedCount; i++) {
+            listener.end((int) (ended[i] >>> 32), (int) ended[i]);
+        }
+
+        final long[] keys = pairKeys;
+        final int[] began = pairBegan;
+
+        for (int i = 0; i < keys.length; i++) {
+            long k = keys[i];
+            if (k == EMPTY) {
+                continue;
+            }
+
+            if (began[i] == frame) {
+                listener.begin((int) (k >>> 32), (int) k);
+            } else {
+                listener.persist((int) (k >>> 32), (int) k);
+            }
+        }
+    }
+
+    /**
+     * Sort every axis from scratch, find all pairs with a sweep along
+     * the X axis, and report the differences from the last update.
+     */
+    private void rebuild (final OverlapListener listener) {
+        for (int axis = 0; axis < 3; axis++) {
+            fullSort(axis);
+        }
+
+        // The last update's pairs: those still in the table which
+        // didn't begin during this update, plus any which ended.
+        long[] older = new long[pairCount + endedCount];
+        int olderCount = 0;
+
+        for (int i = 0; i < pairKeys.length; i++) {
+            if (pairKeys[i] != EMPTY && pairBegan[i] != frame) {
+                older[olderCount++] = pairKeys[i];
+            }
+        }
+        System.arraycopy(ended, 0, older, olderCount, endedCount);
+        olderCount += endedCount;
+        Arrays.sort(older, 0, olderCount);
+
+        long[] newer = sweep();
+        int newerCount = (int) newer[0];
+
+        // Merge the sorted pairs, rebuilding the table.
+        Arrays.fill(pairKeys, EMPTY);
+        pairCount = 0;
+        int i = 0, j = 1;
+
+        while (i < olderCount || j <= newerCount) {
+            if (j > newerCount || (i < olderCount && older[i] < newer[j])) {
+                if (null != listener) {
+                    listener.end((int) (older[i] >>> 32), (int) older[i]);
+                }
+                i++;
+            } else if (i == olderCount || newer[j] < older[i]) {
+                if (null != listener) {
+                    listener.begin((int) (newer[j] >>> 32), (int) newer[j]);
+                }
+                addPair(newer[j]);
+                j++;
+            } else {
+                if (null != listener) {
+                    listener.persist((int) (newer[j] >>> 32), (int) newer[j]);
+                }
+                addPair(newer[j]);
+                pairBegan[find(newer[j])] = frame - 1;
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Sort an axis' endpoints from scratch.
+     */
+    private void fullSort (final int axis) {
+        final int[] data = endData[axis];
+        final float[] value = endValue[axis];
+        long[] keys = new long[endCount];
+
+        for (int i = 0; i < endCount; i++) {
+            // Float bits, adjusted so that they order as signed ints.
+            int bits = Float.floatToIntBits(value[i]);
+            bits ^= (bits >> 31) & 0x7FFFFFFF;
+
+            int d = data[i];
+            keys[i] = ((long) bits << 32) | ((long) (d & 1) << 31) | (d >>> 1);
+        }
+
+        Arrays.sort(keys);
+
+        for (int i = 0; i < endCount; i++) {
+            long k = keys[i];
+            int id = (int) (k & 0x7FFFFFFF);
+            int max = (int) ((k >>> 31) & 1);
+            data[i] = (id << 1) | max;
+            value[i] = bounds[id * STRIDE + axis + max * 3] + 0.0f;
+        }
+    }
+
+    /**
+     * Sweep the sorted X endpoints, testing each proxy against those
+     * open when it starts.
+     *
+     * @return Sorted pairs from index 1, with the count at index 0.
+     */
+    private long[] sweep () {
+        final int[] data = endData[0];
+        int[] active = new int[16];
+        int[] activeIndex = new int[idCount];
+        long[] found = new long[Math.max(16, pairCount + 1)];
+        int count = 0;
+        int activeCount = 0;
+
+        for (int i = 0; i < endCount; i++) {
+            int d = data[i];
+            int id = d >>> 1;
+
+            if ((d & 1) != 0) {
+                int k = activeIndex[id];
+                int last = active[--activeCount];
+                active[k] = last;
+                activeIndex[last] = k;
+                continue;
+            }
+
+            for (int k = 0; k < activeCount; k++) {
+                if (overlaps(id, active[k])) {
+                    if (count + 1 == found.length) {
+                        found = Arrays.copyOf(found, found.length * 2);
+                    }
+                    found[++count] = key(id, active[k]);
+                }
+            }
+
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+            }
+            active[activeCount] = id;
+            activeIndex[id] = activeCount++;
+        }
+
+        Arrays.sort(found, 1, count + 1);
+        found[0] = count;
+        return found;
+    }
+
+    private void addEnded (final long k) {
+        if (endedCount == ended.length) {
+            ended = Arrays.copyOf(ended, endedCount * 2);
+        }
+        ended[endedCount++] = k;
+    }
+
+    // PAIR TABLE
+
+    private static long key (final int a, final int b) {
+        return (a < b) ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    private static int hash (final long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return Slot holding k, or the empty slot where it would go.
+     */
+    private int find (final long k) {
+        final long[] keys = pairKeys;
+        final int mask = keys.length - 1;
+        int i = hash(k) & mask;
+
+        while (keys[i] != EMPTY && keys[i] != k) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void addPair (final long k) {
+        int i = find(k);
+        if (pairKeys[i] != EMPTY) {
+            return;
+        }
+
+        pairKeys[i] = k;
+        pairBegan[i] = frame;
+
+        if (++pairCount * 2 > pairKeys.length) {
+            growTable();
+        }
+    }
+
+    /**
+     * @return true if the pair was present.
+     */
+    private boolean removePair (final long k) {
+        final long[] keys = pairKeys;
+        final int[] began = pairBegan;
+        final int mask = keys.length - 1;
+        int i = find(k);
+
+        if (keys[i] == EMPTY) {
+            return false;
+        }
+
+        // Shift later entries of the probe sequence back into the gap.
+        int gap = i;
+        while (true) {
+            i = (i + 1) & mask;
+            long e = keys[i];
+            if (e == EMPTY) {
+                break;
+            }
+
+            int home = hash(e) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = e;
+                began[gap] = began[i];
+                gap = i;
+            }
+        }
+
+        keys[gap] = EMPTY;
+        pairCount--;
+        return true;
+    }
+
+    private void growTable () {
+        long[] oldKeys = pairKeys;
+        int[] oldBegan = pairBegan;
+
+        pairKeys = new long[oldKeys.length * 2];
+        pairBegan = new int[oldKeys.length * 2];
+        Arrays.fill(pairKeys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = find(oldKeys[i]);
+                pairKeys[j] = oldKeys[i];
+                pairBegan[j] = oldBegan[i];
+            }
+        }
+    }
+
+    // JAVA HOUSEKEEPING
+
+    @Override
+    public String toString () {
+        return String.format("<SweepAndPrune %d proxies %d pairs>", proxyCount, pairCount);
+    }
+}
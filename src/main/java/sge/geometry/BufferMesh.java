@@ -0,0 +1,94 @@
+package sge.geometry;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import sge.color.RGBAColor;
+import sge.math.Vector2;
+import sge.math.Vector3;
+
+/**
+ * Read only mesh data held in existing buffers, e.g. a memory mapped
+ * mesh cache file. The buffers are handed to renderers as they are,
+ * without copying.
+ */
+public final class BufferMesh implements MeshData {
+
+    private final FloatBuffer vertices;
+    private final IntBuffer indices;
+
+    /**
+     * Wrap the remaining contents of a vertex and an index buffer.
+     *
+     * @param vertices Interleaved vertex data, Vertex.SIZE floats per vertex.
+     * @param indices Triangle indices.
+     */
+    public BufferMesh (final FloatBuffer vertices, final IntBuffer indices) {
+        if (vertices.remaining() % Vertex.SIZE != 0) {
+            throw new IllegalArgumentException("Vertex data is not a multiple of Vertex.SIZE: " + vertices.remaining());
+        }
+
+        this.vertices = vertices.slice();
+        this.indices = indices.slice();
+    }
+
+    /**
+     * BufferMesh can't be modified, so the version is always 0.
+     */
+    @Override
+    public int getVersion () {
+        return 0;
+    }
+
+    @Override
+    public int getVertexCount () {
+        return vertices.remaining() / Vertex.SIZE;
+    }
+
+    @Override
+    public int getIndexCount () {
+        return indices.remaining();
+    }
+
+    public int getFaceCount () {
+        return indices.remaining() / 3;
+    }
+
+    /**
+     * Unpack the vertex at position `index' into a new Vertex.
+     */
+    public Vertex getVertex (final int index) {
+        int o = index * Vertex.SIZE;
+        FloatBuffer v = vertices;
+        return new Vertex(new Vector3(v.get(o), v.get(o + 1), v.get(o + 2)),
+                          new Vector3(v.get(o + 3), v.get(o + 4), v.get(o + 5)),
+                          new Vector2(v.get(o + 6), v.get(o + 7)),
+                          new RGBAColor(v.get(o + 8), v.get(o + 9), v.get(o + 10), v.get(o + 11)));
+    }
+
+    public int getIndex (final int index) {
+        return indices.get(index);
+    }
+
+    /**
+     * Return a view of the vertex data. dest is not used.
+     */
+    @Override
+    public FloatBuffer vertexArray (final FloatBuffer dest) {
+        return vertices.duplicate();
+    }
+
+    /**
+     * Return a view of the index data. dest is not used.
+     */
+    @Override
+    public IntBuffer indexArray (final IntBuffer dest) {
+        return indices.duplicate();
+    }
+
+    // JAVA HOUSEKEEPING
+
+    @Override
+    public String toString () {
+        return String.format("<BufferMesh %d vertices, %d indices>", getVertexCount(), getIndexCount());
+    }
+}
@@ -11,12 +11,35 @@ import sge.util.DirectBuffer;
  * Mesh stores vertex information for meshes which are
  * not expected to be altered in any way other than global
  * orientation.
+ *
+ * Each modification through the Mesh methods bumps a version number,
+ * which renderers can compare against the version they last uploaded
+ * to skip redundant uploads. Code which edits the vertices or indices
+ * lists (or the Vertex objects in them) directly should call
+ * markDirty() afterwards.
  */
-public class Mesh {
+public class Mesh implements MeshData {
 
     public final ArrayList<Vertex> vertices = new ArrayList<Vertex>();
     public final ArrayList<Integer> indices = new ArrayList<Integer>();
 
+    private int version = 0;
+
+    /**
+     * Return the current version of this Mesh. The value changes every
+     * time the Mesh is modified.
+     */
+    public int getVersion () {
+        return version;
+    }
+
+    /**
+     * Flag this Mesh as modified.
+     */
+    public void markDirty () {
+        version++;
+    }
+
     /**
      * Return the number of vertices in this Mesh.
      */
@@ -46,20 +69,26 @@ public class Mesh {
         return indices.get(index);
     }
 
+    /**
+     * Return the triangular face at position `index', where 0 <= index < getFaceCount().
+     */
     public Triangle getFace (final int index) {
-        return new Triangle(vertices.get(indices.get(index)),
-                            vertices.get(indices.get(index + 1)),
-                            vertices.get(indices.get(index + 2)));
+        int offset = index * 3;
+        return new Triangle(vertices.get(indices.get(offset)),
+                            vertices.get(indices.get(offset + 1)),
+                            vertices.get(indices.get(offset + 2)));
     }
 
     public void addVert (final Vertex vert) {
         vertices.add(vert);
+        version++;
     }
 
     public void addFace (final int v1, final int v2, final int v3) {
         indices.add(v1);
         indices.add(v2);
         indices.add(v3);
+        version++;
     }
 
     /**
@@ -116,12 +145,13 @@ public class Mesh {
         v3.setColor(0f, 1f, 0f, 1f);
         v4.setColor(1f, 0f, 0f, 1f);
 
+        int base = vertices.size();
         addVert(v1);
         addVert(v2);
         addVert(v3);
         addVert(v4);
-        addFace(3, 2, 1);
-        addFace(3, 4, 2);
+        addFace(base + 2, base + 1, base);
+        addFace(base + 2, base + 3, base + 1);
     }
 
     public void smoothNormals () {
@@ -139,6 +169,8 @@ public class Mesh {
             f.v2.normal = f.v2.normal.add(normal).normalize();
             f.v3.normal = f.v3.normal.add(normal).normalize();
         }
+
+        version++;
     }
 
     /**
@@ -164,6 +196,8 @@ public class Mesh {
         for (Vertex v : vertices) {
             v.color = color;
         }
+
+        version++;
     }
 
     /**
@@ -176,19 +210,29 @@ public class Mesh {
         for (Vertex v : vertices) {
             v.position = v.position.add(offset);
         }
+
+        version++;
+    }
+
+    /**
+     * Create an index buffer for use with the vertices in vertexArray().
+     */
+    public IntBuffer indexArray () {
+        return indexArray(null);
     }
 
     /**
-     * Create an interleaved vertex array from a list of vertices.
-     * Doesn't use an index buffer, assumes all vertex references exist
-     * in the list, in order and duplicated. This will create an
-     * array in a format that OpenGL can interpret as GL_TRIANGLES.
+     * Write the index buffer into dest, reusing it if it has the capacity,
+     * otherwise allocating a new buffer.
+     *
+     * @param dest Buffer to reuse, may be null.
+     * @return dest, or a new buffer if dest was too small. Flipped and ready to read.
      */
-    public IntBuffer indexArray() {
-        IntBuffer buffer = DirectBuffer.createIntBuffer(indices.size());
+    public IntBuffer indexArray (final IntBuffer dest) {
+        IntBuffer buffer = reuse(dest, indices.size());
 
-        for (int i : indices) {
-            buffer.put(i);
+        for (int i = 0, iMax = indices.size(); i < iMax; i++) {
+            buffer.put(indices.get(i));
         }
 
         buffer.flip();
@@ -196,11 +240,25 @@ public class Mesh {
         return buffer;
     }
 
+    /**
+     * Create an interleaved vertex buffer containing every vertex in order.
+     */
     public FloatBuffer vertexArray () {
-        FloatBuffer buffer = DirectBuffer.createFloatBuffer(vertices.size() * Vertex.SIZE);
+        return vertexArray(null);
+    }
 
-        for (Vertex v : vertices) {
-            buffer.put(v.toFloatArray());
+    /**
+     * Write the interleaved vertex buffer into dest, reusing it if it has
+     * the capacity, otherwise allocating a new buffer.
+     *
+     * @param dest Buffer to reuse, may be null.
+     * @return dest, or a new buffer if dest was too small. Flipped and ready to read.
+     */
+    public FloatBuffer vertexArray (final FloatBuffer dest) {
+        FloatBuffer buffer = reuse(dest, vertices.size() * Vertex.SIZE);
+
+        for (int i = 0, iMax = vertices.size(); i < iMax; i++) {
+            vertices.get(i).put(buffer);
         }
 
         buffer.flip();
@@ -208,7 +266,7 @@ public class Mesh {
         return buffer;
     }
 
-     /**
+    /**
      * Create an interleaved vertex array from a list of faces.
      *
      * Creates an array in a format that OpenGL can interpret as GL_TRIANGLES. Vertex
@@ -219,43 +277,50 @@ public class Mesh {
      *
      */
     public FloatBuffer faceArray (final boolean solidFaceColors) {
-        FloatBuffer buffer = DirectBuffer.createFloatBuffer(getFaceCount() * Vertex.SIZE * 3);
-        Vertex v1, v2, v3;
-
-        if (solidFaceColors) {
-            for (int k = 0, kMax = getFaceCount(); k < kMax; k++) {
-                Triangle f = getFace(k);
-                RGBAColor faceColor = f.v1.color;
-
-                v1 = new Vertex(f.v1);
-                v1.color = faceColor;
-
-                v2 = new Vertex(f.v2);
-                v2.color = faceColor;
-
-                v3 = new Vertex(f.v3);
-                v3.color = faceColor;
-
-                buffer.put(v1.toFloatArray());
-                buffer.put(v2.toFloatArray());
-                buffer.put(v3.toFloatArray());
-            }
-        } else {
-            for (int k = 0, kMax = getFaceCount(); k < kMax; k++) {
-                Triangle f = getFace(k);
-
-                v1 = f.v1;
-                v2 = f.v2;
-                v3 = f.v3;
-
-                buffer.put(v1.toFloatArray());
-                buffer.put(v2.toFloatArray());
-                buffer.put(v3.toFloatArray());
-            }
+        return faceArray(solidFaceColors, null);
+    }
+
+    /**
+     * Write the interleaved face array into dest, reusing it if it has the
+     * capacity, otherwise allocating a new buffer. See faceArray(boolean).
+     *
+     * @param dest Buffer to reuse, may be null.
+     * @return dest, or a new buffer if dest was too small. Flipped and ready to read.
+     */
+    public FloatBuffer faceArray (final boolean solidFaceColors, final FloatBuffer dest) {
+        FloatBuffer buffer = reuse(dest, getFaceCount() * Vertex.SIZE * 3);
+
+        for (int k = 0, kMax = getFaceCount() * 3; k < kMax; k += 3) {
+            Vertex v1 = vertices.get(indices.get(k));
+            Vertex v2 = vertices.get(indices.get(k + 1));
+            Vertex v3 = vertices.get(indices.get(k + 2));
+            RGBAColor faceColor = v1.color;
+
+            v1.put(buffer);
+            v2.put(buffer, solidFaceColors ? faceColor : v2.color);
+            v3.put(buffer, solidFaceColors ? faceColor : v3.color);
         }
 
         buffer.flip();
 
         return buffer;
     }
+
+    static FloatBuffer reuse (final FloatBuffer dest, final int size) {
+        if (null == dest || dest.isReadOnly() || dest.capacity() < size) {
+            return DirectBuffer.createFloatBuffer(size);
+        }
+
+        dest.clear();
+        return dest;
+    }
+
+    static IntBuffer reuse (final IntBuffer dest, final int size) {
+        if (null == dest || dest.isReadOnly() || dest.capacity() < size) {
+            return DirectBuffer.createIntBuffer(size);
+        }
+
+        dest.clear();
+        return dest;
+    }
 }
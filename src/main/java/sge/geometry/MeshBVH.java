@@ -0,0 +1,610 @@
+package sge.geometry;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import sge.math.Vector3;
+
+/**
+ * Bounding volume hierarchy over the faces of a mesh, for ray casting
+ * and picking without testing every face.
+ *
+ * Nodes are split with the surface area heuristic, evaluated over a
+ * fixed number of bins along each axis. The tree is stored in one flat
+ * array of eight floats per node: its bounds, then either the index of
+ * its first child (children are adjacent) or the first face and face
+ * count of a leaf, stored as int bits. A pair of children then shares a
+ * cache line or two, which matters more than arithmetic for large
+ * meshes. Face corner positions are copied into leaf order, so a leaf's
+ * faces are read sequentially.
+ *
+ * Large meshes are built on a ForkJoinPool, with subtrees built in
+ * parallel. A built MeshBVH is immutable and may be queried from any
+ * number of threads, each with its own RayHit.
+ */
+public final class MeshBVH {
+
+    /** Number of SAH bins along each axis. */
+    private static final int BINS = 16;
+
+    /** Nodes with at most this many faces are always leaves. */
+    private static final int MIN_LEAF_SIZE = 2;
+
+    /** Nodes with more faces than this are always split if possible. */
+    private static final int MAX_LEAF_SIZE = 16;
+
+    /** Cost of visiting a node relative to intersecting a face. */
+    private static final float TRAVERSAL_COST = 1.0f;
+
+    /** Subtrees with more faces than this are built as separate tasks. */
+    private static final int PARALLEL_THRESHOLD = 16 * 1024;
+
+    /** Floats per node. */
+    private static final int NODE_SIZE = 8;
+
+    /**
+     * minX, minY, minZ, maxX, maxY, maxZ, then two ints as float bits.
+     * Interior nodes: first child index and 0. Leaf nodes: first face
+     * (in leaf order) and face count.
+     */
+    private final float[] nodes;
+
+    private final int nodeCount;
+
+    /** Face corner positions in leaf order, 9 floats per face. */
+    private final float[] triangles;
+
+    /** Mesh face index of each face in leaf order. */
+    private final int[] faces;
+
+    private MeshBVH (final float[] nodes, final int nodeCount,
+                     final float[] triangles, final int[] faces) {
+        this.nodes = nodes;
+        this.nodeCount = nodeCount;
+        this.triangles = triangles;
+        this.faces = faces;
+    }
+
+    public int getNodeCount () {
+        return nodeCount;
+    }
+
+    public int getFaceCount () {
+        return faces.length;
+    }
+
+    /**
+     * Build a BVH over a mesh's faces, using all available processors
+     * for large meshes.
+     */
+    public static MeshBVH build (final MeshData mesh) {
+        if (mesh.getIndexCount() / 3 <= PARALLEL_THRESHOLD) {
+            return build(mesh, null);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool();
+
+        try {
+            return build(mesh, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Build a BVH over a mesh's faces.
+     *
+     * @param pool Pool to build subtrees on, or null to build on the
+     *             calling thread.
+     */
+    public static MeshBVH build (final MeshData mesh, final ForkJoinPool pool) {
+        Builder b = new Builder(mesh);
+        BuildTask root = new BuildTask(b, 0, 0, b.faceCount, null != pool);
+
+        if (null != pool) {
+            pool.invoke(root);
+        } else {
+            root.compute();
+        }
+
+        return b.finish();
+    }
+
+    /**
+     * Working state of a build.
+     */
+    private static final class Builder {
+        final int faceCount;
+
+        /** Corner positions in mesh face order. */
+        final float[] positions;
+
+        /** Face bounds and centroids, in mesh face order. */
+        final float[] faceBounds;
+        final float[] centroids;
+
+        /** Mesh face indices, partitioned into leaf order. */
+        final int[] order;
+
+        final float[] nodes;
+        final AtomicInteger nextNode = new AtomicInteger(1);
+
+        Builder (final MeshData mesh) {
+            faceCount = mesh.getIndexCount() / 3;
+            positions = facePositions(mesh, faceCount);
+
+            faceBounds = new float[faceCount * 6];
+            centroids = new float[faceCount * 3];
+            order = new int[faceCount];
+
+            for (int f = 0; f < faceCount; f++) {
+                int p = f * 9;
+                int o = f * 6;
+
+                for (int a = 0; a < 3; a++) {
+                    float c1 = positions[p + a], c2 = positions[p + 3 + a], c3 = positions[p + 6 + a];
+                    float min = Math.min(c1, Math.min(c2, c3));
+                    float max = Math.max(c1, Math.max(c2, c3));
+
+                    faceBounds[o + a] = min;
+                    faceBounds[o + 3 + a] = max;
+                    centroids[f * 3 + a] = (min + max) * 0.5f;
+                }
+                order[f] = f;
+            }
+
+            int maxNodes = Math.max(1, 2 * faceCount - 1);
+            nodes = new float[maxNodes * NODE_SIZE];
+        }
+
+        MeshBVH finish () {
+            int count = nextNode.get();
+            float[] tris = new float[faceCount * 9];
+
+            for (int i = 0; i < faceCount; i++) {
+                System.arraycopy(positions, order[i] * 9, tris, i * 9, 9);
+            }
+
+            return new MeshBVH(shrink(nodes, count * NODE_SIZE), count, tris, order);
+        }
+    }
+
+    private static float[] shrink (final float[] a, final int length) {
+        if (a.length == length) {
+            return a;
+        }
+
+        float[] r = new float[length];
+        System.arraycopy(a, 0, r, 0, length);
+        return r;
+    }
+
+    /**
+     * Read the corner positions of every face, 9 floats per face.
+     */
+    private static float[] facePositions (final MeshData mesh, final int faceCount) {
+        float[] out = new float[faceCount * 9];
+
+        if (mesh instanceof PackedMesh) {
+            PackedMesh packed = (PackedMesh) mesh;
+            float[] vertexData = packed.vertexData();
+            int[] indexData = packed.indexData();
+
+            for (int i = 0, n = faceCount * 3; i < n; i++) {
+                System.arraycopy(vertexData, indexData[i] * Vertex.SIZE, out, i * 3, 3);
+            }
+            return out;
+        }
+
+        FloatBuffer vertexData = mesh.vertexArray(null);
+        IntBuffer indexData = mesh.indexArray(null);
+        int vbase = vertexData.position();
+        int ibase = indexData.position();
+
+        for (int i = 0, n = faceCount * 3; i < n; i++) {
+            int v = vbase + indexData.get(ibase + i) * Vertex.SIZE;
+            out[i * 3] = vertexData.get(v);
+            out[i * 3 + 1] = vertexData.get(v + 1);
+            out[i * 3 + 2] = vertexData.get(v + 2);
+        }
+        return out;
+    }
+
+    /**
+     * Build the subtree for faces order[start, end) into a node.
+     */
+    private static final class BuildTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Builder b;
+        private final int node;
+        private final int start;
+        private final int end;
+        private final boolean parallel;
+
+        // Scratch space for finding splits.
+        private final float[] cMin = new float[3];
+        private final float[] cMax = new float[3];
+        private final int[] binCount = new int[BINS];
+        private final float[] binBounds = new float[BINS * 6];
+        private final float[] rightArea = new float[BINS];
+        private final int[] rightCount = new int[BINS];
+        private final float[] acc = new float[6];
+
+        BuildTask (final Builder b, final int node, final int start, final int end, final boolean parallel) {
+            this.b = b;
+            this.node = node;
+            this.start = start;
+            this.end = end;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected void compute () {
+            if (end > start) {
+                build(node, start, end);
+            }
+        }
+
+        private void build (final int node, final int start, final int end) {
+            final float[] fb = b.faceBounds;
+            final float[] cs = b.centroids;
+            final int[] order = b.order;
+            final int count = end - start;
+
+            // Bounds of the faces, and of their centroids.
+            float minX = Float.POSITIVE_INFINITY, minY = minX, minZ = minX;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+            float cMinX = minX, cMinY = minX, cMinZ = minX;
+            float cMaxX = maxX, cMaxY = maxX, cMaxZ = maxX;
+
+            for (int i = start; i < end; i++) {
+                int f = order[i];
+                int o = f * 6;
+                minX = Math.min(minX, fb[o]);
+                minY = Math.min(minY, fb[o + 1]);
+                minZ = Math.min(minZ, fb[o + 2]);
+                maxX = Math.max(maxX, fb[o + 3]);
+                maxY = Math.max(maxY, fb[o + 4]);
+                maxZ = Math.max(maxZ, fb[o + 5]);
+
+                float cx = cs[f * 3], cy = cs[f * 3 + 1], cz = cs[f * 3 + 2];
+                cMinX = Math.min(cMinX, cx);
+                cMinY = Math.min(cMinY, cy);
+                cMinZ = Math.min(cMinZ, cz);
+                cMaxX = Math.max(cMaxX, cx);
+                cMaxY = Math.max(cMaxY, cy);
+                cMaxZ = Math.max(cMaxZ, cz);
+            }
+
+            int bo = node * NODE_SIZE;
+            b.nodes[bo] = minX;
+            b.nodes[bo + 1] = minY;
+            b.nodes[bo + 2] = minZ;
+            b.nodes[bo + 3] = maxX;
+            b.nodes[bo + 4] = maxY;
+            b.nodes[bo + 5] = maxZ;
+
+            if (count <= MIN_LEAF_SIZE) {
+                leaf(node, start, count);
+                return;
+            }
+
+            // Find the cheapest split over the bins of each axis.
+            cMin[0] = cMinX;
+            cMin[1] = cMinY;
+            cMin[2] = cMinZ;
+            cMax[0] = cMaxX;
+            cMax[1] = cMaxY;
+            cMax[2] = cMaxZ;
+
+            float bestCost = Float.POSITIVE_INFINITY;
+            int bestAxis = -1;
+            int bestSplit = 0;
+
+            for (int axis = 0; axis < 3; axis++) {
+                float extent = cMax[axis] - cMin[axis];
+                if (extent <= 0.0f) {
+                    continue;
+                }
+
+                float scale = BINS / extent;
+                Arrays.fill(binCount, 0);
+                for (int k = 0; k < BINS; k++) {
+                    emptyBounds(binBounds, k * 6);
+                }
+
+                for (int i = start; i < end; i++) {
+                    int f = order[i];
+                    int k = bin(cs[f * 3 + axis], cMin[axis], scale);
+                    binCount[k]++;
+                    growBounds(binBounds, k * 6, fb, f * 6);
+                }
+
+                // Sweep from the right, recording the area and count of
+                // bins k..BINS-1, then from the left evaluating splits.
+                emptyBounds(acc, 0);
+                int n = 0;
+                for (int k = BINS - 1; k > 0; k--) {
+                    growBounds(acc, 0, binBounds, k * 6);
+                    n += binCount[k];
+                    rightArea[k] = area(acc, 0);
+                    rightCount[k] = n;
+                }
+
+                emptyBounds(acc, 0);
+                n = 0;
+                for (int k = 1; k < BINS; k++) {
+                    growBounds(acc, 0, binBounds, (k - 1) * 6);
+                    n += binCount[k - 1];
+
+                    if (n > 0 && rightCount[k] > 0) {
+                        float cost = area(acc, 0) * n + rightArea[k] * rightCount[k];
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                            bestAxis = axis;
+                            bestSplit = k;
+                        }
+                    }
+                }
+            }
+
+            // Compare against the cost of testing every face here.
+            float nodeArea = area(b.nodes, bo);
+            float splitCost = TRAVERSAL_COST + bestCost / Math.max(nodeArea, Float.MIN_NORMAL);
+
+            if (bestAxis < 0 || (count <= MAX_LEAF_SIZE && splitCost >= count)) {
+                leaf(node, start, count);
+                return;
+            }
+
+            // Partition the faces either side of the split bin.
+            float scale = BINS / (cMax[bestAxis] - cMin[bestAxis]);
+            float base = cMin[bestAxis];
+            int i = start, j = end - 1;
+            while (i <= j) {
+                if (bin(cs[order[i] * 3 + bestAxis], base, scale) < bestSplit) {
+                    i++;
+                } else {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    j--;
+                }
+            }
+
+            int left = b.nextNode.getAndAdd(2);
+            setLinks(b.nodes, node, left, 0);
+
+            if (parallel && count > PARALLEL_THRESHOLD) {
+                invokeAll(new BuildTask(b, left, start, i, true), new BuildTask(b, left + 1, i, end, true));
+            } else {
+                build(left, start, i);
+                build(left + 1, i, end);
+            }
+        }
+
+        private void leaf (final int node, final int start, final int count) {
+            setLinks(b.nodes, node, start, count);
+        }
+    }
+
+    private static void setLinks (final float[] nodes, final int node, final int first, final int count) {
+        // Indices are far below the NaN bit patterns, so survive the
+        // round trip through float exactly.
+        nodes[node * NODE_SIZE + 6] = Float.intBitsToFloat(first);
+        nodes[node * NODE_SIZE + 7] = Float.intBitsToFloat(count);
+    }
+
+    private static int bin (final float c, final float min, final float scale) {
+        int k = (int) ((c - min) * scale);
+        return k < BINS ? k : BINS - 1;
+    }
+
+    private static void emptyBounds (final float[] a, final int o) {
+        a[o] = a[o + 1] = a[o + 2] = Float.POSITIVE_INFINITY;
+        a[o + 3] = a[o + 4] = a[o + 5] = Float.NEGATIVE_INFINITY;
+    }
+
+    private static void growBounds (final float[] a, final int o, final float[] src, final int s) {
+        a[o] = Math.min(a[o], src[s]);
+        a[o + 1] = Math.min(a[o + 1], src[s + 1]);
+        a[o + 2] = Math.min(a[o + 2], src[s + 2]);
+        a[o + 3] = Math.max(a[o + 3], src[s + 3]);
+        a[o + 4] = Math.max(a[o + 4], src[s + 4]);
+        a[o + 5] = Math.max(a[o + 5], src[s + 5]);
+    }
+
+    /**
+     * Half the surface area of bounds, or 0 if empty.
+     */
+    private static float area (final float[] a, final int o) {
+        float dx = a[o + 3] - a[o];
+        float dy = a[o + 4] - a[o + 1];
+        float dz = a[o + 5] - a[o + 2];
+
+        if (dx < 0.0f || dy < 0.0f || dz < 0.0f) {
+            return 0.0f;
+        }
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    /**
+     * Find the nearest face hit by a ray.
+     *
+     * @return The hit, or null if the ray misses.
+     */
+    public RayHit intersect (final Vector3 origin, final Vector3 direction) {
+        RayHit hit = new RayHit();
+
+        if (intersect(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z,
+                      Float.POSITIVE_INFINITY, hit)) {
+            return hit;
+        }
+        return null;
+    }
+
+    /**
+     * Find the nearest face hit by the ray origin + t * direction, for
+     * 0 <= t < tMax. Faces are hit from either side.
+     *
+     * @param hit Set to the nearest hit. If there is none, its face is
+     *            set to -1.
+     * @return true if a face was hit.
+     */
+    public boolean intersect (final float ox, final float oy, final float oz,
+                              final float dx, final float dy, final float dz,
+                              final float tMax, final RayHit hit) {
+        final float[] nodes = this.nodes;
+        final float[] tris = this.triangles;
+        final float ix = 1.0f / dx, iy = 1.0f / dy, iz = 1.0f / dz;
+
+        int[] stack = hit.stack;
+        int sp = 0;
+        int node = 0;
+
+        float best = tMax;
+        int bestFace = -1;
+        float bestU = 0.0f, bestV = 0.0f;
+
+        if (faces.length == 0 || slab(nodes, 0, ox, oy, oz, ix, iy, iz, best) == Float.POSITIVE_INFINITY) {
+            hit.face = -1;
+            return false;
+        }
+
+        while (true) {
+            int o = node * NODE_SIZE;
+            int count = Float.floatToRawIntBits(nodes[o + 7]);
+
+            if (count > 0) {
+                int first = Float.floatToRawIntBits(nodes[o + 6]);
+
+                for (int f = first, end = first + count; f < end; f++) {
+                    int p = f * 9;
+                    float e1x = tris[p + 3] - tris[p], e1y = tris[p + 4] - tris[p + 1], e1z = tris[p + 5] - tris[p + 2];
+                    float e2x = tris[p + 6] - tris[p], e2y = tris[p + 7] - tris[p + 1], e2z = tris[p + 8] - tris[p + 2];
+
+                    // Moller-Trumbore
+                    float px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+                    float det = e1x * px + e1y * py + e1z * pz;
+
+                    // det scales with the face area and ray length, so
+                    // only reject exactly parallel rays. Nearly parallel
+                    // rays give huge or NaN u, v and t, which fail the
+                    // range checks below.
+                    if (det == 0.0f) {
+                        continue;
+                    }
+
+                    float inv = 1.0f / det;
+                    float sx = ox - tris[p], sy = oy - tris[p + 1], sz = oz - tris[p + 2];
+                    float u = (sx * px + sy * py + sz * pz) * inv;
+                    if (u < 0.0f || u > 1.0f) {
+                        continue;
+                    }
+
+                    float qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+                    float v = (dx * qx + dy * qy + dz * qz) * inv;
+                    if (v < 0.0f || u + v > 1.0f) {
+                        continue;
+                    }
+
+                    float t = (e2x * qx + e2y * qy + e2z * qz) * inv;
+                    if (t >= 0.0f && t < best) {
+                        best = t;
+                        bestFace = f;
+                        bestU = u;
+                        bestV = v;
+                    }
+                }
+            } else {
+                // Visit the nearer child first, and skip children
+                // further away than the nearest hit so far.
+                int left = Float.floatToRawIntBits(nodes[o + 6]);
+                float tl = slab(nodes, left, ox, oy, oz, ix, iy, iz, best);
+                float tr = slab(nodes, left + 1, ox, oy, oz, ix, iy, iz, best);
+
+                if (tl != Float.POSITIVE_INFINITY) {
+                    if (tr != Float.POSITIVE_INFINITY) {
+                        if (sp + 1 >= stack.length) {
+                            stack = hit.stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+                        if (tl <= tr) {
+                            stack[sp++] = left + 1;
+                            node = left;
+                        } else {
+                            stack[sp++] = left;
+                            node = left + 1;
+                        }
+                    } else {
+                        node = left;
+                    }
+                    continue;
+                } else if (tr != Float.POSITIVE_INFINITY) {
+                    node = left + 1;
+                    continue;
+                }
+            }
+
+            if (sp == 0) {
+                break;
+            }
+            node = stack[--sp];
+        }
+
+        if (bestFace < 0) {
+            hit.face = -1;
+            return false;
+        }
+
+        hit.t = best;
+        hit.face = faces[bestFace];
+        hit.u = bestU;
+        hit.v = bestV;
+        return true;
+    }
+
+    /**
+     * Entry distance of a ray into a node's bounds.
+     *
+     * @return The distance, or POSITIVE_INFINITY if the ray misses the
+     *   bounds before tMax.
+     */
+    private static float slab (final float[] b, final int node, final float ox, final float oy, final float oz,
+                               final float ix, final float iy, final float iz, final float tMax) {
+        // Plain comparisons rather than Math.min/max, which are slower
+        // as they handle NaN and -0.0.
+        int o = node * NODE_SIZE;
+        float t1 = (b[o] - ox) * ix, t2 = (b[o + 3] - ox) * ix;
+        float tNear = t1 < t2 ? t1 : t2;
+        float tFar = t1 < t2 ? t2 : t1;
+
+        t1 = (b[o + 1] - oy) * iy;
+        t2 = (b[o + 4] - oy) * iy;
+        if (t1 > t2) {
+            float t = t1;
+            t1 = t2;
+            t2 = t;
+        }
+        tNear = t1 > tNear ? t1 : tNear;
+        tFar = t2 < tFar ? t2 : tFar;
+
+        t1 = (b[o + 2] - oz) * iz;
+        t2 = (b[o + 5] - oz) * iz;
+        if (t1 > t2) {
+            float t = t1;
+            t1 = t2;
+            t2 = t;
+        }
+        tNear = t1 > tNear ? t1 : tNear;
+        tFar = t2 < tFar ? t2 : tFar;
+
+        if (tFar < tNear || tFar < 0.0f || tNear >= tMax) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return tNear;
+    }
+}
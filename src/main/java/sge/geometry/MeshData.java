@@ -0,0 +1,39 @@
+package sge.geometry;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Indexed triangle data which can be handed to a renderer. Vertices are
+ * interleaved in the layout of {@link Vertex#toFloatArray()}.
+ */
+public interface MeshData {
+
+    /**
+     * Return the current version of this data. The value changes every
+     * time the data is modified.
+     */
+    public int getVersion ();
+
+    public int getVertexCount ();
+
+    public int getIndexCount ();
+
+    /**
+     * Write the interleaved vertex data into a buffer.
+     *
+     * @param dest Buffer to reuse, may be null.
+     * @return A buffer holding the vertex data, flipped and ready to
+     *   read. This is dest if it was used, but may be another buffer.
+     */
+    public FloatBuffer vertexArray (FloatBuffer dest);
+
+    /**
+     * Write the index data into a buffer.
+     *
+     * @param dest Buffer to reuse, may be null.
+     * @return A buffer holding the indices, flipped and ready to read.
+     *   This is dest if it was used, but may be another buffer.
+     */
+    public IntBuffer indexArray (IntBuffer dest);
+}
@@ -0,0 +1,482 @@
+package sge.geometry;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import sge.color.RGBAColor;
+import sge.math.Vector2;
+import sge.math.Vector3;
+
+/**
+ * PackedMesh stores the same data as {@link Mesh} but keeps vertices
+ * as a single interleaved float[] (Vertex.SIZE floats per vertex, in
+ * the layout of {@link Vertex#toFloatArray()}) and indices as an int[].
+ * Both arrays grow as needed.
+ *
+ * This costs Vertex.BYTE_SIZE bytes per vertex and 4 bytes per index,
+ * with no per-vertex objects, so large models can be held without
+ * the object and boxing overhead of Mesh.
+ *
+ * As with Mesh, modifications bump a version number. Code which writes
+ * to vertexData() or indexData() directly should call markDirty().
+ */
+public class PackedMesh implements MeshData {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // Float offsets of each attribute within a vertex.
+    public static final int POSITION_OFFSET = 0;
+    public static final int NORMAL_OFFSET = POSITION_OFFSET + Vector3.SIZE;
+    public static final int TEXCOORD_OFFSET = NORMAL_OFFSET + Vector3.SIZE;
+    public static final int COLOR_OFFSET = TEXCOORD_OFFSET + Vector2.SIZE;
+
+    private float[] vertexData;
+    private int vertexCount = 0;
+
+    private int[] indexData;
+    private int indexCount = 0;
+
+    private int version = 0;
+
+    /** Default Constructor. */
+    public PackedMesh () {
+        this(DEFAULT_CAPACITY, DEFAULT_CAPACITY * 3);
+    }
+
+    /**
+     * Create an empty PackedMesh with room for a number of vertices and
+     * indices before it needs to grow.
+     */
+    public PackedMesh (final int vertexCapacity, final int indexCapacity) {
+        vertexData = new float[Math.max(1, vertexCapacity) * Vertex.SIZE];
+        indexData = new int[Math.max(1, indexCapacity)];
+    }
+
+    /**
+     * Mesh Constructor. Pack the vertices and indices of a Mesh.
+     */
+    public PackedMesh (final Mesh mesh) {
+        this(mesh.getVertexCount(), mesh.getIndexCount());
+
+        for (Vertex v : mesh.vertices) {
+            addVert(v);
+        }
+
+        for (int i = 0, iMax = mesh.getIndexCount(); i < iMax; i++) {
+            indexData[i] = mesh.getIndex(i);
+        }
+        indexCount = mesh.getIndexCount();
+    }
+
+    /**
+     * Unpack this PackedMesh into a new Mesh.
+     */
+    public Mesh toMesh () {
+        Mesh mesh = new Mesh();
+        mesh.vertices.ensureCapacity(vertexCount);
+        mesh.indices.ensureCapacity(indexCount);
+
+        for (int i = 0; i < vertexCount; i++) {
+            mesh.addVert(getVertex(i));
+        }
+
+        for (int i = 0; i < indexCount; i++) {
+            mesh.indices.add(indexData[i]);
+        }
+
+        return mesh;
+    }
+
+    /**
+     * Return the current version of this Mesh. The value changes every
+     * time the Mesh is modified.
+     */
+    public int getVersion () {
+        return version;
+    }
+
+    /**
+     * Flag this Mesh as modified.
+     */
+    public void markDirty () {
+        version++;
+    }
+
+    /**
+     * Return the number of vertices in this Mesh.
+     */
+    public int getVertexCount () {
+        return vertexCount;
+    }
+
+    /**
+     * Return the number of indices in this Mesh.
+     */
+    public int getIndexCount () {
+        return indexCount;
+    }
+
+    /**
+     * Return the number of triangular faces in this Mesh.
+     */
+    public int getFaceCount () {
+        return indexCount / 3;
+    }
+
+    /**
+     * Return the backing vertex array. Only the first
+     * getVertexCount() * Vertex.SIZE floats are in use.
+     */
+    public float[] vertexData () {
+        return vertexData;
+    }
+
+    /**
+     * Return the backing index array. Only the first getIndexCount()
+     * ints are in use.
+     */
+    public int[] indexData () {
+        return indexData;
+    }
+
+    /**
+     * Unpack the vertex at position `index' into a new Vertex.
+     */
+    public Vertex getVertex (final int index) {
+        int o = index * Vertex.SIZE;
+        return new Vertex(new Vector3(vertexData[o], vertexData[o + 1], vertexData[o + 2]),
+                          new Vector3(vertexData[o + 3], vertexData[o + 4], vertexData[o + 5]),
+                          new Vector2(vertexData[o + 6], vertexData[o + 7]),
+                          new RGBAColor(vertexData[o + 8], vertexData[o + 9], vertexData[o + 10], vertexData[o + 11]));
+    }
+
+    public int getIndex (final int index) {
+        return indexData[index];
+    }
+
+    /**
+     * Unpack the triangular face at position `index' into a new Triangle.
+     */
+    public Triangle getFace (final int index) {
+        int offset = index * 3;
+        return new Triangle(getVertex(indexData[offset]),
+                            getVertex(indexData[offset + 1]),
+                            getVertex(indexData[offset + 2]));
+    }
+
+    /**
+     * Grow the backing arrays if needed so that they can hold at least
+     * the given number of vertices and indices.
+     */
+    public void ensureCapacity (final int vertexCapacity, final int indexCapacity) {
+        int vSize = vertexCapacity * Vertex.SIZE;
+        if (vSize > vertexData.length) {
+            vertexData = Arrays.copyOf(vertexData, Math.max(vSize, vertexData.length * 2));
+        }
+
+        if (indexCapacity > indexData.length) {
+            indexData = Arrays.copyOf(indexData, Math.max(indexCapacity, indexData.length * 2));
+        }
+    }
+
+    /**
+     * Shrink the backing arrays to fit the current contents.
+     */
+    public void trimToSize () {
+        vertexData = Arrays.copyOf(vertexData, Math.max(1, vertexCount) * Vertex.SIZE);
+        indexData = Arrays.copyOf(indexData, Math.max(1, indexCount));
+    }
+
+    /**
+     * Add a vertex from its individual attribute values.
+     *
+     * @return Index of the new vertex.
+     */
+    public int addVert (final float x, final float y, final float z,
+                        final float nx, final float ny, final float nz,
+                        final float s, final float t,
+                        final float r, final float g, final float b, final float a) {
+        ensureCapacity(vertexCount + 1, 0);
+
+        int o = vertexCount * Vertex.SIZE;
+        vertexData[o] = x;
+        vertexData[o + 1] = y;
+        vertexData[o + 2] = z;
+        vertexData[o + 3] = nx;
+        vertexData[o + 4] = ny;
+        vertexData[o + 5] = nz;
+        vertexData[o + 6] = s;
+        vertexData[o + 7] = t;
+        vertexData[o + 8] = r;
+        vertexData[o + 9] = g;
+        vertexData[o + 10] = b;
+        vertexData[o + 11] = a;
+        version++;
+
+        return vertexCount++;
+    }
+
+    /**
+     * Add a vertex at a position, using the same defaults for the other
+     * attributes as {@link Vertex}.
+     *
+     * @return Index of the new vertex.
+     */
+    public int addVert (final float x, final float y, final float z) {
+        RGBAColor c = RGBAColor.WHITE;
+        return addVert(x, y, z, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f, c.r, c.g, c.b, c.a);
+    }
+
+    /**
+     * @return Index of the new vertex.
+     */
+    public int addVert (final Vertex vert) {
+        return addVert(vert.position.x, vert.position.y, vert.position.z,
+                       vert.normal.x, vert.normal.y, vert.normal.z,
+                       vert.texCoords.x, vert.texCoords.y,
+                       vert.color.r, vert.color.g, vert.color.b, vert.color.a);
+    }
+
+    public void addFace (final int v1, final int v2, final int v3) {
+        ensureCapacity(0, indexCount + 3);
+
+        indexData[indexCount] = v1;
+        indexData[indexCount + 1] = v2;
+        indexData[indexCount + 2] = v3;
+        indexCount += 3;
+        version++;
+    }
+
+    /**
+     * Add a Quad made from two triangles. Vertex order, texture
+     * coordinates and colors match {@link Mesh#addQuadFace}.
+     *
+     *   1 --- 2
+     *   |   / |
+     *   | /   |
+     *   4 --- 3
+     */
+    public void addQuadFace (
+            final Vector3 xy, final Vector3 x1y,
+            final Vector3 x1y1, final Vector3 xy1,
+            final Vector3 normal) {
+        int base = addVert(xy.x, xy.y, xy.z, normal.x, normal.y, normal.z, 0f, 1f, 0f, 0f, 1f, 1f);
+        addVert(x1y.x, x1y.y, x1y.z, normal.x, normal.y, normal.z, 1f, 1f, 1f, 0f, 1f, 1f);
+        addVert(xy1.x, xy1.y, xy1.z, normal.x, normal.y, normal.z, 0f, 0f, 0f, 1f, 0f, 1f);
+        addVert(x1y1.x, x1y1.y, x1y1.z, normal.x, normal.y, normal.z, 1f, 0f, 1f, 0f, 0f, 1f);
+
+        addFace(base + 2, base + 1, base);
+        addFace(base + 2, base + 3, base + 1);
+    }
+
+    /**
+     * Recalculate vertex normals by averaging the normals of the faces
+     * which share each vertex. Produces the same result as
+     * {@link Mesh#smoothNormals()} without creating any objects.
+     */
+    public void smoothNormals () {
+        final float[] d = vertexData;
+
+        // Clear existing normals
+        for (int o = NORMAL_OFFSET, oMax = vertexCount * Vertex.SIZE; o < oMax; o += Vertex.SIZE) {
+            d[o] = d[o + 1] = d[o + 2] = 0.0f;
+        }
+
+        for (int k = 0; k < indexCount - 2; k += 3) {
+            int o1 = indexData[k] * Vertex.SIZE;
+            int o2 = indexData[k + 1] * Vertex.SIZE;
+            int o3 = indexData[k + 2] * Vertex.SIZE;
+
+            // a = normalize(v2 - v1)
+            float ax = d[o2] - d[o1], ay = d[o2 + 1] - d[o1 + 1], az = d[o2 + 2] - d[o1 + 2];
+            float len = (float) Math.sqrt(ax * ax + ay * ay + az * az);
+            if (len != 0.0f) {
+                float inv = 1.0f / len;
+                ax *= inv;
+                ay *= inv;
+                az *= inv;
+            }
+
+            // b = normalize(v3 - v1)
+            float bx = d[o3] - d[o1], by = d[o3 + 1] - d[o1 + 1], bz = d[o3 + 2] - d[o1 + 2];
+            len = (float) Math.sqrt(bx * bx + by * by + bz * bz);
+            if (len != 0.0f) {
+                float inv = 1.0f / len;
+                bx *= inv;
+                by *= inv;
+                bz *= inv;
+            }
+
+            // Face normal a x b
+            float nx = ay * bz - az * by;
+            float ny = az * bx - ax * bz;
+            float nz = ax * by - ay * bx;
+
+            // Average shared normals - smooth shading
+            accumulateNormal(o1 + NORMAL_OFFSET, nx, ny, nz);
+            accumulateNormal(o2 + NORMAL_OFFSET, nx, ny, nz);
+            accumulateNormal(o3 + NORMAL_OFFSET, nx, ny, nz);
+        }
+
+        version++;
+    }
+
+    /**
+     * normal = normalize(normal + n), for the normal starting at offset o.
+     */
+    private void accumulateNormal (final int o, final float nx, final float ny, final float nz) {
+        final float[] d = vertexData;
+        float x = d[o] + nx, y = d[o + 1] + ny, z = d[o + 2] + nz;
+        float len = (float) Math.sqrt(x * x + y * y + z * z);
+
+        if (len != 0.0f) {
+            float inv = 1.0f / len;
+            x *= inv;
+            y *= inv;
+            z *= inv;
+        }
+
+        d[o] = x;
+        d[o + 1] = y;
+        d[o + 2] = z;
+    }
+
+    /**
+     * Set all the Vertex Colors in this Mesh to a single color given by
+     * (r, g, b, a) values.
+     */
+    public void clearColor (final float r, final float g, final float b, final float a) {
+        final float[] d = vertexData;
+
+        for (int o = COLOR_OFFSET, oMax = vertexCount * Vertex.SIZE; o < oMax; o += Vertex.SIZE) {
+            d[o] = r;
+            d[o + 1] = g;
+            d[o + 2] = b;
+            d[o + 3] = a;
+        }
+
+        version++;
+    }
+
+    /**
+     * Set all the Vertex Colors in this Mesh to a single color given by
+     * an RGBAColor value.
+     */
+    public void clearColor (final RGBAColor color) {
+        clearColor(color.r, color.g, color.b, color.a);
+    }
+
+    /**
+     * Apply a translation to the vertices in this Mesh.
+     * Destructive.
+     */
+    public void translate (final float x, final float y, final float z) {
+        final float[] d = vertexData;
+
+        for (int o = POSITION_OFFSET, oMax = vertexCount * Vertex.SIZE; o < oMax; o += Vertex.SIZE) {
+            d[o] += x;
+            d[o + 1] += y;
+            d[o + 2] += z;
+        }
+
+        version++;
+    }
+
+    /**
+     * Apply a translation to the vertices in this Mesh.
+     * Destructive.
+     */
+    public void translate (final Vector3 offset) {
+        translate(offset.x, offset.y, offset.z);
+    }
+
+    /**
+     * Create an index buffer for use with the vertices in vertexArray().
+     */
+    public IntBuffer indexArray () {
+        return indexArray(null);
+    }
+
+    /**
+     * Write the index buffer into dest, reusing it if it has the capacity,
+     * otherwise allocating a new buffer.
+     *
+     * @param dest Buffer to reuse, may be null.
+     * @return dest, or a new buffer if dest was too small. Flipped and ready to read.
+     */
+    public IntBuffer indexArray (final IntBuffer dest) {
+        IntBuffer buffer = Mesh.reuse(dest, indexCount);
+        buffer.put(indexData, 0, indexCount);
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * Create an interleaved vertex buffer containing every vertex in order.
+     */
+    public FloatBuffer vertexArray () {
+        return vertexArray(null);
+    }
+
+    /**
+     * Write the interleaved vertex buffer into dest, reusing it if it has
+     * the capacity, otherwise allocating a new buffer.
+     *
+     * @param dest Buffer to reuse, may be null.
+     * @return dest, or a new buffer if dest was too small. Flipped and ready to read.
+     */
+    public FloatBuffer vertexArray (final FloatBuffer dest) {
+        FloatBuffer buffer = Mesh.reuse(dest, vertexCount * Vertex.SIZE);
+        buffer.put(vertexData, 0, vertexCount * Vertex.SIZE);
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * Create an interleaved vertex array from the list of faces, in a
+     * format that OpenGL can interpret as GL_TRIANGLES without an index
+     * buffer.
+     *
+     * @param solidFaceColors If true each triangle will inherit the vertex color of the first Vertex, resulting in
+     *                       flat shading. Otherwise, vertices will retain their own color.
+     */
+    public FloatBuffer faceArray (final boolean solidFaceColors) {
+        return faceArray(solidFaceColors, null);
+    }
+
+    /**
+     * Write the interleaved face array into dest, reusing it if it has the
+     * capacity, otherwise allocating a new buffer. See faceArray(boolean).
+     *
+     * @param dest Buffer to reuse, may be null.
+     * @return dest, or a new buffer if dest was too small. Flipped and ready to read.
+     */
+    public FloatBuffer faceArray (final boolean solidFaceColors, final FloatBuffer dest) {
+        int faceCount = getFaceCount();
+        FloatBuffer buffer = Mesh.reuse(dest, faceCount * Vertex.SIZE * 3);
+
+        for (int k = 0, kMax = faceCount * 3; k < kMax; k += 3) {
+            int o1 = indexData[k] * Vertex.SIZE;
+            int o2 = indexData[k + 1] * Vertex.SIZE;
+            int o3 = indexData[k + 2] * Vertex.SIZE;
+
+            if (solidFaceColors) {
+                buffer.put(vertexData, o1, Vertex.SIZE);
+                buffer.put(vertexData, o2, COLOR_OFFSET);
+                buffer.put(vertexData, o1 + COLOR_OFFSET, RGBAColor.SIZE);
+                buffer.put(vertexData, o3, COLOR_OFFSET);
+                buffer.put(vertexData, o1 + COLOR_OFFSET, RGBAColor.SIZE);
+            } else {
+                buffer.put(vertexData, o1, Vertex.SIZE);
+                buffer.put(vertexData, o2, Vertex.SIZE);
+                buffer.put(vertexData, o3, Vertex.SIZE);
+            }
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+}
@@ -0,0 +1,55 @@
+package sge.geometry;
+
+import sge.math.Vector3;
+
+/**
+ * Result of a ray query against a {@link MeshBVH}.
+ *
+ * The hit point is origin + t * direction, or equivalently
+ * (1 - u - v) * p1 + u * p2 + v * p3 for the face's corner positions.
+ * A RayHit can be reused for any number of queries, which then
+ * allocate nothing.
+ */
+public final class RayHit {
+
+    /** Distance along the ray, in units of the ray direction's length. */
+    public float t;
+
+    /** Index of the face which was hit, as in Mesh.getFace(). */
+    public int face = -1;
+
+    /** Barycentric weight of the face's second vertex. */
+    public float u;
+
+    /** Barycentric weight of the face's third vertex. */
+    public float v;
+
+    /** Traversal stack, kept between queries. */
+    int[] stack = new int[64];
+
+    /**
+     * @return true if the last query hit a face.
+     */
+    public boolean isHit () {
+        return face >= 0;
+    }
+
+    /**
+     * Barycentric weight of the face's first vertex.
+     */
+    public float w () {
+        return 1.0f - u - v;
+    }
+
+    /**
+     * Point at which a ray hit.
+     */
+    public Vector3 point (final Vector3 origin, final Vector3 direction) {
+        return new Vector3(origin.x + t * direction.x, origin.y + t * direction.y, origin.z + t * direction.z);
+    }
+
+    @Override
+    public String toString () {
+        return String.format("<RayHit face %d t %s u %s v %s>", face, t, u, v);
+    }
+}
@@ -40,9 +40,8 @@ public class Vector3Array {
      * Get the Vector3 at position `index' in the array.
      */
     public Vector3 get (final int index) {
-        float[] vecData = new float[Vector3.SIZE];
-        buffer.get(vecData, index * Vector3.SIZE, Vector3.SIZE);
-        return new Vector3(vecData);
+        int offset = index * Vector3.SIZE;
+        return new Vector3(buffer.get(offset), buffer.get(offset + 1), buffer.get(offset + 2));
     }
 
     /**
@@ -50,8 +49,9 @@ public class Vector3Array {
      * value of vec.
      */
     public void set (final int index, final Vector3 vec) {
-        float[] data = vec.toFloatArray();
-
-        buffer.put(data, index * Vector3.SIZE, Vector3.SIZE);
+        int offset = index * Vector3.SIZE;
+        buffer.put(offset, vec.x);
+        buffer.put(offset + 1, vec.y);
+        buffer.put(offset + 2, vec.z);
     }
 }
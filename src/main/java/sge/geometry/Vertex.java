@@ -1,5 +1,6 @@
 package sge.geometry;
 
+import java.nio.FloatBuffer;
 import sge.color.RGBAColor;
 import sge.math.FMath;
 import sge.math.Vector2;
@@ -157,4 +158,29 @@ public class Vertex {
 
         return data;
     }
+
+    /**
+     * Write Data into a FloatBuffer at its current position, in the same
+     * layout as toFloatArray().
+     *
+     * @return Reference to buffer.
+     */
+    public FloatBuffer put (final FloatBuffer buffer) {
+        return put(buffer, color);
+    }
+
+    /**
+     * Write Data into a FloatBuffer at its current position, in the same
+     * layout as toFloatArray(), substituting a different color.
+     *
+     * @return Reference to buffer.
+     */
+    public FloatBuffer put (final FloatBuffer buffer, final RGBAColor color) {
+        buffer.put(position.x).put(position.y).put(position.z)
+              .put(normal.x).put(normal.y).put(normal.z)
+              .put(texCoords.x).put(texCoords.y)
+              .put(color.r).put(color.g).put(color.b).put(color.a);
+
+        return buffer;
+    }
 }
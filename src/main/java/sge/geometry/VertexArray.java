@@ -3,7 +3,6 @@ package sge.geometry;
 import java.nio.FloatBuffer;
 import java.util.List;
 
-import sge.color.RGBAColor;
 import sge.util.DirectBuffer;
 
 /**
@@ -23,7 +22,7 @@ public class VertexArray {
         this(vertices.size());
 
         for (Vertex v : vertices) {
-            buffer.put(v.toFloatArray());
+            v.put(buffer);
         }
 
         buffer.flip();
@@ -59,41 +58,7 @@ public class VertexArray {
      */
     public static VertexArray fromFaces (final Mesh data, final boolean solidFaceColors) {
         VertexArray array = new VertexArray(data.getFaceCount() * 3);
-        Vertex v1, v2, v3;
-
-        if (solidFaceColors) {
-            for (int k = 0, kMax = data.getFaceCount(); k < kMax; k++) {
-                Triangle f = data.getFace(k);
-                RGBAColor faceColor = f.v1.color;
-
-                v1 = new Vertex(f.v1);
-                v1.color = faceColor;
-
-                v2 = new Vertex(f.v2);
-                v2.color = faceColor;
-
-                v3 = new Vertex(f.v3);
-                v3.color = faceColor;
-
-                array.buffer.put(v1.toFloatArray());
-                array.buffer.put(v2.toFloatArray());
-                array.buffer.put(v3.toFloatArray());
-            }
-        } else {
-            for (int k = 0, kMax = data.getFaceCount(); k < kMax; k++) {
-                Triangle f = data.getFace(k);
-
-                v1 = f.v1;
-                v2 = f.v2;
-                v3 = f.v3;
-
-                array.buffer.put(v1.toFloatArray());
-                array.buffer.put(v2.toFloatArray());
-                array.buffer.put(v3.toFloatArray());
-            }
-        }
-
-        array.buffer.flip();
+        data.faceArray(solidFaceColors, array.buffer);
 
         return array;
     }
@@ -103,7 +68,9 @@ public class VertexArray {
      */
     public Vertex get (final int index) {
         float[] vertData = new float[Vertex.SIZE];
-        buffer.get(vertData, index * Vertex.SIZE, Vertex.SIZE);
+        for (int i = 0, offset = index * Vertex.SIZE; i < Vertex.SIZE; i++) {
+            vertData[i] = buffer.get(offset + i);
+        }
         return new Vertex(vertData);
     }
 
@@ -111,8 +78,9 @@ public class VertexArray {
      * Set the float data beginning at `index' to be the values of vert.
      */
     public void set (final int index, final Vertex vert) {
-        float[] data = vert.toFloatArray();
-
-        buffer.put(data, index * Vertex.SIZE, Vertex.SIZE);
+        int position = buffer.position();
+        buffer.position(index * Vertex.SIZE);
+        vert.put(buffer);
+        buffer.position(position);
     }
 }
@@ -0,0 +1,272 @@
+package sge.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import org.apache.log4j.Logger;
+import sge.geometry.BufferMesh;
+import sge.geometry.MeshData;
+import sge.geometry.Vertex;
+import sge.importer.obj.ObjConverter;
+import sge.math.FMath;
+
+/**
+ * Directory of binary mesh files, so that models only need to be
+ * converted from their source format once.
+ *
+ * Each cache file holds the interleaved vertex data and indices of a
+ * mesh, in native byte order, ready to upload. Files are keyed on the
+ * absolute path of the source file, and are stale once the source
+ * file's size or modification time changes. Cached meshes are loaded
+ * by memory mapping the file into a {@link BufferMesh}, so no objects
+ * are created per vertex. The vertex and index data are mapped
+ * separately, so each must be under 2GB.
+ *
+ * File layout:
+ * <pre>
+ *   int    MAGIC
+ *   int    FORMAT_VERSION
+ *   long   source size
+ *   long   source modification time
+ *   int    vertex count
+ *   int    index count
+ *   int    source path length (bytes)
+ *   byte[] source path (UTF-8), padded to a multiple of 8 bytes
+ *   float[vertex count * Vertex.SIZE] vertex data
+ *   int[index count] indices
+ * </pre>
+ */
+public class MeshCache {
+
+    private static final Logger logger = Logger.getLogger(MeshCache.class);
+
+    /** 'SGEM' in the byte order of the writing machine. */
+    public static final int MAGIC = 0x5347454D;
+
+    /** Bumped whenever the file layout changes. */
+    public static final int FORMAT_VERSION = 1;
+
+    public static final String EXTENSION = ".sgem";
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+    private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File directory;
+
+    /**
+     * Create a cache which keeps its files in `directory'. The
+     * directory is created when the first mesh is stored.
+     */
+    public MeshCache (final File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory () {
+        return directory;
+    }
+
+    /**
+     * Return the cache file used for a source file.
+     */
+    public File cacheFile (final String sourcePath) {
+        File source = new File(sourcePath).getAbsoluteFile();
+        String name = source.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+
+        return new File(directory, name + "-" + Integer.toHexString(source.getPath().hashCode()) + EXTENSION);
+    }
+
+    /**
+     * Load the cached mesh for a source file.
+     *
+     * @return The cached mesh, or null if there is no cache file or it is
+     *   out of date.
+     */
+    public BufferMesh load (final String sourcePath) {
+        File source = new File(sourcePath).getAbsoluteFile();
+        File file = cacheFile(sourcePath);
+
+        if (!file.isFile() || !source.isFile()) {
+            return null;
+        }
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            FileChannel channel = in.getChannel();
+            long fileSize = channel.size();
+
+            if (fileSize < HEADER_SIZE) {
+                return null;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            channel.read(header, 0);
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                    || header.getLong() != source.length() || header.getLong() != source.lastModified()) {
+                return null;
+            }
+
+            int vertexCount = header.getInt();
+            int indexCount = header.getInt();
+            int pathLength = header.getInt();
+            long vertexSize = vertexDataSize(vertexCount);
+            long indexSize = (long) indexCount * INT_SIZE;
+            int dataOffset = dataOffset(pathLength);
+
+            if (vertexCount < 0 || indexCount < 0 || pathLength < 0
+                    || fileSize != dataOffset + vertexSize + indexSize) {
+                return null;
+            }
+
+            ByteBuffer path = ByteBuffer.allocate(pathLength);
+            channel.read(path, HEADER_SIZE);
+            if (!Arrays.equals(path.array(), source.getPath().getBytes(UTF8))) {
+                return null;
+            }
+
+            FloatBuffer vertices = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, vertexSize)
+                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+            IntBuffer indices = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + vertexSize, indexSize)
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+
+            return new BufferMesh(vertices, indices);
+
+        } catch (IOException e) {
+            logger.error("Error reading mesh cache file: " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write a mesh to the cache file for a source file, replacing any
+     * existing cache file.
+     *
+     * @return true if the mesh was written.
+     */
+    public boolean store (final String sourcePath, final MeshData mesh) {
+        File source = new File(sourcePath).getAbsoluteFile();
+        File file = cacheFile(sourcePath);
+
+        if (!source.isFile()) {
+            logger.error("Can't cache mesh for missing source file: " + source);
+            return false;
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            logger.error("Can't create mesh cache directory: " + directory);
+            return false;
+        }
+
+        File temp = null;
+
+        try {
+            temp = File.createTempFile(file.getName(), ".tmp", directory);
+            write(temp, source, mesh);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+
+        } catch (IOException e) {
+            logger.error("Error writing mesh cache file: " + file, e);
+            if (null != temp) {
+                temp.delete();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Load the cached mesh for an .obj file, converting and caching the
+     * .obj file first if needed.
+     *
+     * @return The cached mesh, or the converted mesh if it could not be
+     *   cached.
+     */
+    public MeshData loadObj (final String filename) {
+        MeshData mesh = load(filename);
+
+        if (null == mesh) {
+            mesh = ObjConverter.objDocumentToMesh(filename);
+
+            // Hand back the mapped copy so the converted Mesh can be freed.
+            if (store(filename, mesh)) {
+                BufferMesh cached = load(filename);
+                if (null != cached) {
+                    mesh = cached;
+                }
+            }
+        }
+
+        return mesh;
+    }
+
+    /**
+     * Remove the cache file for a source file.
+     *
+     * @return true if a cache file was removed.
+     */
+    public boolean invalidate (final String sourcePath) {
+        return cacheFile(sourcePath).delete();
+    }
+
+    private static void write (final File file, final File source, final MeshData mesh) throws IOException {
+        byte[] path = source.getPath().getBytes(UTF8);
+        int vertexCount = mesh.getVertexCount();
+        int indexCount = mesh.getIndexCount();
+        long vertexSize = vertexDataSize(vertexCount);
+        long indexSize = (long) indexCount * INT_SIZE;
+        int dataOffset = dataOffset(path.length);
+
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = out.getChannel();
+            out.setLength(dataOffset + vertexSize + indexSize);
+
+            ByteBuffer header = ByteBuffer.allocate(dataOffset).order(ByteOrder.nativeOrder());
+            header.putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.putLong(source.length()).putLong(source.lastModified());
+            header.putInt(vertexCount).putInt(indexCount).putInt(path.length);
+            header.put(path);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+
+            // Mesh and PackedMesh write straight into the mapped file,
+            // anything else is copied in.
+            MappedByteBuffer vertexMap = channel.map(FileChannel.MapMode.READ_WRITE, dataOffset, vertexSize);
+            FloatBuffer vertices = vertexMap.order(ByteOrder.nativeOrder()).asFloatBuffer();
+            FloatBuffer vertexSrc = mesh.vertexArray(vertices);
+            if (vertexSrc != vertices) {
+                vertices.put(vertexSrc);
+            }
+            vertexMap.force();
+
+            MappedByteBuffer indexMap = channel.map(FileChannel.MapMode.READ_WRITE, dataOffset + vertexSize, indexSize);
+            IntBuffer indices = indexMap.order(ByteOrder.nativeOrder()).asIntBuffer();
+            IntBuffer indexSrc = mesh.indexArray(indices);
+            if (indexSrc != indices) {
+                indices.put(indexSrc);
+            }
+            indexMap.force();
+        }
+    }
+
+    private static int dataOffset (final int pathLength) {
+        return (HEADER_SIZE + pathLength + 7) & ~7;
+    }
+
+    private static long vertexDataSize (final int vertexCount) {
+        return (long) vertexCount * Vertex.SIZE * FMath.FLOAT_SIZE;
+    }
+}
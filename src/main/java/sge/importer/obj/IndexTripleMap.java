@@ -0,0 +1,108 @@
+package sge.importer.obj;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from (position, tex coord, normal) index
+ * triples to consecutive vertex indices, used to weld .obj vertices.
+ *
+ * Keys are stored in parallel int[]s rather than as objects, and the
+ * table uses linear probing, so adding a key allocates nothing except
+ * when the map grows.
+ */
+final class IndexTripleMap {
+
+    private static final int EMPTY = -1;
+
+    /** Table of vertex indices, EMPTY for unused slots. */
+    private int[] table;
+    private int mask;
+
+    /** Key components, indexed by vertex index. */
+    private int[] keyA;
+    private int[] keyB;
+    private int[] keyC;
+
+    private int size = 0;
+
+    /**
+     * Create a map with room for `capacity' keys before it needs to grow.
+     */
+    IndexTripleMap (final int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(4, capacity) * 2 - 1) << 1;
+
+        table = new int[tableSize];
+        Arrays.fill(table, EMPTY);
+        mask = tableSize - 1;
+
+        keyA = new int[Math.max(4, capacity)];
+        keyB = new int[keyA.length];
+        keyC = new int[keyA.length];
+    }
+
+    int size () {
+        return size;
+    }
+
+    /**
+     * Return the vertex index of (a, b, c). If the triple is new it is
+     * given the next index, size() - 1 after the call.
+     */
+    int add (final int a, final int b, final int c) {
+        int slot = hash(a, b, c) & mask;
+
+        while (true) {
+            int index = table[slot];
+
+            if (EMPTY == index) {
+                break;
+            }
+
+            if (keyA[index] == a && keyB[index] == b && keyC[index] == c) {
+                return index;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == keyA.length) {
+            int capacity = keyA.length + (keyA.length >> 1);
+            keyA = Arrays.copyOf(keyA, capacity);
+            keyB = Arrays.copyOf(keyB, capacity);
+            keyC = Arrays.copyOf(keyC, capacity);
+        }
+
+        int index = size++;
+        keyA[index] = a;
+        keyB[index] = b;
+        keyC[index] = c;
+
+        // Keep the load factor at or below 0.5.
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        } else {
+            table[slot] = index;
+        }
+
+        return index;
+    }
+
+    private void rehash (final int tableSize) {
+        table = new int[tableSize];
+        Arrays.fill(table, EMPTY);
+        mask = tableSize - 1;
+
+        for (int i = 0; i < size; i++) {
+            int slot = hash(keyA[i], keyB[i], keyC[i]) & mask;
+            while (EMPTY != table[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i;
+        }
+    }
+
+    private static int hash (final int a, final int b, final int c) {
+        int h = a * 0x9E3779B1 + b * 0x85EBCA77 + c * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+}
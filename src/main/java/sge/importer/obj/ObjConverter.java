@@ -11,55 +11,55 @@ public class ObjConverter {
     /**
      * Convert a parsed .obj document to a Mesh object.
      *
+     * Face corners which use the same position, texture coordinate and
+     * normal are welded into a single Vertex, so the Mesh has one Vertex
+     * per distinct corner rather than three per triangle.
+     *
      * @param document A parsed ObjDocument.
      * @return Mesh
      */
     public static Mesh objDocumentToMesh (ObjDocument document) {
         Mesh m = new Mesh();
+        IndexTripleMap welded = new IndexTripleMap(document.getSize());
+        int[] face = new int[3];
 
         // .obj models are organised into mesh subgroups, however,
         // the vertex index numbering is continuous.
         for (ObjGroup g : document.subgroups()) {
+            int vertexCount = g.getVertexCount();
 
-            // Read in 3 vertices each time and create a triangle face.
-            for (int k = 2, kMax = g.getVertexCount(); k < kMax; k += 3) {
-                // Vertex 1
-                Vertex v1 = new Vertex(document.getPosition(g.getPositionIndex(k - 2)));
+            // Faces read before the first tex coord or normal have no
+            // index for it, so those indices start part way into the group.
+            // Corners which give none are ObjGroup.NO_INDEX.
+            int texCoordStart = vertexCount - g.getTexCoordIndexCount();
+            int normalStart = vertexCount - g.getNormalIndexCount();
 
-                if (document.hasNormals()) {
-                    v1.normal = document.getNormal(g.getNormalIndex(k - 2));
-                }
+            for (int k = 0; k < vertexCount; k++) {
+                int xyz = g.getPositionIndex(k);
+                int tex = (k >= texCoordStart) ? g.getTexCoordIndex(k - texCoordStart) : ObjGroup.NO_INDEX;
+                int vn = (k >= normalStart) ? g.getNormalIndex(k - normalStart) : ObjGroup.NO_INDEX;
 
-                if (document.hasTexCoords()) {
-                    v1.texCoords = document.getTexCoord(g.getTexCoordIndex(k - 2));
-                }
+                int count = welded.size();
+                int index = welded.add(xyz, tex, vn);
 
-                // Vertex 2
-                Vertex v2 = new Vertex(document.getPosition(g.getPositionIndex(k - 1)));
+                if (index == count) {
+                    Vertex v = new Vertex(document.getPosition(xyz));
 
-                if (document.hasNormals()) {
-                    v2.normal = document.getNormal(g.getNormalIndex(k - 1));
-                }
+                    if (vn != ObjGroup.NO_INDEX) {
+                        v.normal = document.getNormal(vn);
+                    }
 
-                if (document.hasTexCoords()) {
-                    v2.texCoords = document.getTexCoord(g.getTexCoordIndex(k - 1));
-                }
-
-                // Vertex 3
-                Vertex v3 = new Vertex(document.getPosition(g.getPositionIndex(k)));
+                    if (tex != ObjGroup.NO_INDEX) {
+                        v.texCoords = document.getTexCoord(tex);
+                    }
 
-                if (document.hasNormals()) {
-                    v3.normal = document.getNormal(g.getNormalIndex(k));
+                    m.addVert(v);
                 }
 
-                if (document.hasTexCoords()) {
-                    v3.texCoords = document.getTexCoord(g.getTexCoordIndex(k));
+                face[k % 3] = index;
+                if (k % 3 == 2) {
+                    m.addFace(face[0], face[1], face[2]);
                 }
-
-                m.addVert(v1);
-                m.addVert(v2);
-                m.addVert(v3);
-                m.addFace(k - 2, k - 1, k);
             }
         }
 
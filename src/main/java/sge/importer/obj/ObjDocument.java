@@ -1,14 +1,14 @@
 package sge.importer.obj;
 
-import java.io.BufferedReader;
-import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import org.apache.log4j.Logger;
 import sge.math.Vector2;
 import sge.math.Vector3;
+import sge.util.FloatList;
 
 /**
  * This class represents a parsed .obj document in memory.
@@ -34,6 +34,9 @@ import sge.math.Vector3;
  *
  * # List of faces:
  * f 1/1/1 2/2/1 3/3/1   # Triangle.
+ *
+ * Vertex data is held in flat float lists, e.g. positions as
+ * (x, y, z) triples, rather than as one object per element.
  */
 public class ObjDocument {
 
@@ -42,32 +45,48 @@ public class ObjDocument {
     public static final int DEFAULT_SIZE = 128;
     public static final int DEFAULT_GROUP_SIZE = 8;
 
-    private String filename;
     private String name ="untitled_obj";
 
-    private ArrayList<Vector3> positionVectors = new ArrayList<Vector3>(DEFAULT_SIZE);
-    private ArrayList<Vector3> normalVectors = new ArrayList<Vector3>(DEFAULT_SIZE);
-    private ArrayList<Vector2> textureCoords = new ArrayList<Vector2>(DEFAULT_SIZE);
+    private final FloatList positions = new FloatList(DEFAULT_SIZE * 3);
+    private final FloatList normals = new FloatList(DEFAULT_SIZE * 3);
+    private final FloatList texCoords = new FloatList(DEFAULT_SIZE * 2);
 
     private ArrayList<ObjGroup> subgroups = new ArrayList<ObjGroup>(DEFAULT_GROUP_SIZE);
 
-    private ObjGroup currentSubgroup;
-
     private boolean hasNormals = false;
     private boolean hasTexCoords = false;
 
+    /**
+     * Construct an empty document.
+     */
+    ObjDocument () {
+    }
+
     /**
      * Parse an Obj File.
      */
     public ObjDocument (final String filename) {
-        this.filename = filename;
         readFromFile(filename);
     }
 
+    /**
+     * Parse Obj data from a stream. The stream is read to the end but
+     * not closed.
+     *
+     * @param name Name used to identify the source in log messages.
+     */
+    public ObjDocument (final String name, final InputStream in) throws IOException {
+        new ObjParser(this, name).parse(in);
+    }
+
     public String getName () {
         return name;
     }
 
+    void setName (final String name) {
+        this.name = name;
+    }
+
     public boolean hasNormals () {
         return hasNormals;
     }
@@ -77,7 +96,15 @@ public class ObjDocument {
     }
 
     public int getSize () {
-        return positionVectors.size();
+        return positions.size() / 3;
+    }
+
+    public int getNormalCount () {
+        return normals.size() / 3;
+    }
+
+    public int getTexCoordCount () {
+        return texCoords.size() / 2;
     }
 
     public int getFaceCount () {
@@ -91,27 +118,69 @@ public class ObjDocument {
     }
 
     public Vector3 getPosition (int i) {
-        return positionVectors.get(i);
+        float[] p = positions.array();
+        checkIndex(i, positions.size() / 3);
+        return new Vector3(p[i * 3], p[i * 3 + 1], p[i * 3 + 2]);
     }
 
     public void addPosition (Vector3 vec) {
-        positionVectors.add(vec);
+        addPosition(vec.x, vec.y, vec.z);
+    }
+
+    public void addPosition (float x, float y, float z) {
+        positions.add(x, y, z);
     }
 
     public Vector3 getNormal (int i) {
-        return normalVectors.get(i);
+        float[] n = normals.array();
+        checkIndex(i, normals.size() / 3);
+        return new Vector3(n[i * 3], n[i * 3 + 1], n[i * 3 + 2]);
     }
 
     public void addNormal (Vector3 vec) {
-        normalVectors.add(vec);
+        addNormal(vec.x, vec.y, vec.z);
+    }
+
+    public void addNormal (float x, float y, float z) {
+        normals.add(x, y, z);
+        hasNormals = true;
     }
 
     public Vector2 getTexCoord (int i) {
-        return textureCoords.get(i);
+        float[] t = texCoords.array();
+        checkIndex(i, texCoords.size() / 2);
+        return new Vector2(t[i * 2], t[i * 2 + 1]);
     }
 
     public void addTexCoord (Vector2 vec) {
-        textureCoords.add(vec);
+        addTexCoord(vec.x, vec.y);
+    }
+
+    public void addTexCoord (float s, float t) {
+        texCoords.add(s, t);
+        hasTexCoords = true;
+    }
+
+    /**
+     * Make room for the given number of positions, normals and texture
+     * coordinates.
+     */
+    void ensureCapacity (final int positionCount, final int normalCount, final int texCoordCount) {
+        positions.ensureCapacity(positionCount * 3);
+        normals.ensureCapacity(normalCount * 3);
+        texCoords.ensureCapacity(texCoordCount * 2);
+    }
+
+    /**
+     * Append the vertex data (but not the groups) of another document
+     * to this one.
+     */
+    void appendVertexData (final ObjDocument other) {
+        positions.addAll(other.positions);
+        normals.addAll(other.normals);
+        texCoords.addAll(other.texCoords);
+        hasNormals |= other.hasNormals;
+        hasTexCoords |= other.hasTexCoords;
     }
 
     public ArrayList<ObjGroup> subgroups () {
@@ -126,53 +195,8 @@ public class ObjDocument {
      * Parse a .obj file producing an ObjDocument object.
      */
     private void readFromFile (final String filename) {
-        File f = new File(filename);
-
-        try (BufferedReader inStream = new BufferedReader(new FileReader(f))) {
-            String line;
-            int lineNumber = 1;
-
-            while ((line = inStream.readLine()) != null) {
-
-                if (line.length() <= 1 || line.startsWith("#")) {
-                    // Comment or blank line - skip
-                    continue;
-                }
-
-                String[] tokens = line.split(" +");
-                switch (tokens[0]) {
-                    case "o":
-                        parseObjName(lineNumber, tokens);
-                        break;
-                    case "g":
-                        parseSubgroup(lineNumber, tokens);
-                        break;
-                    // Line is a description of a vertex attr
-                    case "v":
-                        parsePositionVector(lineNumber, tokens);
-                        break;
-                    // Line is a normal
-                    case "vn":
-                        parseVertexNormals(lineNumber, tokens);
-                        break;
-                    // Line is a texture coordinate
-                    case "vt":
-                        parseTexCoords(lineNumber, tokens);
-                        break;
-                    // Line is a Face/Polygon mapping
-                    case "f":
-                        parseFace(lineNumber, tokens);
-                        break;
-                }
-
-                lineNumber++;
-            }
-
-            // Add final group.
-            if (null != currentSubgroup) {
-                addSubgroup(currentSubgroup);
-            }
-
+        try (InputStream in = new FileInputStream(filename)) {
+            new ObjParser(this, filename).parse(in);
         } catch (FileNotFoundException e) {
             logger.error("File not found at location:" + filename, e);
         } catch (IOException e) {
@@ -180,144 +204,9 @@ public class ObjDocument {
         }
     }
 
-    private void parseObjName (final int lineNumber, final String[] tokens) {
-        if (tokens.length < 2) {
-            logger.error("Untitled object marker in .obj doc: " + filename + " at line: " + lineNumber);
-            return;
-        }
-
-        name = tokens[1];
-    }
-
-    private void parseSubgroup (final int lineNumber, final String[] tokens) {
-
-        if (null != currentSubgroup) {
-            addSubgroup(currentSubgroup);
-        }
-
-        if (tokens.length < 2) {
-            logger.error("Untitled group marker in .obj doc: " + filename + " at line: " + lineNumber);
-            currentSubgroup = new ObjGroup();
-        } else {
-            currentSubgroup = new ObjGroup(tokens[1]);
-        }
-
-    }
-
-    private void parsePositionVector (final int lineNumber, final String[] tokens) {
-
-        if (tokens.length < 4) {
-            logger.error("Malformed Vertex Position in .obj doc: " + filename + " at line: " + lineNumber);
-            addPosition(Vector3.ZERO);
-        } else {
-            float x = Float.parseFloat(tokens[1]);
-            float y = Float.parseFloat(tokens[2]);
-            float z = Float.parseFloat(tokens[3]);
-
-            addPosition(new Vector3(x, y, z));
-        }
-    }
-
-    private void parseVertexNormals (final int lineNumber, final String[] tokens) {
-
-        if (tokens.length < 4) {
-            logger.error("Malformed Normal in .obj doc: " + filename + " at line: " + lineNumber);
-            addNormal(Vector3.ZERO);
-        } else {
-            float x = Float.parseFloat(tokens[1]);
-            float y = Float.parseFloat(tokens[2]);
-            float z = Float.parseFloat(tokens[3]);
-
-            addNormal(new Vector3(x, y, z));
-        }
-
-        hasNormals = true;
-    }
-
-    private void parseTexCoords (final int lineNumber, final String[] tokens) {
-
-        if (tokens.length < 3) {
-            logger.error("Malformed Texture Coord in .obj doc: " + filename + " at line: " + lineNumber);
-            addTexCoord(Vector2.ZERO);
-        } else {
-            float x = Float.parseFloat(tokens[1]);
-            float y = Float.parseFloat(tokens[2]);
-
-            addTexCoord(new Vector2(x, y));
-        }
-
-        hasTexCoords = true;
-    }
-
-    // Parse lines which describe a face using references to vertex data (1-indexed!)
-    // Faces contain 3 or more references to vertex data- this method will converted such
-    //  polygons to triangles.
-    // Faces have the following formats:
-    //  f 1 2 3 4
-    //  f 1//1 2//1 3//1 4//1 # with positions & normals
-    //  f 1/1/3 2/2/3 3/3/1 4/4/1 # with positions & tex coords & normals
-    private void parseFace (final int lineNumber, final String[] tokens) {
-
-        // If there hasn't been a group marker before we hit the first
-        // face, we need to create it.
-        if (null == currentSubgroup) {
-            currentSubgroup = new ObjGroup();
-        }
-
-        // Skip malformed faces -will cause holes in output mesh, but not fatal.
-        if (tokens.length < 4) {
-            logger.error("Malformed Face in .obj doc: " + filename + " at line: " + lineNumber);
-            return;
-        }
-
-        // Convert n-sided faces to triangles while reading.
-        for (int i = 3; i < tokens.length; i++) {
-            // TODO: Parse out these index lists
-            String[] vec1Indices = tokens[1].split("/");
-            String[] vec2Indices = tokens[i - 1].split("/");
-            String[] vec3Indices = tokens[i].split("/");
-
-            // Vertex 1
-            int xyz = Integer.parseInt(vec1Indices[0]) - 1;
-            currentSubgroup.addPositionIndex(xyz);
-
-            if (hasTexCoords) {
-                int tex = Integer.parseInt(vec1Indices[1]) - 1;
-                currentSubgroup.addTexCoordIndex(tex);
-            }
-
-            if (hasNormals) {
-                int vn = Integer.parseInt(vec1Indices[2]) - 1;
-                currentSubgroup.addNormalIndex(vn);
-            }
-
-            // Vertex 2
-            xyz = Integer.parseInt(vec2Indices[0]) - 1;
-            currentSubgroup.addPositionIndex(xyz);
-
-            if (hasTexCoords) {
-                int tex = Integer.parseInt(vec2Indices[1]) - 1;
-                currentSubgroup.addTexCoordIndex(tex);
-            }
-
-            if (hasNormals) {
-                int vn = Integer.parseInt(vec2Indices[2]) - 1;
-                currentSubgroup.addNormalIndex(vn);
-            }
-
-            // Vertex 3
-            xyz = Integer.parseInt(vec3Indices[0]) - 1;
-            currentSubgroup.addPositionIndex(xyz);
-
-            if (hasTexCoords) {
-                int tex = Integer.parseInt(vec3Indices[1]) - 1;
-                currentSubgroup.addTexCoordIndex(tex);
-            }
-
-            if (hasNormals) {
-                int vn = Integer.parseInt(vec3Indices[2]) - 1;
-                currentSubgroup.addNormalIndex(vn);
-            }
+    private static void checkIndex (final int index, final int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
         }
     }
 }
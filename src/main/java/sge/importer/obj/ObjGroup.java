@@ -1,6 +1,7 @@
 package sge.importer.obj;
 
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import sge.util.IntList;
 
 /**
  * An Obj document has one or more Vertex Groups which keep track of the
@@ -9,16 +10,22 @@ import java.util.ArrayList;
  */
 class ObjGroup {
 
+    /**
+     * Texture coordinate or normal index of a face corner which gives
+     * none, e.g. the texture coordinate in "1//1".
+     */
+    public static final int NO_INDEX = -1;
+
     // If Vertex Groups aren't labelled in the document then assign
     // unique names with a counter.
-    private static int untitled_counter = 0;
+    private static final AtomicInteger untitled_counter = new AtomicInteger();
 
     /** Group Name. */
     private String name;
 
-    private final ArrayList<Integer> positionIndices = new ArrayList<Integer>(ObjDocument.DEFAULT_SIZE);
-    private final ArrayList<Integer> normalIndices = new ArrayList<Integer>(ObjDocument.DEFAULT_SIZE);
-    private final ArrayList<Integer> texCoordIndices = new ArrayList<Integer>(ObjDocument.DEFAULT_SIZE);
+    private final IntList positionIndices = new IntList(ObjDocument.DEFAULT_SIZE);
+    private final IntList normalIndices = new IntList(ObjDocument.DEFAULT_SIZE);
+    private final IntList texCoordIndices = new IntList(ObjDocument.DEFAULT_SIZE);
 
     /**
      * Construct a group without a name.
@@ -27,8 +34,7 @@ class ObjGroup {
      * untitled objects with a global counter for debugging.
      */
     public ObjGroup () {
-        this("group." + untitled_counter);
-        untitled_counter++;
+        this(untitledName());
     }
 
     /**
@@ -38,6 +44,19 @@ class ObjGroup {
         this.name = name;
     }
 
+    private static String untitledName () {
+        return "group." + untitled_counter.getAndIncrement();
+    }
+
+    /**
+     * Give a group constructed with a null name the next untitled name.
+     */
+    void nameUntitled () {
+        if (null == name) {
+            name = untitledName();
+        }
+    }
+
     /**
      * Return the name of this group.
      */
@@ -52,6 +71,23 @@ class ObjGroup {
         return positionIndices.size();
     }
 
+    /**
+     * Return the number of normal indices in this group. This is less
+     * than the vertex count if faces were read before any normals.
+     */
+    public int getNormalIndexCount () {
+        return normalIndices.size();
+    }
+
+    /**
+     * Return the number of texture coordinate indices in this group.
+     * This is less than the vertex count if faces were read before any
+     * texture coordinates.
+     */
+    public int getTexCoordIndexCount () {
+        return texCoordIndices.size();
+    }
+
     public int getFaceCount () {
         return positionIndices.size() / 3;
     }
@@ -79,4 +115,13 @@ class ObjGroup {
     public int getTexCoordIndex (int i) {
         return texCoordIndices.get(i);
     }
+
+    /**
+     * Append the indices of another group to this one.
+     */
+    void append (final ObjGroup other) {
+        positionIndices.addAll(other.positionIndices);
+        normalIndices.addAll(other.normalIndices);
+        texCoordIndices.addAll(other.texCoordIndices);
+    }
 }
@@ -0,0 +1,679 @@
+package sge.importer.obj;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import org.apache.log4j.Logger;
+
+/**
+ * Streaming .obj parser which fills in an {@link ObjDocument}.
+ *
+ * Input is read in blocks into a byte[] and tokenized in place. Numbers
+ * are parsed directly from the bytes, so no Strings or temporary
+ * objects are created per line (names of objects and groups aside).
+ */
+final class ObjParser {
+
+    private static final Logger logger = Logger.getLogger(ObjParser.class);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    /** Largest mantissa which is exactly representable as a double. */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /** Powers of 10 which are exactly representable as a double. */
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+            1e21, 1e22};
+
+    /** Line types. */
+    private static final int OTHER = 0;
+    private static final int POSITION = 1;
+    private static final int NORMAL = 2;
+    private static final int TEX_COORD = 3;
+    private static final int FACE = 4;
+    private static final int OBJECT = 5;
+    private static final int GROUP = 6;
+
+    private final ObjDocument doc;
+    private final String filename;
+
+    private ObjGroup currentSubgroup;
+    private int lineNumber = 0;
+
+    /**
+     * Vertex data before the start of this parser's input, when parsing
+     * part of a document. See {@link #continueFrom}.
+     */
+    private int positionOffset = 0;
+    private int normalOffset = 0;
+    private int texCoordOffset = 0;
+    private ObjGroup continuedGroup;
+    private boolean continuedGroupUsed = false;
+    private boolean named = false;
+    private boolean deferNames = false;
+
+    /** Current input block and the bounds of the current token within it. */
+    private byte[] buf;
+    private int pos;
+    private int lineEnd;
+    private int tokenStart;
+    private int tokenEnd;
+
+    ObjParser (final ObjDocument doc, final String filename) {
+        this.doc = doc;
+        this.filename = filename;
+    }
+
+    /**
+     * Set up this parser to read a part of a document which follows
+     * `lines' lines containing the given number of positions, normals
+     * and texture coordinates. Faces before the first group marker are
+     * added to `group'.
+     */
+    void continueFrom (final int lines, final int positions, final int normals, final int texCoords,
+                       final ObjGroup group) {
+        lineNumber = lines;
+        positionOffset = positions;
+        normalOffset = normals;
+        texCoordOffset = texCoords;
+        continuedGroup = group;
+        currentSubgroup = group;
+    }
+
+    /**
+     * Leave untitled groups unnamed, for the caller to name with
+     * ObjGroup.nameUntitled() in document order.
+     */
+    void deferUntitledNames () {
+        deferNames = true;
+    }
+
+    /**
+     * Return the group passed to continueFrom().
+     */
+    ObjGroup getContinuedGroup () {
+        return continuedGroup;
+    }
+
+    /**
+     * Return true if a face line (even a malformed one) was read before
+     * the first group marker, i.e. into the continued group.
+     */
+    boolean isContinuedGroupUsed () {
+        return continuedGroupUsed;
+    }
+
+    /**
+     * Return true if an object name marker was read.
+     */
+    boolean isNamed () {
+        return named;
+    }
+
+    /**
+     * Parse the whole of an input stream, adding data to the document.
+     */
+    void parse (final InputStream in) throws IOException {
+        buf = new byte[BUFFER_SIZE];
+        int len = 0;
+        int start = 0;
+        int scan = 0;
+        boolean eof = false;
+
+        while (true) {
+            int nl = scan;
+            while (nl < len && buf[nl] != '\n') {
+                nl++;
+            }
+
+            if (nl < len) {
+                parseLine(start, nl);
+                start = scan = nl + 1;
+                continue;
+            }
+
+            if (eof) {
+                if (start < len) {
+                    parseLine(start, len);
+                }
+                break;
+            }
+
+            // Partial line - move it to the start of the block and read more.
+            int remaining = len - start;
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, remaining);
+            } else if (remaining == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            len = remaining;
+            scan = remaining;
+            start = 0;
+
+            int n = in.read(buf, len, buf.length - len);
+            if (n < 0) {
+                eof = true;
+            } else {
+                len += n;
+            }
+        }
+
+        finish();
+    }
+
+    /**
+     * Parse the lines in data[start..end), adding data to the document.
+     */
+    void parse (final byte[] data, final int start, final int end) {
+        buf = data;
+        int lineStart = start;
+
+        for (int i = start; i < end; i++) {
+            if (data[i] == '\n') {
+                parseLine(lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+
+        if (lineStart < end) {
+            parseLine(lineStart, end);
+        }
+
+        finish();
+    }
+
+    /**
+     * Count the lines in data[start..end) without adding anything to the
+     * document. Reads the buffer in place with absolute gets, so a mapped
+     * file is not copied.
+     *
+     * @return {lines, positions, normals, texture coordinates}
+     */
+    int[] count (final ByteBuffer data, final int start, final int end) {
+        int[] types = new int[GROUP + 1];
+        int lines = 0;
+        int lineStart = start;
+
+        for (int i = start; i < end; i++) {
+            if (data.get(i) == '\n') {
+                types[vertexType(data, lineStart, i)]++;
+                lines++;
+                lineStart = i + 1;
+            }
+        }
+
+        if (lineStart < end) {
+            types[vertexType(data, lineStart, end)]++;
+            lines++;
+        }
+
+        lineNumber += lines;
+        return new int[] {lines, types[POSITION], types[NORMAL], types[TEX_COORD]};
+    }
+
+    /**
+     * Classify the line data[start..end) as beginLine() would, but only
+     * telling vertex data apart from other lines.
+     */
+    private static int vertexType (final ByteBuffer data, final int start, final int end) {
+        int lineEnd = (end > start && data.get(end - 1) == '\r') ? end - 1 : end;
+        if (lineEnd - start <= 1 || data.get(start) == '#') {
+            return OTHER;
+        }
+
+        int i = start;
+        while (i < lineEnd && isSpace(data.get(i))) {
+            i++;
+        }
+        if (i >= lineEnd || data.get(i) != 'v') {
+            return OTHER;
+        }
+
+        if (i + 1 == lineEnd || isSpace(data.get(i + 1))) {
+            return POSITION;
+        }
+        if (i + 2 == lineEnd || isSpace(data.get(i + 2))) {
+            switch (data.get(i + 1)) {
+                case 'n':
+                    return NORMAL;
+                case 't':
+                    return TEX_COORD;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Add the final group to the document.
+     */
+    void finish () {
+        if (null != currentSubgroup) {
+            doc.addSubgroup(currentSubgroup);
+            currentSubgroup = null;
+        }
+    }
+
+    /**
+     * Start reading the line buf[start..end), leaving pos after the
+     * leading keyword.
+     *
+     * @return The line type.
+     */
+    private int beginLine (final int start, final int end) {
+        lineNumber++;
+
+        lineEnd = (end > start && buf[end - 1] == '\r') ? end - 1 : end;
+        pos = start;
+
+        if (lineEnd - start <= 1 || buf[start] == '#') {
+            // Comment or blank line - skip
+            return OTHER;
+        }
+
+        if (!nextToken()) {
+            return OTHER;
+        }
+
+        int keyLength = tokenEnd - tokenStart;
+        byte k0 = buf[tokenStart];
+
+        if (1 == keyLength) {
+            switch (k0) {
+                case 'v':
+                    return POSITION;
+                case 'f':
+                    return FACE;
+                case 'o':
+                    return OBJECT;
+                case 'g':
+                    return GROUP;
+            }
+        } else if (2 == keyLength && 'v' == k0) {
+            switch (buf[tokenStart + 1]) {
+                case 'n':
+                    return NORMAL;
+                case 't':
+                    return TEX_COORD;
+            }
+        }
+
+        return OTHER;
+    }
+
+    private void parseLine (final int start, final int end) {
+        switch (beginLine(start, end)) {
+            // Line is a description of a vertex attr
+            case POSITION:
+                parsePositionVector();
+                break;
+            // Line is a normal
+            case NORMAL:
+                parseVertexNormals();
+                break;
+            // Line is a texture coordinate
+            case TEX_COORD:
+                parseTexCoords();
+                break;
+            // Line is a Face/Polygon mapping
+            case FACE:
+                parseFace();
+                break;
+            case OBJECT:
+                parseObjName();
+                break;
+            case GROUP:
+                parseSubgroup();
+                break;
+        }
+    }
+
+    // TOKENIZER
+
+    private static boolean isSpace (final byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * Advance to the next whitespace separated token on the current line.
+     *
+     * @return false if there are no more tokens on the line.
+     */
+    private boolean nextToken () {
+        while (pos < lineEnd && isSpace(buf[pos])) {
+            pos++;
+        }
+
+        if (pos >= lineEnd) {
+            return false;
+        }
+
+        tokenStart = pos;
+        while (pos < lineEnd && !isSpace(buf[pos])) {
+            pos++;
+        }
+        tokenEnd = pos;
+
+        return true;
+    }
+
+    private String tokenString () {
+        return new String(buf, tokenStart, tokenEnd - tokenStart, ASCII);
+    }
+
+    /**
+     * Parse a float from buf[start..end). Plain decimal numbers with a
+     * short mantissa, which is what .obj exporters write, are converted
+     * directly. Anything else is handed to Float.parseFloat.
+     */
+    static float parseFloat (final byte[] b, final int start, final int end) {
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        boolean digits = false;
+
+        while (i < end && b[i] >= '0' && b[i] <= '9') {
+            if (mantissa < MAX_EXACT_MANTISSA) {
+                mantissa = mantissa * 10 + (b[i] - '0');
+            } else {
+                exponent++;
+            }
+            digits = true;
+            i++;
+        }
+
+        if (i < end && b[i] == '.') {
+            i++;
+            while (i < end && b[i] >= '0' && b[i] <= '9') {
+                if (mantissa < MAX_EXACT_MANTISSA) {
+                    mantissa = mantissa * 10 + (b[i] - '0');
+                    exponent--;
+                }
+                digits = true;
+                i++;
+            }
+        }
+
+        if (digits && i < end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negativeExp = false;
+            if (i < end && (b[i] == '-' || b[i] == '+')) {
+                negativeExp = b[i] == '-';
+                i++;
+            }
+
+            int e = 0;
+            boolean expDigits = false;
+            while (i < end && b[i] >= '0' && b[i] <= '9') {
+                e = Math.min(e * 10 + (b[i] - '0'), 1000);
+                expDigits = true;
+                i++;
+            }
+
+            digits = expDigits;
+            exponent += negativeExp ? -e : e;
+        }
+
+        if (!digits || i != end || mantissa > MAX_EXACT_MANTISSA
+                || exponent < -22 || exponent > 22) {
+            return Float.parseFloat(new String(b, start, end - start, ASCII));
+        }
+
+        double value = (exponent >= 0) ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+
+        return (float) (negative ? -value : value);
+    }
+
+    /**
+     * Parse a (possibly negative) integer from buf[start..end).
+     */
+    static int parseInt (final byte[] b, final int start, final int end) {
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+
+        if (i == end) {
+            throw new NumberFormatException("Empty index: " + new String(b, start, end - start, ASCII));
+        }
+
+        int value = 0;
+        for (; i < end; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Bad index: " + new String(b, start, end - start, ASCII));
+            }
+            if (value > (Integer.MAX_VALUE - d) / 10) {
+                throw new NumberFormatException("Index out of range: " + new String(b, start, end - start, ASCII));
+            }
+            value = value * 10 + d;
+        }
+
+        return negative ? -value : value;
+    }
+
+    private float nextFloat () {
+        return parseFloat(buf, tokenStart, tokenEnd);
+    }
+
+    // LINE TYPES
+
+    private void parseObjName () {
+        if (!nextToken()) {
+            logger.error("Untitled object marker in .obj doc: " + filename + " at line: " + lineNumber);
+            return;
+        }
+
+        doc.setName(tokenString());
+        named = true;
+    }
+
+    private void parseSubgroup () {
+
+        if (null != currentSubgroup) {
+            doc.addSubgroup(currentSubgroup);
+        }
+
+        if (!nextToken()) {
+            logger.error("Untitled group marker in .obj doc: " + filename + " at line: " + lineNumber);
+            currentSubgroup = untitledGroup();
+        } else {
+            currentSubgroup = new ObjGroup(tokenString());
+        }
+    }
+
+    private ObjGroup untitledGroup () {
+        return deferNames ? new ObjGroup(null) : new ObjGroup();
+    }
+
+    private void parsePositionVector () {
+        float x, y, z;
+
+        if (nextToken()) {
+            x = nextFloat();
+            if (nextToken()) {
+                y = nextFloat();
+                if (nextToken()) {
+                    z = nextFloat();
+                    doc.addPosition(x, y, z);
+                    return;
+                }
+            }
+        }
+
+        logger.error("Malformed Vertex Position in .obj doc: " + filename + " at line: " + lineNumber);
+        doc.addPosition(0.0f, 0.0f, 0.0f);
+    }
+
+    private void parseVertexNormals () {
+        float x, y, z;
+        boolean valid = false;
+
+        if (nextToken()) {
+            x = nextFloat();
+            if (nextToken()) {
+                y = nextFloat();
+                if (nextToken()) {
+                    z = nextFloat();
+                    doc.addNormal(x, y, z);
+                    valid = true;
+                }
+            }
+        }
+
+        if (!valid) {
+            logger.error("Malformed Normal in .obj doc: " + filename + " at line: " + lineNumber);
+            doc.addNormal(0.0f, 0.0f, 0.0f);
+        }
+    }
+
+    private void parseTexCoords () {
+        float s, t;
+        boolean valid = false;
+
+        if (nextToken()) {
+            s = nextFloat();
+            if (nextToken()) {
+                t = nextFloat();
+                doc.addTexCoord(s, t);
+                valid = true;
+            }
+        }
+
+        if (!valid) {
+            logger.error("Malformed Texture Coord in .obj doc: " + filename + " at line: " + lineNumber);
+            doc.addTexCoord(0.0f, 0.0f);
+        }
+    }
+
+    /**
+     * Convert a 1-based (or negative, relative) .obj reference in
+     * b[start..end) into a 0-based index into a list currently holding
+     * `count' elements. An empty reference, e.g. the texture coordinate
+     * in "1//1", is read as ObjGroup.NO_INDEX.
+     */
+    private static int toIndex (final byte[] b, final int start, final int end, final int count) {
+        if (start == end) {
+            return ObjGroup.NO_INDEX;
+        }
+
+        int ref = parseInt(b, start, end);
+        return (ref < 0) ? count + ref : ref - 1;
+    }
+
+    // Parse lines which describe a face using references to vertex data (1-indexed!)
+    // Faces contain 3 or more references to vertex data- this method will converted such
+    //  polygons to triangles.
+    // Faces have the following formats:
+    //  f 1 2 3 4
+    //  f 1//1 2//1 3//1 4//1 # with positions & normals
+    //  f 1/1/3 2/2/3 3/3/1 4/4/1 # with positions & tex coords & normals
+    private void parseFace () {
+
+        // If there hasn't been a group marker before we hit the first
+        // face, we need to create it.
+        if (null == currentSubgroup) {
+            currentSubgroup = untitledGroup();
+        } else if (currentSubgroup == continuedGroup) {
+            continuedGroupUsed = true;
+        }
+
+        final ObjGroup g = currentSubgroup;
+        final byte[] b = buf;
+        final int end = lineEnd;
+        final int positionCount = positionOffset + doc.getSize();
+        final int texCoordCount = texCoordOffset + doc.getTexCoordCount();
+        final int normalCount = normalOffset + doc.getNormalCount();
+        final boolean hasTexCoords = texCoordCount > 0;
+        final boolean hasNormals = normalCount > 0;
+
+        // Convert n-sided faces to triangles (first, previous, current)
+        // while reading. Nothing is added until the third vertex, so
+        // faces with fewer vertices are dropped.
+        int firstP = 0, firstT = 0, firstN = 0;
+        int prevP = 0, prevT = 0, prevN = 0;
+        int vertexCount = 0;
+        int i = pos;
+
+        while (true) {
+            while (i < end && isSpace(b[i])) {
+                i++;
+            }
+            if (i >= end) {
+                break;
+            }
+
+            int start = i;
+            while (i < end && b[i] != '/' && !isSpace(b[i])) {
+                i++;
+            }
+            int p = toIndex(b, start, i, positionCount);
+
+            int t = ObjGroup.NO_INDEX, n = ObjGroup.NO_INDEX;
+            if (i < end && b[i] == '/') {
+                start = ++i;
+                while (i < end && b[i] != '/' && !isSpace(b[i])) {
+                    i++;
+                }
+                t = toIndex(b, start, i, texCoordCount);
+
+                if (i < end && b[i] == '/') {
+                    start = ++i;
+                    while (i < end && !isSpace(b[i])) {
+                        i++;
+                    }
+                    n = toIndex(b, start, i, normalCount);
+                }
+            }
+
+            if (0 == vertexCount) {
+                firstP = p;
+                firstT = t;
+                firstN = n;
+            } else if (vertexCount >= 2) {
+                g.addPositionIndex(firstP);
+                g.addPositionIndex(prevP);
+                g.addPositionIndex(p);
+
+                if (hasTexCoords) {
+                    g.addTexCoordIndex(firstT);
+                    g.addTexCoordIndex(prevT);
+                    g.addTexCoordIndex(t);
+                }
+
+                if (hasNormals) {
+                    g.addNormalIndex(firstN);
+                    g.addNormalIndex(prevN);
+                    g.addNormalIndex(n);
+                }
+            }
+
+            prevP = p;
+            prevT = t;
+            prevN = n;
+            vertexCount++;
+        }
+
+        pos = i;
+
+        // Skip malformed faces -will cause holes in output mesh, but not fatal.
+        if (vertexCount < 3) {
+            logger.error("Malformed Face in .obj doc: " + filename + " at line: " + lineNumber);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package sge.importer.obj;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.apache.log4j.Logger;
+
+/**
+ * Parse large .obj files on multiple threads.
+ *
+ * The file is split at line boundaries into chunks, each memory mapped
+ * once. A first pass counts the lines and vertex data in each mapping
+ * in place, which gives each chunk its starting offsets in the document.
+ * A second pass copies each chunk once into a scratch block and parses
+ * it, and the results are joined in file order, naming any untitled
+ * groups as they go. Both passes run on a ForkJoinPool. The resulting
+ * document is the same as one read by
+ * {@link ObjDocument#ObjDocument(String)}.
+ */
+public final class ParallelObjReader {
+
+    private static final Logger logger = Logger.getLogger(ParallelObjReader.class);
+
+    /** Default size of the chunks each task reads, in bytes. */
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final int PROBE_SIZE = 4096;
+
+    private ParallelObjReader () {}
+
+    /**
+     * A range of lines in the file, and the results of reading it.
+     */
+    private static final class Chunk {
+        final long start;
+        final int length;
+
+        /** Mapped from the count pass until the chunk is parsed. */
+        MappedByteBuffer data;
+
+        /** Lines, positions, normals and texture coordinates in this chunk. */
+        int[] counts;
+
+        ObjDocument doc;
+        ObjParser parser;
+
+        Chunk (final long start, final int length) {
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Parse an Obj File using all available processors.
+     */
+    public static ObjDocument read (final String filename) {
+        ForkJoinPool pool = new ForkJoinPool();
+
+        try {
+            return read(filename, pool, DEFAULT_CHUNK_SIZE);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Parse an Obj File.
+     *
+     * @param filename Location of obj
+     * @param pool Pool to run the parse tasks on.
+     * @param chunkSize Approximate number of bytes parsed by each task.
+     */
+    public static ObjDocument read (final String filename, final ForkJoinPool pool, final int chunkSize) {
+        ObjDocument doc = new ObjDocument();
+
+        try (FileInputStream in = new FileInputStream(filename)) {
+            FileChannel channel = in.getChannel();
+            List<Chunk> chunks = split(channel, chunkSize);
+
+            count(filename, channel, chunks, pool);
+            parse(filename, channel, chunks, pool);
+            merge(doc, chunks);
+
+        } catch (FileNotFoundException e) {
+            logger.error("File not found at location:" + filename, e);
+        } catch (IOException e) {
+            logger.error("Error reading file: " + filename, e);
+        }
+
+        return doc;
+    }
+
+    /**
+     * Split the file into chunks of about chunkSize bytes, each ending
+     * after a newline (or at the end of the file).
+     */
+    private static List<Chunk> split (final FileChannel channel, final int chunkSize) throws IOException {
+        List<Chunk> chunks = new ArrayList<Chunk>();
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long size = channel.size();
+        long start = 0;
+
+        while (start < size) {
+            long end = nextLine(channel, Math.min(start + chunkSize, size) - 1, size, probe);
+
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line too long at offset: " + start);
+            }
+
+            chunks.add(new Chunk(start, (int) (end - start)));
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Return the offset following the first newline at or after `from',
+     * or the file size if there isn't one.
+     */
+    private static long nextLine (final FileChannel channel, final long from, final long size,
+                                  final ByteBuffer probe) throws IOException {
+        long offset = from;
+
+        while (offset < size) {
+            probe.clear();
+            int n = channel.read(probe, offset);
+            if (n <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += n;
+        }
+
+        return size;
+    }
+
+    private static void count (final String filename, final FileChannel channel, final List<Chunk> chunks,
+                               final ForkJoinPool pool) throws IOException {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks.size());
+
+        for (final Chunk c : chunks) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call () throws IOException {
+                    c.data = channel.map(FileChannel.MapMode.READ_ONLY, c.start, c.length);
+                    c.counts = new ObjParser(null, filename).count(c.data, 0, c.length);
+                    return null;
+                }
+            });
+        }
+
+        invokeAll(pool, tasks);
+    }
+
+    private static void parse (final String filename, final FileChannel channel, final List<Chunk> chunks,
+                               final ForkJoinPool pool) throws IOException {
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks.size());
+        int lines = 0, positions = 0, normals = 0, texCoords = 0;
+
+        // Blocks to copy chunks into, shared by the tasks of this call
+        // only. There are at most as many as tasks running at once.
+        final Queue<byte[]> blocks = new ConcurrentLinkedQueue<byte[]>();
+
+        for (final Chunk c : chunks) {
+            c.doc = new ObjDocument();
+            c.doc.ensureCapacity(c.counts[1], c.counts[2], c.counts[3]);
+            c.parser = new ObjParser(c.doc, filename);
+            c.parser.deferUntitledNames();
+
+            if (lines > 0) {
+                c.parser.continueFrom(lines, positions, normals, texCoords, new ObjGroup(""));
+            }
+
+            lines += c.counts[0];
+            positions += c.counts[1];
+            normals += c.counts[2];
+            texCoords += c.counts[3];
+
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call () throws IOException {
+                    byte[] block = blocks.poll();
+                    if (null == block || block.length < c.length) {
+                        block = new byte[c.length];
+                    }
+
+                    c.data.get(block, 0, c.length);
+                    c.data = null;
+                    c.parser.parse(block, 0, c.length);
+
+                    blocks.offer(block);
+                    return null;
+                }
+            });
+        }
+
+        invokeAll(pool, tasks);
+    }
+
+    /**
+     * Join the chunk documents in file order. Faces at the start of a
+     * chunk belong to the last group of the chunk before it.
+     */
+    private static void merge (final ObjDocument doc, final List<Chunk> chunks) {
+        int positions = 0, normals = 0, texCoords = 0;
+
+        for (Chunk c : chunks) {
+            positions += c.counts[1];
+            normals += c.counts[2];
+            texCoords += c.counts[3];
+        }
+        doc.ensureCapacity(positions, normals, texCoords);
+
+        ObjGroup last = null;
+
+        for (Chunk c : chunks) {
+            doc.appendVertexData(c.doc);
+
+            if (c.parser.isNamed()) {
+                doc.setName(c.doc.getName());
+            }
+
+            for (ObjGroup g : c.doc.subgroups()) {
+                if (g == c.parser.getContinuedGroup()) {
+                    if (null != last) {
+                        last.append(g);
+                        continue;
+                    }
+
+                    // No group before this chunk - a sequential parse
+                    // would have created one on the first face line.
+                    if (!c.parser.isContinuedGroupUsed()) {
+                        continue;
+                    }
+
+                    ObjGroup untitled = new ObjGroup();
+                    untitled.append(g);
+                    g = untitled;
+                }
+
+                g.nameUntitled();
+                doc.addSubgroup(g);
+                last = g;
+            }
+
+            c.doc = null;
+        }
+    }
+
+    private static void invokeAll (final ForkJoinPool pool, final List<Callable<Void>> tasks) throws IOException {
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package sge.math;
+
+/**
+ * Inner loops of the batch operations in Vector3Batch, Matrix4, AABB
+ * and Perlin, over plain float[] component arrays.
+ * <p/>
+ * get() returns the kernels from the optional sge.simd module, written
+ * with the JDK Vector API, when that module is on the classpath and the
+ * JVM can run it (JDK 16+ started with --add-modules jdk.incubator.vector).
+ * Otherwise, or when started with -Dsge.simd=false, it returns the
+ * scalar loops. Both give the same results bit for bit.
+ */
+public abstract class BatchKernels {
+
+    private static final String VECTOR_KERNELS = "sge.simd.VectorBatchKernels";
+
+    private static final BatchKernels SCALAR = new Scalar();
+
+    private static final BatchKernels DEFAULT = load();
+
+    protected BatchKernels () {}
+
+    /**
+     * Return the fastest kernels available to this JVM.
+     */
+    public static BatchKernels get () {
+        return DEFAULT;
+    }
+
+    /**
+     * Return the scalar kernels.
+     */
+    public static BatchKernels scalar () {
+        return SCALAR;
+    }
+
+    private static BatchKernels load () {
+        if (!Boolean.parseBoolean(System.getProperty("sge.simd", "true"))) {
+            return SCALAR;
+        }
+
+        try {
+            Class<?> kernels = Class.forName(VECTOR_KERNELS);
+            if (!(Boolean) kernels.getMethod("isSupported").invoke(null)) {
+                // No vector shape worth using on this CPU.
+                return SCALAR;
+            }
+            return (BatchKernels) kernels.newInstance();
+        } catch (Exception e) {
+            // Not on the classpath.
+            return SCALAR;
+        } catch (LinkageError e) {
+            // Built for a newer JVM, or jdk.incubator.vector not added.
+            return SCALAR;
+        }
+    }
+
+    /**
+     * a[i] += b[i] for i in [0, count).
+     */
+    public abstract void add (float[] a, float[] b, int count);
+
+    /**
+     * dest[i] = a[i] . b[i] for i in [0, count).
+     */
+    public abstract void dot (float[] ax, float[] ay, float[] az,
+                              float[] bx, float[] by, float[] bz, float[] dest, int count);
+
+    /**
+     * Normalize Vectors in place. Vectors of length 0.0f are left unchanged.
+     */
+    public abstract void normalize (float[] x, float[] y, float[] z, int count);
+
+    /**
+     * Multiply Vector4s in place by a column major Matrix4.
+     *
+     * @param m The Matrix4's 16 floats.
+     */
+    public abstract void transform (float[] m, float[] x, float[] y, float[] z, float[] w, int count);
+
+    /**
+     * dest[i] = lattice(n + i) for i in [0, count). Noise.noise(x, y) is
+     * lattice(Noise.latticeIndex(x, y)).
+     */
+    public abstract void latticeRow (float[] dest, int count, int n);
+
+    /**
+     * Test boxes given as arrays of min and max corners against the
+     * box (qMinX, qMinY, qMinZ) .. (qMaxX, qMaxY, qMaxZ). Touching
+     * boxes overlap, as in AABB.intersects(). Bit i of hits is set if
+     * box i overlaps, and cleared otherwise.
+     *
+     * @param hits Bitset with at least (count + 63) / 64 words.
+     * @return Number of overlapping boxes.
+     */
+    public abstract int overlaps (float qMinX, float qMinY, float qMinZ,
+                                  float qMaxX, float qMaxY, float qMaxZ,
+                                  float[] minX, float[] minY, float[] minZ,
+                                  float[] maxX, float[] maxY, float[] maxZ, int count, long[] hits);
+
+    /**
+     * Integer lattice noise in [-1, 1], from a 31 bit hash of n.
+     */
+    protected static float lattice (final int n) {
+        int m = (n << 13) ^ n;
+        int h = (m * (m * m * 60493 + 19990303) + 1376312589) & 0x7fffffff;
+        return 1.0f - (h / 1073741824.0f);
+    }
+
+    private static final class Scalar extends BatchKernels {
+
+        @Override
+        public void add (final float[] a, final float[] b, final int count) {
+            for (int i = 0; i < count; i++) {
+                a[i] += b[i];
+            }
+        }
+
+        @Override
+        public void dot (final float[] ax, final float[] ay, final float[] az,
+                         final float[] bx, final float[] by, final float[] bz, final float[] dest, final int count) {
+            for (int i = 0; i < count; i++) {
+                dest[i] = ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i];
+            }
+        }
+
+        @Override
+        public void normalize (final float[] x, final float[] y, final float[] z, final int count) {
+            for (int i = 0; i < count; i++) {
+                float _x = x[i], _y = y[i], _z = z[i];
+                float length = (float) Math.sqrt(_x * _x + _y * _y + _z * _z);
+                float invLength = 1.0f / (length == 0.0f ? 1.0f : length);
+
+                x[i] = _x * invLength;
+                y[i] = _y * invLength;
+                z[i] = _z * invLength;
+            }
+        }
+
+        @Override
+        public void transform (final float[] m, final float[] x, final float[] y, final float[] z,
+                               final float[] w, final int count) {
+            final float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+            final float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+            final float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+            final float m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+
+            for (int i = 0; i < count; i++) {
+                float _x = x[i], _y = y[i], _z = z[i], _w = w[i];
+
+                x[i] = m0 * _x + m4 * _y + m8 * _z + m12 * _w;
+                y[i] = m1 * _x + m5 * _y + m9 * _z + m13 * _w;
+                z[i] = m2 * _x + m6 * _y + m10 * _z + m14 * _w;
+                w[i] = m3 * _x + m7 * _y + m11 * _z + m15 * _w;
+            }
+        }
+
+        @Override
+        public void latticeRow (final float[] dest, final int count, final int n) {
+            for (int i = 0; i < count; i++) {
+                dest[i] = lattice(n + i);
+            }
+        }
+
+        @Override
+        public int overlaps (final float qMinX, final float qMinY, final float qMinZ,
+                             final float qMaxX, final float qMaxY, final float qMaxZ,
+                             final float[] minX, final float[] minY, final float[] minZ,
+                             final float[] maxX, final float[] maxY, final float[] maxZ,
+                             final int count, final long[] hits) {
+            int found = 0;
+            for (int w = 0, wMax = (count + 63) >>> 6; w < wMax; w++) {
+                long bits = 0L;
+                for (int i = w << 6, iMax = Math.min(count, i + 64); i < iMax; i++) {
+                    if (!(maxX[i] < qMinX || maxY[i] < qMinY || maxZ[i] < qMinZ ||
+                          minX[i] > qMaxX || minY[i] > qMaxY || minZ[i] > qMaxZ)) {
+                        bits |= 1L << i;
+                    }
+                }
+                hits[w] = bits;
+                found += Long.bitCount(bits);
+            }
+            return found;
+        }
+    }
+}
@@ -111,9 +111,14 @@ public abstract class FMath {
 
     /**
      * Find the next even power of 2 greater than or equal to value.
+     *
+     * @throws IllegalArgumentException if the result would not fit in an int.
      */
     public static int nearest2Pow (final int value) {
         int aVal = Math.abs(value);
+        if (aVal > (1 << 30) || aVal < 0) {
+            throw new IllegalArgumentException("No int power of 2 >= " + value);
+        }
         int result = 2;
         while (result < aVal) {
             result *= 2;
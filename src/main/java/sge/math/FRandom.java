@@ -1,19 +1,207 @@
 package sge.math;
 
-import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
-public final class FRandom {
+/**
+ * Fast random number generator using SplitMix64.
+ *
+ * current() returns a generator owned by the calling thread, so it can
+ * be used from any number of worker threads without locking or sharing
+ * state. Each thread's generator is seeded differently; call setSeed()
+ * on it for a repeatable sequence on that thread. For repeatable
+ * results across threads, give each task its own stream with
+ * FRandom(seed, stream) or split().
+ *
+ * FRandom extends java.util.Random, so all of Random's methods work,
+ * but an FRandom must not be shared between threads without locking.
+ */
+public final class FRandom extends Random {
 
-    private static HashMap<Long, Random> generators =
-            new HashMap<Long, Random>();
+    private static final long serialVersionUID = 1L;
 
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    /** Seed source for new thread generators. */
+    private static final AtomicLong seeder =
+            new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+    private static final ThreadLocal<FRandom> generators = new ThreadLocal<FRandom>() {
+        @Override
+        protected FRandom initialValue () {
+            return new FRandom(mix64(seeder.getAndAdd(GOLDEN_GAMMA)));
+        }
+    };
+
+    /** Serialized, so a deserialized generator continues the sequence. */
+    private long state;
+
+    /**
+     * Create a generator with a given seed.
+     */
+    public FRandom (final long seed) {
+        super(0L);
+        setSeed(seed);
+    }
+
+    /**
+     * Create generator `stream' of a seed. Different streams of the same
+     * seed give independent sequences, e.g. one per worker task.
+     */
+    public FRandom (final long seed, final long stream) {
+        this(mix64(seed) ^ mix64(stream * GOLDEN_GAMMA + GOLDEN_GAMMA));
+    }
+
+    /**
+     * @return The calling thread's generator.
+     */
+    public static FRandom current () {
+        return generators.get();
+    }
+
+    /**
+     * @return The calling thread's generator.
+     * @see #current()
+     */
     public static Random getRandom () {
-        long thread = Thread.currentThread().getId();
-        if (!generators.containsKey(thread)) {
-            generators.put(thread, new Random());
+        return generators.get();
+    }
+
+    private static long mix64 (long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public void setSeed (final long seed) {
+        state = seed;
+        // Clears Random's cached Gaussian.
+        super.setSeed(seed);
+    }
+
+    /**
+     * Create a new generator seeded from this one, giving an
+     * independent sequence, e.g. for a task forked from this thread.
+     */
+    public FRandom split () {
+        return new FRandom(mix64(nextLong()));
+    }
+
+    @Override
+    protected int next (final int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong () {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    @Override
+    public int nextInt () {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public float nextFloat () {
+        return (nextLong() >>> 40) * FLOAT_UNIT;
+    }
+
+    @Override
+    public double nextDouble () {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public boolean nextBoolean () {
+        return nextLong() < 0;
+    }
+
+    /**
+     * @return A float in [min, max).
+     */
+    public float nextFloat (final float min, final float max) {
+        return min + nextFloat() * (max - min);
+    }
+
+    /**
+     * Fill dest with floats in [0, 1).
+     *
+     * @return Reference to dest.
+     */
+    public float[] nextFloats (final float[] dest) {
+        return nextFloats(dest, 0, dest.length, 0.0f, 1.0f);
+    }
+
+    /**
+     * Fill dest[offset..offset + count) with floats in [min, max).
+     *
+     * @return Reference to dest.
+     */
+    public float[] nextFloats (final float[] dest, final int offset, final int count,
+                               final float min, final float max) {
+        final float range = max - min;
+        long s = state;
+
+        for (int i = offset, end = offset + count; i < end; i++) {
+            dest[i] = min + (mix64(s += GOLDEN_GAMMA) >>> 40) * FLOAT_UNIT * range;
+        }
+
+        state = s;
+        return dest;
+    }
+
+    /**
+     * Fill dest with unit vectors uniformly distributed over the sphere.
+     *
+     * Uses Marsaglia's method, picking a point in the unit disc and
+     * projecting it onto the sphere, which needs no trigonometry.
+     *
+     * @return Reference to dest.
+     */
+    public Vector3Batch randomUnitVectors (final Vector3Batch dest) {
+        final float[] dx = dest.x, dy = dest.y, dz = dest.z;
+        final int size = dest.size();
+        long s = state;
+
+        for (int i = 0; i < size; i++) {
+            float a, b, d;
+
+            do {
+                a = (mix64(s += GOLDEN_GAMMA) >>> 40) * FLOAT_UNIT * 2.0f - 1.0f;
+                b = (mix64(s += GOLDEN_GAMMA) >>> 40) * FLOAT_UNIT * 2.0f - 1.0f;
+                d = a * a + b * b;
+            } while (d >= 1.0f);
+
+            float r = 2.0f * (float) Math.sqrt(1.0f - d);
+            dx[i] = a * r;
+            dy[i] = b * r;
+            dz[i] = 1.0f - 2.0f * d;
         }
 
-        return generators.get(thread);
+        state = s;
+        return dest;
+    }
+
+    /**
+     * Set dest to a unit vector uniformly distributed over the sphere.
+     *
+     * @return Reference to dest.
+     */
+    public MVector3 randomUnitVector (final MVector3 dest) {
+        float a, b, d;
+
+        do {
+            a = nextFloat() * 2.0f - 1.0f;
+            b = nextFloat() * 2.0f - 1.0f;
+            d = a * a + b * b;
+        } while (d >= 1.0f);
+
+        float r = 2.0f * (float) Math.sqrt(1.0f - d);
+        return dest.set_(a * r, b * r, 1.0f - 2.0f * d);
     }
 }
@@ -1,7 +1,5 @@
 package sge.math;
 
-import java.util.Random;
-
 /**
  * 2 Dimensional Mutable Vector class
  * <p/>
@@ -368,7 +366,7 @@ public final class MVector2 {
      * Construct a randomly oriented 2D unit vector.
      */
     public static MVector2 random () {
-        Random rnd = FRandom.getRandom();
+        FRandom rnd = FRandom.current();
         float max = FMath.TWO_PI;
         float theta = rnd.nextFloat() * max;
 
@@ -376,7 +374,7 @@ public final class MVector2 {
     }
 
     public static void setSeed (final long seed) {
-        Random rnd = FRandom.getRandom();
+        FRandom rnd = FRandom.current();
         rnd.setSeed(seed);
     }
 
@@ -1,7 +1,5 @@
 package sge.math;
 
-import java.util.Random;
-
 /**
  * 3 Dimensional Mutable Vector class
  * <p/>
@@ -411,19 +409,11 @@ public final class MVector3 {
      * TODO: Overload with seeded variation.
      */
     public static MVector3 random () {
-        Random rnd = FRandom.getRandom();
-        float max = FMath.TWO_PI;
-        float inclination = rnd.nextFloat() * max;
-        float azimuth = rnd.nextFloat() * max;
-        return new MVector3(
-                (float) Math.sin(inclination) * (float) Math.cos(azimuth),
-                (float) Math.cos(inclination) * (float) Math.sin(azimuth),
-                (float) Math.cos(inclination)
-        );
+        return FRandom.current().randomUnitVector(new MVector3());
     }
 
     public static void setSeed (long seed) {
-        Random rnd = FRandom.getRandom();
+        FRandom rnd = FRandom.current();
         rnd.setSeed(seed);
     }
 
@@ -275,6 +275,51 @@ public final class Matrix3 {
         return true;
     }
 
+    /**
+     * Calculate the normal matrix of a transform, the inverse transpose
+     * of its upper 3x3, for transforming surface normals.
+     *
+     * If the upper 3x3 has no inverse, the cofactor matrix is written
+     * instead. It differs from the normal matrix only in scale, so it is
+     * still usable where normals are renormalized.
+     *
+     * @param m Transform, usually a model or model-view Matrix.
+     * @param dest Matrix3 to receive the result.
+     * @return Reference to dest.
+     */
+    public static Matrix3 normalMatrix (final Matrix4 m, final Matrix3 dest) {
+        normalMatrix(m.mat, 0, dest.mat, 0);
+        return dest;
+    }
+
+    /**
+     * Write the normal matrix of the Matrix4 at offset o in m to offset
+     * d in dest.
+     */
+    static void normalMatrix (final float[] m, final int o, final float[] dest, final int d) {
+        float a = m[o], b = m[o + 4], c = m[o + 8];
+        float e = m[o + 1], f = m[o + 5], g = m[o + 9];
+        float h = m[o + 2], i = m[o + 6], j = m[o + 10];
+
+        // Cofactors, which are the transposed inverse times det.
+        float c00 = f * j - g * i, c01 = g * h - e * j, c02 = e * i - f * h;
+        float c10 = c * i - b * j, c11 = a * j - c * h, c12 = b * h - a * i;
+        float c20 = b * g - c * f, c21 = c * e - a * g, c22 = a * f - b * e;
+
+        float det = a * c00 + b * c01 + c * c02;
+        float invd = (0 == det) ? 1.0f : 1.0f / det;
+
+        dest[d] = c00 * invd;
+        dest[d + 1] = c10 * invd;
+        dest[d + 2] = c20 * invd;
+        dest[d + 3] = c01 * invd;
+        dest[d + 4] = c11 * invd;
+        dest[d + 5] = c21 * invd;
+        dest[d + 6] = c02 * invd;
+        dest[d + 7] = c12 * invd;
+        dest[d + 8] = c22 * invd;
+    }
+
     /**
      * Matrix Multiplication.
      * +-+-+-+
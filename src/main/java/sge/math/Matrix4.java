@@ -392,6 +392,122 @@ public final class Matrix4 {
         return true;
     }
 
+    /**
+     * Return a new Matrix4 which is the inverse of this affine Matrix4.
+     * {@see Matrix4.inverseAffine_}
+     *
+     * @return Inverse of this Matrix, or null if there is no inverse.
+     */
+    public Matrix4 inverseAffine () {
+        Matrix4 inv = new Matrix4(this);
+
+        return inv.inverseAffine_() ? inv : null;
+    }
+
+    /**
+     * Update this Matrix to be the Inverse of itself, assuming it is an
+     * affine transform (bottom row 0, 0, 0, 1) such as any product of
+     * translations, rotations and scales. Only the upper 3x3 is inverted
+     * in full, which is much cheaper than inverse_().
+     * Destructive
+     *
+     * @return Flag indicating if the inversion operation was successful, or
+     *   that the Matrix4 has no possible inverse.
+     */
+    public boolean inverseAffine_ () {
+        return inverseAffine(mat, 0);
+    }
+
+    /**
+     * Return a new Matrix4 which is the inverse of this rigid Matrix4.
+     * {@see Matrix4.inverseRigid_}
+     */
+    public Matrix4 inverseRigid () {
+        return new Matrix4(this).inverseRigid_();
+    }
+
+    /**
+     * Update this Matrix to be the Inverse of itself, assuming it is a
+     * rigid transform: only rotations and translations, so that the
+     * upper 3x3 is orthonormal and its inverse is its transpose. Scaled
+     * matrices must use inverseAffine_() instead.
+     * Destructive
+     *
+     * @return Reference to this Matrix4.
+     */
+    public Matrix4 inverseRigid_ () {
+        inverseRigid(mat, 0);
+        return this;
+    }
+
+    /**
+     * Invert the affine Matrix at offset o in m.
+     *
+     * @return false, leaving the Matrix unchanged, if it has no inverse.
+     */
+    static boolean inverseAffine (final float[] m, final int o) {
+        // Upper 3x3, by row and column.
+        float a = m[o], b = m[o + 4], c = m[o + 8];
+        float d = m[o + 1], e = m[o + 5], f = m[o + 9];
+        float g = m[o + 2], h = m[o + 6], i = m[o + 10];
+
+        float c0 = e * i - f * h;
+        float c1 = f * g - d * i;
+        float c2 = d * h - e * g;
+        float det = a * c0 + b * c1 + c * c2;
+
+        if (0 == det) {
+            return false;
+        }
+
+        float invd = 1.0f / det;
+        float r00 = c0 * invd, r01 = (c * h - b * i) * invd, r02 = (b * f - c * e) * invd;
+        float r10 = c1 * invd, r11 = (a * i - c * g) * invd, r12 = (c * d - a * f) * invd;
+        float r20 = c2 * invd, r21 = (b * g - a * h) * invd, r22 = (a * e - b * d) * invd;
+        float tx = m[o + 12], ty = m[o + 13], tz = m[o + 14];
+
+        m[o] = r00;
+        m[o + 1] = r10;
+        m[o + 2] = r20;
+        m[o + 3] = 0.0f;
+        m[o + 4] = r01;
+        m[o + 5] = r11;
+        m[o + 6] = r21;
+        m[o + 7] = 0.0f;
+        m[o + 8] = r02;
+        m[o + 9] = r12;
+        m[o + 10] = r22;
+        m[o + 11] = 0.0f;
+        m[o + 12] = -(r00 * tx + r01 * ty + r02 * tz);
+        m[o + 13] = -(r10 * tx + r11 * ty + r12 * tz);
+        m[o + 14] = -(r20 * tx + r21 * ty + r22 * tz);
+        m[o + 15] = 1.0f;
+
+        return true;
+    }
+
+    /**
+     * Invert the rigid Matrix at offset o in m.
+     */
+    static void inverseRigid (final float[] m, final int o) {
+        float tx = m[o + 12], ty = m[o + 13], tz = m[o + 14];
+
+        // Translation by the transposed rotation, then transpose.
+        m[o + 12] = -(m[o] * tx + m[o + 1] * ty + m[o + 2] * tz);
+        m[o + 13] = -(m[o + 4] * tx + m[o + 5] * ty + m[o + 6] * tz);
+        m[o + 14] = -(m[o + 8] * tx + m[o + 9] * ty + m[o + 10] * tz);
+
+        float t = m[o + 1];
+        m[o + 1] = m[o + 4];
+        m[o + 4] = t;
+        t = m[o + 2];
+        m[o + 2] = m[o + 8];
+        m[o + 8] = t;
+        t = m[o + 6];
+        m[o + 6] = m[o + 9];
+        m[o + 9] = t;
+    }
+
     /**
      * Matrix Multiplication returning a copy. {@see Matrix4.mult_}
      *
@@ -399,10 +515,7 @@ public final class Matrix4 {
      * @return New Matrix4 representing this * other.
      */
     public Matrix4 mult (final Matrix4 other) {
-        Matrix4 m = new Matrix4(this);
-        m.mult_(other);
-
-        return m;
+        return mul(this, other, new Matrix4());
     }
 
     /**
@@ -430,34 +543,55 @@ public final class Matrix4 {
      * @return Reference to this updated Matrix4.
      */
     public Matrix4 mult_ (final Matrix4 other) {
-        Vector4 c0 = other.column(0);
-        Vector4 c1 = other.column(1);
-        Vector4 c2 = other.column(2);
-        Vector4 c3 = other.column(3);
-
-        Vector4 r0 = row(0);
-        Vector4 r1 = row(1);
-        Vector4 r2 = row(2);
-        Vector4 r3 = row(3);
-
-        mat[0] = r0.dot(c0);
-        mat[4] = r0.dot(c1);
-        mat[8] = r0.dot(c2);
-        mat[12] = r0.dot(c3);
-        mat[1] = r1.dot(c0);
-        mat[5] = r1.dot(c1);
-        mat[9] = r1.dot(c2);
-        mat[13] = r1.dot(c3);
-        mat[2] = r2.dot(c0);
-        mat[6] = r2.dot(c1);
-        mat[10] = r2.dot(c2);
-        mat[14] = r2.dot(c3);
-        mat[3] = r3.dot(c0);
-        mat[7] = r3.dot(c1);
-        mat[11] = r3.dot(c2);
-        mat[15] = r3.dot(c3);
+        return mul(this, other, this);
+    }
 
-        return this;
+    /**
+     * Multiply two Matrix4s, writing the result (a * b) into dest.
+     * Does not allocate. All of a and b are read before dest is
+     * written so dest may be the same object as a or b.
+     *
+     * @param a Left hand Matrix4.
+     * @param b Right hand Matrix4.
+     * @param dest Matrix4 to receive the result.
+     * @return Reference to dest.
+     */
+    public static Matrix4 mul (final Matrix4 a, final Matrix4 b, final Matrix4 dest) {
+        final float[] l = a.mat;
+        final float[] r = b.mat;
+
+        float a0 = l[0], a1 = l[1], a2 = l[2], a3 = l[3];
+        float a4 = l[4], a5 = l[5], a6 = l[6], a7 = l[7];
+        float a8 = l[8], a9 = l[9], a10 = l[10], a11 = l[11];
+        float a12 = l[12], a13 = l[13], a14 = l[14], a15 = l[15];
+
+        float b0 = r[0], b1 = r[1], b2 = r[2], b3 = r[3];
+        float b4 = r[4], b5 = r[5], b6 = r[6], b7 = r[7];
+        float b8 = r[8], b9 = r[9], b10 = r[10], b11 = r[11];
+        float b12 = r[12], b13 = r[13], b14 = r[14], b15 = r[15];
+
+        final float[] d = dest.mat;
+        d[0] = a0 * b0 + a4 * b1 + a8 * b2 + a12 * b3;
+        d[1] = a1 * b0 + a5 * b1 + a9 * b2 + a13 * b3;
+        d[2] = a2 * b0 + a6 * b1 + a10 * b2 + a14 * b3;
+        d[3] = a3 * b0 + a7 * b1 + a11 * b2 + a15 * b3;
+
+        d[4] = a0 * b4 + a4 * b5 + a8 * b6 + a12 * b7;
+        d[5] = a1 * b4 + a5 * b5 + a9 * b6 + a13 * b7;
+        d[6] = a2 * b4 + a6 * b5 + a10 * b6 + a14 * b7;
+        d[7] = a3 * b4 + a7 * b5 + a11 * b6 + a15 * b7;
+
+        d[8] = a0 * b8 + a4 * b9 + a8 * b10 + a12 * b11;
+        d[9] = a1 * b8 + a5 * b9 + a9 * b10 + a13 * b11;
+        d[10] = a2 * b8 + a6 * b9 + a10 * b10 + a14 * b11;
+        d[11] = a3 * b8 + a7 * b9 + a11 * b10 + a15 * b11;
+
+        d[12] = a0 * b12 + a4 * b13 + a8 * b14 + a12 * b15;
+        d[13] = a1 * b12 + a5 * b13 + a9 * b14 + a13 * b15;
+        d[14] = a2 * b12 + a6 * b13 + a10 * b14 + a14 * b15;
+        d[15] = a3 * b12 + a7 * b13 + a11 * b14 + a15 * b15;
+
+        return dest;
     }
 
     /**
@@ -471,6 +605,14 @@ public final class Matrix4 {
                 mat[3] * vector.x + mat[7] * vector.y + mat[11] * vector.z + mat[15] * vector.w);
     }
 
+    /**
+     * Multiply count Vector4s, given as arrays of components, with this
+     * Matrix4 in place, as mult(Vector4). Runs on {@link BatchKernels#get()}.
+     */
+    public void mult (final float[] x, final float[] y, final float[] z, final float[] w, final int count) {
+        BatchKernels.get().transform(mat, x, y, z, w, count);
+    }
+
     // Matrices for 3D Transformations
 
     /**
@@ -0,0 +1,448 @@
+package sge.math;
+
+import java.nio.FloatBuffer;
+
+import sge.util.DirectBuffer;
+
+/**
+ * Fixed size array of 4x4 Matrices stored contiguously, column major,
+ * in a single direct FloatBuffer in native byte order. The buffer can
+ * be handed straight to OpenGL (uniform arrays, instance attributes,
+ * buffer objects) without copying.
+ *
+ * Elements are read and written in place, either through index based
+ * operations or through a {@link View}, a reusable handle which may be
+ * moved from element to element. Destructive operations are suffixed
+ * with '_' as in {@link Matrix4}.
+ *
+ * Bulk operations move blocks of Matrices between the buffer and a
+ * small heap scratch area with bulk get()/put(), which is several
+ * times faster than reading and writing the buffer a float at a time.
+ * The buffer's position is left at 0 and its limit at the end of the
+ * array. Not thread safe.
+ */
+public final class Matrix4Array {
+
+    private static final int M = Matrix4.SIZE;
+
+    /** Number of Matrices moved to and from the buffer at a time. */
+    private static final int CHUNK = 64;
+
+    /** Matrix data, size() * 16 floats. */
+    public final FloatBuffer buffer;
+
+    private final int size;
+    private final int chunk;
+    private final float[] scratchA;
+    private final float[] scratchB;
+
+    /**
+     * Create an array of `size' identity Matrices.
+     */
+    public Matrix4Array (final int size) {
+        this.size = size;
+        buffer = DirectBuffer.createFloatBuffer(size * M);
+        chunk = Math.max(1, Math.min(size, CHUNK));
+        scratchA = new float[chunk * M];
+        scratchB = new float[chunk * M];
+
+        for (int i = 0; i < size; i++) {
+            identity_(i);
+        }
+    }
+
+    /**
+     * Return the number of Matrices in this array.
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * Create a View of the Matrix at `index'.
+     */
+    public View view (final int index) {
+        return new View().at(index);
+    }
+
+    public float get (final int index, final int col, final int row) {
+        return buffer.get(offset(index) + col * 4 + row);
+    }
+
+    public void set (final int index, final int col, final int row, final float value) {
+        buffer.put(offset(index) + col * 4 + row, value);
+    }
+
+    /**
+     * Write the Matrix at `index' into dest.
+     *
+     * @return Reference to dest.
+     */
+    public Matrix4 get (final int index, final Matrix4 dest) {
+        read(buffer, offset(index), dest.mat, 0, M);
+        return dest;
+    }
+
+    public Matrix4 get (final int index) {
+        return get(index, new Matrix4());
+    }
+
+    public void set (final int index, final Matrix4 value) {
+        set(index, value.mat, 0);
+    }
+
+    /**
+     * Set the Matrix at `index' from 16 column major floats in src
+     * starting at srcOffset.
+     */
+    public void set (final int index, final float[] src, final int srcOffset) {
+        write(src, srcOffset, buffer, offset(index), M);
+    }
+
+    /**
+     * Set the Matrix at `index' to identity.
+     */
+    public void identity_ (final int index) {
+        set(index, Matrix4.IDENTITY);
+    }
+
+    /**
+     * Set the Matrix at `index' to T * R * S, translating by position,
+     * rotating by a (not necessarily unit) Quaternion and scaling.
+     */
+    public void compose_ (final int index,
+                          final float px, final float py, final float pz,
+                          final float qi, final float qj, final float qk, final float qw,
+                          final float sx, final float sy, final float sz) {
+        float len = qi * qi + qj * qj + qk * qk + qw * qw;
+        float f = (len > 0.0f) ? 2.0f / len : 0.0f;
+        float ii = qi * qi * f, jj = qj * qj * f, kk = qk * qk * f;
+        float ij = qi * qj * f, ik = qi * qk * f, jk = qj * qk * f;
+        float iw = qi * qw * f, jw = qj * qw * f, kw = qk * qw * f;
+
+        final float[] m = scratchA;
+        m[0] = (1.0f - jj - kk) * sx;
+        m[1] = (ij + kw) * sx;
+        m[2] = (ik - jw) * sx;
+        m[3] = 0.0f;
+        m[4] = (ij - kw) * sy;
+        m[5] = (1.0f - ii - kk) * sy;
+        m[6] = (jk + iw) * sy;
+        m[7] = 0.0f;
+        m[8] = (ik + jw) * sz;
+        m[9] = (jk - iw) * sz;
+        m[10] = (1.0f - ii - jj) * sz;
+        m[11] = 0.0f;
+        m[12] = px;
+        m[13] = py;
+        m[14] = pz;
+        m[15] = 1.0f;
+
+        write(m, 0, buffer, offset(index), M);
+    }
+
+    public void compose_ (final int index, final Vector3 position, final Quaternion rotation, final Vector3 scale) {
+        compose_(index, position.x, position.y, position.z,
+                 rotation.i, rotation.j, rotation.k, rotation.w,
+                 scale.x, scale.y, scale.z);
+    }
+
+    /**
+     * Replace the Matrix at `index' with parent * Matrix, where the
+     * parent is another element of this array.
+     */
+    public void multParent_ (final int index, final int parent) {
+        read(buffer, offset(parent), scratchA, 0, M);
+        multParent_(index, scratchA);
+    }
+
+    /**
+     * Replace the Matrix at `index' with parent * Matrix.
+     */
+    public void multParent_ (final int index, final Matrix4 parent) {
+        multParent_(index, parent.mat);
+    }
+
+    private void multParent_ (final int index, final float[] parent) {
+        int o = offset(index);
+        read(buffer, o, scratchB, 0, M);
+        mul(parent, 0, scratchB, 0, scratchB, 0);
+        write(scratchB, 0, buffer, o, M);
+    }
+
+    /**
+     * Replace each Matrix i in 0..count with parent * Matrix, in order,
+     * where parents[i] is the index of its parent or -1 for none. Each
+     * parent must come before its children, as for the bones of a
+     * skeleton, so that matrices are accumulated from the root down.
+     */
+    public void multParents_ (final int[] parents, final int count) {
+        checkRange(0, count);
+
+        for (int start = 0; start < count; start += chunk) {
+            int n = Math.min(chunk, count - start);
+            read(buffer, start * M, scratchB, 0, n * M);
+
+            for (int i = start; i < start + n; i++) {
+                int p = parents[i];
+                if (p < 0) {
+                    continue;
+                }
+                if (p >= i) {
+                    throw new IllegalArgumentException("Parent " + p + " does not precede " + i);
+                }
+
+                int o = (i - start) * M;
+                if (p >= start) {
+                    mul(scratchB, (p - start) * M, scratchB, o, scratchB, o);
+                } else {
+                    read(buffer, p * M, scratchA, 0, M);
+                    mul(scratchA, 0, scratchB, o, scratchB, o);
+                }
+            }
+
+            write(scratchB, 0, buffer, start * M, n * M);
+        }
+    }
+
+    /**
+     * Invert the affine Matrices start..start + count in place, as
+     * {@link Matrix4#inverseAffine_}. Matrices with no inverse are left
+     * unchanged.
+     *
+     * @return false if any Matrix had no inverse.
+     */
+    public boolean inverseAffine_ (final int start, final int count) {
+        checkRange(start, count);
+
+        boolean all = true;
+        for (int done = 0; done < count; done += chunk) {
+            int len = Math.min(chunk, count - done) * M;
+            read(buffer, (start + done) * M, scratchB, 0, len);
+
+            for (int o = 0; o < len; o += M) {
+                all &= Matrix4.inverseAffine(scratchB, o);
+            }
+            write(scratchB, 0, buffer, (start + done) * M, len);
+        }
+        return all;
+    }
+
+    /**
+     * Invert the rigid Matrices start..start + count in place, as
+     * {@link Matrix4#inverseRigid_}.
+     */
+    public void inverseRigid_ (final int start, final int count) {
+        checkRange(start, count);
+
+        for (int done = 0; done < count; done += chunk) {
+            int len = Math.min(chunk, count - done) * M;
+            read(buffer, (start + done) * M, scratchB, 0, len);
+
+            for (int o = 0; o < len; o += M) {
+                Matrix4.inverseRigid(scratchB, o);
+            }
+            write(scratchB, 0, buffer, (start + done) * M, len);
+        }
+    }
+
+    /**
+     * Write the normal matrices of Matrices start..start + count to
+     * dest, 9 column major floats each from destOffset, as
+     * {@link Matrix3#normalMatrix}.
+     */
+    public void normalMatrices (final int start, final int count, final float[] dest, final int destOffset) {
+        checkRange(start, count);
+
+        int d = destOffset;
+        for (int done = 0; done < count; done += chunk) {
+            int len = Math.min(chunk, count - done) * M;
+            read(buffer, (start + done) * M, scratchB, 0, len);
+
+            for (int o = 0; o < len; o += M, d += Matrix3.SIZE) {
+                Matrix3.normalMatrix(scratchB, o, dest, d);
+            }
+        }
+    }
+
+    /**
+     * dest[destStart + i] = a[aStart + i] * b[bStart + i] for i in
+     * 0..count. dest may be either source.
+     */
+    public static void mul (final Matrix4Array a, final int aStart,
+                            final Matrix4Array b, final int bStart,
+                            final Matrix4Array dest, final int destStart, final int count) {
+        a.checkRange(aStart, count);
+        b.checkRange(bStart, count);
+        dest.checkRange(destStart, count);
+
+        final float[] sa = dest.scratchA;
+        final float[] sb = dest.scratchB;
+
+        for (int done = 0; done < count; done += dest.chunk) {
+            int len = Math.min(dest.chunk, count - done) * M;
+            read(a.buffer, (aStart + done) * M, sa, 0, len);
+            read(b.buffer, (bStart + done) * M, sb, 0, len);
+
+            for (int o = 0; o < len; o += M) {
+                mul(sa, o, sb, o, sb, o);
+            }
+            write(sb, 0, dest.buffer, (destStart + done) * M, len);
+        }
+    }
+
+    /**
+     * dest[destStart + i] = left * src[srcStart + i] for i in 0..count,
+     * as when applying a view-projection Matrix to many model Matrices.
+     * dest may be src.
+     */
+    public static void mul (final Matrix4 left,
+                            final Matrix4Array src, final int srcStart,
+                            final Matrix4Array dest, final int destStart, final int count) {
+        src.checkRange(srcStart, count);
+        dest.checkRange(destStart, count);
+
+        final float[] l = left.mat;
+        final float[] sb = dest.scratchB;
+        float a0 = l[0], a1 = l[1], a2 = l[2], a3 = l[3];
+        float a4 = l[4], a5 = l[5], a6 = l[6], a7 = l[7];
+        float a8 = l[8], a9 = l[9], a10 = l[10], a11 = l[11];
+        float a12 = l[12], a13 = l[13], a14 = l[14], a15 = l[15];
+
+        for (int done = 0; done < count; done += dest.chunk) {
+            int len = Math.min(dest.chunk, count - done) * M;
+            read(src.buffer, (srcStart + done) * M, sb, 0, len);
+
+            // Each column of each Matrix in place, with left held in locals.
+            for (int c = 0; c < len; c += 4) {
+                float b0 = sb[c], b1 = sb[c + 1], b2 = sb[c + 2], b3 = sb[c + 3];
+
+                sb[c] = a0 * b0 + a4 * b1 + a8 * b2 + a12 * b3;
+                sb[c + 1] = a1 * b0 + a5 * b1 + a9 * b2 + a13 * b3;
+                sb[c + 2] = a2 * b0 + a6 * b1 + a10 * b2 + a14 * b3;
+                sb[c + 3] = a3 * b0 + a7 * b1 + a11 * b2 + a15 * b3;
+            }
+            write(sb, 0, dest.buffer, (destStart + done) * M, len);
+        }
+    }
+
+    private int offset (final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        return index * M;
+    }
+
+    private void checkRange (final int start, final int count) {
+        if (start < 0 || count < 0 || start + count > size) {
+            throw new IndexOutOfBoundsException("Range " + start + "+" + count + " of " + size);
+        }
+    }
+
+    private static void read (final FloatBuffer src, final int offset, final float[] dest, final int destOffset, final int length) {
+        src.position(offset);
+        src.get(dest, destOffset, length);
+        src.position(0);
+    }
+
+    private static void write (final float[] src, final int srcOffset, final FloatBuffer dest, final int offset, final int length) {
+        dest.position(offset);
+        dest.put(src, srcOffset, length);
+        dest.position(0);
+    }
+
+    /**
+     * d = a * b for Matrices in float arrays. All of a is read before d
+     * is written, and each column of d depends only on the same column
+     * of b, so d may be either a or b.
+     */
+    private static void mul (final float[] a, final int ao, final float[] b, final int bo,
+                             final float[] d, final int o) {
+        float a0 = a[ao], a1 = a[ao + 1], a2 = a[ao + 2], a3 = a[ao + 3];
+        float a4 = a[ao + 4], a5 = a[ao + 5], a6 = a[ao + 6], a7 = a[ao + 7];
+        float a8 = a[ao + 8], a9 = a[ao + 9], a10 = a[ao + 10], a11 = a[ao + 11];
+        float a12 = a[ao + 12], a13 = a[ao + 13], a14 = a[ao + 14], a15 = a[ao + 15];
+
+        for (int c = 0; c < M; c += 4) {
+            float b0 = b[bo + c], b1 = b[bo + c + 1], b2 = b[bo + c + 2], b3 = b[bo + c + 3];
+
+            d[o + c] = a0 * b0 + a4 * b1 + a8 * b2 + a12 * b3;
+            d[o + c + 1] = a1 * b0 + a5 * b1 + a9 * b2 + a13 * b3;
+            d[o + c + 2] = a2 * b0 + a6 * b1 + a10 * b2 + a14 * b3;
+            d[o + c + 3] = a3 * b0 + a7 * b1 + a11 * b2 + a15 * b3;
+        }
+    }
+
+    /**
+     * Flyweight access to one element of the array. A View may be moved
+     * to another element with at(), so a single View can walk the whole
+     * array without allocating.
+     */
+    public final class View {
+
+        private int index;
+
+        private View () {}
+
+        /**
+         * Move this View to the Matrix at `index'.
+         *
+         * @return Reference to this View.
+         */
+        public View at (final int index) {
+            offset(index);
+            this.index = index;
+            return this;
+        }
+
+        public int index () {
+            return index;
+        }
+
+        public float get (final int col, final int row) {
+            return Matrix4Array.this.get(index, col, row);
+        }
+
+        public View set (final int col, final int row, final float value) {
+            Matrix4Array.this.set(index, col, row, value);
+            return this;
+        }
+
+        public Matrix4 get (final Matrix4 dest) {
+            return Matrix4Array.this.get(index, dest);
+        }
+
+        public View set (final Matrix4 value) {
+            Matrix4Array.this.set(index, value);
+            return this;
+        }
+
+        public View identity_ () {
+            Matrix4Array.this.identity_(index);
+            return this;
+        }
+
+        public View compose_ (final Vector3 position, final Quaternion rotation, final Vector3 scale) {
+            Matrix4Array.this.compose_(index, position, rotation, scale);
+            return this;
+        }
+
+        /**
+         * Replace this Matrix with parent * Matrix.
+         */
+        public View multParent_ (final View parent) {
+            read(parent.array().buffer, parent.index * M, scratchA, 0, M);
+            Matrix4Array.this.multParent_(index, scratchA);
+            return this;
+        }
+
+        public View multParent_ (final Matrix4 parent) {
+            Matrix4Array.this.multParent_(index, parent);
+            return this;
+        }
+
+        private Matrix4Array array () {
+            return Matrix4Array.this;
+        }
+    }
+}
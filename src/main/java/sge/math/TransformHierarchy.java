@@ -0,0 +1,710 @@
+package sge.math;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import sge.util.IntList;
+
+/**
+ * Hierarchy of transforms, each with a local position, rotation and
+ * scale and a cached world matrix (parent world * T * R * S).
+ *
+ * Nodes are addressed by integer handles. Their data is kept in flat
+ * arrays in depth first order, so every parent comes before its
+ * children and every subtree is a contiguous range of slots. Setting a
+ * local transform marks the node dirty, and update() recomputes the
+ * world matrices of the dirty subtrees only, in one pass over each
+ * range. Independent subtrees may be split across a ForkJoinPool.
+ *
+ * Adding a node to a root, or to a parent whose subtree ends at the
+ * last slot (as when building depth first), appends it. Other additions
+ * and reparenting are reordered in O(n) at the next update. Removed
+ * slots are left as holes until they outnumber the live nodes.
+ *
+ * Once grown, sequential updates allocate nothing. Not thread safe.
+ */
+public final class TransformHierarchy {
+
+    public static final int NO_PARENT = -1;
+
+    /** Position (3), rotation Quaternion (4), scale (3). */
+    private static final int LOCAL_SIZE = 10;
+
+    /** Number of nodes below which a subtree is updated on one thread. */
+    private static final int PARALLEL_GRAIN = 2048;
+
+    // By slot, in depth first order.
+    private float[] locals;
+    private float[] worlds;
+    private int[] parents;
+    private int[] ends;
+    private int[] slotHandles;
+    private int slotCount;
+    private int deadSlots;
+    private boolean orderDirty;
+
+    // By handle. Children are doubly linked sibling lists.
+    private int[] handleSlots;
+    private int[] parentHandles;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] prevSibling;
+    private boolean[] dirty;
+    private int firstRoot = NO_PARENT;
+    private int handleCount;
+    private int[] freeHandles;
+    private int freeCount;
+    private int nodeCount;
+
+    private final IntList dirtyHandles = new IntList();
+    private final IntList roots = new IntList();
+    private int lastUpdated;
+
+    // Reorder scratch.
+    private int[] stack = new int[0];
+    private int[] order = new int[0];
+    private float[] swapLocals = new float[0];
+    private float[] swapWorlds = new float[0];
+    private int[] swapParents = new int[0];
+    private int[] swapEnds = new int[0];
+    private int[] swapHandles = new int[0];
+
+    public TransformHierarchy () {
+        this(64);
+    }
+
+    /**
+     * @param capacity Number of nodes to allocate space for.
+     */
+    public TransformHierarchy (final int capacity) {
+        int n = Math.max(1, capacity);
+
+        locals = new float[n * LOCAL_SIZE];
+        worlds = new float[n * 16];
+        parents = new int[n];
+        ends = new int[n];
+        slotHandles = new int[n];
+
+        handleSlots = new int[n];
+        parentHandles = new int[n];
+        firstChild = new int[n];
+        nextSibling = new int[n];
+        prevSibling = new int[n];
+        dirty = new boolean[n];
+        freeHandles = new int[n];
+    }
+
+    /**
+     * Add a node with an identity local transform.
+     *
+     * @param parent Handle of the parent, or NO_PARENT.
+     * @return Handle of the new node.
+     */
+    public int add (final int parent) {
+        if (NO_PARENT != parent) {
+            checkHandle(parent);
+        }
+
+        int h = allocHandle();
+        if (slotCount == slotHandles.length) {
+            growSlots(slotCount * 2);
+        }
+
+        int s = slotCount++;
+        int ps = (NO_PARENT == parent) ? -1 : handleSlots[parent];
+
+        if (!orderDirty) {
+            if (ps < 0 || ends[ps] == s) {
+                // Every ancestor's subtree ends here too.
+                for (int a = ps; a >= 0; a = parents[a]) {
+                    ends[a] = s + 1;
+                }
+            } else {
+                orderDirty = true;
+            }
+        }
+
+        parents[s] = ps;
+        ends[s] = s + 1;
+        slotHandles[s] = h;
+        handleSlots[h] = s;
+        setLocal(s, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f, 1.0f, 1.0f, 1.0f);
+
+        firstChild[h] = NO_PARENT;
+        link(h, parent);
+        markDirty(h);
+        nodeCount++;
+        return h;
+    }
+
+    /**
+     * Remove a node and all of its descendants. Their handles may be
+     * reused by later additions.
+     */
+    public void remove (final int handle) {
+        checkHandle(handle);
+        unlink(handle);
+
+        int top = 0;
+        ensureStack();
+        stack[top++] = handle;
+
+        while (top > 0) {
+            int h = stack[--top];
+            for (int c = firstChild[h]; NO_PARENT != c; c = nextSibling[c]) {
+                stack[top++] = c;
+            }
+
+            // The dirty flag is left set until the next update, so that
+            // the handle is not queued twice if it is reused before then.
+            slotHandles[handleSlots[h]] = -1;
+            handleSlots[h] = -1;
+            freeHandles[freeCount++] = h;
+            nodeCount--;
+            deadSlots++;
+        }
+
+        if (deadSlots > nodeCount) {
+            orderDirty = true;
+        }
+    }
+
+    /**
+     * Move a node, with its descendants, to a new parent. The node's
+     * local transform is kept, so its world transform changes.
+     *
+     * @param parent Handle of the new parent, or NO_PARENT.
+     * @throws IllegalArgumentException If parent is in the node's subtree.
+     */
+    public void setParent (final int handle, final int parent) {
+        checkHandle(handle);
+        if (NO_PARENT != parent) {
+            checkHandle(parent);
+            for (int a = parent; NO_PARENT != a; a = parentHandles[a]) {
+                if (a == handle) {
+                    throw new IllegalArgumentException("Node " + parent + " is a descendant of " + handle);
+                }
+            }
+        }
+
+        if (parentHandles[handle] == parent) {
+            return;
+        }
+
+        unlink(handle);
+        link(handle, parent);
+        orderDirty = true;
+        markDirty(handle);
+    }
+
+    public int getParent (final int handle) {
+        checkHandle(handle);
+        return parentHandles[handle];
+    }
+
+    /**
+     * Return the number of nodes.
+     */
+    public int size () {
+        return nodeCount;
+    }
+
+    /**
+     * Return the number of world matrices recomputed by the last update.
+     */
+    public int getUpdatedCount () {
+        return lastUpdated;
+    }
+
+    // LOCAL TRANSFORM
+
+    public void setPosition (final int handle, final float x, final float y, final float z) {
+        int l = localOffset(handle);
+        locals[l] = x;
+        locals[l + 1] = y;
+        locals[l + 2] = z;
+        markDirty(handle);
+    }
+
+    public void setPosition (final int handle, final Vector3 position) {
+        setPosition(handle, position.x, position.y, position.z);
+    }
+
+    public Vector3 getPosition (final int handle) {
+        int l = localOffset(handle);
+        return new Vector3(locals[l], locals[l + 1], locals[l + 2]);
+    }
+
+    /**
+     * Set the rotation, which need not be normalized.
+     */
+    public void setRotation (final int handle, final float i, final float j, final float k, final float w) {
+        int l = localOffset(handle) + 3;
+        locals[l] = i;
+        locals[l + 1] = j;
+        locals[l + 2] = k;
+        locals[l + 3] = w;
+        markDirty(handle);
+    }
+
+    public void setRotation (final int handle, final Quaternion rotation) {
+        setRotation(handle, rotation.i, rotation.j, rotation.k, rotation.w);
+    }
+
+    public Quaternion getRotation (final int handle) {
+        int l = localOffset(handle) + 3;
+        return new Quaternion(locals[l], locals[l + 1], locals[l + 2], locals[l + 3]);
+    }
+
+    public void setScale (final int handle, final float x, final float y, final float z) {
+        int l = localOffset(handle) + 7;
+        locals[l] = x;
+        locals[l + 1] = y;
+        locals[l + 2] = z;
+        markDirty(handle);
+    }
+
+    public void setScale (final int handle, final float scale) {
+        setScale(handle, scale, scale, scale);
+    }
+
+    public Vector3 getScale (final int handle) {
+        int l = localOffset(handle) + 7;
+        return new Vector3(locals[l], locals[l + 1], locals[l + 2]);
+    }
+
+    // WORLD TRANSFORM
+
+    /**
+     * Write the world matrix of a node, as of the last update, into dest.
+     *
+     * @return Reference to dest.
+     */
+    public Matrix4 getWorld (final int handle, final Matrix4 dest) {
+        checkHandle(handle);
+        System.arraycopy(worlds, handleSlots[handle] * 16, dest.mat, 0, 16);
+        return dest;
+    }
+
+    public Matrix4 getWorld (final int handle) {
+        return getWorld(handle, new Matrix4());
+    }
+
+    /**
+     * Write the world matrix of a node, as of the last update, into an
+     * element of a Matrix4Array, as when filling instance transforms.
+     */
+    public void getWorld (final int handle, final Matrix4Array dest, final int index) {
+        checkHandle(handle);
+        dest.set(index, worlds, handleSlots[handle] * 16);
+    }
+
+    /**
+     * Recompute the world matrices of all dirty nodes and their
+     * descendants.
+     */
+    public void update () {
+        update(null);
+    }
+
+    /**
+     * Recompute the world matrices of all dirty nodes and their
+     * descendants, splitting large updates into independent subtrees
+     * on a pool.
+     *
+     * @param pool Pool to run on, or null to update on this thread.
+     */
+    public void update (final ForkJoinPool pool) {
+        if (orderDirty) {
+            reorder();
+        }
+        collectRoots();
+
+        if (null == pool || lastUpdated < PARALLEL_GRAIN * 2) {
+            for (int i = 0, iMax = roots.size(); i < iMax; i++) {
+                int r = roots.get(i);
+                computeRange(r, ends[r]);
+            }
+        } else {
+            pool.invoke(new RootsTask(0, roots.size()));
+        }
+    }
+
+    /**
+     * Find the dirty nodes without a dirty ancestor, whose subtrees
+     * together cover everything which needs recomputing.
+     */
+    private void collectRoots () {
+        roots.clear();
+
+        int dirtyCount = dirtyHandles.size();
+        if (dirtyCount > (nodeCount >>> 4)) {
+            // Many dirty nodes: one pass over the slots, skipping subtrees.
+            for (int s = 0; s < slotCount; ) {
+                int h = slotHandles[s];
+                if (h >= 0 && dirty[h]) {
+                    roots.add(s);
+                    s = ends[s];
+                } else {
+                    s++;
+                }
+            }
+        } else {
+            for (int i = 0; i < dirtyCount; i++) {
+                int h = dirtyHandles.get(i);
+                if (handleSlots[h] < 0) {
+                    continue;
+                }
+
+                boolean covered = false;
+                for (int a = parentHandles[h]; NO_PARENT != a; a = parentHandles[a]) {
+                    if (dirty[a]) {
+                        covered = true;
+                        break;
+                    }
+                }
+                if (!covered) {
+                    roots.add(handleSlots[h]);
+                }
+            }
+        }
+
+        for (int i = 0; i < dirtyCount; i++) {
+            dirty[dirtyHandles.get(i)] = false;
+        }
+        dirtyHandles.clear();
+
+        lastUpdated = 0;
+        for (int i = 0, iMax = roots.size(); i < iMax; i++) {
+            int r = roots.get(i);
+            lastUpdated += ends[r] - r;
+        }
+    }
+
+    private void computeRange (final int from, final int to) {
+        for (int s = from; s < to; s++) {
+            computeNode(s);
+        }
+    }
+
+    /**
+     * world = parent world * T * R * S. Every world matrix is affine,
+     * so only the top three rows are multiplied out.
+     */
+    private void computeNode (final int s) {
+        final float[] l = locals;
+        final float[] w = worlds;
+        int o = s * LOCAL_SIZE;
+
+        float px = l[o], py = l[o + 1], pz = l[o + 2];
+        float qi = l[o + 3], qj = l[o + 4], qk = l[o + 5], qw = l[o + 6];
+        float sx = l[o + 7], sy = l[o + 8], sz = l[o + 9];
+
+        float len = qi * qi + qj * qj + qk * qk + qw * qw;
+        float f = (len > 0.0f) ? 2.0f / len : 0.0f;
+        float ii = qi * qi * f, jj = qj * qj * f, kk = qk * qk * f;
+        float ij = qi * qj * f, ik = qi * qk * f, jk = qj * qk * f;
+        float iw = qi * qw * f, jw = qj * qw * f, kw = qk * qw * f;
+
+        // Columns of the local matrix: rotation scaled, then translation.
+        float a0 = (1.0f - jj - kk) * sx, a1 = (ij + kw) * sx, a2 = (ik - jw) * sx;
+        float b0 = (ij - kw) * sy, b1 = (1.0f - ii - kk) * sy, b2 = (jk + iw) * sy;
+        float c0 = (ik + jw) * sz, c1 = (jk - iw) * sz, c2 = (1.0f - ii - jj) * sz;
+
+        int d = s * 16;
+        int p = parents[s];
+
+        if (p < 0) {
+            w[d] = a0;
+            w[d + 1] = a1;
+            w[d + 2] = a2;
+            w[d + 4] = b0;
+            w[d + 5] = b1;
+            w[d + 6] = b2;
+            w[d + 8] = c0;
+            w[d + 9] = c1;
+            w[d + 10] = c2;
+            w[d + 12] = px;
+            w[d + 13] = py;
+            w[d + 14] = pz;
+        } else {
+            int m = p * 16;
+            float m0 = w[m], m1 = w[m + 1], m2 = w[m + 2];
+            float m4 = w[m + 4], m5 = w[m + 5], m6 = w[m + 6];
+            float m8 = w[m + 8], m9 = w[m + 9], m10 = w[m + 10];
+            float m12 = w[m + 12], m13 = w[m + 13], m14 = w[m + 14];
+
+            w[d] = m0 * a0 + m4 * a1 + m8 * a2;
+            w[d + 1] = m1 * a0 + m5 * a1 + m9 * a2;
+            w[d + 2] = m2 * a0 + m6 * a1 + m10 * a2;
+            w[d + 4] = m0 * b0 + m4 * b1 + m8 * b2;
+            w[d + 5] = m1 * b0 + m5 * b1 + m9 * b2;
+            w[d + 6] = m2 * b0 + m6 * b1 + m10 * b2;
+            w[d + 8] = m0 * c0 + m4 * c1 + m8 * c2;
+            w[d + 9] = m1 * c0 + m5 * c1 + m9 * c2;
+            w[d + 10] = m2 * c0 + m6 * c1 + m10 * c2;
+            w[d + 12] = m0 * px + m4 * py + m8 * pz + m12;
+            w[d + 13] = m1 * px + m5 * py + m9 * pz + m13;
+            w[d + 14] = m2 * px + m6 * py + m10 * pz + m14;
+        }
+
+        w[d + 3] = 0.0f;
+        w[d + 7] = 0.0f;
+        w[d + 11] = 0.0f;
+        w[d + 15] = 1.0f;
+    }
+
+    /**
+     * Rebuild the depth first slot order, dropping removed slots.
+     */
+    private void reorder () {
+        int capacity = slotHandles.length;
+        if (order.length < capacity) {
+            order = new int[capacity];
+            swapLocals = new float[capacity * LOCAL_SIZE];
+            swapWorlds = new float[capacity * 16];
+            swapParents = new int[capacity];
+            swapEnds = new int[capacity];
+            swapHandles = new int[capacity];
+        }
+        ensureStack();
+
+        // Popping a node and pushing its children gives a preorder,
+        // in which each subtree is contiguous.
+        int n = 0, top = 0;
+        for (int r = firstRoot; NO_PARENT != r; r = nextSibling[r]) {
+            stack[top++] = r;
+        }
+
+        while (top > 0) {
+            int h = stack[--top];
+            int p = parentHandles[h];
+
+            order[n] = handleSlots[h];
+            handleSlots[h] = n;
+            swapParents[n] = (NO_PARENT == p) ? -1 : handleSlots[p];
+            swapEnds[n] = n + 1;
+            swapHandles[n] = h;
+            n++;
+
+            for (int c = firstChild[h]; NO_PARENT != c; c = nextSibling[c]) {
+                stack[top++] = c;
+            }
+        }
+
+        for (int s = n - 1; s > 0; s--) {
+            int p = swapParents[s];
+            if (p >= 0 && swapEnds[s] > swapEnds[p]) {
+                swapEnds[p] = swapEnds[s];
+            }
+        }
+
+        for (int s = 0; s < n; s++) {
+            System.arraycopy(locals, order[s] * LOCAL_SIZE, swapLocals, s * LOCAL_SIZE, LOCAL_SIZE);
+            System.arraycopy(worlds, order[s] * 16, swapWorlds, s * 16, 16);
+        }
+
+        float[] f = locals;
+        locals = swapLocals;
+        swapLocals = f;
+        f = worlds;
+        worlds = swapWorlds;
+        swapWorlds = f;
+
+        int[] i = parents;
+        parents = swapParents;
+        swapParents = i;
+        i = ends;
+        ends = swapEnds;
+        swapEnds = i;
+        i = slotHandles;
+        slotHandles = swapHandles;
+        swapHandles = i;
+
+        slotCount = n;
+        deadSlots = 0;
+        orderDirty = false;
+    }
+
+    // HOUSEKEEPING
+
+    private void setLocal (final int s,
+                           final float px, final float py, final float pz,
+                           final float qi, final float qj, final float qk, final float qw,
+                           final float sx, final float sy, final float sz) {
+        int l = s * LOCAL_SIZE;
+        locals[l] = px;
+        locals[l + 1] = py;
+        locals[l + 2] = pz;
+        locals[l + 3] = qi;
+        locals[l + 4] = qj;
+        locals[l + 5] = qk;
+        locals[l + 6] = qw;
+        locals[l + 7] = sx;
+        locals[l + 8] = sy;
+        locals[l + 9] = sz;
+    }
+
+    private int localOffset (final int handle) {
+        checkHandle(handle);
+        return handleSlots[handle] * LOCAL_SIZE;
+    }
+
+    private void markDirty (final int handle) {
+        if (!dirty[handle]) {
+            dirty[handle] = true;
+            dirtyHandles.add(handle);
+        }
+    }
+
+    private void checkHandle (final int handle) {
+        if (handle < 0 || handle >= handleCount || handleSlots[handle] < 0) {
+            throw new IllegalArgumentException("No such node: " + handle);
+        }
+    }
+
+    private int allocHandle () {
+        if (freeCount > 0) {
+            return freeHandles[--freeCount];
+        }
+
+        if (handleCount == handleSlots.length) {
+            int n = handleCount * 2;
+            handleSlots = Arrays.copyOf(handleSlots, n);
+            parentHandles = Arrays.copyOf(parentHandles, n);
+            firstChild = Arrays.copyOf(firstChild, n);
+            nextSibling = Arrays.copyOf(nextSibling, n);
+            prevSibling = Arrays.copyOf(prevSibling, n);
+            dirty = Arrays.copyOf(dirty, n);
+            freeHandles = Arrays.copyOf(freeHandles, n);
+        }
+        return handleCount++;
+    }
+
+    private void growSlots (final int n) {
+        locals = Arrays.copyOf(locals, n * LOCAL_SIZE);
+        worlds = Arrays.copyOf(worlds, n * 16);
+        parents = Arrays.copyOf(parents, n);
+        ends = Arrays.copyOf(ends, n);
+        slotHandles = Arrays.copyOf(slotHandles, n);
+    }
+
+    private void ensureStack () {
+        if (stack.length < handleSlots.length) {
+            stack = new int[handleSlots.length];
+        }
+    }
+
+    private void link (final int handle, final int parent) {
+        int head = (NO_PARENT == parent) ? firstRoot : firstChild[parent];
+
+        parentHandles[handle] = parent;
+        prevSibling[handle] = NO_PARENT;
+        nextSibling[handle] = head;
+        if (NO_PARENT != head) {
+            prevSibling[head] = handle;
+        }
+
+        if (NO_PARENT == parent) {
+            firstRoot = handle;
+        } else {
+            firstChild[parent] = handle;
+        }
+    }
+
+    private void unlink (final int handle) {
+        int prev = prevSibling[handle], next = nextSibling[handle];
+
+        if (NO_PARENT != next) {
+            prevSibling[next] = prev;
+        }
+        if (NO_PARENT != prev) {
+            nextSibling[prev] = next;
+        } else if (NO_PARENT == parentHandles[handle]) {
+            firstRoot = next;
+        } else {
+            firstChild[parentHandles[handle]] = next;
+        }
+    }
+
+    /**
+     * Dirty subtrees from roots[start] to roots[end].
+     */
+    private final class RootsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start, end;
+
+        RootsTask (final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute () {
+            if (end - start == 1) {
+                int r = roots.get(start);
+                new SubtreeTask(r, ends[r]).compute();
+                return;
+            }
+
+            int work = 0;
+            for (int i = start; i < end; i++) {
+                int r = roots.get(i);
+                work += ends[r] - r;
+            }
+
+            if (work <= PARALLEL_GRAIN) {
+                for (int i = start; i < end; i++) {
+                    int r = roots.get(i);
+                    computeRange(r, ends[r]);
+                }
+                return;
+            }
+
+            int mid = (start + end) >>> 1;
+            invokeAll(new RootsTask(start, mid), new RootsTask(mid, end));
+        }
+    }
+
+    /**
+     * A run of sibling subtrees from slot start to end, whose parent is
+     * already up to date.
+     */
+    private final class SubtreeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start, end;
+
+        SubtreeTask (final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute () {
+            int from = start;
+
+            // A single subtree: do its root, leaving the children.
+            while (end - from > PARALLEL_GRAIN && ends[from] == end) {
+                computeNode(from++);
+            }
+
+            if (end - from <= PARALLEL_GRAIN) {
+                computeRange(from, end);
+                return;
+            }
+
+            // Split at the sibling boundary nearest the middle.
+            int mid = (from + end) >>> 1;
+            int c = from;
+            while (ends[c] < mid) {
+                c = ends[c];
+            }
+            int split = (ends[c] < end) ? ends[c] : c;
+
+            invokeAll(new SubtreeTask(from, split), new SubtreeTask(split, end));
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package sge.math;
 
-import java.util.Random;
-
 /**
  * 2 Dimensional Vector class
  */
@@ -262,7 +260,7 @@ public final class Vector2 {
      * Create a randomly oriented 2D unit vector.
      */
     public static Vector2 random () {
-        Random rnd = FRandom.getRandom();
+        FRandom rnd = FRandom.current();
         float max = FMath.TWO_PI;
         float theta = rnd.nextFloat() * max;
 
@@ -273,7 +271,7 @@ public final class Vector2 {
      * Set the seed of the internal random number generator.
      */
     public static void setSeed (final long seed) {
-        Random rnd = FRandom.getRandom();
+        FRandom rnd = FRandom.current();
         rnd.setSeed(seed);
     }
 
@@ -1,7 +1,5 @@
 package sge.math;
 
-import java.util.Random;
-
 /**
  * 3 Dimensional Vector class
  */
@@ -312,19 +310,11 @@ public final class Vector3 {
      * TODO Move to a library that generates various data instances.
      */
     public static Vector3 random () {
-        Random rnd = FRandom.getRandom();
-        float max = FMath.TWO_PI;
-        float inclination = rnd.nextFloat() * max;
-        float azimuth = rnd.nextFloat() * max;
-        return new Vector3(
-                (float) Math.sin(inclination) * (float) Math.cos(azimuth),
-                (float) Math.cos(inclination) * (float) Math.sin(azimuth),
-                (float) Math.cos(inclination)
-        );
+        return new Vector3(FRandom.current().randomUnitVector(new MVector3()));
     }
 
     public static void setSeed (final long seed) {
-        Random rnd = FRandom.getRandom();
+        FRandom rnd = FRandom.current();
         rnd.setSeed(seed);
     }
 
@@ -0,0 +1,306 @@
+package sge.math;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Fixed size batch of 3 Dimensional Vectors stored as a structure of
+ * arrays (one float[] per component).
+ *
+ * Operations work over the whole batch at once. Kernels are written
+ * as flat counted loops over the component arrays with any constant
+ * values hoisted into locals, which is the shape the JIT is able to
+ * unroll and auto-vectorize. add_, dot and normalize_ run on
+ * {@link BatchKernels#get()}, which uses the Vector API where available.
+ * Destructive operations are suffixed with '_' as in {@link MVector3}.
+ */
+public final class Vector3Batch {
+
+    /** X components. */
+    public final float[] x;
+
+    /** Y components. */
+    public final float[] y;
+
+    /** Z components. */
+    public final float[] z;
+
+    private final int size;
+
+    /**
+     * Create a batch of `size' zero Vectors.
+     */
+    public Vector3Batch (final int size) {
+        this.size = size;
+        x = new float[size];
+        y = new float[size];
+        z = new float[size];
+    }
+
+    /** Copy Constructor. */
+    public Vector3Batch (final Vector3Batch other) {
+        this(other.size);
+        set_(other);
+    }
+
+    /**
+     * Return the number of Vectors in this batch.
+     */
+    public int size () {
+        return size;
+    }
+
+    public Vector3 get (final int index) {
+        return new Vector3(x[index], y[index], z[index]);
+    }
+
+    /**
+     * Write the Vector at `index' into dest.
+     *
+     * @return Reference to dest.
+     */
+    public MVector3 get (final int index, final MVector3 dest) {
+        return dest.set_(x[index], y[index], z[index]);
+    }
+
+    public void set (final int index, final float xx, final float yy, final float zz) {
+        x[index] = xx;
+        y[index] = yy;
+        z[index] = zz;
+    }
+
+    public void set (final int index, final Vector3 v) {
+        set(index, v.x, v.y, v.z);
+    }
+
+    public void set (final int index, final MVector3 v) {
+        set(index, v.x, v.y, v.z);
+    }
+
+    /**
+     * Copy the contents of another batch of the same size into this one.
+     * Destructive.
+     */
+    public Vector3Batch set_ (final Vector3Batch other) {
+        checkSize(other);
+
+        System.arraycopy(other.x, 0, x, 0, size);
+        System.arraycopy(other.y, 0, y, 0, size);
+        System.arraycopy(other.z, 0, z, 0, size);
+
+        return this;
+    }
+
+    /**
+     * Set every Vector in this batch to (xx, yy, zz).
+     * Destructive.
+     */
+    public Vector3Batch fill_ (final float xx, final float yy, final float zz) {
+        for (int i = 0; i < size; i++) {
+            x[i] = xx;
+            y[i] = yy;
+            z[i] = zz;
+        }
+
+        return this;
+    }
+
+    // BULK OPERATIONS
+
+    /**
+     * Add another batch to this batch componentwise.
+     * Destructive.
+     */
+    public Vector3Batch add_ (final Vector3Batch other) {
+        checkSize(other);
+        final BatchKernels kernels = BatchKernels.get();
+
+        kernels.add(x, other.x, size);
+        kernels.add(y, other.y, size);
+        kernels.add(z, other.z, size);
+
+        return this;
+    }
+
+    /**
+     * Add a scaled copy of another batch to this batch, i.e.
+     * this += other * scale. Typically position += velocity * dt.
+     * Destructive.
+     */
+    public Vector3Batch addScaled_ (final Vector3Batch other, final float scale) {
+        checkSize(other);
+        final float[] ox = other.x, oy = other.y, oz = other.z;
+
+        for (int i = 0; i < size; i++) {
+            x[i] += ox[i] * scale;
+            y[i] += oy[i] * scale;
+            z[i] += oz[i] * scale;
+        }
+
+        return this;
+    }
+
+    /**
+     * Subtract another batch from this batch componentwise.
+     * Destructive.
+     */
+    public Vector3Batch sub_ (final Vector3Batch other) {
+        checkSize(other);
+        final float[] ox = other.x, oy = other.y, oz = other.z;
+
+        for (int i = 0; i < size; i++) {
+            x[i] -= ox[i];
+            y[i] -= oy[i];
+            z[i] -= oz[i];
+        }
+
+        return this;
+    }
+
+    /**
+     * Scale every Vector in this batch.
+     * Destructive.
+     */
+    public Vector3Batch scale_ (final float scale) {
+        for (int i = 0; i < size; i++) {
+            x[i] *= scale;
+            y[i] *= scale;
+            z[i] *= scale;
+        }
+
+        return this;
+    }
+
+    /**
+     * Write the dot product of each pair of Vectors in this batch and
+     * other into dest.
+     *
+     * @param other Batch of the same size as this batch.
+     * @param dest Array with room for at least size() results.
+     * @return Reference to dest.
+     */
+    public float[] dot (final Vector3Batch other, final float[] dest) {
+        checkSize(other);
+        BatchKernels.get().dot(x, y, z, other.x, other.y, other.z, dest, size);
+
+        return dest;
+    }
+
+    /**
+     * Write the length of each Vector in this batch into dest.
+     *
+     * @return Reference to dest.
+     */
+    public float[] lengths (final float[] dest) {
+        for (int i = 0; i < size; i++) {
+            dest[i] = (float) Math.sqrt(x[i] * x[i] + y[i] * y[i] + z[i] * z[i]);
+        }
+
+        return dest;
+    }
+
+    /**
+     * Replace each Vector in this batch with the cross product of
+     * itself and the matching Vector in other (this = this x other).
+     * Destructive.
+     */
+    public Vector3Batch cross_ (final Vector3Batch other) {
+        checkSize(other);
+        final float[] ox = other.x, oy = other.y, oz = other.z;
+
+        for (int i = 0; i < size; i++) {
+            float _x = x[i], _y = y[i], _z = z[i];
+
+            x[i] = _y * oz[i] - _z * oy[i];
+            y[i] = _z * ox[i] - _x * oz[i];
+            z[i] = _x * oy[i] - _y * ox[i];
+        }
+
+        return this;
+    }
+
+    /**
+     * Set the length of every Vector in this batch to 1.0f, maintaining
+     * direction. As with {@link Vector3#normalize()}, Vectors of length
+     * 0.0f are left unchanged.
+     * Destructive.
+     */
+    public Vector3Batch normalize_ () {
+        BatchKernels.get().normalize(x, y, z, size);
+
+        return this;
+    }
+
+    /**
+     * Transform every Vector in this batch as a point (w = 1) by a
+     * Matrix4. The projective row is ignored, so this is intended for
+     * affine transforms.
+     * Destructive.
+     */
+    public Vector3Batch transform_ (final Matrix4 m) {
+        final float[] mat = m.mat;
+        final float m0 = mat[0], m1 = mat[1], m2 = mat[2];
+        final float m4 = mat[4], m5 = mat[5], m6 = mat[6];
+        final float m8 = mat[8], m9 = mat[9], m10 = mat[10];
+        final float m12 = mat[12], m13 = mat[13], m14 = mat[14];
+
+        for (int i = 0; i < size; i++) {
+            float _x = x[i], _y = y[i], _z = z[i];
+
+            x[i] = m0 * _x + m4 * _y + m8 * _z + m12;
+            y[i] = m1 * _x + m5 * _y + m9 * _z + m13;
+            z[i] = m2 * _x + m6 * _y + m10 * _z + m14;
+        }
+
+        return this;
+    }
+
+    /**
+     * Transform every Vector in this batch as a direction (w = 0) by a
+     * Matrix4, i.e. ignoring translation.
+     * Destructive.
+     */
+    public Vector3Batch transformDirection_ (final Matrix4 m) {
+        final float[] mat = m.mat;
+        final float m0 = mat[0], m1 = mat[1], m2 = mat[2];
+        final float m4 = mat[4], m5 = mat[5], m6 = mat[6];
+        final float m8 = mat[8], m9 = mat[9], m10 = mat[10];
+
+        for (int i = 0; i < size; i++) {
+            float _x = x[i], _y = y[i], _z = z[i];
+
+            x[i] = m0 * _x + m4 * _y + m8 * _z;
+            y[i] = m1 * _x + m5 * _y + m9 * _z;
+            z[i] = m2 * _x + m6 * _y + m10 * _z;
+        }
+
+        return this;
+    }
+
+    /**
+     * Write this batch into a FloatBuffer as interleaved (x, y, z)
+     * triples starting at the buffer's current position, e.g. for
+     * streaming to the GPU.
+     *
+     * @return Reference to dest.
+     */
+    public FloatBuffer put (final FloatBuffer dest) {
+        for (int i = 0; i < size; i++) {
+            dest.put(x[i]).put(y[i]).put(z[i]);
+        }
+
+        return dest;
+    }
+
+    private void checkSize (final Vector3Batch other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Vector3Batch size mismatch: " + size + " != " + other.size);
+        }
+    }
+
+    // JAVA HOUSEKEEPING
+
+    @Override
+    public String toString () {
+        return String.format("<Vector3Batch %d>", size);
+    }
+}
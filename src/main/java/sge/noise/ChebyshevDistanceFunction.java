@@ -7,19 +7,27 @@ public class ChebyshevDistanceFunction implements DistanceFunction {
 
     @Override
     public float apply (float v1, float v2) {
-        return v2 - v1;
+        return Math.abs(v2 - v1);
+    }
+
+    @Override
+    public float apply (float x1, float y1, float x2, float y2) {
+        return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+    }
+
+    @Override
+    public float apply (float x1, float y1, float z1, float x2, float y2, float z2) {
+        return Math.max(Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2)), Math.abs(z1 - z2));
     }
 
     @Override
     public float apply (Vector2 v1, Vector2 v2) {
-        Vector2 diff = v1.sub(v2);
-        return Math.max(Math.abs(diff.x), Math.abs(diff.y));
+        return apply(v1.x, v1.y, v2.x, v2.y);
     }
 
     @Override
     public float apply (Vector3 v1, Vector3 v2) {
-        Vector3 diff = v1.sub(v2);
-        return Math.max(Math.max(Math.abs(diff.x), Math.abs(diff.y)), Math.abs(diff.z));
+        return apply(v1.x, v1.y, v1.z, v2.x, v2.y, v2.z);
     }
 
 }
@@ -1,8 +1,16 @@
 package sge.noise;
 
-import java.util.NavigableSet;
-
+/**
+ * Interface for combining the distances from a sample to its nearest
+ * feature points into a Worley noise value.
+ */
 public interface DistanceCombinator {
 
-    public float apply (NavigableSet<Float> distances);
+    /**
+     * @param distances Distances to the nearest feature points, sorted
+     *                  nearest first (F1, F2, ...).
+     * @param count Number of distances, between 1 and
+     *              {@link Worley#MAX_DISTANCES}.
+     */
+    public float apply (float[] distances, int count);
 }
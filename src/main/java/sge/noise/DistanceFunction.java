@@ -5,6 +5,9 @@ import sge.math.Vector3;
 
 /**
  * Interface for calculating distance between two points.
+ *
+ * Distances must not decrease as the points move apart along any axis,
+ * which lets {@link Worley} skip cells that are too far away.
  */
 public interface DistanceFunction {
 
@@ -17,6 +20,20 @@ public interface DistanceFunction {
      */
     float apply (float v1, float v2);
 
+    /**
+     * Two Dimensional distance calculation.
+     *
+     * @return Distance between (x1, y1) and (x2, y2).
+     */
+    float apply (float x1, float y1, float x2, float y2);
+
+    /**
+     * Three Dimensional distance calculation.
+     *
+     * @return Distance between (x1, y1, z1) and (x2, y2, z2).
+     */
+    float apply (float x1, float y1, float z1, float x2, float y2, float z2);
+
     /**
      * Two Dimensional distance calculation.
      *
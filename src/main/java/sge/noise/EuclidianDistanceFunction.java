@@ -3,21 +3,35 @@ package sge.noise;
 import sge.math.Vector2;
 import sge.math.Vector3;
 
+/**
+ * Squared Euclidian distance, which orders points the same as the
+ * distance without taking a square root.
+ */
 public class EuclidianDistanceFunction implements DistanceFunction {
 
     @Override
     public float apply (float v1, float v2) {
-        return v2 - v1;
+        return (v2 - v1) * (v2 - v1);
+    }
+
+    @Override
+    public float apply (float x1, float y1, float x2, float y2) {
+        return (x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2);
+    }
+
+    @Override
+    public float apply (float x1, float y1, float z1, float x2, float y2, float z2) {
+        return (x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2) + (z1 - z2) * (z1 - z2);
     }
 
     @Override
     public float apply (Vector2 v1, Vector2 v2) {
-        return (v1.x - v2.x) * (v1.x - v2.x) + (v1.y - v2.y) * (v1.y - v2.y);
+        return apply(v1.x, v1.y, v2.x, v2.y);
     }
 
     @Override
     public float apply (Vector3 v1, Vector3 v2) {
-        return (v1.x - v2.x) * (v1.x - v2.x) + (v1.y - v2.y) * (v1.y - v2.y) + (v1.z - v2.z) * (v1.z - v2.z);
+        return apply(v1.x, v1.y, v1.z, v2.x, v2.y, v2.z);
     }
 
 }
@@ -1,12 +1,10 @@
 package sge.noise;
 
-import java.util.NavigableSet;
-
 public class F1Combinator implements DistanceCombinator {
 
     @Override
-    public float apply (NavigableSet<Float> distances) {
-        return distances.first();
+    public float apply (float[] distances, int count) {
+        return distances[0];
     }
 
 }
@@ -1,17 +1,10 @@
 package sge.noise;
 
-import java.util.NavigableSet;
-
 public class F2Combinator implements DistanceCombinator {
 
     @Override
-    public float apply (NavigableSet<Float> distances) {
-        float first = distances.first();
-
-        if (null != distances.higher(first))
-            return distances.higher(first);
-
-        return first;
+    public float apply (float[] distances, int count) {
+        return distances[Math.min(1, count - 1)];
     }
 
 }
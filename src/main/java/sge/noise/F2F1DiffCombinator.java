@@ -1,16 +1,14 @@
 package sge.noise;
 
-import java.util.NavigableSet;
-
 public class F2F1DiffCombinator implements DistanceCombinator {
 
     @Override
-    public float apply (NavigableSet<Float> distances) {
-        float first = distances.first();
+    public float apply (float[] distances, int count) {
+        float first = distances[0];
         float second = 2f * first;
 
-        if (null != distances.higher(first))
-            second = distances.higher(first);
+        if (count > 1)
+            second = distances[1];
 
         return second - first;
     }
@@ -1,19 +1,10 @@
 package sge.noise;
 
-import java.util.NavigableSet;
-
 public class F3Combinator implements DistanceCombinator {
 
     @Override
-    public float apply (NavigableSet<Float> distances) {
-        float value = distances.first();
-
-        for (int i = 0; i < 2; i++) {
-            if (null != distances.higher(value))
-                value = distances.higher(value);
-        }
-
-        return value;
+    public float apply (float[] distances, int count) {
+        return distances[Math.min(2, count - 1)];
     }
 
 }
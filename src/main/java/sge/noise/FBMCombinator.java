@@ -0,0 +1,13 @@
+package sge.noise;
+
+/**
+ * Fractional Brownian motion: the plain sum of the octaves.
+ */
+public class FBMCombinator implements OctaveCombinator {
+
+    @Override
+    public float apply (float noise) {
+        return noise;
+    }
+
+}
@@ -1,12 +1,14 @@
 package sge.noise;
 
-import java.util.NavigableSet;
-
+/**
+ * Distance to the furthest of the nearest {@link Worley#MAX_DISTANCES}
+ * feature points.
+ */
 public class FNCombinator implements DistanceCombinator {
 
     @Override
-    public float apply (NavigableSet<Float> distances) {
-        return distances.last();
+    public float apply (float[] distances, int count) {
+        return distances[count - 1];
     }
 
 }
@@ -0,0 +1,270 @@
+package sge.noise;
+
+import java.util.Arrays;
+import sge.math.FMath;
+
+/**
+ * Octaves of {@link Simplex} noise in 2, 3 or 4 dimensions.
+ *
+ * Each octave samples at lacunarity times the frequency and persistence
+ * times the weight of the one before. The octaves are shaped by an
+ * {@link OctaveCombinator}: fBm by default, or ridged or turbulence.
+ *
+ * The fill() methods generate a whole grid or volume of samples at
+ * once, giving the same values as calling get() at each sample point,
+ * without allocating. The 2D fill calls get() for each sample. The 3D
+ * and 4D fills run octave by octave, accumulating into the output.
+ * Simplex evaluation dominates, so per sample all cost about the same
+ * as get().
+ */
+public class FractalNoise implements NoiseGenerator {
+
+    public float frequency;
+    public float amplitude;
+    public float persistence;
+    public float lacunarity = 2.0f;
+    public int octaves;
+
+    private final Simplex simplex;
+    private OctaveCombinator octaveCombinator;
+
+    /** Seeded Random Constructor. */
+    public FractalNoise (final long seed) {
+        this(1.0f, 1.0f, 0.5f, 1, seed);
+    }
+
+    /**
+     * Value Constructor.
+     *
+     * @param p_freq Scale of the Noise
+     * @param p_amp Contrastiness of the Noise.
+     * @param p_pers Weight of each octave relative to the one before.
+     * @param p_oct Number of octaves.
+     */
+    public FractalNoise (final float p_freq, final float p_amp,
+                         final float p_pers, final int p_oct) {
+        this(p_freq, p_amp, p_pers, p_oct, System.currentTimeMillis());
+    }
+
+    /**
+     * Value Constructor.
+     *
+     * @param p_freq Scale of the Noise
+     * @param p_amp Contrastiness of the Noise.
+     * @param p_pers Weight of each octave relative to the one before.
+     * @param p_oct Number of octaves.
+     * @param p_seed Random Number seed
+     */
+    public FractalNoise (final float p_freq, final float p_amp,
+                         final float p_pers, final int p_oct, final long p_seed) {
+        frequency = p_freq;
+        amplitude = p_amp;
+        persistence = p_pers;
+        octaves = p_oct;
+
+        simplex = new Simplex(p_seed);
+        octaveCombinator = new FBMCombinator();
+    }
+
+    public FractalNoise setOctaveCombinator (OctaveCombinator c) {
+        octaveCombinator = c;
+        return this;
+    }
+
+    public FractalNoise setLacunarity (float l) {
+        lacunarity = l;
+        return this;
+    }
+
+    public Simplex getSimplex () {
+        return simplex;
+    }
+
+    /**
+     * 2D fractal noise.
+     */
+    public float get (final float x, final float y) {
+        float t = 0.0f;
+        float freq = frequency;
+        float amp = 1.0f;
+
+        for (int o = 0; o < octaves; o++) {
+            t += amp * octaveCombinator.apply(simplex.get(x * freq, y * freq));
+            freq *= lacunarity;
+            amp *= persistence;
+        }
+
+        return FMath.clamp(amplitude * t, -1f, 1f);
+    }
+
+    /**
+     * 3D fractal noise.
+     */
+    public float get (final float x, final float y, final float z) {
+        float t = 0.0f;
+        float freq = frequency;
+        float amp = 1.0f;
+
+        for (int o = 0; o < octaves; o++) {
+            t += amp * octaveCombinator.apply(simplex.get(x * freq, y * freq, z * freq));
+            freq *= lacunarity;
+            amp *= persistence;
+        }
+
+        return FMath.clamp(amplitude * t, -1f, 1f);
+    }
+
+    /**
+     * 4D fractal noise.
+     */
+    public float get (final float x, final float y, final float z, final float w) {
+        float t = 0.0f;
+        float freq = frequency;
+        float amp = 1.0f;
+
+        for (int o = 0; o < octaves; o++) {
+            t += amp * octaveCombinator.apply(simplex.get(x * freq, y * freq, z * freq, w * freq));
+            freq *= lacunarity;
+            amp *= persistence;
+        }
+
+        return FMath.clamp(amplitude * t, -1f, 1f);
+    }
+
+    /**
+     * Fill out[0..width * height) with 2D fractal noise in row major
+     * order, such that out[j * width + i] = get(x0 + i * step, y0 + j * step).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int width, final int height,
+                         final float x0, final float y0, final float step) {
+        return fill(out, 0, width, 0, 0, width, height, x0, y0, step);
+    }
+
+    /**
+     * Fill a width * height region of a larger row major grid of samples,
+     * where sample (i, j) of the grid is get(x0 + i * step, y0 + j * step).
+     * Sample (i0 + i, j0 + j) is written to out[offset + j * stride + i].
+     * Results are the same however the grid is split into regions.
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int offset, final int stride, final int i0, final int j0,
+                         final int width, final int height, final float x0, final float y0, final float step) {
+        for (int j = 0; j < height; j++) {
+            float y = y0 + (j0 + j) * step;
+            int rowStart = offset + j * stride;
+
+            for (int i = 0; i < width; i++) {
+                out[rowStart + i] = get(x0 + (i0 + i) * step, y);
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * The octave combinator is compared by identity. The Simplex lattice
+     * is fixed for the generator, so it is covered by its identity.
+     */
+    @Override
+    public long parameterHash () {
+        long h = Noise.mix(0L, Float.floatToIntBits(frequency));
+        h = Noise.mix(h, Float.floatToIntBits(amplitude));
+        h = Noise.mix(h, Float.floatToIntBits(persistence));
+        h = Noise.mix(h, Float.floatToIntBits(lacunarity));
+        h = Noise.mix(h, octaves);
+        return Noise.mix(h, System.identityHashCode(octaveCombinator));
+    }
+
+    /**
+     * Fill out[0..width * height * depth) with 3D fractal noise, such that
+     * out[(k * height + j) * width + i] = get(x0 + i * step, y0 + j * step, z0 + k * step).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int width, final int height, final int depth,
+                         final float x0, final float y0, final float z0, final float step) {
+        final OctaveCombinator combinator = octaveCombinator;
+        final int count = width * height * depth;
+
+        Arrays.fill(out, 0, count, 0.0f);
+
+        float freq = frequency;
+        float amp = 1.0f;
+
+        for (int o = 0; o < octaves; o++) {
+            int n = 0;
+            for (int k = 0; k < depth; k++) {
+                float z = (z0 + k * step) * freq;
+
+                for (int j = 0; j < height; j++) {
+                    float y = (y0 + j * step) * freq;
+
+                    for (int i = 0; i < width; i++) {
+                        float x = x0 + i * step;
+                        out[n++] += amp * combinator.apply(simplex.get(x * freq, y, z));
+                    }
+                }
+            }
+
+            freq *= lacunarity;
+            amp *= persistence;
+        }
+
+        clamp(out, 0, count);
+        return out;
+    }
+
+    /**
+     * Fill out[0..width * height * depth) with a 3D slice of 4D fractal
+     * noise at w, such that out[(k * height + j) * width + i] =
+     * get(x0 + i * step, y0 + j * step, z0 + k * step, w).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int width, final int height, final int depth,
+                         final float x0, final float y0, final float z0, final float w, final float step) {
+        final OctaveCombinator combinator = octaveCombinator;
+        final int count = width * height * depth;
+
+        Arrays.fill(out, 0, count, 0.0f);
+
+        float freq = frequency;
+        float amp = 1.0f;
+
+        for (int o = 0; o < octaves; o++) {
+            float sw = w * freq;
+            int n = 0;
+
+            for (int k = 0; k < depth; k++) {
+                float z = (z0 + k * step) * freq;
+
+                for (int j = 0; j < height; j++) {
+                    float y = (y0 + j * step) * freq;
+
+                    for (int i = 0; i < width; i++) {
+                        float x = x0 + i * step;
+                        out[n++] += amp * combinator.apply(simplex.get(x * freq, y, z, sw));
+                    }
+                }
+            }
+
+            freq *= lacunarity;
+            amp *= persistence;
+        }
+
+        clamp(out, 0, count);
+        return out;
+    }
+
+    /**
+     * Scale summed octaves by amplitude and clamp them, as get() does.
+     */
+    private void clamp (final float[] out, final int start, final int count) {
+        for (int i = start, iMax = start + count; i < iMax; i++) {
+            out[i] = FMath.clamp(amplitude * out[i], -1f, 1f);
+        }
+    }
+}
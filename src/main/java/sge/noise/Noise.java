@@ -54,6 +54,14 @@ public final class Noise {
         return FMath.cosInterpolate(v1, v2, yFrac);
     }
 
+    /**
+     * Index of lattice point (x, y) for hash(). Consecutive x give
+     * consecutive indices, as BatchKernels.latticeRow() expects.
+     */
+    public static int latticeIndex (final int x, final int y) {
+        return x + y * 57;
+    }
+
     /**
      * Hashing function for 2d noise Pseudo-RNG.
      *
@@ -62,9 +70,18 @@ public final class Noise {
      * @return float result of hashing x and y
      */
     public static final int hash (final int x, final int y) {
-        int n = x + y * 57;
+        int n = latticeIndex(x, y);
         n = (n << 13) ^ n;
         int nn = (n * (n * n * 60493 + 19990303) + 1376312589) & 0x7fffffff;
         return nn;
     }
+
+    /**
+     * Mix a value into a running hash of generator parameters, for
+     * {@link NoiseGenerator#parameterHash()}.
+     */
+    static long mix (final long hash, final long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
 }
@@ -0,0 +1,197 @@
+package sge.noise;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates large 2D noise fields, e.g. heightmaps, by splitting them
+ * into square tiles which are filled concurrently.
+ *
+ * Tiles are filled with {@link NoiseGenerator#fill}, which gives each
+ * sample the same value however the field is split, so the output is
+ * identical for any tile size, thread count or executor.
+ *
+ * By default tiles run on a shared ForkJoinPool with one thread per
+ * processor. Any other Executor may be given instead.
+ */
+public class NoiseField {
+
+    public static final int DEFAULT_TILE_SIZE = 128;
+
+    private final NoiseGenerator noise;
+    private final Executor executor;
+    private int tileSize = DEFAULT_TILE_SIZE;
+
+    /** Lazily created pool shared by NoiseFields without an executor. */
+    private static final class DefaultPool {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * Create a NoiseField which runs on the shared default pool.
+     */
+    public NoiseField (final NoiseGenerator noise) {
+        this(noise, null);
+    }
+
+    /**
+     * Create a NoiseField which runs tiles on an executor. A
+     * ForkJoinPool is used with fork/join tasks, anything else is sent
+     * one task per tile.
+     *
+     * @param executor Executor for tile tasks, or null for the default pool.
+     */
+    public NoiseField (final NoiseGenerator noise, final Executor executor) {
+        this.noise = noise;
+        this.executor = executor;
+    }
+
+    public NoiseGenerator getNoise () {
+        return noise;
+    }
+
+    public int getTileSize () {
+        return tileSize;
+    }
+
+    /**
+     * Set the width and height of the tiles the field is split into.
+     */
+    public NoiseField setTileSize (final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Tile size must be positive: " + size);
+        }
+
+        tileSize = size;
+        return this;
+    }
+
+    /**
+     * Generate a width * height field of samples in row major order, such
+     * that out[j * width + i] = noise.get(x0 + i * step, y0 + j * step).
+     *
+     * @param out Array of at least width * height floats, or null to
+     *            allocate one.
+     * @return out, or the new array.
+     */
+    public float[] generate (final float[] out, final int width, final int height,
+                             final float x0, final float y0, final float step) {
+        final float[] dest = (null == out) ? new float[width * height] : out;
+        final Tiles tiles = new Tiles(dest, width, height, x0, y0, step);
+
+        if (tiles.count <= 1) {
+            tiles.fill(0);
+        } else if (null == executor) {
+            DefaultPool.POOL.invoke(new TileRange(tiles, 0, tiles.count));
+        } else if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(new TileRange(tiles, 0, tiles.count));
+        } else {
+            runOnExecutor(tiles);
+        }
+
+        return dest;
+    }
+
+    private void runOnExecutor (final Tiles tiles) {
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(tiles.count);
+
+        for (int t = 0; t < tiles.count; t++) {
+            final int tile = t;
+            FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+                @Override
+                public void run () {
+                    tiles.fill(tile);
+                }
+            }, null);
+
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        try {
+            for (FutureTask<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            for (FutureTask<Void> task : tasks) {
+                task.cancel(false);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating noise field", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * The tiles of a single generate() call.
+     */
+    private final class Tiles {
+        final float[] out;
+        final int width, height;
+        final float x0, y0, step;
+        final int tilesX;
+        final int count;
+
+        Tiles (final float[] out, final int width, final int height,
+               final float x0, final float y0, final float step) {
+            this.out = out;
+            this.width = width;
+            this.height = height;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.step = step;
+
+            tilesX = (width + tileSize - 1) / tileSize;
+            count = tilesX * ((height + tileSize - 1) / tileSize);
+        }
+
+        void fill (final int tile) {
+            int i0 = (tile % tilesX) * tileSize;
+            int j0 = (tile / tilesX) * tileSize;
+            int w = Math.min(tileSize, width - i0);
+            int h = Math.min(tileSize, height - j0);
+
+            noise.fill(out, j0 * width + i0, width, i0, j0, w, h, x0, y0, step);
+        }
+    }
+
+    /**
+     * Fill tiles [start, end), splitting the range in half until there
+     * is one tile per task.
+     */
+    private static final class TileRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Tiles tiles;
+        private final int start, end;
+
+        TileRange (final Tiles tiles, final int start, final int end) {
+            this.tiles = tiles;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute () {
+            if (end - start == 1) {
+                tiles.fill(start);
+                return;
+            }
+
+            int mid = (start + end) >>> 1;
+            invokeAll(new TileRange(tiles, start, mid), new TileRange(tiles, mid, end));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package sge.noise;
+
+/**
+ * Interface for 2D noise generators which can fill regions of a grid
+ * of samples, e.g. tiles of a {@link NoiseField}.
+ */
+public interface NoiseGenerator {
+
+    /**
+     * Sample the noise at (x, y).
+     */
+    float get (float x, float y);
+
+    /**
+     * Fill a width * height region of a larger row major grid of samples,
+     * where sample (i, j) of the grid is get(x0 + i * step, y0 + j * step).
+     * Sample (i0 + i, j0 + j) is written to out[offset + j * stride + i].
+     *
+     * Implementations must give the same results however the grid is
+     * split into regions, and must be safe to call from several threads
+     * at once.
+     *
+     * @return Reference to out.
+     */
+    float[] fill (float[] out, int offset, int stride, int i0, int j0,
+                  int width, int height, float x0, float y0, float step);
+
+    /**
+     * Return a fingerprint of every parameter which affects the samples,
+     * which changes whenever any of them does. Caches of samples, such as
+     * {@link NoiseTileCache}, key on it along with the generator.
+     */
+    long parameterHash ();
+}
@@ -0,0 +1,303 @@
+package sge.noise;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of square tiles of noise, for streaming terrain where the same
+ * regions are generated again and again as the camera moves.
+ *
+ * Tiles are keyed on the generator and its parameters (see
+ * {@link NoiseGenerator#parameterHash()}), the tile's grid position and
+ * its level of detail. Tile (tx, ty) at lod holds tileSize * tileSize
+ * samples spaced step * 2^lod apart, so sample (i, j) of the tile is
+ * noise.get((tx * tileSize + i) * s, (ty * tileSize + j) * s) with
+ * s = step * 2^lod, so negative lods are finer than lod 0. Samples are
+ * generated with {@link NoiseGenerator#fill}, so they match a
+ * {@link NoiseField} over the same grid.
+ *
+ * Changing a generator's parameters gives it new tiles. Its old tiles
+ * are evicted as the cache fills, or at once by invalidate().
+ *
+ * The cache holds at most maxBytes of tiles and evicts the least
+ * recently used tile when full. It is safe to use from several threads:
+ * if a tile is requested while another thread is generating it, the
+ * request waits for that result rather than generating it again.
+ */
+public class NoiseTileCache {
+
+    /** Default limit on the bytes of tile data held. */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+
+    public static final int DEFAULT_TILE_SIZE = 128;
+
+    private static final int FLOAT_SIZE = Float.SIZE / Byte.SIZE;
+
+    private final int tileSize;
+    private final float step;
+    private final int maxTiles;
+
+    /** Tiles in access order, least recently used first. Guarded by itself. */
+    private final LinkedHashMap<Key, FutureTask<float[]>> tiles;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Generator and position of a tile.
+     */
+    private static final class Key {
+        final NoiseGenerator noise;
+        final long params;
+        final int x, y, lod;
+
+        Key (final NoiseGenerator noise, final int x, final int y, final int lod) {
+            this.noise = noise;
+            this.params = noise.parameterHash();
+            this.x = x;
+            this.y = y;
+            this.lod = lod;
+        }
+
+        @Override
+        public boolean equals (final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key k = (Key) o;
+            return noise == k.noise && params == k.params && x == k.x && y == k.y && lod == k.lod;
+        }
+
+        @Override
+        public int hashCode () {
+            int h = System.identityHashCode(noise);
+            h = 31 * h + (int) (params ^ (params >>> 32));
+            h = 31 * h + x;
+            h = 31 * h + y;
+            return 31 * h + lod;
+        }
+    }
+
+    /**
+     * Create a cache of DEFAULT_TILE_SIZE tiles, sampled step apart at
+     * lod 0, holding up to DEFAULT_MAX_BYTES of tiles.
+     */
+    public NoiseTileCache (final float step) {
+        this(DEFAULT_TILE_SIZE, step, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param tileSize Width and height of each tile, in samples.
+     * @param step Distance between samples at lod 0.
+     * @param maxBytes Limit on the bytes of tile data held. At least
+     *                 one tile is always held.
+     */
+    public NoiseTileCache (final int tileSize, final float step, final long maxBytes) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+        }
+
+        this.tileSize = tileSize;
+        this.step = step;
+        this.maxTiles = (int) Math.max(1L, Math.min(Integer.MAX_VALUE, maxBytes / tileBytes(tileSize)));
+
+        tiles = new LinkedHashMap<Key, FutureTask<float[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (final Map.Entry<Key, FutureTask<float[]>> eldest) {
+                if (size() > maxTiles) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static long tileBytes (final int tileSize) {
+        return (long) tileSize * tileSize * FLOAT_SIZE;
+    }
+
+    public int getTileSize () {
+        return tileSize;
+    }
+
+    public float getStep () {
+        return step;
+    }
+
+    /**
+     * @return Most tiles held at once.
+     */
+    public int getMaxTiles () {
+        return maxTiles;
+    }
+
+    /**
+     * Get a tile, generating it if it isn't cached. The returned array
+     * is shared with other callers, and must not be modified.
+     *
+     * @return tileSize * tileSize samples in row major order.
+     */
+    public float[] get (final NoiseGenerator noise, final int tileX, final int tileY, final int lod) {
+        final Key key = new Key(noise, tileX, tileY, lod);
+        FutureTask<float[]> task;
+        boolean owner = false;
+
+        synchronized (tiles) {
+            task = tiles.get(key);
+
+            if (null == task) {
+                task = new FutureTask<float[]>(new Callable<float[]>() {
+                    @Override
+                    public float[] call () {
+                        return generate(key);
+                    }
+                });
+                tiles.put(key, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            misses.incrementAndGet();
+            task.run();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return result(key, task);
+    }
+
+    /**
+     * @return true if the tile is cached (or being generated).
+     */
+    public boolean contains (final NoiseGenerator noise, final int tileX, final int tileY, final int lod) {
+        synchronized (tiles) {
+            return tiles.containsKey(new Key(noise, tileX, tileY, lod));
+        }
+    }
+
+    private float[] generate (final Key key) {
+        float s = Math.scalb(step, key.lod);
+        float[] out = new float[tileSize * tileSize];
+
+        return key.noise.fill(out, 0, tileSize, key.x * tileSize, key.y * tileSize,
+                              tileSize, tileSize, 0.0f, 0.0f, s);
+    }
+
+    private float[] result (final Key key, final FutureTask<float[]> task) {
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    // Waiting on another thread's tile - finish waiting
+                    // and pass the interrupt on afterwards.
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            // Drop the failed tile so that it is retried next time.
+            synchronized (tiles) {
+                if (tiles.get(key) == task) {
+                    tiles.remove(key);
+                }
+            }
+
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Remove all tiles of a generator, including those of its earlier
+     * parameters.
+     *
+     * @return Number of tiles removed.
+     */
+    public int invalidate (final NoiseGenerator noise) {
+        int removed = 0;
+
+        synchronized (tiles) {
+            for (Iterator<Key> it = tiles.keySet().iterator(); it.hasNext(); ) {
+                if (it.next().noise == noise) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Remove all tiles.
+     */
+    public void clear () {
+        synchronized (tiles) {
+            tiles.clear();
+        }
+    }
+
+    /**
+     * @return Number of tiles held.
+     */
+    public int size () {
+        synchronized (tiles) {
+            return tiles.size();
+        }
+    }
+
+    /**
+     * @return Bytes of tile data held.
+     */
+    public long getBytes () {
+        return size() * tileBytes(tileSize);
+    }
+
+    public long getHits () {
+        return hits.get();
+    }
+
+    public long getMisses () {
+        return misses.get();
+    }
+
+    public long getEvictions () {
+        return evictions.get();
+    }
+
+    /**
+     * @return Ratio of requests served from the cache, or 0 if there
+     *   have been none.
+     */
+    public float getHitRate () {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (0 == total) ? 0.0f : (float) h / total;
+    }
+
+    public void resetStatistics () {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+}
@@ -0,0 +1,14 @@
+package sge.noise;
+
+/**
+ * Interface for shaping each octave of a {@link FractalNoise} before the
+ * octaves are summed.
+ */
+public interface OctaveCombinator {
+
+    /**
+     * @param noise Noise value of one octave, in about [-1, 1].
+     * @return Contribution of the octave, in about [-1, 1].
+     */
+    public float apply (float noise);
+}
@@ -1,13 +1,21 @@
 package sge.noise;
 
+import java.util.Arrays;
+import sge.math.BatchKernels;
 import sge.math.FMath;
 
 /**
  * Perlin2D Noise.
  * <p/>
  * Cloudy looking smoothed noise.
+ * <p/>
+ * The fill() methods generate a whole line or grid of samples at once,
+ * giving the same values as calling get() at each sample point. Per
+ * octave, the interpolation weights for each column and the lattice
+ * values for each row of cells are worked out once and shared by all
+ * the samples which use them.
  */
-public class Perlin {
+public class Perlin implements NoiseGenerator {
 
     public int seed;
 
@@ -93,4 +101,181 @@ public class Perlin {
 
         return FMath.clamp(amplitude * t, -1f, 1f);
     }
+
+    /**
+     * Fill out[0..count) with 1D Perlin noise, such that
+     * out[i] = get(x0 + i * step).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int count, final float x0, final float step) {
+        Arrays.fill(out, 0, count, 0.0f);
+
+        float freq = frequency;
+        float amp = 1.0f;
+
+        for (int o = 0; o < octaves; o++) {
+            int cell = Integer.MIN_VALUE;
+            float n0 = 0.0f, n1 = 0.0f;
+
+            for (int i = 0; i < count; i++) {
+                float sx = (x0 + i * step) * freq + seed;
+                int xf = (int) sx;
+
+                if (xf != cell) {
+                    cell = xf;
+                    n0 = Noise.noise(xf, 0);
+                    n1 = Noise.noise(xf + 1, 0);
+                }
+
+                float f = cosWeight(sx - xf);
+                out[i] += amp * (n0 * (1.0f - f) + n1 * f);
+            }
+
+            freq *= 2.0f;
+            amp *= persistence;
+        }
+
+        for (int i = 0; i < count; i++) {
+            out[i] = FMath.clamp(amplitude * out[i], -1f, 1f);
+        }
+
+        return out;
+    }
+
+    /**
+     * Fill out[0..width * height) with 2D Perlin noise in row major
+     * order, such that out[j * width + i] = get(x0 + i * step, y0 + j * step).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int width, final int height,
+                         final float x0, final float y0, final float step) {
+        return fill(out, 0, width, 0, 0, width, height, x0, y0, step);
+    }
+
+    /**
+     * Fill a width * height region of a larger row major grid of samples,
+     * where sample (i, j) of the grid is get(x0 + i * step, y0 + j * step).
+     * Sample (i0 + i, j0 + j) is written to out[offset + j * stride + i].
+     * Results are the same however the grid is split into regions.
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int offset, final int stride, final int i0, final int j0,
+                         final int width, final int height, final float x0, final float y0, final float step) {
+        for (int j = 0; j < height; j++) {
+            Arrays.fill(out, offset + j * stride, offset + j * stride + width, 0.0f);
+        }
+
+        int[] cellX = new int[width];
+        float[] weightX = new float[width];
+        float[] row0 = new float[0];
+        float[] row1 = new float[0];
+
+        float freq = frequency;
+        float amp = 1.0f;
+
+        for (int o = 0; o < octaves; o++) {
+            // Cells and interpolation weights are the same for every row.
+            int minCell = Integer.MAX_VALUE, maxCell = Integer.MIN_VALUE;
+            for (int i = 0; i < width; i++) {
+                float sx = (x0 + (i0 + i) * step) * freq + seed;
+                int xf = (int) sx;
+
+                cellX[i] = xf;
+                weightX[i] = cosWeight(sx - xf);
+                minCell = Math.min(minCell, xf);
+                maxCell = Math.max(maxCell, xf);
+            }
+
+            // Lattice values along the rows of cells above and below the
+            // current sample row, refreshed only when the row changes.
+            // Sparse samples (more than 1 cell apart) look each value up
+            // directly instead.
+            long span = (long) maxCell - minCell + 2;
+            boolean cached = span <= 2L * width + 2;
+            int cells = cached ? (int) span : 0;
+            if (cached && row0.length < cells) {
+                row0 = new float[cells];
+                row1 = new float[cells];
+            }
+            int cellY = Integer.MIN_VALUE;
+
+            for (int j = 0; j < height; j++) {
+                float sy = (y0 + (j0 + j) * step) * freq + seed;
+                int yf = (int) sy;
+                float fy = cosWeight(sy - yf);
+                int rowStart = offset + j * stride;
+
+                if (cached && yf != cellY) {
+                    if (yf == cellY + 1) {
+                        float[] t = row0;
+                        row0 = row1;
+                        row1 = t;
+                    } else {
+                        latticeRow(row0, cells, minCell, yf);
+                    }
+                    latticeRow(row1, cells, minCell, yf + 1);
+                    cellY = yf;
+                }
+
+                for (int i = 0; i < width; i++) {
+                    int xf = cellX[i];
+                    float nw, ne, sw, se;
+
+                    if (cached) {
+                        int c = xf - minCell;
+                        nw = row0[c];
+                        sw = row0[c + 1];
+                        ne = row1[c];
+                        se = row1[c + 1];
+                    } else {
+                        nw = Noise.noise(xf, yf);
+                        ne = Noise.noise(xf, yf + 1);
+                        sw = Noise.noise(xf + 1, yf);
+                        se = Noise.noise(xf + 1, yf + 1);
+                    }
+
+                    float fx = weightX[i];
+                    float v1 = nw * (1.0f - fx) + sw * fx;
+                    float v2 = ne * (1.0f - fx) + se * fx;
+
+                    out[rowStart + i] += amp * (v1 * (1.0f - fy) + v2 * fy);
+                }
+            }
+
+            freq *= 2.0f;
+            amp *= persistence;
+        }
+
+        for (int j = 0; j < height; j++) {
+            for (int i = offset + j * stride, iMax = i + width; i < iMax; i++) {
+                out[i] = FMath.clamp(amplitude * out[i], -1f, 1f);
+            }
+        }
+
+        return out;
+    }
+
+    @Override
+    public long parameterHash () {
+        long h = Noise.mix(0L, seed);
+        h = Noise.mix(h, Float.floatToIntBits(frequency));
+        h = Noise.mix(h, Float.floatToIntBits(amplitude));
+        h = Noise.mix(h, Float.floatToIntBits(persistence));
+        return Noise.mix(h, octaves);
+    }
+
+    private static void latticeRow (final float[] row, final int cells, final int minCell, final int y) {
+        BatchKernels.get().latticeRow(row, cells, Noise.latticeIndex(minCell, y));
+    }
+
+    /**
+     * Cosine interpolation weight, as used by {@link FMath#cosInterpolate}.
+     */
+    private static float cosWeight (final float ratio) {
+        float ft = ratio * FMath.PI;
+        return (1.0f - (float) Math.cos(ft)) * 0.5f;
+    }
 }
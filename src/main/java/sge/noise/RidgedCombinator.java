@@ -0,0 +1,15 @@
+package sge.noise;
+
+/**
+ * Inverted, squared turbulence, giving sharp ridges at the zero
+ * crossings.
+ */
+public class RidgedCombinator implements OctaveCombinator {
+
+    @Override
+    public float apply (float noise) {
+        float ridge = 1.0f - Math.abs(noise);
+        return 2.0f * ridge * ridge - 1.0f;
+    }
+
+}
@@ -4,8 +4,11 @@ import sge.math.FMath;
 
 /**
  * Simple Noise.
+ *
+ * The fill() methods generate a whole line or grid of samples at once,
+ * giving the same values as calling get() at each sample point.
  */
-public class SimpleNoise {
+public class SimpleNoise implements NoiseGenerator {
 
     public int seed;
 
@@ -56,4 +59,71 @@ public class SimpleNoise {
     public float get (final float x, final float y) {
         return FMath.clamp(amplitude * Noise.noise((int) (x * frequency) + seed, (int) (y * frequency) + seed), -1f, 1f);
     }
+
+    /**
+     * Fill out[0..count) with 1D noise, such that out[i] = get(x0 + i * step).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int count, final float x0, final float step) {
+        for (int i = 0; i < count; i++) {
+            int xi = (int) ((x0 + i * step) * frequency) + seed;
+            out[i] = FMath.clamp(amplitude * Noise.noise(xi, 0), -1f, 1f);
+        }
+
+        return out;
+    }
+
+    /**
+     * Fill out[0..width * height) with 2D noise in row major order, such
+     * that out[j * width + i] = get(x0 + i * step, y0 + j * step).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int width, final int height,
+                         final float x0, final float y0, final float step) {
+        return fill(out, 0, width, 0, 0, width, height, x0, y0, step);
+    }
+
+    /**
+     * Fill a width * height region of a larger row major grid of samples,
+     * where sample (i, j) of the grid is get(x0 + i * step, y0 + j * step).
+     * Sample (i0 + i, j0 + j) is written to out[offset + j * stride + i].
+     * Results are the same however the grid is split into regions.
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int offset, final int stride, final int i0, final int j0,
+                         final int width, final int height, final float x0, final float y0, final float step) {
+        int[] cellX = new int[width];
+        for (int i = 0; i < width; i++) {
+            cellX[i] = (int) ((x0 + (i0 + i) * step) * frequency) + seed;
+        }
+
+        int prevY = 0;
+        for (int j = 0; j < height; j++) {
+            int yi = (int) ((y0 + (j0 + j) * step) * frequency) + seed;
+            int rowStart = offset + j * stride;
+
+            // Rows in the same cell are identical.
+            if (j > 0 && yi == prevY) {
+                System.arraycopy(out, rowStart - stride, out, rowStart, width);
+                continue;
+            }
+
+            for (int i = 0; i < width; i++) {
+                out[rowStart + i] = FMath.clamp(amplitude * Noise.noise(cellX[i], yi), -1f, 1f);
+            }
+            prevY = yi;
+        }
+
+        return out;
+    }
+
+    @Override
+    public long parameterHash () {
+        long h = Noise.mix(0L, seed);
+        h = Noise.mix(h, Float.floatToIntBits(frequency));
+        return Noise.mix(h, Float.floatToIntBits(amplitude));
+    }
 }
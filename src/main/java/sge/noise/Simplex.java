@@ -0,0 +1,291 @@
+package sge.noise;
+
+import java.util.Random;
+
+/**
+ * Simplex gradient noise in 2, 3 and 4 dimensions, after Ken Perlin's
+ * simplex noise and Stefan Gustavson's reference implementation.
+ *
+ * Unlike the value noise used by {@link Perlin}, each sample only
+ * visits the corners of one simplex (n + 1 corners in n dimensions,
+ * rather than 2^n), so the cost per sample grows slowly with
+ * dimension. Use 3D for volumes such as caves and clouds, and 4D for
+ * animated fields, e.g. sampling (x, y, cos(t), sin(t)) for a loop.
+ *
+ * Values are roughly in [-1, 1]. Gradients are chosen by a permutation
+ * table shuffled from the seed, so equal seeds give equal noise.
+ */
+public class Simplex {
+
+    private static final float F2 = 0.36602540378f;   // (sqrt(3) - 1) / 2
+    private static final float G2 = 0.21132486540f;   // (3 - sqrt(3)) / 6
+    private static final float F3 = 1.0f / 3.0f;
+    private static final float G3 = 1.0f / 6.0f;
+    private static final float F4 = 0.30901699437f;   // (sqrt(5) - 1) / 4
+    private static final float G4 = 0.13819660113f;   // (5 - sqrt(5)) / 20
+
+    /** Midpoints of the edges of a cube. */
+    private static final float[] GRAD3 = {
+        1, 1, 0,  -1, 1, 0,  1, -1, 0,  -1, -1, 0,
+        1, 0, 1,  -1, 0, 1,  1, 0, -1,  -1, 0, -1,
+        0, 1, 1,  0, -1, 1,  0, 1, -1,  0, -1, -1
+    };
+
+    /** Midpoints of the edges of a 4D hypercube. */
+    private static final float[] GRAD4 = {
+        0, 1, 1, 1,  0, 1, 1, -1,  0, 1, -1, 1,  0, 1, -1, -1,
+        0, -1, 1, 1,  0, -1, 1, -1,  0, -1, -1, 1,  0, -1, -1, -1,
+        1, 0, 1, 1,  1, 0, 1, -1,  1, 0, -1, 1,  1, 0, -1, -1,
+        -1, 0, 1, 1,  -1, 0, 1, -1,  -1, 0, -1, 1,  -1, 0, -1, -1,
+        1, 1, 0, 1,  1, 1, 0, -1,  1, -1, 0, 1,  1, -1, 0, -1,
+        -1, 1, 0, 1,  -1, 1, 0, -1,  -1, -1, 0, 1,  -1, -1, 0, -1,
+        1, 1, 1, 0,  1, 1, -1, 0,  1, -1, 1, 0,  1, -1, -1, 0,
+        -1, 1, 1, 0,  -1, 1, -1, 0,  -1, -1, 1, 0,  -1, -1, -1, 0
+    };
+
+    public final long seed;
+
+    /** Permutation of 0..255, repeated so lookups need no wrapping. */
+    private final int[] perm = new int[512];
+
+    /** perm * 3, indexing a GRAD3 gradient. */
+    private final int[] grad3 = new int[512];
+
+    public Simplex () {
+        this(System.currentTimeMillis());
+    }
+
+    public Simplex (final long seed) {
+        this.seed = seed;
+
+        int[] p = new int[256];
+        for (int i = 0; i < 256; i++) {
+            p[i] = i;
+        }
+
+        Random r = new Random(seed);
+        for (int i = 255; i > 0; i--) {
+            int j = r.nextInt(i + 1);
+            int t = p[i];
+            p[i] = p[j];
+            p[j] = t;
+        }
+
+        for (int i = 0; i < 512; i++) {
+            perm[i] = p[i & 255];
+            grad3[i] = (perm[i] % 12) * 3;
+        }
+    }
+
+    private static int floor (final float x) {
+        int xi = (int) x;
+        return x < xi ? xi - 1 : xi;
+    }
+
+    /**
+     * 2D Simplex noise.
+     */
+    public float get (final float x, final float y) {
+        float s = (x + y) * F2;
+        int i = floor(x + s);
+        int j = floor(y + s);
+        float t = (i + j) * G2;
+
+        // Offsets from the three corners of the containing triangle.
+        float x0 = x - (i - t);
+        float y0 = y - (j - t);
+        int i1 = x0 > y0 ? 1 : 0;
+        int j1 = 1 - i1;
+        float x1 = x0 - i1 + G2;
+        float y1 = y0 - j1 + G2;
+        float x2 = x0 - 1.0f + 2.0f * G2;
+        float y2 = y0 - 1.0f + 2.0f * G2;
+
+        int ii = i & 255;
+        int jj = j & 255;
+        float n = 0.0f;
+
+        float t0 = 0.5f - x0 * x0 - y0 * y0;
+        if (t0 > 0.0f) {
+            int g = grad3[ii + perm[jj]];
+            t0 *= t0;
+            n += t0 * t0 * (GRAD3[g] * x0 + GRAD3[g + 1] * y0);
+        }
+
+        float t1 = 0.5f - x1 * x1 - y1 * y1;
+        if (t1 > 0.0f) {
+            int g = grad3[ii + i1 + perm[jj + j1]];
+            t1 *= t1;
+            n += t1 * t1 * (GRAD3[g] * x1 + GRAD3[g + 1] * y1);
+        }
+
+        float t2 = 0.5f - x2 * x2 - y2 * y2;
+        if (t2 > 0.0f) {
+            int g = grad3[ii + 1 + perm[jj + 1]];
+            t2 *= t2;
+            n += t2 * t2 * (GRAD3[g] * x2 + GRAD3[g + 1] * y2);
+        }
+
+        return 70.0f * n;
+    }
+
+    /**
+     * 3D Simplex noise.
+     */
+    public float get (final float x, final float y, final float z) {
+        float s = (x + y + z) * F3;
+        int i = floor(x + s);
+        int j = floor(y + s);
+        int k = floor(z + s);
+        float t = (i + j + k) * G3;
+
+        float x0 = x - (i - t);
+        float y0 = y - (j - t);
+        float z0 = z - (k - t);
+
+        // Offsets of the second and third corners of the containing
+        // tetrahedron, which depend on the order of x0, y0 and z0.
+        int i1, j1, k1, i2, j2, k2;
+        if (x0 >= y0) {
+            if (y0 >= z0) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            } else if (x0 >= z0) {
+                i1 = 1; j1 = 0; k1 = 0; i2 = 1; j2 = 0; k2 = 1;
+            } else {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 1; j2 = 0; k2 = 1;
+            }
+        } else {
+            if (y0 < z0) {
+                i1 = 0; j1 = 0; k1 = 1; i2 = 0; j2 = 1; k2 = 1;
+            } else if (x0 < z0) {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 0; j2 = 1; k2 = 1;
+            } else {
+                i1 = 0; j1 = 1; k1 = 0; i2 = 1; j2 = 1; k2 = 0;
+            }
+        }
+
+        float x1 = x0 - i1 + G3;
+        float y1 = y0 - j1 + G3;
+        float z1 = z0 - k1 + G3;
+        float x2 = x0 - i2 + 2.0f * G3;
+        float y2 = y0 - j2 + 2.0f * G3;
+        float z2 = z0 - k2 + 2.0f * G3;
+        float x3 = x0 - 1.0f + 3.0f * G3;
+        float y3 = y0 - 1.0f + 3.0f * G3;
+        float z3 = z0 - 1.0f + 3.0f * G3;
+
+        int ii = i & 255;
+        int jj = j & 255;
+        int kk = k & 255;
+        float n = 0.0f;
+
+        float t0 = 0.6f - x0 * x0 - y0 * y0 - z0 * z0;
+        if (t0 > 0.0f) {
+            int g = grad3[ii + perm[jj + perm[kk]]];
+            t0 *= t0;
+            n += t0 * t0 * (GRAD3[g] * x0 + GRAD3[g + 1] * y0 + GRAD3[g + 2] * z0);
+        }
+
+        float t1 = 0.6f - x1 * x1 - y1 * y1 - z1 * z1;
+        if (t1 > 0.0f) {
+            int g = grad3[ii + i1 + perm[jj + j1 + perm[kk + k1]]];
+            t1 *= t1;
+            n += t1 * t1 * (GRAD3[g] * x1 + GRAD3[g + 1] * y1 + GRAD3[g + 2] * z1);
+        }
+
+        float t2 = 0.6f - x2 * x2 - y2 * y2 - z2 * z2;
+        if (t2 > 0.0f) {
+            int g = grad3[ii + i2 + perm[jj + j2 + perm[kk + k2]]];
+            t2 *= t2;
+            n += t2 * t2 * (GRAD3[g] * x2 + GRAD3[g + 1] * y2 + GRAD3[g + 2] * z2);
+        }
+
+        float t3 = 0.6f - x3 * x3 - y3 * y3 - z3 * z3;
+        if (t3 > 0.0f) {
+            int g = grad3[ii + 1 + perm[jj + 1 + perm[kk + 1]]];
+            t3 *= t3;
+            n += t3 * t3 * (GRAD3[g] * x3 + GRAD3[g + 1] * y3 + GRAD3[g + 2] * z3);
+        }
+
+        return 32.0f * n;
+    }
+
+    /**
+     * 4D Simplex noise.
+     */
+    public float get (final float x, final float y, final float z, final float w) {
+        float s = (x + y + z + w) * F4;
+        int i = floor(x + s);
+        int j = floor(y + s);
+        int k = floor(z + s);
+        int l = floor(w + s);
+        float t = (i + j + k + l) * G4;
+
+        float x0 = x - (i - t);
+        float y0 = y - (j - t);
+        float z0 = z - (k - t);
+        float w0 = w - (l - t);
+
+        // Rank the offsets to find which of the 24 simplices we are in.
+        int rankX = 0, rankY = 0, rankZ = 0, rankW = 0;
+        if (x0 > y0) rankX++; else rankY++;
+        if (x0 > z0) rankX++; else rankZ++;
+        if (x0 > w0) rankX++; else rankW++;
+        if (y0 > z0) rankY++; else rankZ++;
+        if (y0 > w0) rankY++; else rankW++;
+        if (z0 > w0) rankZ++; else rankW++;
+
+        int i1 = rankX >= 3 ? 1 : 0, j1 = rankY >= 3 ? 1 : 0, k1 = rankZ >= 3 ? 1 : 0, l1 = rankW >= 3 ? 1 : 0;
+        int i2 = rankX >= 2 ? 1 : 0, j2 = rankY >= 2 ? 1 : 0, k2 = rankZ >= 2 ? 1 : 0, l2 = rankW >= 2 ? 1 : 0;
+        int i3 = rankX >= 1 ? 1 : 0, j3 = rankY >= 1 ? 1 : 0, k3 = rankZ >= 1 ? 1 : 0, l3 = rankW >= 1 ? 1 : 0;
+
+        float x1 = x0 - i1 + G4, y1 = y0 - j1 + G4, z1 = z0 - k1 + G4, w1 = w0 - l1 + G4;
+        float x2 = x0 - i2 + 2.0f * G4, y2 = y0 - j2 + 2.0f * G4, z2 = z0 - k2 + 2.0f * G4, w2 = w0 - l2 + 2.0f * G4;
+        float x3 = x0 - i3 + 3.0f * G4, y3 = y0 - j3 + 3.0f * G4, z3 = z0 - k3 + 3.0f * G4, w3 = w0 - l3 + 3.0f * G4;
+        float x4 = x0 - 1.0f + 4.0f * G4, y4 = y0 - 1.0f + 4.0f * G4;
+        float z4 = z0 - 1.0f + 4.0f * G4, w4 = w0 - 1.0f + 4.0f * G4;
+
+        int ii = i & 255;
+        int jj = j & 255;
+        int kk = k & 255;
+        int ll = l & 255;
+        float n = 0.0f;
+
+        float t0 = 0.6f - x0 * x0 - y0 * y0 - z0 * z0 - w0 * w0;
+        if (t0 > 0.0f) {
+            t0 *= t0;
+            n += t0 * t0 * grad4(perm[ii + perm[jj + perm[kk + perm[ll]]]], x0, y0, z0, w0);
+        }
+
+        float t1 = 0.6f - x1 * x1 - y1 * y1 - z1 * z1 - w1 * w1;
+        if (t1 > 0.0f) {
+            t1 *= t1;
+            n += t1 * t1 * grad4(perm[ii + i1 + perm[jj + j1 + perm[kk + k1 + perm[ll + l1]]]], x1, y1, z1, w1);
+        }
+
+        float t2 = 0.6f - x2 * x2 - y2 * y2 - z2 * z2 - w2 * w2;
+        if (t2 > 0.0f) {
+            t2 *= t2;
+            n += t2 * t2 * grad4(perm[ii + i2 + perm[jj + j2 + perm[kk + k2 + perm[ll + l2]]]], x2, y2, z2, w2);
+        }
+
+        float t3 = 0.6f - x3 * x3 - y3 * y3 - z3 * z3 - w3 * w3;
+        if (t3 > 0.0f) {
+            t3 *= t3;
+            n += t3 * t3 * grad4(perm[ii + i3 + perm[jj + j3 + perm[kk + k3 + perm[ll + l3]]]], x3, y3, z3, w3);
+        }
+
+        float t4 = 0.6f - x4 * x4 - y4 * y4 - z4 * z4 - w4 * w4;
+        if (t4 > 0.0f) {
+            t4 *= t4;
+            n += t4 * t4 * grad4(perm[ii + 1 + perm[jj + 1 + perm[kk + 1 + perm[ll + 1]]]], x4, y4, z4, w4);
+        }
+
+        return 27.0f * n;
+    }
+
+    private static float grad4 (final int hash, final float x, final float y, final float z, final float w) {
+        int g = (hash & 31) * 4;
+        return GRAD4[g] * x + GRAD4[g + 1] * y + GRAD4[g + 2] * z + GRAD4[g + 3] * w;
+    }
+}
@@ -0,0 +1,14 @@
+package sge.noise;
+
+/**
+ * Sum of absolute octave values, giving billowy noise with creases at
+ * the zero crossings.
+ */
+public class TurbulenceCombinator implements OctaveCombinator {
+
+    @Override
+    public float apply (float noise) {
+        return 2.0f * Math.abs(noise) - 1.0f;
+    }
+
+}
@@ -1,19 +1,53 @@
 package sge.noise;
 
-import java.util.NavigableSet;
-import java.util.Random;
-import java.util.TreeSet;
-
 import sge.math.FMath;
-import sge.math.Vector2;
 
 /**
  * Worley Voronoi/Cellular Noise.
+ *
+ * The fill() methods generate a whole line or grid of samples at once,
+ * giving the same values as calling get() at each sample point. Feature
+ * points are only regenerated when the sample moves into a new cell.
+ *
+ * Sampling allocates nothing: feature points come from a hash of the
+ * cell rather than a java.util.Random, and only the nearest
+ * MAX_DISTANCES distances are kept, sorted, in a reusable float[] for
+ * the {@link DistanceCombinator}. Cells of the 3x3 block which are
+ * further away than all of those distances are skipped.
  */
-public class Worley {
+public class Worley implements NoiseGenerator {
 
     private static final int MAX_FEATURE_POINTS = 8;
 
+    /** Most feature points in the 3x3 block of cells around a sample. */
+    private static final int MAX_BLOCK_POINTS = 9 * MAX_FEATURE_POINTS;
+
+    /** Number of nearest distances passed to the DistanceCombinator. */
+    public static final int MAX_DISTANCES = 4;
+
+    /**
+     * Offsets of the 3x3 block of cells around a sample, nearest first,
+     * so that once the nearest distances are known the further cells can
+     * often be skipped.
+     */
+    private static final int[] CELL_X = {0, -1, 1, 0, 0, -1, 1, -1, 1};
+    private static final int[] CELL_Y = {0, 0, 0, -1, 1, -1, -1, 1, 1};
+
+    /** Per thread buffers, so that sampling allocates nothing. */
+    private static final class Scratch {
+        final float[] px = new float[MAX_BLOCK_POINTS];
+        final float[] py = new float[MAX_BLOCK_POINTS];
+        final int[] cellEnd = new int[9];
+        final float[] distances = new float[MAX_DISTANCES];
+    }
+
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue () {
+            return new Scratch();
+        }
+    };
+
     public int seed;
 
     public float frequency;
@@ -61,30 +95,13 @@ public class Worley {
     }
 
     /**
-     * @return Result of applying Worley function to x, y.
+     * @return Result of applying Worley function to x.
      */
     private float worley (final float x) {
-        int sqX;
-        NavigableSet<Float> distanceArray = new TreeSet<Float>();
+        Scratch s = scratch.get();
+        int count = featurePoints((int) x, s.px);
 
-        for (int p = -1; p <= 1; p++) {
-            for (int q = -1; q <= 1; q++) {
-                sqX = (int) x + p;
-                Random r = new Random(Noise.hash(sqX + seed, 0));
-                int featurePoints = r.nextInt(MAX_FEATURE_POINTS / 2 - 1) + 1;
-
-                for (int i = 0; i < featurePoints; i++) {
-                    float fp = sqX + r.nextFloat();
-
-                    float distance = distanceFunc.apply(x, fp);
-                    if (distanceArray.isEmpty() || distance < distanceArray.last()) {
-                        distanceArray.add(distance);
-                    }
-                }
-            }
-        }
-
-        return (distanceCombinator.apply(distanceArray) - 0.5f) * 2.0f;
+        return combine(x, s.px, count, s.distances);
     }
 
     /**
@@ -98,28 +115,255 @@ public class Worley {
      * @return Result of applying Worley function to x, y.
      */
     private float worley (final float x, final float y) {
-        int sqX, sqY;
-        NavigableSet<Float> distanceArray = new TreeSet<Float>();
+        float[] distances = scratch.get().distances;
+        int cellX = (int) x;
+        int cellY = (int) y;
+        int n = 0;
 
-        for (int p = -1; p <= 1; p++) {
-            for (int q = -1; q <= 1; q++) {
-                sqX = (int) x + p;
-                sqY = (int) y + q;
-                Random r = new Random(Noise.hash(sqX + seed, sqY + seed));
-                int featurePoints = r.nextInt(MAX_FEATURE_POINTS - 1) + 1;
-
-                for (int i = 0; i < featurePoints; i++) {
-                    Vector2 fp = new Vector2(sqX + r.nextFloat(), sqY + r.nextFloat());
-
-                    float distance = distanceFunc.apply(new Vector2(x, y), fp);
-                    if (distanceArray.isEmpty() || distance < distanceArray.last()) {
-                        distanceArray.add(distance);
-                    }
+        for (int k = 0; k < 9; k++) {
+            int sqX = cellX + CELL_X[k];
+            int sqY = cellY + CELL_Y[k];
+
+            if (n == MAX_DISTANCES && cellDistance(x, y, sqX, sqY) >= distances[n - 1]) {
+                continue;
+            }
+
+            int h = Noise.hash(sqX + seed, sqY + seed);
+            int featurePoints = cellCount(h, MAX_FEATURE_POINTS - 1);
+
+            for (int i = 0; i < featurePoints; i++) {
+                float fx = sqX + cellFloat(h, 2 * i + 1);
+                float fy = sqY + cellFloat(h, 2 * i + 2);
+                n = insert(distances, n, distanceFunc.apply(x, y, fx, fy));
+            }
+        }
+
+        return (distanceCombinator.apply(distances, n) - 0.5f) * 2.0f;
+    }
+
+    /**
+     * Fill out[0..count) with 1D Worley noise, such that
+     * out[i] = get(x0 + i * step).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int count, final float x0, final float step) {
+        Scratch s = scratch.get();
+        int pointCount = 0;
+        int cell = 0;
+
+        for (int i = 0; i < count; i++) {
+            float sx = (x0 + i * step) * frequency;
+            int cx = (int) sx;
+
+            if (0 == i || cx != cell) {
+                pointCount = featurePoints(cx, s.px);
+                cell = cx;
+            }
+
+            out[i] = FMath.clamp(amplitude * combine(sx, s.px, pointCount, s.distances), -1f, 1f);
+        }
+
+        return out;
+    }
+
+    /**
+     * Fill out[0..width * height) with 2D Worley noise in row major
+     * order, such that out[j * width + i] = get(x0 + i * step, y0 + j * step).
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int width, final int height,
+                         final float x0, final float y0, final float step) {
+        return fill(out, 0, width, 0, 0, width, height, x0, y0, step);
+    }
+
+    /**
+     * Fill a width * height region of a larger row major grid of samples,
+     * where sample (i, j) of the grid is get(x0 + i * step, y0 + j * step).
+     * Sample (i0 + i, j0 + j) is written to out[offset + j * stride + i].
+     * Results are the same however the grid is split into regions.
+     *
+     * @return Reference to out.
+     */
+    public float[] fill (final float[] out, final int offset, final int stride, final int i0, final int j0,
+                         final int width, final int height, final float x0, final float y0, final float step) {
+        Scratch s = scratch.get();
+        boolean loaded = false;
+        int cellX = 0, cellY = 0;
+
+        for (int j = 0; j < height; j++) {
+            float sy = (y0 + (j0 + j) * step) * frequency;
+            int cy = (int) sy;
+            int rowStart = offset + j * stride;
+
+            for (int i = 0; i < width; i++) {
+                float sx = (x0 + (i0 + i) * step) * frequency;
+                int cx = (int) sx;
+
+                // Neighbouring samples usually share a cell, and so
+                // the same feature points.
+                if (!loaded || cx != cellX || cy != cellY) {
+                    featurePoints(cx, cy, s.px, s.py, s.cellEnd);
+                    cellX = cx;
+                    cellY = cy;
+                    loaded = true;
                 }
 
+                out[rowStart + i] = FMath.clamp(amplitude * combine(sx, sy, cx, cy, s), -1f, 1f);
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * The distance function and combinator are compared by identity.
+     */
+    @Override
+    public long parameterHash () {
+        long h = Noise.mix(0L, seed);
+        h = Noise.mix(h, Float.floatToIntBits(frequency));
+        h = Noise.mix(h, Float.floatToIntBits(amplitude));
+        h = Noise.mix(h, System.identityHashCode(distanceFunc));
+        return Noise.mix(h, System.identityHashCode(distanceCombinator));
+    }
+
+    /**
+     * Generate the feature points of the cells around cell x.
+     *
+     * @return Number of points written to points.
+     */
+    private int featurePoints (final int x, final float[] points) {
+        int count = 0;
+
+        for (int p = -1; p <= 1; p++) {
+            int sqX = x + p;
+            int h = Noise.hash(sqX + seed, 0);
+            int featurePoints = cellCount(h, MAX_FEATURE_POINTS / 2 - 1);
+
+            for (int i = 0; i < featurePoints; i++) {
+                points[count++] = sqX + cellFloat(h, i + 1);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Generate the feature points of the 3x3 block of cells around cell
+     * (x, y), in CELL_X/CELL_Y order. The points of cell k end at
+     * cellEnd[k].
+     */
+    private void featurePoints (final int x, final int y, final float[] px, final float[] py, final int[] cellEnd) {
+        int count = 0;
+
+        for (int k = 0; k < 9; k++) {
+            int sqX = x + CELL_X[k];
+            int sqY = y + CELL_Y[k];
+            int h = Noise.hash(sqX + seed, sqY + seed);
+            int featurePoints = cellCount(h, MAX_FEATURE_POINTS - 1);
+
+            for (int i = 0; i < featurePoints; i++) {
+                px[count] = sqX + cellFloat(h, 2 * i + 1);
+                py[count] = sqY + cellFloat(h, 2 * i + 2);
+                count++;
+            }
+            cellEnd[k] = count;
+        }
+    }
+
+    /**
+     * @return Distance from (x, y) to the nearest point of cell (sqX, sqY).
+     */
+    private float cellDistance (final float x, final float y, final int sqX, final int sqY) {
+        return distanceFunc.apply(x, y, FMath.clamp(x, sqX, sqX + 1), FMath.clamp(y, sqY, sqY + 1));
+    }
+
+    /**
+     * The n'th random int of a cell whose hash is h. Mixes h with a
+     * counter (murmur3 finalizer), so values need no generator state.
+     */
+    private static int cellRandom (final int h, final int n) {
+        int r = h + n * 0x9E3779B9;
+        r ^= r >>> 16;
+        r *= 0x85EBCA6B;
+        r ^= r >>> 13;
+        r *= 0xC2B2AE35;
+        r ^= r >>> 16;
+        return r;
+    }
+
+    /**
+     * @return Number of feature points in a cell, in [1, max].
+     */
+    private static int cellCount (final int h, final int max) {
+        return (int) (((cellRandom(h, 0) & 0xFFFFFFFFL) * max) >>> 32) + 1;
+    }
+
+    /**
+     * @return The n'th random float in [0, 1) of a cell.
+     */
+    private static float cellFloat (final int h, final int n) {
+        return (cellRandom(h, n) >>> 8) * 0x1.0p-24f;
+    }
+
+    /**
+     * Insert a distance into the sorted nearest distances, dropping the
+     * furthest once there are MAX_DISTANCES.
+     *
+     * @return The new number of distances.
+     */
+    private static int insert (final float[] distances, final int count, final float distance) {
+        int i = count;
+
+        if (count == MAX_DISTANCES) {
+            if (distance >= distances[count - 1]) {
+                return count;
+            }
+            i--;
+        }
+
+        int size = i + 1;
+        while (i > 0 && distances[i - 1] > distance) {
+            distances[i] = distances[i - 1];
+            i--;
+        }
+        distances[i] = distance;
+
+        return size;
+    }
+
+    private float combine (final float x, final float[] points, final int count, final float[] distances) {
+        int n = 0;
+
+        for (int i = 0; i < count; i++) {
+            n = insert(distances, n, distanceFunc.apply(x, points[i]));
+        }
+
+        return (distanceCombinator.apply(distances, n) - 0.5f) * 2.0f;
+    }
+
+    /**
+     * Combine the distances from (x, y) to the feature points around cell
+     * (cellX, cellY), generated by featurePoints() into s.
+     */
+    private float combine (final float x, final float y, final int cellX, final int cellY, final Scratch s) {
+        float[] distances = s.distances;
+        int n = 0;
+        int start = 0;
+
+        for (int k = 0; k < 9; k++) {
+            int end = s.cellEnd[k];
+
+            if (n < MAX_DISTANCES || cellDistance(x, y, cellX + CELL_X[k], cellY + CELL_Y[k]) < distances[n - 1]) {
+                for (int i = start; i < end; i++) {
+                    n = insert(distances, n, distanceFunc.apply(x, y, s.px[i], s.py[i]));
+                }
             }
+            start = end;
         }
 
-        return (distanceCombinator.apply(distanceArray) - 0.5f) * 2.0f;
+        return (distanceCombinator.apply(distances, n) - 0.5f) * 2.0f;
     }
 }
@@ -10,9 +10,11 @@ import org.lwjgl.opengl.GL20;
 
 import sge.math.Matrix3;
 import sge.math.Matrix4;
+import sge.math.Matrix4Array;
 import sge.math.Vector3;
 import sge.math.Vector4;
-import sge.util.DirectBuffer;
+import sge.util.DirectBufferPool;
+import sge.util.PooledBuffer;
 
 /**
  * Simple implementation of a GLSL shader loading library.
@@ -225,11 +227,13 @@ public class GLSLProgram {
     public void setUniform (final String name, final Matrix3 value) {
         int uniformLocation = getUniform(name);
         if (-1 != uniformLocation) {
-            FloatBuffer f = DirectBuffer.createFloatBuffer(9);
+            PooledBuffer<FloatBuffer> pooled = DirectBufferPool.allocateFloatBuffer(Matrix3.SIZE);
+            FloatBuffer f = pooled.buffer();
             f.put(value.mat);
-            f.rewind();
+            f.flip();
 
-            GL20.glUniformMatrix4(uniformLocation, false, f);
+            GL20.glUniformMatrix3(uniformLocation, false, f);
+            DirectBufferPool.release(pooled);
         }
     }
 
@@ -242,11 +246,28 @@ public class GLSLProgram {
     public void setUniform (final String name, final Matrix4 value) {
         int uniformLocation = getUniform(name);
         if (-1 != uniformLocation) {
-            FloatBuffer f = DirectBuffer.createFloatBuffer(16);
+            PooledBuffer<FloatBuffer> pooled = DirectBufferPool.allocateFloatBuffer(Matrix4.SIZE);
+            FloatBuffer f = pooled.buffer();
             f.put(value.mat);
-            f.rewind();
+            f.flip();
 
             GL20.glUniformMatrix4(uniformLocation, false, f);
+            DirectBufferPool.release(pooled);
+        }
+    }
+
+    /**
+     * Send an array of 4x4 matrices to a shader uniform array, straight
+     * from the array's buffer.
+     *
+     * @param name Uniform identifier.
+     * @param value
+     */
+    public void setUniform (final String name, final Matrix4Array value) {
+        int uniformLocation = getUniform(name);
+
+        if (-1 != uniformLocation) {
+            GL20.glUniformMatrix4(uniformLocation, false, value.buffer);
         }
     }
 
@@ -259,11 +280,13 @@ public class GLSLProgram {
     public void setUniform (final String name, final float[] data) {
         int uniformLocation = getUniform(name);
         if (-1 != uniformLocation) {
-            FloatBuffer f = DirectBuffer.createFloatBuffer(data.length);
+            PooledBuffer<FloatBuffer> pooled = DirectBufferPool.allocateFloatBuffer(data.length);
+            FloatBuffer f = pooled.buffer();
             f.put(data);
-            f.rewind();
+            f.flip();
 
             GL20.glUniformMatrix4(uniformLocation, false, f);
+            DirectBufferPool.release(pooled);
         }
     }
 
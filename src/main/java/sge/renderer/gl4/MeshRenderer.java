@@ -8,19 +8,31 @@ import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
 import sge.color.RGBAColor;
 import sge.geometry.Mesh;
+import sge.geometry.MeshData;
 import sge.geometry.Vertex;
+import sge.math.FMath;
 import sge.math.Vector2;
 import sge.math.Vector3;
 import sge.renderer.Renderable;
+import sge.util.DirectBuffer;
 
 /**
  * MeshRenderer handles the interface to OpenGL for
- * drawing {@link Mesh} objects.
+ * drawing {@link Mesh} objects, or any other {@link MeshData}.
+ *
+ * Vertex and index data is staged through direct buffers owned by the
+ * renderer, which are reused between uploads and only reallocated
+ * when the Mesh outgrows them. Data is only re-uploaded when the
+ * Mesh version changes (see {@link MeshData#getVersion()}). Buffer
+ * backed data such as {@link sge.geometry.BufferMesh} is uploaded
+ * straight from its own buffers.
  *
  * TODO: Reify Vertex Attributes?
  */
 public class MeshRenderer implements Renderable {
 
+    private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
     /** Vertex Array Object ID */
     private int glVaoID = 0;
 
@@ -30,17 +42,63 @@ public class MeshRenderer implements Renderable {
     /** Index Buffer Object ID */
     private int glIboID = 0;
 
-    private Mesh mesh;
+    private MeshData mesh;
+
+    /** Mesh version at the last upload, -1 if the Mesh has not been uploaded. */
+    private int compiledVersion = -1;
+
+    /**
+     * Staging buffers, allocated by this renderer and reused across
+     * uploads. Buffers returned by the Mesh are never kept, as they may
+     * be views of the Mesh's own storage.
+     */
+    private FloatBuffer vertData;
+    private IntBuffer indexData;
+
+    /** True if the Mesh ignores the staging buffers and hands out its own. */
+    private boolean meshBuffers = false;
 
-    public MeshRenderer (Mesh mesh) {
+    /** Size in bytes of the data store currently allocated for each GL buffer. */
+    private long vboSize = 0;
+    private long iboSize = 0;
+
+    /** GL buffer usage hint. */
+    private int usage = GL15.GL_STATIC_DRAW;
+
+    public MeshRenderer (MeshData mesh) {
         this.mesh = mesh;
     }
 
-    public void setMesh (Mesh mesh) {
+    public void setMesh (MeshData mesh) {
         this.mesh = mesh;
+        compiledVersion = -1;
+        vertData = null;
+        indexData = null;
+        meshBuffers = false;
+    }
+
+    /**
+     * Hint to OpenGL that the Mesh will be modified and re-uploaded often.
+     * Changing the hint reallocates the buffers on the next upload.
+     */
+    public void setDynamic (final boolean dynamic) {
+        int hint = dynamic ? GL15.GL_DYNAMIC_DRAW : GL15.GL_STATIC_DRAW;
+        if (hint != usage) {
+            usage = hint;
+            vboSize = 0;
+            iboSize = 0;
+            compiledVersion = -1;
+        }
     }
 
-    public Mesh getMesh () {
+    /**
+     * Test if the Mesh has changed since it was last uploaded.
+     */
+    public boolean isDirty () {
+        return compiledVersion != mesh.getVersion();
+    }
+
+    public MeshData getMesh () {
         return mesh;
     }
 
@@ -50,10 +108,29 @@ public class MeshRenderer implements Renderable {
 
     /**
      * Create the Vertex and Index buffers and send the data to the GPU.
+     * Existing GL buffers are updated in place when they are large enough.
      */
     public void compile () {
-        FloatBuffer vertData = mesh.vertexArray();
-        IntBuffer indexData = mesh.indexArray();
+        FloatBuffer vertices;
+        IntBuffer indices;
+
+        if (meshBuffers) {
+            vertices = mesh.vertexArray(null);
+            indices = mesh.indexArray(null);
+        } else {
+            vertData = staging(vertData, mesh.getVertexCount() * Vertex.SIZE);
+            indexData = staging(indexData, mesh.getIndexCount());
+            vertices = mesh.vertexArray(vertData);
+            indices = mesh.indexArray(indexData);
+
+            // Large enough staging buffers were ignored, so the Mesh
+            // uploads from its own buffers. Don't keep ours around.
+            if (vertices != vertData && indices != indexData) {
+                meshBuffers = true;
+                vertData = null;
+                indexData = null;
+            }
+        }
 
         if (glVaoID <= 0) {
             glVaoID = GL30.glGenVertexArrays();
@@ -70,7 +147,13 @@ public class MeshRenderer implements Renderable {
         GL30.glBindVertexArray(glVaoID);
 
         GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, glVboID);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertData, GL15.GL_STATIC_DRAW);
+        long vertBytes = (long) vertices.remaining() * FMath.FLOAT_SIZE;
+        if (vertBytes > vboSize) {
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertices, usage);
+            vboSize = vertBytes;
+        } else {
+            GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, 0, vertices);
+        }
 
         GL20.glVertexAttribPointer(0, Vector3.SIZE, GL11.GL_FLOAT, false, Vertex.BYTE_SIZE, 0);
         GL20.glVertexAttribPointer(1, Vector3.SIZE, GL11.GL_FLOAT, false, Vertex.BYTE_SIZE, 12);
@@ -78,20 +161,36 @@ public class MeshRenderer implements Renderable {
         GL20.glVertexAttribPointer(3, RGBAColor.SIZE, GL11.GL_FLOAT, false, Vertex.BYTE_SIZE, 32);
 
         GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, glIboID);
-        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, indexData, GL15.GL_STATIC_DRAW);
+        long indexBytes = (long) indices.remaining() * INT_SIZE;
+        if (indexBytes > iboSize) {
+            GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, indices, usage);
+            iboSize = indexBytes;
+        } else {
+            GL15.glBufferSubData(GL15.GL_ELEMENT_ARRAY_BUFFER, 0, indices);
+        }
 
         GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
         GL30.glBindVertexArray(0);
+
+        compiledVersion = mesh.getVersion();
+    }
+
+    private static FloatBuffer staging (final FloatBuffer buffer, final int size) {
+        return (null == buffer || buffer.capacity() < size) ? DirectBuffer.createFloatBuffer(size) : buffer;
+    }
+
+    private static IntBuffer staging (final IntBuffer buffer, final int size) {
+        return (null == buffer || buffer.capacity() < size) ? DirectBuffer.createIntBuffer(size) : buffer;
     }
 
     /**
      * Setup the OpenGL features supported by a mesh and render.
-     * If the mesh is not loaded and bound to a buffer then call
-     * compile step.
+     * If the mesh is not loaded and bound to a buffer, or has changed
+     * since it was loaded, then call compile step.
      */
     @Override
     public void render () {
-        if (!isCompiled()) {
+        if (!isCompiled() || isDirty()) {
             compile();
         }
 
@@ -11,6 +11,10 @@ import java.nio.LongBuffer;
  * Helper for creating ByteBuffers containing common primitive
  * types allocated directly in memory. Most LWJGL APIs expect
  * data in this format.
+ *
+ * Each call allocates (and zeroes) new native memory which is only
+ * freed when the buffer is garbage collected. For short lived buffers
+ * use {@link DirectBufferPool} instead.
  */
 public abstract class DirectBuffer {
 
@@ -0,0 +1,340 @@
+package sge.util;
+
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import sge.math.FMath;
+
+/**
+ * Pool of direct buffers for short lived native data, e.g. per-frame
+ * uniform and vertex uploads.
+ *
+ * Buffers are handed out in power of two size classes (capacity is
+ * rounded up with {@link FMath#nearest2Pow(int)}) and the limit is set
+ * to the requested size. Each thread keeps its own free lists, so
+ * allocate/release don't contend with other threads. A buffer released
+ * on a different thread joins that thread's free list.
+ *
+ * Unlike {@link DirectBuffer}, pooled buffers are not zeroed and must
+ * be handed back with release() when no longer in use. Buffers which
+ * are never released are simply freed by the GC as usual. Buffers come
+ * wrapped in a {@link PooledBuffer}, which marks whether the buffer is
+ * handed out, so release() refuses a buffer which was already released.
+ * Using a buffer after release is an error that can't be detected here.
+ *
+ * Requests larger than the biggest size class (1GB) get a new direct
+ * buffer of exactly the requested size, which is never pooled.
+ */
+public final class DirectBufferPool {
+
+    /** Default limit on bytes held in each thread's free lists. */
+    public static final long DEFAULT_MAX_POOLED_BYTES = 16L * 1024L * 1024L;
+
+    private static final int SIZE_CLASSES = 31;
+
+    /** Capacity in bytes of the biggest size class. */
+    private static final int MAX_CLASS_BYTES = 1 << (SIZE_CLASSES - 1);
+
+    private static final int FLOAT_SIZE = FMath.FLOAT_SIZE;
+    private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+    private static volatile long maxPooledBytes = DEFAULT_MAX_POOLED_BYTES;
+
+    private static final AtomicLong bytesLive = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    /** Every thread's pool, for getBytesPooled(). Guarded by itself. */
+    private static final ArrayList<PoolRef> registry = new ArrayList<PoolRef>();
+
+    private static final ThreadLocal<LocalPool> pools = new ThreadLocal<LocalPool>() {
+        @Override
+        protected LocalPool initialValue () {
+            LocalPool pool = new LocalPool();
+            synchronized (registry) {
+                prune();
+                registry.add(new PoolRef(Thread.currentThread(), pool));
+            }
+            return pool;
+        }
+    };
+
+    private DirectBufferPool () {}
+
+    /**
+     * Free lists for a single thread, one stack per buffer type and
+     * size class.
+     */
+    private static final class LocalPool {
+        @SuppressWarnings("unchecked")
+        final ArrayDeque<PooledBuffer<?>>[] lists =
+                (ArrayDeque<PooledBuffer<?>>[]) new ArrayDeque<?>[3 * SIZE_CLASSES];
+
+        /** Bytes in the free lists. Only written by the owning thread. */
+        volatile long pooled = 0;
+
+        PooledBuffer<?> pop (final int type, final int sizeClass) {
+            ArrayDeque<PooledBuffer<?>> list = lists[type * SIZE_CLASSES + sizeClass];
+            return (null == list) ? null : list.pollFirst();
+        }
+
+        void push (final PooledBuffer<?> buffer) {
+            int index = buffer.type * SIZE_CLASSES + buffer.sizeClass;
+            ArrayDeque<PooledBuffer<?>> list = lists[index];
+            if (null == list) {
+                list = new ArrayDeque<PooledBuffer<?>>();
+                lists[index] = list;
+            }
+            list.addFirst(buffer);
+        }
+
+        void clear () {
+            for (ArrayDeque<PooledBuffer<?>> list : lists) {
+                if (null != list) {
+                    list.clear();
+                }
+            }
+            pooled = 0;
+        }
+    }
+
+    /**
+     * A thread and its pool. Both are weak, so the registry doesn't keep
+     * dead threads' buffers from the GC.
+     */
+    private static final class PoolRef {
+        final WeakReference<Thread> thread;
+        final WeakReference<LocalPool> pool;
+
+        PoolRef (final Thread thread, final LocalPool pool) {
+            this.thread = new WeakReference<Thread>(thread);
+            this.pool = new WeakReference<LocalPool>(pool);
+        }
+
+        /**
+         * Return the pool, or null if its thread has finished.
+         */
+        LocalPool live () {
+            Thread t = thread.get();
+            return (null == t || !t.isAlive()) ? null : pool.get();
+        }
+    }
+
+    /**
+     * Drop registry entries of finished threads. Call holding the lock.
+     */
+    private static void prune () {
+        for (Iterator<PoolRef> i = registry.iterator(); i.hasNext();) {
+            if (null == i.next().live()) {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Get a ByteBuffer in native byte order with room for at least
+     * `size' bytes. The buffer's limit is set to `size'.
+     */
+    public static PooledBuffer<ByteBuffer> allocateByteBuffer (final int size) {
+        if (size > MAX_CLASS_BYTES) {
+            return unpooled(DirectBuffer.createByteBuffer(size), PooledBuffer.BYTES);
+        }
+
+        int capacity = FMath.nearest2Pow(size);
+        int sizeClass = Integer.numberOfTrailingZeros(capacity);
+
+        PooledBuffer<ByteBuffer> buffer = take(PooledBuffer.BYTES, sizeClass);
+        if (null == buffer) {
+            buffer = new PooledBuffer<ByteBuffer>(DirectBuffer.createByteBuffer(capacity),
+                                                  PooledBuffer.BYTES, sizeClass, capacity);
+            misses.incrementAndGet();
+        }
+
+        return handOut(buffer, size);
+    }
+
+    /**
+     * Get a FloatBuffer with room for at least `size' floats. The buffer's
+     * limit is set to `size'.
+     */
+    public static PooledBuffer<FloatBuffer> allocateFloatBuffer (final int size) {
+        if (size > MAX_CLASS_BYTES / FLOAT_SIZE) {
+            return unpooled(DirectBuffer.createFloatBuffer(size), PooledBuffer.FLOATS);
+        }
+
+        int capacity = FMath.nearest2Pow(size);
+        int sizeClass = Integer.numberOfTrailingZeros(capacity);
+
+        PooledBuffer<FloatBuffer> buffer = take(PooledBuffer.FLOATS, sizeClass);
+        if (null == buffer) {
+            buffer = new PooledBuffer<FloatBuffer>(DirectBuffer.createFloatBuffer(capacity),
+                                                   PooledBuffer.FLOATS, sizeClass, (long) capacity * FLOAT_SIZE);
+            misses.incrementAndGet();
+        }
+
+        return handOut(buffer, size);
+    }
+
+    /**
+     * Get an IntBuffer with room for at least `size' integers. The buffer's
+     * limit is set to `size'.
+     */
+    public static PooledBuffer<IntBuffer> allocateIntBuffer (final int size) {
+        if (size > MAX_CLASS_BYTES / INT_SIZE) {
+            return unpooled(DirectBuffer.createIntBuffer(size), PooledBuffer.INTS);
+        }
+
+        int capacity = FMath.nearest2Pow(size);
+        int sizeClass = Integer.numberOfTrailingZeros(capacity);
+
+        PooledBuffer<IntBuffer> buffer = take(PooledBuffer.INTS, sizeClass);
+        if (null == buffer) {
+            buffer = new PooledBuffer<IntBuffer>(DirectBuffer.createIntBuffer(capacity),
+                                                 PooledBuffer.INTS, sizeClass, (long) capacity * INT_SIZE);
+            misses.incrementAndGet();
+        }
+
+        return handOut(buffer, size);
+    }
+
+    /**
+     * Return a buffer to the pool.
+     *
+     * @return true if the buffer was pooled, false if it was already
+     *   released, is too big to pool, or the pool is full (in which case
+     *   it is left for the GC).
+     */
+    public static boolean release (final PooledBuffer<?> buffer) {
+        if (!buffer.out.compareAndSet(true, false) || PooledBuffer.UNPOOLED == buffer.sizeClass) {
+            return false;
+        }
+
+        bytesLive.addAndGet(-buffer.bytes);
+
+        LocalPool pool = pools.get();
+        if (pool.pooled + buffer.bytes > maxPooledBytes) {
+            return false;
+        }
+
+        pool.push(buffer);
+        pool.pooled += buffer.bytes;
+        return true;
+    }
+
+    /**
+     * Pop a buffer from the calling thread's free list, or return null.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Buffer> PooledBuffer<T> take (final int type, final int sizeClass) {
+        LocalPool pool = pools.get();
+        PooledBuffer<?> buffer = pool.pop(type, sizeClass);
+
+        if (null != buffer) {
+            pool.pooled -= buffer.bytes;
+            hits.incrementAndGet();
+        }
+
+        return (PooledBuffer<T>) buffer;
+    }
+
+    private static <T extends Buffer> PooledBuffer<T> handOut (final PooledBuffer<T> buffer, final int size) {
+        buffer.out.set(true);
+        bytesLive.addAndGet(buffer.bytes);
+        buffer.buffer().clear();
+        buffer.buffer().limit(size);
+
+        return buffer;
+    }
+
+    private static <T extends Buffer> PooledBuffer<T> unpooled (final T buffer, final int type) {
+        PooledBuffer<T> pooled = new PooledBuffer<T>(buffer, type, PooledBuffer.UNPOOLED, 0);
+        pooled.out.set(true);
+
+        return pooled;
+    }
+
+    // CONFIGURATION AND STATISTICS
+
+    /**
+     * Set the maximum number of bytes each thread may keep in its free
+     * lists. Released buffers beyond this are left for the GC.
+     */
+    public static void setMaxPooledBytes (final long bytes) {
+        maxPooledBytes = bytes;
+    }
+
+    public static long getMaxPooledBytes () {
+        return maxPooledBytes;
+    }
+
+    /**
+     * Drop all buffers held in the calling thread's free lists.
+     */
+    public static void clear () {
+        pools.get().clear();
+    }
+
+    /**
+     * Bytes (by capacity) in buffers handed out and not yet released.
+     */
+    public static long getBytesLive () {
+        return bytesLive.get();
+    }
+
+    /**
+     * Bytes (by capacity) in buffers held in free lists across all live
+     * threads.
+     */
+    public static long getBytesPooled () {
+        long bytes = 0;
+
+        synchronized (registry) {
+            prune();
+            for (PoolRef ref : registry) {
+                LocalPool pool = ref.live();
+                if (null != pool) {
+                    bytes += pool.pooled;
+                }
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Number of allocations satisfied from a free list.
+     */
+    public static long getHits () {
+        return hits.get();
+    }
+
+    /**
+     * Number of allocations which needed a new direct buffer.
+     */
+    public static long getMisses () {
+        return misses.get();
+    }
+
+    /**
+     * Ratio of allocations satisfied from a free list, 0..1.
+     */
+    public static float getHitRate () {
+        long h = hits.get();
+        long total = h + misses.get();
+        return (0 == total) ? 0.0f : (float) h / total;
+    }
+
+    /**
+     * Reset the hit and miss counters.
+     */
+    public static void resetStatistics () {
+        hits.set(0);
+        misses.set(0);
+    }
+}
@@ -0,0 +1,121 @@
+package sge.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive floats, used in place of ArrayList<Float>
+ * to avoid boxing and per-element objects.
+ */
+public final class FloatList {
+
+    private float[] data;
+    private int size = 0;
+
+    /** Default Constructor. */
+    public FloatList () {
+        this(16);
+    }
+
+    /**
+     * Create an empty list with room for `capacity' elements before it
+     * needs to grow.
+     */
+    public FloatList (final int capacity) {
+        data = new float[Math.max(1, capacity)];
+    }
+
+    public int size () {
+        return size;
+    }
+
+    public boolean isEmpty () {
+        return 0 == size;
+    }
+
+    public float get (final int index) {
+        checkIndex(index);
+        return data[index];
+    }
+
+    public void set (final int index, final float value) {
+        checkIndex(index);
+        data[index] = value;
+    }
+
+    public void add (final float value) {
+        if (size == data.length) {
+            grow(size + 1);
+        }
+        data[size++] = value;
+    }
+
+    public void add (final float a, final float b) {
+        if (size + 2 > data.length) {
+            grow(size + 2);
+        }
+        data[size] = a;
+        data[size + 1] = b;
+        size += 2;
+    }
+
+    public void add (final float a, final float b, final float c) {
+        if (size + 3 > data.length) {
+            grow(size + 3);
+        }
+        data[size] = a;
+        data[size + 1] = b;
+        data[size + 2] = c;
+        size += 3;
+    }
+
+    /**
+     * Append the contents of another list.
+     */
+    public void addAll (final FloatList other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.data, 0, data, size, other.size);
+        size += other.size;
+    }
+
+    public void ensureCapacity (final int capacity) {
+        if (capacity > data.length) {
+            grow(capacity);
+        }
+    }
+
+    public void clear () {
+        size = 0;
+    }
+
+    /**
+     * Return the backing array. Only the first size() elements are in use.
+     */
+    public float[] array () {
+        return data;
+    }
+
+    /**
+     * Return a copy of the list contents.
+     */
+    public float[] toArray () {
+        return Arrays.copyOf(data, size);
+    }
+
+    private void checkIndex (final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void grow (final int minCapacity) {
+        int capacity = Math.max(minCapacity, data.length + (data.length >> 1) + 1);
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    // JAVA HOUSEKEEPING
+
+    @Override
+    public String toString () {
+        return String.format("<FloatList %d>", size);
+    }
+}
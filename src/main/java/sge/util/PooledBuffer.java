@@ -0,0 +1,52 @@
+package sge.util;
+
+import java.nio.Buffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A direct buffer handed out by {@link DirectBufferPool}. The handle
+ * stays with its buffer for the buffer's whole life, so it is created
+ * once when the buffer is first allocated and reused every time the
+ * buffer is handed out again.
+ *
+ * Get the buffer with buffer(), and hand the handle back with
+ * DirectBufferPool.release() when done. Don't keep any reference to the
+ * buffer after releasing it.
+ */
+public final class PooledBuffer<T extends Buffer> {
+
+    /** Free list index by buffer type. */
+    static final int BYTES = 0, FLOATS = 1, INTS = 2;
+
+    /** Size class of buffers which are never pooled. */
+    static final int UNPOOLED = -1;
+
+    private final T buffer;
+
+    final int type;
+    final int sizeClass;
+
+    /** Capacity in bytes. */
+    final long bytes;
+
+    /** Set while handed out, so a second release can be refused. */
+    final AtomicBoolean out = new AtomicBoolean();
+
+    PooledBuffer (final T buffer, final int type, final int sizeClass, final long bytes) {
+        this.buffer = buffer;
+        this.type = type;
+        this.sizeClass = sizeClass;
+        this.bytes = bytes;
+    }
+
+    public T buffer () {
+        return buffer;
+    }
+
+    // JAVA HOUSEKEEPING
+
+    @Override
+    public String toString () {
+        return String.format("<PooledBuffer %s>", buffer);
+    }
+}
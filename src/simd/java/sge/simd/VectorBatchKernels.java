@@ -0,0 +1,192 @@
+package sge.simd;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import sge.math.BatchKernels;
+
+/**
+ * BatchKernels written with the JDK Vector API, using the widest vector
+ * shape the CPU supports. Each kernel runs whole vectors, then finishes
+ * the remaining elements with the scalar loop. Operations are done in
+ * the same order as the scalar kernels so the results are identical.
+ * <p/>
+ * Loaded by BatchKernels.get() when this module is on the classpath and
+ * isSupported(). Requires JDK 16+ and --add-modules jdk.incubator.vector.
+ */
+public final class VectorBatchKernels extends BatchKernels {
+
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+    private static final int L = F.length();
+
+    private final IntVector iota;
+
+    /**
+     * Test if the CPU has a vector shape worth using. Without SIMD
+     * registers the Vector API falls back to slow Java code.
+     */
+    public static boolean isSupported () {
+        return F.vectorBitSize() >= 128 && I.length() == L && 64 % L == 0;
+    }
+
+    /**
+     * Check isSupported() first.
+     */
+    public VectorBatchKernels () {
+        if (!isSupported()) {
+            throw new IllegalStateException("No usable vector shape: " + F);
+        }
+
+        int[] lanes = new int[L];
+        for (int i = 0; i < L; i++) {
+            lanes[i] = i;
+        }
+        iota = IntVector.fromArray(I, lanes, 0);
+    }
+
+    @Override
+    public void add (final float[] a, final float[] b, final int count) {
+        int i = 0;
+        for (int iMax = F.loopBound(count); i < iMax; i += L) {
+            FloatVector.fromArray(F, a, i).add(FloatVector.fromArray(F, b, i)).intoArray(a, i);
+        }
+        for (; i < count; i++) {
+            a[i] += b[i];
+        }
+    }
+
+    @Override
+    public void dot (final float[] ax, final float[] ay, final float[] az,
+                     final float[] bx, final float[] by, final float[] bz, final float[] dest, final int count) {
+        int i = 0;
+        for (int iMax = F.loopBound(count); i < iMax; i += L) {
+            FloatVector.fromArray(F, ax, i).mul(FloatVector.fromArray(F, bx, i))
+                    .add(FloatVector.fromArray(F, ay, i).mul(FloatVector.fromArray(F, by, i)))
+                    .add(FloatVector.fromArray(F, az, i).mul(FloatVector.fromArray(F, bz, i)))
+                    .intoArray(dest, i);
+        }
+        for (; i < count; i++) {
+            dest[i] = ax[i] * bx[i] + ay[i] * by[i] + az[i] * bz[i];
+        }
+    }
+
+    @Override
+    public void normalize (final float[] x, final float[] y, final float[] z, final int count) {
+        final FloatVector one = FloatVector.broadcast(F, 1.0f);
+
+        int i = 0;
+        for (int iMax = F.loopBound(count); i < iMax; i += L) {
+            FloatVector vx = FloatVector.fromArray(F, x, i);
+            FloatVector vy = FloatVector.fromArray(F, y, i);
+            FloatVector vz = FloatVector.fromArray(F, z, i);
+            FloatVector length = vx.mul(vx).add(vy.mul(vy)).add(vz.mul(vz)).sqrt();
+            FloatVector invLength = one.div(length.blend(one, length.eq(0.0f)));
+
+            vx.mul(invLength).intoArray(x, i);
+            vy.mul(invLength).intoArray(y, i);
+            vz.mul(invLength).intoArray(z, i);
+        }
+        for (; i < count; i++) {
+            float _x = x[i], _y = y[i], _z = z[i];
+            float length = (float) Math.sqrt(_x * _x + _y * _y + _z * _z);
+            float invLength = 1.0f / (length == 0.0f ? 1.0f : length);
+
+            x[i] = _x * invLength;
+            y[i] = _y * invLength;
+            z[i] = _z * invLength;
+        }
+    }
+
+    @Override
+    public void transform (final float[] m, final float[] x, final float[] y, final float[] z,
+                           final float[] w, final int count) {
+        final float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+        final float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+        final float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        final float m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+
+        int i = 0;
+        for (int iMax = F.loopBound(count); i < iMax; i += L) {
+            FloatVector vx = FloatVector.fromArray(F, x, i);
+            FloatVector vy = FloatVector.fromArray(F, y, i);
+            FloatVector vz = FloatVector.fromArray(F, z, i);
+            FloatVector vw = FloatVector.fromArray(F, w, i);
+
+            vx.mul(m0).add(vy.mul(m4)).add(vz.mul(m8)).add(vw.mul(m12)).intoArray(x, i);
+            vx.mul(m1).add(vy.mul(m5)).add(vz.mul(m9)).add(vw.mul(m13)).intoArray(y, i);
+            vx.mul(m2).add(vy.mul(m6)).add(vz.mul(m10)).add(vw.mul(m14)).intoArray(z, i);
+            vx.mul(m3).add(vy.mul(m7)).add(vz.mul(m11)).add(vw.mul(m15)).intoArray(w, i);
+        }
+        for (; i < count; i++) {
+            float _x = x[i], _y = y[i], _z = z[i], _w = w[i];
+
+            x[i] = m0 * _x + m4 * _y + m8 * _z + m12 * _w;
+            y[i] = m1 * _x + m5 * _y + m9 * _z + m13 * _w;
+            z[i] = m2 * _x + m6 * _y + m10 * _z + m14 * _w;
+            w[i] = m3 * _x + m7 * _y + m11 * _z + m15 * _w;
+        }
+    }
+
+    /** lattice() on L lattice points at once. */
+    @Override
+    public void latticeRow (final float[] dest, final int count, final int n0) {
+        final FloatVector one = FloatVector.broadcast(F, 1.0f);
+
+        int i = 0;
+        for (int iMax = F.loopBound(count); i < iMax; i += L) {
+            IntVector n = iota.add(n0 + i);
+            n = n.lanewise(VectorOperators.LSHL, 13).lanewise(VectorOperators.XOR, n);
+            IntVector nn = n.mul(n.mul(n).mul(60493).add(19990303)).add(1376312589).and(0x7fffffff);
+            FloatVector f = (FloatVector) nn.convert(VectorOperators.I2F, 0);
+
+            one.sub(f.div(1073741824.0f)).intoArray(dest, i);
+        }
+        for (; i < count; i++) {
+            dest[i] = lattice(n0 + i);
+        }
+    }
+
+    @Override
+    public int overlaps (final float qMinX, final float qMinY, final float qMinZ,
+                         final float qMaxX, final float qMaxY, final float qMaxZ,
+                         final float[] minX, final float[] minY, final float[] minZ,
+                         final float[] maxX, final float[] maxY, final float[] maxZ,
+                         final int count, final long[] hits) {
+        int found = 0;
+        for (int w = 0, wMax = (count + 63) >>> 6; w < wMax; w++) {
+            long bits = 0L;
+            int i = w << 6;
+            int iMax = Math.min(count, i + 64);
+
+            // L divides 64, so each vector's mask fits within one word.
+            for (; i + L <= iMax; i += L) {
+                VectorMask<Float> apart = FloatVector.fromArray(F, maxX, i).lt(qMinX)
+                        .or(FloatVector.fromArray(F, maxY, i).lt(qMinY))
+                        .or(FloatVector.fromArray(F, maxZ, i).lt(qMinZ))
+                        .or(FloatVector.fromArray(F, minX, i).compare(VectorOperators.GT, qMaxX))
+                        .or(FloatVector.fromArray(F, minY, i).compare(VectorOperators.GT, qMaxY))
+                        .or(FloatVector.fromArray(F, minZ, i).compare(VectorOperators.GT, qMaxZ));
+
+                bits |= apart.not().toLong() << i;
+            }
+            for (; i < iMax; i++) {
+                if (!(maxX[i] < qMinX || maxY[i] < qMinY || maxZ[i] < qMinZ ||
+                      minX[i] > qMaxX || minY[i] > qMaxY || minZ[i] > qMaxZ)) {
+                    bits |= 1L << i;
+                }
+            }
+            hits[w] = bits;
+            found += Long.bitCount(bits);
+        }
+        return found;
+    }
+
+    @Override
+    public String toString () {
+        return "VectorBatchKernels " + F;
+    }
+}
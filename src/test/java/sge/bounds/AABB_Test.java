@@ -130,4 +130,30 @@ public class AABB_Test {
         assertTrue(aabb.contains(new Vector3(1f, 4f, 2f)));
         assertTrue(aabb.contains(new Vector3(0f, 1f, 1f)));
     }
+
+    @Test
+    public void batchIntersectsMatchesIntersects () {
+        AABB[] boxes = {A, B, C, D, E, F, G, H};
+        int n = 100;
+        float[] minX = new float[n], minY = new float[n], minZ = new float[n];
+        float[] maxX = new float[n], maxY = new float[n], maxZ = new float[n];
+        for (int i = 0; i < n; i++) {
+            AABB b = boxes[i % boxes.length];
+            minX[i] = b.xMin; minY[i] = b.yMin; minZ[i] = b.zMin;
+            maxX[i] = b.xMax; maxY[i] = b.yMax; maxZ[i] = b.zMax;
+        }
+
+        long[] hits = {-1L, -1L};
+        for (AABB query : boxes) {
+            int found = 0;
+            for (int i = 0; i < n; i++) {
+                found += query.intersects(boxes[i % boxes.length]) ? 1 : 0;
+            }
+            assertEquals(found, query.intersects(minX, minY, minZ, maxX, maxY, maxZ, n, hits));
+            for (int i = 0; i < n; i++) {
+                assertEquals(query.intersects(boxes[i % boxes.length]), (hits[i >>> 6] & (1L << i)) != 0L);
+            }
+            assertEquals(0L, hits[1] >>> (n - 64));
+        }
+    }
 }
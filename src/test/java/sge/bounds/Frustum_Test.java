@@ -0,0 +1,151 @@
+package sge.bounds;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sge.math.Matrix4;
+import sge.math.Vector3;
+import sge.renderer.gl.GLPerspectiveProjection;
+import sge.util.IntList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Frustum_Test {
+
+    /** Camera at (0, 0, 10) looking down -z. */
+    private static Frustum camera () {
+        Matrix4 projection = new GLPerspectiveProjection(60.0f, 1.0f, 50.0f).getProjectionMatrix(4, 3);
+        return new Frustum(projection.mult(Matrix4.initTranslation(0.0f, 0.0f, -10.0f)));
+    }
+
+    @Test
+    public void identityIsUnitCube () {
+        Frustum frustum = new Frustum();
+
+        assertTrue(frustum.contains(Vector3.ZERO));
+        assertTrue(frustum.contains(new Vector3(1.0f, -1.0f, 1.0f)));
+        assertFalse(frustum.contains(new Vector3(1.1f, 0.0f, 0.0f)));
+
+        assertTrue(frustum.intersects(new AABB(0.9f, 0.9f, 0.9f, 2.0f, 2.0f, 2.0f)));
+        assertFalse(frustum.intersects(new AABB(1.1f, 0.0f, 0.0f, 2.0f, 0.5f, 0.5f)));
+        assertTrue(frustum.intersects(new Sphere(new Vector3(0.0f, 0.0f, -1.5f), 0.6f)));
+        assertFalse(frustum.intersects(new Sphere(new Vector3(0.0f, 0.0f, -1.5f), 0.4f)));
+    }
+
+    @Test
+    public void perspectiveView () {
+        Frustum frustum = camera();
+
+        assertTrue(frustum.contains(Vector3.ZERO));
+        assertTrue(frustum.contains(new Vector3(0.0f, 0.0f, -35.0f)));
+        // Behind the camera, closer than the near plane and beyond the far plane.
+        assertFalse(frustum.contains(new Vector3(0.0f, 0.0f, 12.0f)));
+        assertFalse(frustum.contains(new Vector3(0.0f, 0.0f, 9.5f)));
+        assertFalse(frustum.contains(new Vector3(0.0f, 0.0f, -45.0f)));
+        assertFalse(frustum.contains(new Vector3(30.0f, 0.0f, 0.0f)));
+
+        assertTrue(frustum.getPlane(Frustum.NEAR).z < 0.0f);
+        assertTrue(frustum.getPlane(Frustum.LEFT).x > 0.0f);
+    }
+
+    @Test
+    public void conservativeForBoxesAndSpheres () {
+        Frustum frustum = camera();
+        Random r = new Random(7L);
+
+        for (int i = 0; i < 2000; i++) {
+            float x = r.nextFloat() * 80 - 40, y = r.nextFloat() * 80 - 40, z = r.nextFloat() * 80 - 60;
+            float s = r.nextFloat() * 4;
+            AABB box = new AABB(x, y, z, x + s, y + s, z + s);
+
+            boolean cornerInside = false;
+            for (Vector3 corner : box.toPoints()) {
+                cornerInside |= frustum.contains(corner);
+            }
+            if (cornerInside) {
+                assertTrue(frustum.intersects(box));
+            }
+
+            Sphere sphere = new Sphere(new Vector3(x, y, z), s);
+            if (frustum.contains(new Vector3(x, y, z))) {
+                assertTrue(frustum.intersects(sphere));
+            }
+        }
+    }
+
+    @Test
+    public void batchMatchesSingleTests () {
+        Frustum frustum = camera();
+        Random r = new Random(11L);
+        int count = 1000;
+
+        float[] x = new float[count], y = new float[count], z = new float[count];
+        float[] ex = new float[count], ey = new float[count], ez = new float[count];
+        long[] visible = new long[(count + 63) / 64];
+        int[] lastPlane = new int[count];
+
+        Arrays.fill(visible, -1L);
+        for (int frame = 0; frame < 3; frame++) {
+            for (int i = 0; i < count; i++) {
+                x[i] = r.nextFloat() * 80 - 40;
+                y[i] = r.nextFloat() * 80 - 40;
+                z[i] = r.nextFloat() * 80 - 60;
+                ex[i] = r.nextFloat() * 2;
+                ey[i] = r.nextFloat() * 2;
+                ez[i] = r.nextFloat() * 2;
+            }
+
+            int found = frustum.cullBoxes(x, y, z, ex, ey, ez, count, visible, lastPlane);
+            int expected = 0;
+            for (int i = 0; i < count; i++) {
+                boolean single = frustum.intersects(x[i] - ex[i], y[i] - ey[i], z[i] - ez[i],
+                                                    x[i] + ex[i], y[i] + ey[i], z[i] + ez[i]);
+                assertEquals(single, (visible[i >>> 6] & (1L << i)) != 0);
+                expected += single ? 1 : 0;
+            }
+            assertEquals(expected, found);
+            assertEquals(found, frustum.cullBoxes(x, y, z, ex, ey, ez, count, visible));
+
+            found = frustum.cullSpheres(x, y, z, ex, count, visible, lastPlane);
+            expected = 0;
+            for (int i = 0; i < count; i++) {
+                boolean single = frustum.intersects(x[i], y[i], z[i], ex[i]);
+                assertEquals(single, (visible[i >>> 6] & (1L << i)) != 0);
+                expected += single ? 1 : 0;
+            }
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void octreeQuery () {
+        Frustum frustum = camera();
+        Random r = new Random(17L);
+        LooseOctree tree = new LooseOctree(new AABB(-100.0f, -100.0f, -100.0f, 100.0f, 100.0f, 100.0f), 4, 6);
+        AABB[] boxes = new AABB[1000];
+
+        for (int i = 0; i < boxes.length; i++) {
+            float x = r.nextFloat() * 160 - 80, y = r.nextFloat() * 160 - 80, z = r.nextFloat() * 160 - 80;
+            boxes[i] = new AABB(x, y, z, x + r.nextFloat() * 3, y + r.nextFloat() * 3, z + r.nextFloat() * 3);
+            assertEquals(i, tree.insert(boxes[i]));
+        }
+
+        IntList expected = new IntList();
+        for (int i = 0; i < boxes.length; i++) {
+            if (frustum.intersects(boxes[i])) {
+                expected.add(i);
+            }
+        }
+
+        IntList results = new IntList();
+        tree.queryFrustum(frustum, results);
+        int[] found = results.toArray();
+        Arrays.sort(found);
+        assertTrue(expected.size() > 0);
+        assertTrue(Arrays.equals(expected.toArray(), found));
+    }
+}
@@ -0,0 +1,223 @@
+package sge.bounds;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sge.math.Vector3;
+import sge.util.IntList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LooseOctree_Test {
+
+    private static final AABB WORLD = new AABB(-100.0f, -100.0f, -100.0f, 100.0f, 100.0f, 100.0f);
+
+    /** Objects by id: an AABB or a Sphere. */
+    private Object[] objects = new Object[2000];
+
+    private static Object randomObject (final Random r) {
+        // Some objects stray outside the world.
+        float x = r.nextFloat() * 220 - 110, y = r.nextFloat() * 220 - 110, z = r.nextFloat() * 220 - 110;
+
+        if (r.nextBoolean()) {
+            return new Sphere(new Vector3(x, y, z), r.nextFloat() * 3);
+        }
+        float s = (r.nextInt(20) == 0) ? 60.0f : 5.0f;
+        return new AABB(x, y, z, x + r.nextFloat() * s, y + r.nextFloat() * s, z + r.nextFloat() * s);
+    }
+
+    private int insert (final LooseOctree tree, final Object o) {
+        int id = (o instanceof AABB) ? tree.insert((AABB) o) : tree.insert((Sphere) o);
+        objects[id] = o;
+        return id;
+    }
+
+    private static AABB boxOf (final Object o) {
+        return (o instanceof AABB) ? (AABB) o : ((Sphere) o).toAABB();
+    }
+
+    private static boolean insidePlanes (final Object o, final float[] planes) {
+        for (int i = 0; i < planes.length; i += 4) {
+            float a = planes[i], b = planes[i + 1], c = planes[i + 2], d = planes[i + 3];
+
+            if (o instanceof Sphere) {
+                Vector3 p = ((Sphere) o).getOrigin();
+                if (a * p.x + b * p.y + c * p.z + d < -((Sphere) o).getRadius()) {
+                    return false;
+                }
+            } else {
+                // Test the corner furthest along the normal.
+                AABB box = (AABB) o;
+                float x = (a >= 0) ? box.xMax : box.xMin;
+                float y = (b >= 0) ? box.yMax : box.yMin;
+                float z = (c >= 0) ? box.zMax : box.zMin;
+                if (a * x + b * y + c * z + d < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int[] sorted (final IntList list) {
+        int[] a = list.toArray();
+        Arrays.sort(a);
+        return a;
+    }
+
+    private void assertQueries (final LooseOctree tree, final Random r) {
+        IntList results = new IntList();
+
+        for (int q = 0; q < 50; q++) {
+            float x = r.nextFloat() * 200 - 100, y = r.nextFloat() * 200 - 100, z = r.nextFloat() * 200 - 100;
+            float s = r.nextFloat() * 80;
+
+            AABB box = new AABB(x, y, z, x + s, y + s, z + s);
+            Sphere sphere = new Sphere(new Vector3(x, y, z), s);
+
+            // A box cut by a diagonal plane.
+            float n = (float) (1.0 / Math.sqrt(3.0));
+            float[] planes = {
+                    1, 0, 0, -x, -1, 0, 0, x + s,
+                    0, 1, 0, -y, 0, -1, 0, y + s,
+                    0, 0, 1, -z, n, n, n, -n * (x + y + z + s)
+            };
+
+            IntList boxExpected = new IntList(), sphereExpected = new IntList(), planeExpected = new IntList();
+            for (int id = 0; id < objects.length; id++) {
+                Object o = objects[id];
+                if (null == o) {
+                    continue;
+                }
+
+                if (boxOf(o).intersects(box) && (o instanceof AABB || boxDistance(box, ((Sphere) o).getOrigin()) <= ((Sphere) o).getRadius())) {
+                    boxExpected.add(id);
+                }
+                if (o instanceof Sphere ? sphere.getOrigin().sub(((Sphere) o).getOrigin()).getLength() <= s + ((Sphere) o).getRadius()
+                                        : boxDistance((AABB) o, sphere.getOrigin()) <= s) {
+                    sphereExpected.add(id);
+                }
+                if (insidePlanes(o, planes)) {
+                    planeExpected.add(id);
+                }
+            }
+
+            results.clear();
+            assertEquals(tree.queryBox(box, results), results.size());
+            assertTrue(Arrays.equals(boxExpected.toArray(), sorted(results)));
+
+            results.clear();
+            tree.querySphere(sphere, results);
+            assertTrue(Arrays.equals(sphereExpected.toArray(), sorted(results)));
+
+            results.clear();
+            tree.queryPlanes(planes, 6, results);
+            assertTrue(Arrays.equals(planeExpected.toArray(), sorted(results)));
+        }
+    }
+
+    private static float boxDistance (final AABB box, final Vector3 p) {
+        Vector3 min = box.min(), max = box.max();
+        float dx = Math.max(0, Math.max(min.x - p.x, p.x - max.x));
+        float dy = Math.max(0, Math.max(min.y - p.y, p.y - max.y));
+        float dz = Math.max(0, Math.max(min.z - p.z, p.z - max.z));
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    @Test
+    public void queriesMatchLinearScan () {
+        Random r = new Random(3L);
+        LooseOctree tree = new LooseOctree(WORLD, 4, 6);
+
+        for (int i = 0; i < 1000; i++) {
+            insert(tree, randomObject(r));
+        }
+        assertEquals(1000, tree.size());
+        assertTrue(tree.getNodeCount() > 1);
+        assertQueries(tree, r);
+
+        for (int frame = 0; frame < 5; frame++) {
+            for (int id = 0; id < objects.length; id++) {
+                Object o = objects[id];
+                if (null == o) {
+                    continue;
+                }
+
+                float roll = r.nextFloat();
+                if (roll < 0.05f) {
+                    tree.remove(id);
+                    objects[id] = null;
+                } else if (roll < 0.1f) {
+                    objects[id] = randomObject(r);
+                    if (objects[id] instanceof AABB) {
+                        tree.update(id, (AABB) objects[id]);
+                    } else {
+                        tree.update(id, (Sphere) objects[id]);
+                    }
+                } else if (o instanceof AABB) {
+                    ((AABB) o).translate_(new Vector3(r.nextFloat() - 0.5f, r.nextFloat() - 0.5f, r.nextFloat() - 0.5f));
+                    tree.update(id, (AABB) o);
+                }
+            }
+
+            for (int i = 0; i < 40; i++) {
+                insert(tree, randomObject(r));
+            }
+
+            assertQueries(tree, r);
+        }
+    }
+
+    @Test
+    public void mergesWhenEmptied () {
+        Random r = new Random(5L);
+        LooseOctree tree = new LooseOctree(WORLD, 2, 8);
+        IntList ids = new IntList();
+
+        for (int i = 0; i < 500; i++) {
+            float x = r.nextFloat() * 190 - 95, y = r.nextFloat() * 190 - 95, z = r.nextFloat() * 190 - 95;
+            ids.add(tree.insert(new AABB(x, y, z, x + 0.5f, y + 0.5f, z + 0.5f)));
+        }
+
+        int nodes = tree.getNodeCount();
+        assertTrue(nodes > 100);
+
+        for (int i = 0; i < ids.size(); i++) {
+            tree.remove(ids.get(i));
+        }
+        assertEquals(0, tree.size());
+        assertEquals(1, tree.getNodeCount());
+
+        // The tree grows again from the pooled nodes.
+        for (int i = 0; i < 500; i++) {
+            float x = r.nextFloat() * 190 - 95, y = r.nextFloat() * 190 - 95, z = r.nextFloat() * 190 - 95;
+            tree.insert(new AABB(x, y, z, x + 0.5f, y + 0.5f, z + 0.5f));
+        }
+        assertTrue(tree.getNodeCount() > 100);
+    }
+
+    @Test
+    public void depthBySize () {
+        LooseOctree tree = new LooseOctree(WORLD, 1, 8);
+
+        // Enough small objects nearby to split down to the bottom.
+        int small = 0;
+        for (int i = 0; i < 4; i++) {
+            small = tree.insert(new AABB(10.0f, 10.0f, 10.0f + i * 0.01f, 10.1f, 10.1f, 10.1f + i * 0.01f));
+        }
+        int large = tree.insert(new AABB(-60.0f, -60.0f, -60.0f, 60.0f, 60.0f, 60.0f));
+        int outside = tree.insert(new Sphere(new Vector3(500.0f, 0.0f, 0.0f), 1.0f));
+
+        assertEquals(8, tree.getDepth(small));
+        assertEquals(0, tree.getDepth(large));
+        assertEquals(0, tree.getDepth(outside));
+
+        IntList results = new IntList();
+        tree.querySphere(500.0f, 0.0f, 0.0f, 0.5f, results);
+        assertEquals(1, results.size());
+        assertEquals(outside, results.get(0));
+    }
+}
@@ -0,0 +1,159 @@
+package sge.bounds;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sge.math.Vector2;
+import sge.util.IntList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LooseQuadtree_Test {
+
+    private static final Rectangle WORLD = new Rectangle(-100.0f, -100.0f, 100.0f, 100.0f);
+
+    private static Bounds2D randomBounds (final Random r) {
+        // Some objects stray outside the world.
+        float x = r.nextFloat() * 220 - 110, y = r.nextFloat() * 220 - 110;
+
+        if (r.nextBoolean()) {
+            return new Circle(new Vector2(x, y), r.nextFloat() * 3);
+        }
+        float s = (r.nextInt(20) == 0) ? 60.0f : 5.0f;
+        return new Rectangle(x, y, x + r.nextFloat() * s, y + r.nextFloat() * s);
+    }
+
+    private static boolean insideLines (final Bounds2D o, final float[] lines) {
+        for (int i = 0; i < lines.length; i += 3) {
+            float a = lines[i], b = lines[i + 1], c = lines[i + 2];
+
+            if (o instanceof Circle) {
+                Vector2 p = ((Circle) o).getOrigin();
+                if (a * p.x + b * p.y + c < -((Circle) o).getRadius()) {
+                    return false;
+                }
+            } else {
+                Rectangle rect = (Rectangle) o;
+                float x = (a >= 0) ? rect.xMax : rect.xMin;
+                float y = (b >= 0) ? rect.yMax : rect.yMin;
+                if (a * x + b * y + c < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int[] sorted (final IntList list) {
+        int[] a = list.toArray();
+        Arrays.sort(a);
+        return a;
+    }
+
+    @Test
+    public void queriesMatchLinearScan () {
+        Random r = new Random(9L);
+        LooseQuadtree tree = new LooseQuadtree(WORLD, 4, 8);
+        Bounds2D[] all = new Bounds2D[1000];
+
+        for (int i = 0; i < all.length; i++) {
+            all[i] = randomBounds(r);
+            assertEquals(i, tree.insert(all[i]));
+        }
+
+        for (int i = 0; i < all.length; i += 2) {
+            if (i % 10 == 0) {
+                tree.remove(i);
+                all[i] = null;
+            } else {
+                all[i] = randomBounds(r);
+                tree.update(i, all[i]);
+            }
+        }
+
+        IntList results = new IntList();
+        float n = (float) (1.0 / Math.sqrt(2.0));
+
+        for (int q = 0; q < 100; q++) {
+            float x = r.nextFloat() * 200 - 100, y = r.nextFloat() * 200 - 100;
+            float s = r.nextFloat() * 80;
+
+            Rectangle region = new Rectangle(x, y, x + s, y + s);
+            Circle circle = new Circle(new Vector2(x, y), s);
+            // A square cut by a diagonal.
+            float[] lines = {1, 0, -x, -1, 0, x + s, 0, 1, -y, -n, -n, n * (x + y + s)};
+
+            IntList regionExpected = new IntList(), circleExpected = new IntList(), lineExpected = new IntList();
+            for (int id = 0; id < all.length; id++) {
+                if (null == all[id]) {
+                    continue;
+                }
+                if (region.intersects(all[id])) {
+                    regionExpected.add(id);
+                }
+                if (circle.intersects(all[id])) {
+                    circleExpected.add(id);
+                }
+                if (insideLines(all[id], lines)) {
+                    lineExpected.add(id);
+                }
+            }
+
+            results.clear();
+            assertEquals(tree.queryRegion(region, results), results.size());
+            assertTrue(Arrays.equals(regionExpected.toArray(), sorted(results)));
+
+            results.clear();
+            tree.queryRadius(circle, results);
+            assertTrue(Arrays.equals(circleExpected.toArray(), sorted(results)));
+
+            results.clear();
+            tree.queryLines(lines, 4, results);
+            assertTrue(Arrays.equals(lineExpected.toArray(), sorted(results)));
+        }
+    }
+
+    @Test
+    public void mergesWhenEmptied () {
+        Random r = new Random(13L);
+        LooseQuadtree tree = new LooseQuadtree(WORLD, 2, 10);
+        int[] ids = new int[400];
+
+        for (int i = 0; i < ids.length; i++) {
+            float x = r.nextFloat() * 190 - 95, y = r.nextFloat() * 190 - 95;
+            ids[i] = tree.insert(new Rectangle(x, y, x + 0.5f, y + 0.5f));
+        }
+        assertTrue(tree.getNodeCount() > 100);
+
+        for (int id : ids) {
+            tree.remove(id);
+        }
+        assertEquals(0, tree.size());
+        assertEquals(1, tree.getNodeCount());
+    }
+
+    @Test
+    public void movesBetweenNodes () {
+        LooseQuadtree tree = new LooseQuadtree(WORLD, 1, 6);
+        Circle moving = new Circle(new Vector2(-50.0f, -50.0f), 0.5f);
+        int id = tree.insert(moving);
+        tree.insert(new Circle(new Vector2(-50.0f, -50.5f), 0.5f));
+        tree.insert(new Circle(new Vector2(50.0f, 50.0f), 0.5f));
+
+        assertTrue(tree.getDepth(id) > 1);
+
+        moving.setOrigin(new Vector2(50.0f, 49.0f));
+        tree.update(id, moving);
+
+        IntList results = new IntList();
+        tree.queryRegion(40.0f, 40.0f, 60.0f, 60.0f, results);
+        assertEquals(2, results.size());
+
+        results.clear();
+        tree.queryRegion(-60.0f, -60.0f, -40.0f, -40.0f, results);
+        assertEquals(1, results.size());
+    }
+}
@@ -0,0 +1,227 @@
+package sge.bounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import sge.math.Point2D;
+import sge.math.Vector2;
+import sge.util.IntList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SpatialHash2D_Test {
+
+    private static Bounds2D randomBounds (final Random r) {
+        float x = r.nextFloat() * 200 - 100, y = r.nextFloat() * 200 - 100;
+
+        if (r.nextBoolean()) {
+            return new Circle(new Vector2(x, y), r.nextFloat() * 4);
+        }
+        return new Rectangle(x, y, x + r.nextFloat() * 8, y + r.nextFloat() * 8);
+    }
+
+    private static int[] sorted (final IntList list) {
+        int[] a = list.toArray();
+        Arrays.sort(a);
+        return a;
+    }
+
+    private static int[] expected (final Bounds2D[] all, final Bounds2D query) {
+        IntList found = new IntList();
+        for (int i = 0; i < all.length; i++) {
+            if (null != all[i] && query.intersects(all[i])) {
+                found.add(i);
+            }
+        }
+        return found.toArray();
+    }
+
+    @Test
+    public void queriesMatchLinearScan () {
+        Random r = new Random(7L);
+        SpatialHash2D hash = new SpatialHash2D(5.0f);
+        Bounds2D[] all = new Bounds2D[500];
+
+        for (int i = 0; i < all.length; i++) {
+            all[i] = randomBounds(r);
+            assertEquals(i, hash.insert(all[i]));
+        }
+
+        // Move some, swap some for new shapes, remove some.
+        for (int i = 0; i < all.length; i += 3) {
+            if (all[i] instanceof Rectangle) {
+                ((Rectangle) all[i]).translate_(new Vector2(r.nextFloat() * 20 - 10, r.nextFloat() * 20 - 10));
+                hash.update(i);
+            } else {
+                all[i] = randomBounds(r);
+                hash.update(i, all[i]);
+            }
+        }
+        for (int i = 1; i < all.length; i += 7) {
+            all[i] = null;
+            hash.remove(i);
+        }
+
+        IntList results = new IntList();
+
+        for (int q = 0; q < 200; q++) {
+            float x = r.nextFloat() * 240 - 120, y = r.nextFloat() * 240 - 120;
+
+            Rectangle region = new Rectangle(x, y, x + r.nextFloat() * 30, y + r.nextFloat() * 30);
+            results.clear();
+            assertEquals(hash.queryRegion(region, results), results.size());
+            assertTrue(Arrays.equals(expected(all, region), sorted(results)));
+
+            Circle circle = new Circle(new Vector2(x, y), r.nextFloat() * 15);
+            results.clear();
+            hash.queryRadius(circle.getOrigin(), circle.getRadius(), results);
+            assertTrue(Arrays.equals(expected(all, circle), sorted(results)));
+        }
+
+        // A region covering far more cells than are occupied.
+        results.clear();
+        hash.queryRegion(-1e6f, -1e6f, 1e6f, 1e6f, results);
+        assertEquals(hash.size(), results.size());
+    }
+
+    private static float distance (final Bounds2D b, final float x, final float y) {
+        if (b instanceof Circle) {
+            Circle c = (Circle) b;
+            return Math.max(0.0f, c.getOrigin().sub(new Vector2(x, y)).getLength() - c.getRadius());
+        }
+
+        Rectangle rect = (Rectangle) b;
+        Vector2 p = new Vector2(x, y);
+        return p.clamp(rect.min(), rect.max()).sub(p).getLength();
+    }
+
+    @Test
+    public void nearestMatchesLinearScan () {
+        Random r = new Random(11L);
+        SpatialHash2D hash = new SpatialHash2D(4.0f);
+        Bounds2D[] all = new Bounds2D[400];
+
+        for (int i = 0; i < all.length; i++) {
+            all[i] = randomBounds(r);
+            hash.insert(all[i]);
+        }
+
+        IntList results = new IntList();
+
+        for (int q = 0; q < 100; q++) {
+            final float x = r.nextFloat() * 300 - 150, y = r.nextFloat() * 300 - 150;
+            int k = 1 + r.nextInt(12);
+
+            List<Float> distances = new ArrayList<Float>();
+            for (Bounds2D b : all) {
+                distances.add(distance(b, x, y));
+            }
+            Collections.sort(distances);
+
+            results.clear();
+            assertEquals(k, hash.nearest(x, y, k, results));
+
+            for (int n = 0; n < k; n++) {
+                assertEquals(distances.get(n), distance(all[results.get(n)], x, y), 1e-4f);
+            }
+        }
+
+        // More than there are.
+        results.clear();
+        assertEquals(all.length, hash.nearest(0.0f, 0.0f, 1000, results));
+    }
+
+    @Test(timeout = 2000)
+    public void nearestSparseOutliers () {
+        SpatialHash2D hash = new SpatialHash2D(1.0f);
+        int a = hash.insert(new Circle(new Vector2(0.0f, 0.0f), 0.5f));
+        int b = hash.insert(new Circle(new Vector2(20000.0f, 0.0f), 0.5f));
+
+        IntList results = new IntList();
+        assertEquals(2, hash.nearest(0.0f, 0.0f, 2, results));
+        assertEquals(a, results.get(0));
+        assertEquals(b, results.get(1));
+
+        // A cluster, with outliers which have come and gone.
+        Random r = new Random(17L);
+        List<Bounds2D> all = new ArrayList<Bounds2D>();
+        all.add(hash.get(a));
+        all.add(hash.get(b));
+        for (int i = 0; i < 100; i++) {
+            Bounds2D bounds = randomBounds(r);
+            hash.insert(bounds);
+            all.add(bounds);
+        }
+        for (int i = 0; i < 20; i++) {
+            float x = (r.nextFloat() - 0.5f) * 1.0e5f, y = (r.nextFloat() - 0.5f) * 1.0e5f;
+            hash.remove(hash.insert(new Rectangle(x, y, x + 1.0f, y + 1.0f)));
+        }
+
+        for (int q = 0; q < 20; q++) {
+            final float x = (r.nextFloat() - 0.5f) * 4.0e4f, y = (r.nextFloat() - 0.5f) * 4.0e4f;
+            int k = 1 + r.nextInt(all.size());
+
+            List<Float> distances = new ArrayList<Float>();
+            for (Bounds2D bounds : all) {
+                distances.add(distance(bounds, x, y));
+            }
+            Collections.sort(distances);
+
+            results.clear();
+            assertEquals(k, hash.nearest(x, y, k, results));
+            for (int n = 0; n < k; n++) {
+                assertEquals(distances.get(n), distance(hash.get(results.get(n)), x, y),
+                             1e-4f * Math.max(1.0f, distances.get(n)));
+            }
+        }
+
+        results.clear();
+        hash.remove(b);
+        assertEquals(0, hash.queryRegion(100.0f, -1.0f, 30000.0f, 1.0f, results));
+    }
+
+    @Test
+    public void cellsAreFreed () {
+        SpatialHash2D hash = new SpatialHash2D(1.0f);
+        Rectangle rect = new Rectangle(0.5f, 0.5f, 2.5f, 1.5f);
+        int id = hash.insert(rect);
+
+        assertEquals(6, hash.getCellCount());
+        assertSame(rect, hash.get(id));
+
+        rect.translate_(new Vector2(-10.0f, 0.0f));
+        hash.update(id);
+        assertEquals(6, hash.getCellCount());
+
+        IntList results = new IntList();
+        hash.queryRegion(-9.0f, 0.0f, -8.0f, 1.0f, results);
+        assertEquals(1, results.size());
+
+        hash.remove(id);
+        assertEquals(0, hash.getCellCount());
+        assertEquals(0, hash.size());
+        assertEquals(id, hash.insert(new Circle(1.0f)));
+    }
+
+    @Test
+    public void negativeCells () {
+        SpatialHash2D hash = new SpatialHash2D(2.0f);
+        assertTrue(new Point2D(-1, -1).compare(hash.getCell(new Vector2(-0.5f, -2.0f))));
+        assertTrue(new Point2D(0, 1).compare(hash.getCell(new Vector2(0.0f, 3.9f))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void removedEntry () {
+        SpatialHash2D hash = new SpatialHash2D(1.0f);
+        int id = hash.insert(new Circle(1.0f));
+        hash.remove(id);
+        hash.get(id);
+    }
+}
@@ -0,0 +1,201 @@
+package sge.bounds;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import sge.math.Vector3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SweepAndPrune_Test {
+
+    /** Records reported pairs as "a,b" strings. */
+    private static final class Recorder implements OverlapListener {
+        final Set<String> begun = new HashSet<String>();
+        final Set<String> persisted = new HashSet<String>();
+        final Set<String> ended = new HashSet<String>();
+
+        void clear () {
+            begun.clear();
+            persisted.clear();
+            ended.clear();
+        }
+
+        @Override
+        public void begin (final int a, final int b) {
+            assertTrue(a < b);
+            begun.add(a + "," + b);
+        }
+
+        @Override
+        public void persist (final int a, final int b) {
+            assertTrue(a < b);
+            persisted.add(a + "," + b);
+        }
+
+        @Override
+        public void end (final int a, final int b) {
+            assertTrue(a < b);
+            ended.add(a + "," + b);
+        }
+    }
+
+    private static AABB randomBox (final Random r) {
+        float x = r.nextFloat() * 100, y = r.nextFloat() * 100, z = r.nextFloat() * 100;
+        return new AABB(x, y, z, x + r.nextFloat() * 8, y + r.nextFloat() * 8, z + r.nextFloat() * 8);
+    }
+
+    private static Set<String> bruteForce (final AABB[] boxes) {
+        Set<String> pairs = new HashSet<String>();
+
+        for (int a = 0; a < boxes.length; a++) {
+            for (int b = a + 1; b < boxes.length; b++) {
+                if (null != boxes[a] && null != boxes[b] && boxes[a].intersects(boxes[b])) {
+                    pairs.add(a + "," + b);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    @Test
+    public void matchesBruteForce () {
+        for (int seed = 0; seed < 3; seed++) {
+            Random r = new Random(seed);
+            SweepAndPrune sap = new SweepAndPrune();
+            Recorder rec = new Recorder();
+            // Boxes by proxy id, and the proxy in each of 400 slots.
+            AABB[] boxes = new AABB[800];
+            int[] slots = new int[400];
+
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = sap.add(randomBox(r));
+                boxes[slots[i]] = randomBox(r);
+                sap.update(slots[i], boxes[slots[i]]);
+            }
+
+            Set<String> previous = new HashSet<String>();
+
+            for (int frame = 0; frame < 20; frame++) {
+                // Mostly small moves, with the odd teleport, removal
+                // and re-addition.
+                for (int i = 0; i < slots.length; i++) {
+                    float roll = r.nextFloat();
+                    int id = slots[i];
+
+                    if (id < 0) {
+                        if (roll < 0.2f) {
+                            AABB box = randomBox(r);
+                            slots[i] = sap.add(box);
+                            boxes[slots[i]] = box;
+                        }
+                    } else if (roll < 0.02f) {
+                        boxes[id] = null;
+                        slots[i] = -1;
+                        sap.remove(id);
+                    } else if (roll < 0.05f) {
+                        boxes[id] = randomBox(r);
+                        sap.update(id, boxes[id]);
+                    } else {
+                        boxes[id].translate_(new Vector3(r.nextFloat() - 0.5f, r.nextFloat() - 0.5f, r.nextFloat() - 0.5f));
+                        sap.update(id, boxes[id]);
+                    }
+                }
+
+                rec.clear();
+                sap.updatePairs(rec);
+                Set<String> expected = bruteForce(boxes);
+
+                Set<String> current = new HashSet<String>(rec.begun);
+                current.addAll(rec.persisted);
+                assertEquals(expected, current);
+                assertEquals(expected.size(), sap.getPairCount());
+
+                Set<String> begun = new HashSet<String>(expected);
+                begun.removeAll(previous);
+                assertEquals(begun, rec.begun);
+
+                Set<String> ended = new HashSet<String>(previous);
+                ended.removeAll(expected);
+                assertEquals(ended, rec.ended);
+
+                previous = expected;
+            }
+        }
+    }
+
+    @Test
+    public void touching () {
+        SweepAndPrune sap = new SweepAndPrune();
+        int a = sap.add(new AABB(0.0f, 0.0f, 0.0f, 1.0f, 1.0f, 1.0f));
+        int b = sap.add(new AABB(1.0f, 1.0f, -0.0f, 2.0f, 2.0f, 1.0f));
+        int c = sap.add(new AABB(2.5f, 0.0f, 0.0f, 3.0f, 1.0f, 1.0f));
+
+        sap.updatePairs(null);
+        assertTrue(sap.isOverlapping(a, b));
+        assertTrue(sap.isOverlapping(b, a));
+        assertFalse(sap.isOverlapping(a, c));
+        assertFalse(sap.isOverlapping(b, c));
+    }
+
+    @Test
+    public void spheres () {
+        SweepAndPrune sap = new SweepAndPrune();
+        Sphere s1 = new Sphere(new Vector3(0.0f, 0.0f, 0.0f), 1.0f);
+        Sphere s2 = new Sphere(new Vector3(1.5f, 1.5f, 0.0f), 1.0f);
+        int a = sap.add(s1);
+        int b = sap.add(s2);
+        int c = sap.add(new AABB(5.0f, 5.0f, 5.0f, 6.0f, 6.0f, 6.0f));
+
+        Recorder rec = new Recorder();
+        sap.updatePairs(rec);
+        assertEquals(1, sap.getPairCount());
+        assertTrue(rec.begun.contains(a + "," + b));
+
+        s2.setOrigin(new Vector3(5.0f, 5.0f, 6.5f));
+        sap.update(b, s2);
+        rec.clear();
+        sap.updatePairs(rec);
+        assertTrue(rec.ended.contains(a + "," + b));
+        assertTrue(rec.begun.contains(b + "," + c));
+        assertTrue(rec.persisted.isEmpty());
+
+        rec.clear();
+        sap.updatePairs(rec);
+        assertTrue(rec.persisted.contains(b + "," + c));
+    }
+
+    @Test
+    public void removeEndsPairs () {
+        SweepAndPrune sap = new SweepAndPrune();
+        int a = sap.add(new AABB(0.0f, 0.0f, 0.0f, 2.0f, 2.0f, 2.0f));
+        int b = sap.add(new AABB(1.0f, 1.0f, 1.0f, 3.0f, 3.0f, 3.0f));
+        sap.updatePairs(null);
+
+        Recorder rec = new Recorder();
+        sap.remove(b);
+        // Not reused until the removal has been reported.
+        int c = sap.add(new AABB(1.0f, 1.0f, 1.0f, 3.0f, 3.0f, 3.0f));
+        assertTrue(c != b);
+
+        sap.updatePairs(rec);
+        assertTrue(rec.ended.contains(a + "," + b));
+        assertTrue(rec.begun.contains(a + "," + c));
+        assertEquals(2, sap.getProxyCount());
+
+        assertEquals(b, sap.add(new AABB()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void updateRemoved () {
+        SweepAndPrune sap = new SweepAndPrune();
+        int a = sap.add(new AABB());
+        sap.remove(a);
+        sap.update(a, new AABB());
+    }
+}
@@ -0,0 +1,174 @@
+package sge.geometry;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import sge.math.Vector3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MeshBVH_Test {
+
+    /** Random small triangles scattered through a cube. */
+    private static PackedMesh soup (final int faces, final long seed) {
+        Random r = new Random(seed);
+        PackedMesh m = new PackedMesh(faces * 3, faces * 3);
+
+        for (int f = 0; f < faces; f++) {
+            float cx = r.nextFloat() * 20 - 10, cy = r.nextFloat() * 20 - 10, cz = r.nextFloat() * 20 - 10;
+            int a = m.addVert(cx + r.nextFloat() - 0.5f, cy + r.nextFloat() - 0.5f, cz + r.nextFloat() - 0.5f);
+            int b = m.addVert(cx + r.nextFloat() - 0.5f, cy + r.nextFloat() - 0.5f, cz + r.nextFloat() - 0.5f);
+            int c = m.addVert(cx + r.nextFloat() - 0.5f, cy + r.nextFloat() - 0.5f, cz + r.nextFloat() - 0.5f);
+            m.addFace(a, b, c);
+        }
+
+        return m;
+    }
+
+    /** Nearest hit by testing every face. */
+    private static float bruteForce (final PackedMesh m, final Vector3 o, final Vector3 d) {
+        float best = Float.POSITIVE_INFINITY;
+
+        for (int f = 0; f < m.getFaceCount(); f++) {
+            Triangle tri = m.getFace(f);
+            Vector3 p1 = tri.v1.position, p2 = tri.v2.position, p3 = tri.v3.position;
+            Vector3 e1 = p2.sub(p1), e2 = p3.sub(p1);
+            Vector3 p = d.cross(e2);
+            float det = e1.dot(p);
+            if (det == 0.0f) {
+                continue;
+            }
+
+            Vector3 s = o.sub(p1);
+            float u = s.dot(p) / det;
+            Vector3 q = s.cross(e1);
+            float v = d.dot(q) / det;
+            float t = e2.dot(q) / det;
+
+            if (u >= 0 && v >= 0 && u + v <= 1 && t >= 0 && t < best) {
+                best = t;
+            }
+        }
+
+        return best;
+    }
+
+    private static void assertMatchesBruteForce (final PackedMesh m, final MeshBVH bvh, final long seed) {
+        Random r = new Random(seed);
+        RayHit hit = new RayHit();
+        int hits = 0;
+
+        for (int i = 0; i < 300; i++) {
+            Vector3 o = new Vector3(r.nextFloat() * 30 - 15, r.nextFloat() * 30 - 15, r.nextFloat() * 30 - 15);
+            Vector3 d = new Vector3(r.nextFloat() - 0.5f, r.nextFloat() - 0.5f, r.nextFloat() - 0.5f);
+            float expected = bruteForce(m, o, d);
+
+            boolean found = bvh.intersect(o.x, o.y, o.z, d.x, d.y, d.z, Float.POSITIVE_INFINITY, hit);
+            assertEquals(expected != Float.POSITIVE_INFINITY, found);
+
+            if (found) {
+                hits++;
+                assertEquals(expected, hit.t, 1e-3f * Math.max(1.0f, expected));
+
+                // The barycentrics give the same point as the ray.
+                Triangle tri = m.getFace(hit.face);
+                Vector3 bary = tri.v1.position.scale(hit.w())
+                        .add(tri.v2.position.scale(hit.u))
+                        .add(tri.v3.position.scale(hit.v));
+                Vector3 point = hit.point(o, d);
+                assertEquals(point.x, bary.x, 1e-3f);
+                assertEquals(point.y, bary.y, 1e-3f);
+                assertEquals(point.z, bary.z, 1e-3f);
+            }
+        }
+
+        assertTrue(hits > 10);
+    }
+
+    @Test
+    public void matchesBruteForce () {
+        PackedMesh m = soup(3000, 1L);
+        MeshBVH bvh = MeshBVH.build(m);
+
+        assertEquals(3000, bvh.getFaceCount());
+        assertTrue(bvh.getNodeCount() > 1);
+        assertMatchesBruteForce(m, bvh, 2L);
+    }
+
+    @Test
+    public void parallelBuild () {
+        PackedMesh m = soup(40000, 3L);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            MeshBVH parallel = MeshBVH.build(m, pool);
+            MeshBVH serial = MeshBVH.build(m, null);
+
+            assertEquals(serial.getNodeCount(), parallel.getNodeCount());
+            assertMatchesBruteForce(m, parallel, 4L);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void meshGrid () {
+        // A flat 10x10 grid of quads in the xz plane, from Mesh rather
+        // than PackedMesh.
+        Mesh m = new Mesh();
+        for (int z = 0; z <= 10; z++) {
+            for (int x = 0; x <= 10; x++) {
+                m.addVert(new Vertex(new Vector3(x, 0, z)));
+            }
+        }
+        for (int z = 0; z < 10; z++) {
+            for (int x = 0; x < 10; x++) {
+                int i = z * 11 + x;
+                m.addFace(i, i + 11, i + 1);
+                m.addFace(i + 1, i + 11, i + 12);
+            }
+        }
+
+        MeshBVH bvh = MeshBVH.build(m);
+        RayHit hit = bvh.intersect(new Vector3(3.25f, 5.0f, 7.5f), new Vector3(0.0f, -1.0f, 0.0f));
+
+        assertEquals(5.0f, hit.t, 1e-6f);
+        assertEquals(7 * 20, hit.face / 20 * 20);
+        Vector3 p = hit.point(new Vector3(3.25f, 5.0f, 7.5f), new Vector3(0.0f, -1.0f, 0.0f));
+        assertEquals(3.25f, p.x, 1e-5f);
+        assertEquals(7.5f, p.z, 1e-5f);
+
+        // Pointing away, and stopping short.
+        assertNull(bvh.intersect(new Vector3(3.25f, 5.0f, 7.5f), new Vector3(0.0f, 1.0f, 0.0f)));
+        assertFalse(bvh.intersect(3.25f, 5.0f, 7.5f, 0.0f, -1.0f, 0.0f, 4.0f, hit));
+        assertFalse(hit.isHit());
+    }
+
+    @Test
+    public void smallScale () {
+        // 1mm triangles and a short direction give det around 1e-9.
+        PackedMesh m = new PackedMesh(3, 3);
+        m.addFace(m.addVert(0.0f, 0.0f, 0.0f), m.addVert(0.0f, 0.0f, 0.001f), m.addVert(0.001f, 0.0f, 0.0f));
+        MeshBVH bvh = MeshBVH.build(m);
+
+        RayHit hit = bvh.intersect(new Vector3(0.00025f, 0.005f, 0.00025f), new Vector3(0.0f, -0.001f, 0.0f));
+        assertEquals(5.0f, hit.t, 1e-4f);
+        assertEquals(0, hit.face);
+
+        // Parallel to the face.
+        assertNull(bvh.intersect(new Vector3(-0.001f, 0.0f, 0.00025f), new Vector3(0.001f, 0.0f, 0.0f)));
+    }
+
+    @Test
+    public void emptyMesh () {
+        MeshBVH bvh = MeshBVH.build(new PackedMesh());
+
+        assertEquals(0, bvh.getFaceCount());
+        assertNull(bvh.intersect(Vector3.ZERO, new Vector3(1.0f, 0.0f, 0.0f)));
+    }
+}
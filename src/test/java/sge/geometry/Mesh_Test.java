@@ -0,0 +1,78 @@
+package sge.geometry;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.junit.Test;
+
+import sge.geometry.primitive.Cube;
+import sge.math.Vector3;
+import sge.util.DirectBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class Mesh_Test {
+
+    @Test
+    public void versionChangesOnModification () {
+        Mesh mesh = new Cube().toMesh();
+        int version = mesh.getVersion();
+
+        mesh.translate(new Vector3(1.0f, 0.0f, 0.0f));
+        assertTrue(version != mesh.getVersion());
+
+        version = mesh.getVersion();
+        mesh.clearColor(0.5f, 0.5f, 0.5f, 1.0f);
+        assertTrue(version != mesh.getVersion());
+
+        version = mesh.getVersion();
+        mesh.markDirty();
+        assertTrue(version != mesh.getVersion());
+
+        version = mesh.getVersion();
+        mesh.vertexArray();
+        mesh.indexArray();
+        assertEquals(version, mesh.getVersion());
+    }
+
+    @Test
+    public void vertexArrayReusesBuffer () {
+        Mesh mesh = new Cube().toMesh();
+        FloatBuffer expected = mesh.vertexArray();
+        FloatBuffer dest = DirectBuffer.createFloatBuffer(mesh.getVertexCount() * Vertex.SIZE + 10);
+        dest.put(1.0f);
+
+        FloatBuffer result = mesh.vertexArray(dest);
+
+        assertSame(dest, result);
+        assertEquals(expected, result);
+        assertEquals(mesh.getVertexCount() * Vertex.SIZE, result.limit());
+    }
+
+    @Test
+    public void vertexArrayGrowsSmallBuffer () {
+        Mesh mesh = new Cube().toMesh();
+        FloatBuffer dest = DirectBuffer.createFloatBuffer(4);
+
+        FloatBuffer result = mesh.vertexArray(dest);
+
+        assertNotSame(dest, result);
+        assertEquals(mesh.vertexArray(), result);
+    }
+
+    @Test
+    public void indexAndFaceArrayReuseBuffer () {
+        Mesh mesh = new Cube().toMesh();
+        IntBuffer indices = DirectBuffer.createIntBuffer(mesh.getIndexCount());
+        FloatBuffer faces = DirectBuffer.createFloatBuffer(mesh.getFaceCount() * 3 * Vertex.SIZE);
+
+        assertSame(indices, mesh.indexArray(indices));
+        assertEquals(mesh.indexArray(), indices);
+
+        assertSame(faces, mesh.faceArray(true, faces));
+        assertEquals(mesh.faceArray(true), faces);
+    }
+}
@@ -0,0 +1,137 @@
+package sge.geometry;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.junit.Test;
+
+import sge.color.RGBAColor;
+import sge.geometry.primitive.Cube;
+import sge.math.Vector3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PackedMesh_Test {
+
+    private static Mesh grid (final int size) {
+        Mesh m = new Mesh();
+        int stride = size + 1;
+
+        for (int z = 0; z <= size; z++) {
+            for (int x = 0; x <= size; x++) {
+                Vertex v = new Vertex(new Vector3(x, (x * z) % 3, z));
+                v.setTexCoords((float) x / size, (float) z / size);
+                m.addVert(v);
+            }
+        }
+
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                int i = z * stride + x;
+                m.addFace(i, i + stride, i + 1);
+                m.addFace(i + 1, i + stride, i + stride + 1);
+            }
+        }
+
+        return m;
+    }
+
+    private static void assertBufferEquals (final FloatBuffer expected, final FloatBuffer actual) {
+        assertEquals(expected.remaining(), actual.remaining());
+        assertTrue(expected.equals(actual));
+    }
+
+    @Test
+    public void counts () {
+        Mesh mesh = grid(4);
+        PackedMesh packed = new PackedMesh(mesh);
+
+        assertEquals(mesh.getVertexCount(), packed.getVertexCount());
+        assertEquals(mesh.getIndexCount(), packed.getIndexCount());
+        assertEquals(32, packed.getFaceCount());
+    }
+
+    @Test
+    public void growth () {
+        PackedMesh packed = new PackedMesh(1, 1);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, packed.addVert(i, 0.0f, 0.0f));
+        }
+        packed.addFace(0, 1, 2);
+        packed.addFace(97, 98, 99);
+
+        assertEquals(100, packed.getVertexCount());
+        assertEquals(2, packed.getFaceCount());
+        assertEquals(new Vector3(99.0f, 0.0f, 0.0f), packed.getVertex(99).position);
+        assertEquals(RGBAColor.WHITE, packed.getVertex(99).color);
+    }
+
+    @Test
+    public void roundTrip () {
+        Mesh mesh = grid(3);
+        Mesh unpacked = new PackedMesh(mesh).toMesh();
+
+        assertBufferEquals(mesh.vertexArray(), unpacked.vertexArray());
+        assertEquals(mesh.indexArray(), unpacked.indexArray());
+    }
+
+    @Test
+    public void buffersMatchMesh () {
+        Mesh mesh = new Cube().toMesh();
+        PackedMesh packed = new PackedMesh(mesh);
+
+        assertBufferEquals(mesh.vertexArray(), packed.vertexArray());
+        assertBufferEquals(mesh.faceArray(false), packed.faceArray(false));
+        assertBufferEquals(mesh.faceArray(true), packed.faceArray(true));
+
+        IntBuffer indices = packed.indexArray();
+        assertEquals(mesh.indexArray(), indices);
+        assertEquals(36, indices.remaining());
+    }
+
+    @Test
+    public void quadFaceMatchesMesh () {
+        Mesh mesh = new Mesh();
+        PackedMesh packed = new PackedMesh();
+        Vector3 normal = new Vector3(0.0f, 1.0f, 0.0f);
+
+        for (int i = 0; i < 2; i++) {
+            Vector3 a = new Vector3(i, 0.0f, 0.0f);
+            Vector3 b = new Vector3(i + 1, 0.0f, 0.0f);
+            Vector3 c = new Vector3(i + 1, 0.0f, 1.0f);
+            Vector3 d = new Vector3(i, 0.0f, 1.0f);
+            mesh.addQuadFace(a, b, c, d, normal);
+            packed.addQuadFace(a, b, c, d, normal);
+        }
+
+        assertEquals(mesh.indexArray(), packed.indexArray());
+        assertBufferEquals(mesh.vertexArray(), packed.vertexArray());
+    }
+
+    @Test
+    public void smoothNormalsMatchMesh () {
+        Mesh mesh = grid(5);
+        PackedMesh packed = new PackedMesh(mesh);
+
+        mesh.smoothNormals();
+        packed.smoothNormals();
+
+        assertBufferEquals(mesh.vertexArray(), packed.vertexArray());
+    }
+
+    @Test
+    public void translateAndClearColor () {
+        Mesh mesh = grid(2);
+        PackedMesh packed = new PackedMesh(mesh);
+        Vector3 offset = new Vector3(1.0f, -2.0f, 0.5f);
+
+        mesh.translate(offset);
+        mesh.clearColor(0.1f, 0.2f, 0.3f, 0.4f);
+        packed.translate(offset);
+        packed.clearColor(0.1f, 0.2f, 0.3f, 0.4f);
+
+        assertBufferEquals(mesh.vertexArray(), packed.vertexArray());
+    }
+}
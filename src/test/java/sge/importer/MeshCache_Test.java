@@ -0,0 +1,135 @@
+package sge.importer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sge.geometry.BufferMesh;
+import sge.geometry.Mesh;
+import sge.geometry.MeshData;
+import sge.geometry.primitive.Cube;
+import sge.importer.obj.ObjConverter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MeshCache_Test {
+
+    private File directory;
+    private File source;
+    private MeshCache cache;
+
+    @Before
+    public void setup () throws IOException {
+        directory = Files.createTempDirectory("sge-mesh-cache-").toFile();
+        source = new File(directory, "source.obj");
+        Files.copy(new File("src/test/data/cube.obj").toPath(), source.toPath());
+        cache = new MeshCache(new File(directory, "cache"));
+    }
+
+    @After
+    public void tearDown () {
+        File[] files = cache.getDirectory().listFiles();
+        if (null != files) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        cache.getDirectory().delete();
+        source.delete();
+        directory.delete();
+    }
+
+    private static void assertSameData (final MeshData expected, final MeshData actual) {
+        assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        assertEquals(expected.getIndexCount(), actual.getIndexCount());
+
+        FloatBuffer ev = expected.vertexArray(null), av = actual.vertexArray(null);
+        assertEquals(ev.remaining(), av.remaining());
+        for (int i = 0; i < ev.remaining(); i++) {
+            assertEquals(ev.get(i), av.get(i), 0.0f);
+        }
+
+        IntBuffer ei = expected.indexArray(null), ai = actual.indexArray(null);
+        assertEquals(ei.remaining(), ai.remaining());
+        for (int i = 0; i < ei.remaining(); i++) {
+            assertEquals(ei.get(i), ai.get(i));
+        }
+    }
+
+    @Test
+    public void storeAndLoad () {
+        Mesh mesh = new Cube().toMesh();
+
+        assertNull(cache.load(source.getPath()));
+        assertTrue(cache.store(source.getPath(), mesh));
+
+        BufferMesh cached = cache.load(source.getPath());
+        assertNotNull(cached);
+        assertSameData(mesh, cached);
+        assertEquals(mesh.vertices.get(3).position, cached.getVertex(3).position);
+
+        // Cached data can be stored again, e.g. under another source.
+        assertTrue(cache.store(source.getPath(), cached));
+        assertSameData(mesh, cache.load(source.getPath()));
+    }
+
+    @Test
+    public void loadObj () {
+        Mesh expected = ObjConverter.objDocumentToMesh(source.getPath());
+
+        MeshData first = cache.loadObj(source.getPath());
+        assertTrue(first instanceof BufferMesh);
+        assertTrue(cache.cacheFile(source.getPath()).isFile());
+        assertSameData(expected, first);
+
+        assertSameData(expected, cache.loadObj(source.getPath()));
+    }
+
+    @Test
+    public void staleWhenSourceChanges () throws IOException {
+        assertTrue(cache.store(source.getPath(), new Cube().toMesh()));
+        assertNotNull(cache.load(source.getPath()));
+
+        try (Writer out = new FileWriter(source, true)) {
+            out.write("# changed\n");
+        }
+        assertNull(cache.load(source.getPath()));
+
+        assertTrue(cache.store(source.getPath(), new Cube().toMesh()));
+        assertTrue(source.setLastModified(source.lastModified() - 10000));
+        assertNull(cache.load(source.getPath()));
+    }
+
+    @Test
+    public void corruptFile () throws IOException {
+        assertTrue(cache.store(source.getPath(), new Cube().toMesh()));
+        File file = cache.cacheFile(source.getPath());
+
+        try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+            f.setLength(f.length() - 4);
+        }
+        assertNull(cache.load(source.getPath()));
+
+        try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+            f.setLength(10);
+        }
+        assertNull(cache.load(source.getPath()));
+    }
+
+    @Test
+    public void invalidate () {
+        assertTrue(cache.store(source.getPath(), new Cube().toMesh()));
+        assertTrue(cache.invalidate(source.getPath()));
+        assertNull(cache.load(source.getPath()));
+    }
+}
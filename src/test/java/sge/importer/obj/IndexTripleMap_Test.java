@@ -0,0 +1,35 @@
+package sge.importer.obj;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IndexTripleMap_Test {
+
+    @Test
+    public void addAndFind () {
+        IndexTripleMap map = new IndexTripleMap(2);
+
+        assertEquals(0, map.add(1, 2, 3));
+        assertEquals(1, map.add(3, 2, 1));
+        assertEquals(2, map.add(1, 2, -1));
+        assertEquals(0, map.add(1, 2, 3));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void grow () {
+        IndexTripleMap map = new IndexTripleMap(4);
+        int n = 50000;
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, map.add(i, i % 7, -(i % 13)));
+        }
+
+        for (int i = n - 1; i >= 0; i--) {
+            assertEquals(i, map.add(i, i % 7, -(i % 13)));
+        }
+
+        assertEquals(n, map.size());
+    }
+}
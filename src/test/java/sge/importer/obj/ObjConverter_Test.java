@@ -1,7 +1,11 @@
 package sge.importer.obj;
 
+import java.io.ByteArrayInputStream;
 import org.junit.Test;
 import sge.geometry.Mesh;
+import sge.geometry.Vertex;
+import sge.math.Vector2;
+import sge.math.Vector3;
 
 import static org.junit.Assert.assertEquals;
 
@@ -15,6 +19,45 @@ public class ObjConverter_Test {
         Mesh m = ObjConverter.objDocumentToMesh("src/test/data/cube.obj");
 
         assertEquals(12, m.getFaceCount());
-        assertEquals(36, m.getVertexCount());
+        assertEquals(24, m.getVertexCount());
+    }
+
+    @Test
+    public void weldedFacesMatchDocument () throws Exception {
+        ObjDocument doc = new ObjDocument("src/test/data/cube.obj");
+        Mesh m = ObjConverter.objDocumentToMesh(doc);
+        ObjGroup g = doc.subgroups().get(0);
+
+        for (int k = 0; k < g.getVertexCount(); k++) {
+            Vertex v = m.vertices.get(m.indices.get(k));
+
+            assertEquals(doc.getPosition(g.getPositionIndex(k)), v.position);
+            assertEquals(doc.getTexCoord(g.getTexCoordIndex(k)), v.texCoords);
+            assertEquals(doc.getNormal(g.getNormalIndex(k)), v.normal);
+        }
+    }
+
+    @Test
+    public void groupsAndLateAttributes () throws Exception {
+        String obj = "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\n"
+                     + "g a\nf 1 2 3\n"
+                     + "vt 0.5 0.5\nf 1/1 3/1 4/1\n"
+                     + "g b\nf 1/1 2/1 3/1\nf 3 4 1\n";
+        ObjDocument doc = new ObjDocument("test", new ByteArrayInputStream(obj.getBytes("US-ASCII")));
+        Mesh m = ObjConverter.objDocumentToMesh(doc);
+
+        assertEquals(4, m.getFaceCount());
+
+        // (1,-), (2,-), (3,-), (1,1), (3,1), (4,1), (2,1), (4,-). The
+        // last face has no tex coords, so it welds to the first face.
+        assertEquals(8, m.getVertexCount());
+
+        assertEquals(new Vector3(1.0f, 1.0f, 0.0f), m.vertices.get(m.indices.get(2)).position);
+        assertEquals(new Vector2(0.5f, 0.5f), m.vertices.get(m.indices.get(3)).texCoords);
+
+        // Second group reuses welded vertices from the first.
+        assertEquals(m.indices.get(3), m.indices.get(6));
+        assertEquals(m.indices.get(4), m.indices.get(8));
+        assertEquals(new Vector3(0.0f, 1.0f, 0.0f), m.vertices.get(m.indices.get(10)).position);
     }
 }
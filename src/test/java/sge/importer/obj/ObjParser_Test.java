@@ -0,0 +1,177 @@
+package sge.importer.obj;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Random;
+import org.junit.Test;
+import sge.math.Vector2;
+import sge.math.Vector3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ObjParser_Test {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private static ObjDocument parse (final String text) throws Exception {
+        InputStream in = new ByteArrayInputStream(text.getBytes(ASCII));
+        return new ObjDocument("test", in);
+    }
+
+    private static float parseFloat (final String s) {
+        byte[] b = s.getBytes(ASCII);
+        return ObjParser.parseFloat(b, 0, b.length);
+    }
+
+    @Test
+    public void floats () {
+        String[] values = {"0", "-0.000000", "1", "+2.5", "-3.25", ".5", "5.", "0.1",
+                           "123456.789", "1e3", "1.5E-4", "-2.0e+2", "3.4028235e38",
+                           "1.4e-45", "0.12345678901234567890", "NaN", "-Infinity"};
+
+        for (String v : values) {
+            assertEquals(v, Float.floatToIntBits(Float.parseFloat(v)),
+                         Float.floatToIntBits(parseFloat(v)));
+        }
+    }
+
+    @Test
+    public void randomFloats () {
+        Random r = new Random(42);
+
+        for (int i = 0; i < 100000; i++) {
+            float f = (r.nextFloat() - 0.5f) * (1 << r.nextInt(20));
+            String[] forms = {String.format("%.6f", f), Float.toString(f), String.format("%e", f)};
+
+            for (String v : forms) {
+                assertEquals(v, Float.parseFloat(v), parseFloat(v), 0.0f);
+            }
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void badFloat () {
+        parseFloat("1.0x");
+    }
+
+    @Test
+    public void whitespaceAndLineEndings () throws Exception {
+        ObjDocument doc = parse("o\tname \r\nv  1.0\t2.0   3.0\r\nv 4 5 6\n\n# comment\nv 7 8 9");
+
+        assertEquals("name", doc.getName());
+        assertEquals(3, doc.getSize());
+        assertEquals(new Vector3(1.0f, 2.0f, 3.0f), doc.getPosition(0));
+        assertEquals(new Vector3(7.0f, 8.0f, 9.0f), doc.getPosition(2));
+    }
+
+    @Test
+    public void malformedVertexData () throws Exception {
+        ObjDocument doc = parse("v 1 2\nvn 1\nvt\n");
+
+        assertEquals(1, doc.getSize());
+        assertEquals(Vector3.ZERO, doc.getPosition(0));
+        assertEquals(Vector3.ZERO, doc.getNormal(0));
+        assertEquals(Vector2.ZERO, doc.getTexCoord(0));
+        assertTrue(doc.hasNormals());
+        assertTrue(doc.hasTexCoords());
+    }
+
+    @Test
+    public void faces () throws Exception {
+        ObjDocument doc = parse("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\n"
+                                + "vt 0 0\nvt 1 1\nvn 0 0 1\n"
+                                + "g quad\nf 1/1/1 2/2/1 3/1/1 4/2/1\nf 1 2\n"
+                                + "g relative\nf -4/-2/-1 -3/-1/-1 -2/-2/-1\n");
+
+        assertEquals(2, doc.subgroups().size());
+        assertEquals(3, doc.getFaceCount());
+
+        ObjGroup quad = doc.subgroups().get(0);
+        assertEquals("quad", quad.getName());
+        assertEquals(6, quad.getVertexCount());
+
+        int[] positions = {0, 1, 2, 0, 2, 3};
+        int[] texCoords = {0, 1, 0, 0, 0, 1};
+        for (int i = 0; i < positions.length; i++) {
+            assertEquals(positions[i], quad.getPositionIndex(i));
+            assertEquals(texCoords[i], quad.getTexCoordIndex(i));
+            assertEquals(0, quad.getNormalIndex(i));
+        }
+
+        ObjGroup relative = doc.subgroups().get(1);
+        assertEquals(0, relative.getPositionIndex(0));
+        assertEquals(2, relative.getPositionIndex(2));
+        assertEquals(1, relative.getTexCoordIndex(1));
+    }
+
+    @Test
+    public void indicesFollowDeclaredData () throws Exception {
+        // Tex coords and normals are only referenced once they've been seen.
+        ObjDocument doc = parse("v 0 0 0\nv 1 0 0\nv 1 1 0\nf 1 2 3\nvn 0 0 1\nf 1//1 2//1 3//1\n");
+        ObjGroup g = doc.subgroups().get(0);
+
+        assertFalse(doc.hasTexCoords());
+        assertEquals(6, g.getVertexCount());
+        assertEquals(0, g.getNormalIndex(2));
+    }
+
+    @Test
+    public void emptyReferences () throws Exception {
+        ObjDocument doc = parse("v 0 0 0\nv 1 0 0\nv 1 1 0\nvt 0 0\nvn 0 0 1\nf 1//1 2//1 3//1\n");
+        ObjGroup g = doc.subgroups().get(0);
+
+        assertEquals(ObjGroup.NO_INDEX, g.getTexCoordIndex(0));
+        assertEquals(0, g.getNormalIndex(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void indexPastData () throws Exception {
+        ObjDocument doc = parse("v 0 0 0\nvt 0 0\n");
+
+        doc.getTexCoord(1);
+    }
+
+    @Test
+    public void parseIntOverflow () {
+        byte[] max = "2147483647".getBytes(ASCII);
+        assertEquals(Integer.MAX_VALUE, ObjParser.parseInt(max, 0, max.length));
+
+        for (String index : new String[] {"2147483648", "-2147483648", "99999999999"}) {
+            byte[] b = index.getBytes(ASCII);
+            try {
+                ObjParser.parseInt(b, 0, b.length);
+                fail(index);
+            } catch (NumberFormatException e) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void linesAcrossBlocks () throws Exception {
+        StringBuilder sb = new StringBuilder();
+        int count = 20000;
+
+        for (int i = 0; i < count; i++) {
+            sb.append("v ").append(i).append(".5 ").append(-i).append(" 0.25\n");
+        }
+
+        // A single line longer than the read buffer.
+        sb.append("o ");
+        for (int i = 0; i < 100000; i++) {
+            sb.append('x');
+        }
+
+        ObjDocument doc = parse(sb.toString());
+
+        assertEquals(count, doc.getSize());
+        for (int i = 0; i < count; i++) {
+            assertEquals(new Vector3(i + 0.5f, -i, 0.25f), doc.getPosition(i));
+        }
+        assertEquals(100000, doc.getName().length());
+    }
+}
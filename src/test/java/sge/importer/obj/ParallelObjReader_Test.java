@@ -0,0 +1,151 @@
+package sge.importer.obj;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelObjReader_Test {
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void setup () {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown () {
+        pool.shutdown();
+    }
+
+    private static final String UNTITLED = "group.";
+
+    private static int untitledNumber (final ObjGroup g) {
+        return Integer.parseInt(g.getName().substring(UNTITLED.length()));
+    }
+
+    private static void assertSameDocument (final ObjDocument expected, final ObjDocument actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getSize(), actual.getSize());
+        assertEquals(expected.getNormalCount(), actual.getNormalCount());
+        assertEquals(expected.getTexCoordCount(), actual.getTexCoordCount());
+        assertEquals(expected.hasNormals(), actual.hasNormals());
+        assertEquals(expected.hasTexCoords(), actual.hasTexCoords());
+
+        for (int i = 0; i < expected.getSize(); i++) {
+            assertEquals(expected.getPosition(i), actual.getPosition(i));
+        }
+        for (int i = 0; i < expected.getNormalCount(); i++) {
+            assertEquals(expected.getNormal(i), actual.getNormal(i));
+        }
+        for (int i = 0; i < expected.getTexCoordCount(); i++) {
+            assertEquals(expected.getTexCoord(i), actual.getTexCoord(i));
+        }
+
+        assertEquals(expected.subgroups().size(), actual.subgroups().size());
+        Integer untitledOffset = null;
+
+        for (int k = 0; k < expected.subgroups().size(); k++) {
+            ObjGroup e = expected.subgroups().get(k);
+            ObjGroup a = actual.subgroups().get(k);
+
+            // Untitled groups are numbered from a global counter, so
+            // each read's numbers differ by the same offset.
+            if (e.getName().startsWith(UNTITLED)) {
+                assertTrue(a.getName().startsWith(UNTITLED));
+                int offset = untitledNumber(a) - untitledNumber(e);
+                if (null == untitledOffset) {
+                    untitledOffset = offset;
+                }
+                assertEquals(untitledOffset.intValue(), offset);
+            } else {
+                assertEquals(e.getName(), a.getName());
+            }
+            assertEquals(e.getVertexCount(), a.getVertexCount());
+            assertEquals(e.getTexCoordIndexCount(), a.getTexCoordIndexCount());
+            assertEquals(e.getNormalIndexCount(), a.getNormalIndexCount());
+
+            for (int i = 0; i < e.getVertexCount(); i++) {
+                assertEquals(e.getPositionIndex(i), a.getPositionIndex(i));
+            }
+            for (int i = 0; i < e.getTexCoordIndexCount(); i++) {
+                assertEquals(e.getTexCoordIndex(i), a.getTexCoordIndex(i));
+            }
+            for (int i = 0; i < e.getNormalIndexCount(); i++) {
+                assertEquals(e.getNormalIndex(i), a.getNormalIndex(i));
+            }
+        }
+    }
+
+    @Test
+    public void testData () {
+        String[] files = {"src/test/data/basic.obj", "src/test/data/triangle.obj", "src/test/data/cube.obj"};
+
+        for (String f : files) {
+            for (int chunkSize : new int[] {1, 16, 1 << 20}) {
+                assertSameDocument(new ObjDocument(f), ParallelObjReader.read(f, pool, chunkSize));
+            }
+        }
+    }
+
+    @Test
+    public void generated () throws IOException {
+        File f = File.createTempFile("sge-test-", ".obj");
+        f.deleteOnExit();
+
+        // Faces before any group, groups spanning chunks, tex coords and
+        // normals appearing part way through, relative indices and a
+        // late object name.
+        try (Writer out = new FileWriter(f)) {
+            out.write("# generated\r\n");
+            for (int i = 0; i < 500; i++) {
+                out.write("v " + i + " " + (i * 0.5f) + " " + (-i) + "\n");
+                if (i >= 2 && i < 100) {
+                    out.write("f " + (i - 1) + " " + i + " " + (i + 1) + "\n");
+                }
+                if (i == 100) {
+                    out.write("g first\nvt 0.25 0.75\n");
+                }
+                if (i > 100 && i % 3 == 0) {
+                    out.write("f -3/1 -2/1 -1/1 -2/-1\n");
+                }
+                if (i == 300) {
+                    out.write("vn 0 1 0\ng\n");
+                }
+                if (i > 300) {
+                    out.write("f 1/1/1\t2/1/1 " + i + "/1/-1\n");
+                }
+                if (i % 97 == 0) {
+                    out.write("g group" + i + "\n");
+                }
+                if (i % 61 == 0) {
+                    out.write("g \n");
+                }
+            }
+            out.write("o late_name\nf 1 2 3");
+        }
+
+        ObjDocument expected = new ObjDocument(f.getPath());
+        for (int chunkSize : new int[] {1, 7, 64, 1000, 1 << 20}) {
+            assertSameDocument(expected, ParallelObjReader.read(f.getPath(), pool, chunkSize));
+        }
+
+        f.delete();
+    }
+
+    @Test
+    public void missingFile () {
+        ObjDocument doc = ParallelObjReader.read("src/test/data/missing.obj", pool, 16);
+
+        assertEquals(0, doc.getSize());
+        assertEquals(0, doc.subgroups().size());
+    }
+}
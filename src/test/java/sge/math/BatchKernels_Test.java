@@ -0,0 +1,105 @@
+package sge.math;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The kernels from BatchKernels.get(), which are the Vector API kernels
+ * when the simd module is available, must match the scalar kernels
+ * exactly, including counts which are not a multiple of the vector size.
+ */
+public class BatchKernels_Test {
+
+    private static final BatchKernels SCALAR = BatchKernels.scalar();
+    private static final BatchKernels KERNELS = BatchKernels.get();
+
+    private static final int[] COUNTS = {0, 1, 3, 15, 16, 17, 64, 100, 1027};
+
+    private static float[] random (final Random r, final int n) {
+        float[] a = new float[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = r.nextFloat() * 20.0f - 10.0f;
+        }
+        return a;
+    }
+
+    @Test
+    public void vectorKernelsMatchScalar () {
+        Random r = new Random(11L);
+        float[] m = Matrix4.initRotation(0.1f, 0.2f, 0.3f).translate(1.0f, 2.0f, 3.0f).mat;
+
+        for (int n : COUNTS) {
+            float[][] a = {random(r, n), random(r, n), random(r, n), random(r, n)};
+            float[][] b = {random(r, n), random(r, n), random(r, n)};
+            if (n > 2) {
+                a[0][2] = a[1][2] = a[2][2] = 0.0f;
+            }
+            float[][] c = {a[0].clone(), a[1].clone(), a[2].clone(), a[3].clone()};
+
+            SCALAR.normalize(a[0], a[1], a[2], n);
+            KERNELS.normalize(c[0], c[1], c[2], n);
+            SCALAR.transform(m, a[0], a[1], a[2], a[3], n);
+            KERNELS.transform(m, c[0], c[1], c[2], c[3], n);
+            SCALAR.add(a[0], b[0], n);
+            KERNELS.add(c[0], b[0], n);
+            for (int k = 0; k < a.length; k++) {
+                assertArrayEquals(a[k], c[k], 0.0f);
+            }
+
+            float[] d1 = new float[n], d2 = new float[n];
+            SCALAR.dot(a[0], a[1], a[2], b[0], b[1], b[2], d1, n);
+            KERNELS.dot(c[0], c[1], c[2], b[0], b[1], b[2], d2, n);
+            assertArrayEquals(d1, d2, 0.0f);
+        }
+    }
+
+    @Test
+    public void latticeRowMatchesScalar () {
+        for (int n : COUNTS) {
+            float[] row = new float[n + 1];
+            KERNELS.latticeRow(row, n, -n * 7 + 31 * 57);
+
+            for (int i = 0; i < n; i++) {
+                assertEquals(BatchKernels.lattice(-n * 7 + 31 * 57 + i), row[i], 0.0f);
+            }
+            assertEquals(0.0f, row[n], 0.0f);
+        }
+    }
+
+    @Test
+    public void overlapsMatchScalar () {
+        Random r = new Random(13L);
+
+        for (int n : COUNTS) {
+            float[] minX = random(r, n), minY = random(r, n), minZ = random(r, n);
+            float[] maxX = minX.clone(), maxY = minY.clone(), maxZ = minZ.clone();
+            for (int i = 0; i < n; i++) {
+                maxX[i] += r.nextFloat() * 4.0f;
+                maxY[i] += r.nextFloat() * 4.0f;
+                maxZ[i] += r.nextFloat() * 4.0f;
+            }
+
+            long[] h1 = new long[(n + 63) / 64], h2 = new long[h1.length];
+            Arrays.fill(h2, -1L);
+            int found = SCALAR.overlaps(-3.0f, -3.0f, -3.0f, 3.0f, 3.0f, 3.0f,
+                                        minX, minY, minZ, maxX, maxY, maxZ, n, h1);
+            assertEquals(found, KERNELS.overlaps(-3.0f, -3.0f, -3.0f, 3.0f, 3.0f, 3.0f,
+                                                 minX, minY, minZ, maxX, maxY, maxZ, n, h2));
+            assertArrayEquals(h1, h2);
+
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                boolean hit = !(maxX[i] < -3.0f || maxY[i] < -3.0f || maxZ[i] < -3.0f ||
+                                minX[i] > 3.0f || minY[i] > 3.0f || minZ[i] > 3.0f);
+                assertEquals(hit, (h1[i >>> 6] & (1L << i)) != 0L);
+                count += hit ? 1 : 0;
+            }
+            assertEquals(count, found);
+        }
+    }
+}
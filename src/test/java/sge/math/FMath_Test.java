@@ -62,6 +62,12 @@ public class FMath_Test {
         assertEquals(FMath.nearest2Pow(513), 1024);
 
         assertEquals(FMath.nearest2Pow(32), 32);
+        assertEquals(FMath.nearest2Pow(1 << 30), 1 << 30);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNearest2PowOverflow () {
+        FMath.nearest2Pow((1 << 30) + 1);
     }
 
 }
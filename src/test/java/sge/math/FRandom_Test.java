@@ -0,0 +1,194 @@
+package sge.math;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FRandom_Test {
+
+    @Test
+    public void testSeeded () {
+        FRandom a = new FRandom(42L);
+        FRandom b = new FRandom(42L);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+
+        a.setSeed(7L);
+        b.setSeed(7L);
+        assertEquals(a.nextFloat(), b.nextFloat(), 0.0f);
+        assertEquals(a.nextInt(10), b.nextInt(10));
+        assertEquals(a.nextGaussian(), b.nextGaussian(), 0.0);
+    }
+
+    @Test
+    public void testStreams () {
+        FRandom s0 = new FRandom(42L, 0);
+        FRandom s1 = new FRandom(42L, 1);
+
+        assertEquals(new FRandom(42L, 1).nextLong(), s1.nextLong());
+        assertFalse(s0.nextLong() == s1.nextLong());
+
+        FRandom a = new FRandom(9L);
+        FRandom b = new FRandom(9L);
+        assertEquals(a.split().nextLong(), b.split().nextLong());
+    }
+
+    @Test
+    public void testRanges () {
+        FRandom r = new FRandom(1L);
+
+        for (int i = 0; i < 10000; i++) {
+            float f = r.nextFloat();
+            assertTrue(f >= 0.0f && f < 1.0f);
+
+            double d = r.nextDouble();
+            assertTrue(d >= 0.0 && d < 1.0);
+
+            int n = r.nextInt(7);
+            assertTrue(n >= 0 && n < 7);
+
+            float g = r.nextFloat(-2.0f, 3.0f);
+            assertTrue(g >= -2.0f && g < 3.0f);
+        }
+    }
+
+    @Test
+    public void testNextFloats () {
+        FRandom a = new FRandom(3L);
+        FRandom b = new FRandom(3L);
+
+        float[] bulk = a.nextFloats(new float[1000]);
+        float[] single = new float[1000];
+        for (int i = 0; i < single.length; i++) {
+            single[i] = b.nextFloat();
+        }
+        assertArrayEquals(single, bulk, 0.0f);
+
+        float sum = 0.0f;
+        float[] ranged = a.nextFloats(new float[1010], 5, 1000, 10.0f, 20.0f);
+        for (int i = 5; i < 1005; i++) {
+            assertTrue(ranged[i] >= 10.0f && ranged[i] < 20.0f);
+            sum += ranged[i];
+        }
+        assertEquals(0.0f, ranged[4], 0.0f);
+        assertEquals(0.0f, ranged[1005], 0.0f);
+        assertEquals(15.0f, sum / 1000, 0.5f);
+    }
+
+    @Test
+    public void testBulkContinuesSequence () {
+        FRandom bulk = new FRandom(3L);
+        FRandom single = new FRandom(3L);
+
+        bulk.nextFloats(new float[100]);
+        for (int i = 0; i < 100; i++) {
+            single.nextLong();
+        }
+
+        assertEquals(single.nextLong(), bulk.nextLong());
+    }
+
+    @Test
+    public void testRandomUnitVectors () {
+        Vector3Batch batch = new FRandom(5L).randomUnitVectors(new Vector3Batch(10000));
+        float[] lengths = batch.lengths(new float[batch.size()]);
+        float mx = 0.0f, my = 0.0f, mz = 0.0f;
+
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(1.0f, lengths[i], 1e-5f);
+            mx += batch.x[i];
+            my += batch.y[i];
+            mz += batch.z[i];
+        }
+
+        // Uniform over the sphere, so the mean is near the origin.
+        assertEquals(0.0f, mx / batch.size(), 0.05f);
+        assertEquals(0.0f, my / batch.size(), 0.05f);
+        assertEquals(0.0f, mz / batch.size(), 0.05f);
+    }
+
+    @Test
+    public void testRandomVectors () {
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1.0f, Vector3.random().getLength(), 1e-5f);
+            assertEquals(1.0f, MVector3.random().getLength(), 1e-5f);
+            assertEquals(1.0f, Vector2.random().getLength(), 1e-5f);
+        }
+
+        Vector3.setSeed(11L);
+        Vector3 a = Vector3.random();
+        Vector3.setSeed(11L);
+        assertEquals(a, Vector3.random());
+    }
+
+    @Test
+    public void testSerialized () throws IOException, ClassNotFoundException {
+        FRandom a = new FRandom(42L);
+        a.nextLong();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(a);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        FRandom b = (FRandom) in.readObject();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+    }
+
+    @Test
+    public void testPerThread () throws InterruptedException {
+        final List<FRandom> generators = new ArrayList<FRandom>();
+        final List<Long> values = new ArrayList<Long>();
+        List<Thread> threads = new ArrayList<Thread>();
+
+        assertSame(FRandom.current(), FRandom.current());
+        assertSame(FRandom.current(), FRandom.getRandom());
+
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run () {
+                    FRandom r = FRandom.current();
+                    long v = r.nextLong();
+                    synchronized (generators) {
+                        generators.add(r);
+                        values.add(v);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4, generators.size());
+        for (int i = 0; i < 4; i++) {
+            assertFalse(generators.get(i) == FRandom.current());
+            for (int j = i + 1; j < 4; j++) {
+                assertFalse(generators.get(i) == generators.get(j));
+                assertFalse(values.get(i).equals(values.get(j)));
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package sge.math;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Matrix4Array_Test {
+
+    private static final float EPSILON = 1.0e-5f;
+
+    private static Matrix4 randomMatrix (final Random r) {
+        float[] data = new float[16];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = r.nextFloat() * 2.0f - 1.0f;
+        }
+        return new Matrix4(data);
+    }
+
+    @Test
+    public void testConstruction () {
+        Matrix4Array a = new Matrix4Array(3);
+
+        assertEquals(3, a.size());
+        assertEquals(0, a.buffer.position());
+        assertEquals(48, a.buffer.limit());
+        assertTrue(a.buffer.isDirect());
+
+        for (int i = 0; i < a.size(); i++) {
+            assertTrue(a.get(i).isIdentity());
+        }
+    }
+
+    @Test
+    public void testSetGet () {
+        Matrix4Array a = new Matrix4Array(2);
+        Matrix4 m = randomMatrix(new Random(1L));
+
+        a.set(1, m);
+        assertEquals(m, a.get(1));
+        assertTrue(a.get(0).isIdentity());
+
+        a.set(1, 3, 2, 5.0f);
+        assertEquals(5.0f, a.get(1, 3, 2), 0.0f);
+        assertEquals(5.0f, a.buffer.get(16 + 14), 0.0f);
+    }
+
+    @Test
+    public void testCompose () {
+        Matrix4Array a = new Matrix4Array(1);
+        float h = (float) Math.sqrt(0.5);
+
+        // Scale, then a quarter turn about z, then translate.
+        a.compose_(0, new Vector3(1.0f, 2.0f, 3.0f), new Quaternion(0.0f, 0.0f, h, h), new Vector3(2.0f, 3.0f, 4.0f));
+        Matrix4 m = a.get(0);
+
+        assertTrue(m.mult(new Vector4(1.0f, 0.0f, 0.0f, 1.0f)).compare(new Vector4(1.0f, 4.0f, 3.0f, 1.0f), EPSILON));
+        assertTrue(m.mult(new Vector4(0.0f, 1.0f, 0.0f, 1.0f)).compare(new Vector4(-2.0f, 2.0f, 3.0f, 1.0f), EPSILON));
+        assertTrue(m.mult(new Vector4(0.0f, 0.0f, 1.0f, 0.0f)).compare(new Vector4(0.0f, 0.0f, 4.0f, 0.0f), EPSILON));
+    }
+
+    @Test
+    public void testMult () {
+        Random r = new Random(2L);
+        int n = 10;
+        Matrix4Array a = new Matrix4Array(n), b = new Matrix4Array(n), dest = new Matrix4Array(n);
+        Matrix4 left = randomMatrix(r);
+
+        for (int i = 0; i < n; i++) {
+            a.set(i, randomMatrix(r));
+            b.set(i, randomMatrix(r));
+        }
+
+        Matrix4Array.mul(a, 0, b, 2, dest, 1, n - 2);
+        for (int i = 0; i < n - 2; i++) {
+            assertTrue(a.get(i).mult(b.get(i + 2)).compare(dest.get(i + 1), EPSILON));
+        }
+        assertTrue(dest.get(0).isIdentity());
+
+        Matrix4[] before = new Matrix4[n];
+        for (int i = 0; i < n; i++) {
+            before[i] = b.get(i);
+        }
+
+        // In place.
+        Matrix4Array.mul(left, b, 0, b, 0, n);
+        for (int i = 0; i < n; i++) {
+            assertTrue(left.mult(before[i]).compare(b.get(i), EPSILON));
+        }
+    }
+
+    @Test
+    public void testMultParents () {
+        Random r = new Random(3L);
+        int[] parents = {-1, 0, 1, 0, 3, -1, 5};
+        Matrix4Array a = new Matrix4Array(parents.length);
+        Matrix4[] local = new Matrix4[parents.length];
+        Matrix4[] expected = new Matrix4[parents.length];
+
+        for (int i = 0; i < parents.length; i++) {
+            local[i] = randomMatrix(r);
+            a.set(i, local[i]);
+            expected[i] = (parents[i] < 0) ? local[i] : expected[parents[i]].mult(local[i]);
+        }
+
+        a.multParents_(parents, parents.length);
+        for (int i = 0; i < parents.length; i++) {
+            assertTrue(expected[i].compare(a.get(i), 1.0e-4f));
+        }
+
+        a.set(0, local[0]);
+        a.set(1, local[1]);
+        a.multParent_(1, 0);
+        assertTrue(local[0].mult(local[1]).compare(a.get(1), EPSILON));
+
+        a.multParent_(1, local[2]);
+        assertTrue(local[2].mult(local[0]).mult(local[1]).compare(a.get(1), 1.0e-4f));
+    }
+
+    @Test
+    public void testInverseAndNormals () {
+        Random r = new Random(5L);
+        int n = 100;
+        Matrix4Array a = new Matrix4Array(n);
+        Matrix4[] m = new Matrix4[n];
+
+        for (int i = 0; i < n; i++) {
+            Quaternion q = new Quaternion(r.nextFloat() - 0.5f, r.nextFloat() - 0.5f, r.nextFloat() - 0.5f, 1.0f);
+            a.compose_(i, new Vector3(r.nextFloat(), r.nextFloat(), r.nextFloat()), q,
+                       new Vector3(0.5f + r.nextFloat(), 0.5f + r.nextFloat(), 0.5f + r.nextFloat()));
+            m[i] = a.get(i);
+        }
+
+        float[] normals = new float[(n - 1) * Matrix3.SIZE + 1];
+        a.normalMatrices(1, n - 1, normals, 1);
+        Matrix3 expected = new Matrix3();
+        for (int i = 1; i < n; i++) {
+            Matrix3.normalMatrix(m[i], expected);
+            for (int k = 0; k < Matrix3.SIZE; k++) {
+                assertEquals(expected.mat[k], normals[1 + (i - 1) * Matrix3.SIZE + k], 0.0f);
+            }
+        }
+
+        a.set(n - 1, Matrix4.ZERO);
+        assertFalse(a.inverseAffine_(0, n));
+        for (int i = 0; i < n - 1; i++) {
+            assertTrue(m[i].inverse().compare(a.get(i), 1.0e-3f));
+        }
+        assertEquals(Matrix4.ZERO, a.get(n - 1));
+
+        // Rotations and translations only.
+        for (int i = 0; i < n; i++) {
+            a.compose_(i, i, 1.0f, 2.0f, r.nextFloat(), r.nextFloat(), r.nextFloat(), 1.0f, 1.0f, 1.0f, 1.0f);
+            m[i] = a.get(i);
+        }
+        a.inverseRigid_(0, n);
+        for (int i = 0; i < n; i++) {
+            assertTrue(m[i].inverse().compare(a.get(i), 1.0e-3f));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultParentsOrder () {
+        new Matrix4Array(2).multParents_(new int[] {1, -1}, 2);
+    }
+
+    @Test
+    public void testView () {
+        Random r = new Random(4L);
+        Matrix4Array a = new Matrix4Array(4);
+        Matrix4 m = randomMatrix(r), n = randomMatrix(r);
+
+        Matrix4Array.View v = a.view(0);
+        v.set(m);
+        v.at(2).set(n).multParent_(a.view(0));
+
+        assertEquals(2, v.index());
+        assertTrue(m.mult(n).compare(v.get(new Matrix4()), EPSILON));
+        assertTrue(a.get(1).isIdentity());
+
+        v.at(3).identity_().set(3, 0, 7.0f);
+        assertEquals(7.0f, a.get(3, 3, 0), 0.0f);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBounds () {
+        new Matrix4Array(2).view(2);
+    }
+}
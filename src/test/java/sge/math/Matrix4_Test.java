@@ -7,6 +7,8 @@ import sge.math.Matrix4;
 import sge.math.Vector4;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class Matrix4_Test {
@@ -86,6 +88,40 @@ public class Matrix4_Test {
         assertEquals(ans, a.mult(b));
     }
 
+    @Test
+    public void testStaticMultiplyAliasing () {
+        Matrix4 a = new Matrix4(
+                1.0f, 5.0f, 9.0f, 13.0f,
+                2.0f, 6.0f, 10.0f, 14.0f,
+                3.0f, 7.0f, 11.0f, 15.0f,
+                4.0f, 8.0f, 12.0f, 16.0f);
+
+        Matrix4 b = new Matrix4(
+                1.0f, 1.0f, 1.0f, 1.0f,
+                2.0f, 2.0f, 2.0f, 2.0f,
+                3.0f, 3.0f, 3.0f, 3.0f,
+                4.0f, 4.0f, 4.0f, 4.0f);
+
+        Matrix4 ab = a.mult(b);
+        Matrix4 ba = b.mult(a);
+        Matrix4 aa = a.mult(a);
+
+        Matrix4 dest = new Matrix4();
+        assertEquals(ab, Matrix4.mul(a, b, dest));
+
+        Matrix4 left = new Matrix4(a);
+        assertEquals(ab, Matrix4.mul(left, b, left));
+
+        Matrix4 right = new Matrix4(a);
+        assertEquals(ba, Matrix4.mul(b, right, right));
+
+        Matrix4 both = new Matrix4(a);
+        assertEquals(aa, Matrix4.mul(both, both, both));
+
+        Matrix4 inPlace = new Matrix4(a);
+        assertEquals(ab, inPlace.mult_(b));
+    }
+
     @Test
     public void testMatrixEquality () {
         Matrix4 a = new Matrix4(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16);
@@ -113,6 +149,25 @@ public class Matrix4_Test {
         assertEquals(new Vector4(12.0f, 12.0f, 6.0f, 1.0f), mat2.mult(vec));
     }
 
+    @Test
+    public void testMultVector4Arrays () {
+        Matrix4 m = Matrix4.initRotation(0.1f, 0.2f, 0.3f).translate(1.0f, 2.0f, 3.0f);
+        int n = 37;
+        float[] x = new float[n], y = new float[n], z = new float[n], w = new float[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = -0.5f * i;
+            z[i] = 1.0f / (i + 1);
+            w[i] = i & 1;
+        }
+
+        m.mult(x, y, z, w, n - 1);
+        for (int i = 0; i < n - 1; i++) {
+            assertEquals(m.mult(new Vector4(i, -0.5f * i, 1.0f / (i + 1), i & 1)), new Vector4(x[i], y[i], z[i], w[i]));
+        }
+        assertEquals(n - 1, x[n - 1], 0.0f);
+    }
+
     @Test
     public void testRotationMats () {
         Matrix4 Rz = Matrix4.IDENTITY.rotateZ(FMath.toRadians(-45.0f));
@@ -140,4 +195,45 @@ public class Matrix4_Test {
 
         assertEquals(Matrix4.IDENTITY, A.mult(B));
     }
+    @Test
+    public void testMatrixInverseAffine () {
+        Matrix4 A = Matrix4.initTranslation(1.0f, -2.0f, 3.0f)
+                .mult(Matrix4.initRotation(30.0f, 45.0f, 60.0f))
+                .mult(Matrix4.initScale(new Vector3(2.0f, 0.5f, 3.0f)));
+
+        assertTrue(A.inverse().compare(A.inverseAffine(), 0.0001f));
+        assertTrue(Matrix4.IDENTITY.compare(A.mult(A.inverseAffine()), 0.0001f));
+
+        Matrix4 B = Matrix4.initScale(new Vector3(1.0f, 0.0f, 1.0f));
+        assertNull(B.inverseAffine());
+        assertFalse(B.inverseAffine_());
+        assertEquals(Matrix4.initScale(new Vector3(1.0f, 0.0f, 1.0f)), B);
+    }
+
+    @Test
+    public void testMatrixInverseRigid () {
+        Matrix4 A = Matrix4.initTranslation(1.0f, -2.0f, 3.0f).mult(Matrix4.initRotation(30.0f, 45.0f, 60.0f));
+
+        Matrix4 B = A.inverse();
+
+        assertTrue(B.compare(A.inverseRigid(), 0.0001f));
+        assertTrue(B.compare(A.inverseRigid_(), 0.0001f));
+    }
+
+    @Test
+    public void testNormalMatrix () {
+        Matrix4 A = Matrix4.initTranslation(1.0f, -2.0f, 3.0f)
+                .mult(Matrix4.initRotation(30.0f, 45.0f, 60.0f))
+                .mult(Matrix4.initScale(new Vector3(2.0f, 0.5f, 3.0f)));
+        Matrix3 upper = new Matrix3(A.mat[0], A.mat[1], A.mat[2], A.mat[4], A.mat[5], A.mat[6], A.mat[8], A.mat[9], A.mat[10]);
+        Matrix3 dest = new Matrix3();
+
+        assertSame(dest, Matrix3.normalMatrix(A, dest));
+        assertTrue(upper.inverse().transpose().compare(dest, 0.0001f));
+
+        // Pure rotations are their own normal matrix.
+        Matrix4 R = Matrix4.initRotation(10.0f, 20.0f, 30.0f);
+        Matrix3.normalMatrix(R, dest);
+        assertEquals(R.mat[9], dest.mat[7], 0.0001f);
+    }
 }
@@ -0,0 +1,215 @@
+package sge.math;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TransformHierarchy_Test {
+
+    private static final Vector3 POINT = new Vector3(0.5f, -1.0f, 2.0f);
+
+    private static Quaternion randomRotation (final Random r) {
+        return new Quaternion(r.nextFloat() - 0.5f, r.nextFloat() - 0.5f,
+                              r.nextFloat() - 0.5f, r.nextFloat() - 0.5f).normalize();
+    }
+
+    private static void randomize (final TransformHierarchy t, final int node, final Random r) {
+        t.setPosition(node, r.nextFloat() * 10 - 5, r.nextFloat() * 10 - 5, r.nextFloat() * 10 - 5);
+        t.setRotation(node, randomRotation(r));
+        t.setScale(node, 0.5f + r.nextFloat(), 0.5f + r.nextFloat(), 0.5f + r.nextFloat());
+    }
+
+    /** Transform a point up the hierarchy one TRS at a time. */
+    private static Vector3 expected (final TransformHierarchy t, final int node, final Vector3 p) {
+        Vector3 s = t.getScale(node);
+        Quaternion q = t.getRotation(node);
+        Quaternion r = q.mult(new Vector3(p.x * s.x, p.y * s.y, p.z * s.z)).mult(q.conjugate());
+        Vector3 local = new Vector3(r.i, r.j, r.k).add(t.getPosition(node));
+
+        int parent = t.getParent(node);
+        return (TransformHierarchy.NO_PARENT == parent) ? local : expected(t, parent, local);
+    }
+
+    private static void assertWorld (final TransformHierarchy t, final int node) {
+        Vector4 actual = t.getWorld(node).mult(new Vector4(POINT.x, POINT.y, POINT.z, 1.0f));
+        Vector3 want = expected(t, node, POINT);
+        float tolerance = 1.0e-3f * Math.max(1.0f, want.getLength());
+
+        assertEquals(want.x, actual.x, tolerance);
+        assertEquals(want.y, actual.y, tolerance);
+        assertEquals(want.z, actual.z, tolerance);
+        assertEquals(1.0f, actual.w, 0.0f);
+    }
+
+    @Test
+    public void matchesQuaternionTransforms () {
+        Random r = new Random(3L);
+        TransformHierarchy t = new TransformHierarchy(4);
+        int[] nodes = new int[300];
+
+        for (int i = 0; i < nodes.length; i++) {
+            int parent = (i < 3) ? TransformHierarchy.NO_PARENT : nodes[r.nextInt(i)];
+            nodes[i] = t.add(parent);
+            randomize(t, nodes[i], r);
+        }
+        t.update();
+        assertEquals(nodes.length, t.getUpdatedCount());
+
+        Matrix4Array instances = new Matrix4Array(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            assertWorld(t, nodes[i]);
+            t.getWorld(nodes[i], instances, i);
+            assertEquals(t.getWorld(nodes[i]), instances.get(i));
+        }
+    }
+
+    @Test
+    public void updatesDirtySubtreesOnly () {
+        TransformHierarchy t = new TransformHierarchy();
+        int root = t.add(TransformHierarchy.NO_PARENT);
+        int a = t.add(root);
+        int a1 = t.add(a);
+        int a2 = t.add(a);
+        int b = t.add(root);
+        int b1 = t.add(b);
+
+        t.update();
+        assertEquals(6, t.getUpdatedCount());
+
+        t.update();
+        assertEquals(0, t.getUpdatedCount());
+
+        t.setPosition(a2, 1.0f, 0.0f, 0.0f);
+        t.update();
+        assertEquals(1, t.getUpdatedCount());
+
+        t.setPosition(a, 0.0f, 2.0f, 0.0f);
+        t.setScale(a1, 2.0f);
+        t.setScale(b1, 3.0f);
+        t.update();
+        assertEquals(4, t.getUpdatedCount());
+
+        t.setRotation(root, new Quaternion(0.0f, 0.0f, 1.0f, 1.0f).normalize());
+        t.setScale(b, 2.0f);
+        t.update();
+        assertEquals(6, t.getUpdatedCount());
+
+        for (int node : new int[] {root, a, a1, a2, b, b1}) {
+            assertWorld(t, node);
+        }
+    }
+
+    @Test
+    public void removeAndReparent () {
+        Random r = new Random(5L);
+        TransformHierarchy t = new TransformHierarchy(8);
+        int[] nodes = new int[200];
+
+        for (int i = 0; i < nodes.length; i++) {
+            int parent = (i < 2) ? TransformHierarchy.NO_PARENT : nodes[r.nextInt(i)];
+            nodes[i] = t.add(parent);
+            randomize(t, nodes[i], r);
+        }
+        t.update();
+
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 5; i++) {
+                int n = nodes[r.nextInt(nodes.length)];
+                try {
+                    t.remove(n);
+                } catch (IllegalArgumentException e) {
+                    // Already removed with an ancestor.
+                }
+            }
+
+            for (int i = 0; i < nodes.length; i++) {
+                try {
+                    if (r.nextInt(20) == 0) {
+                        int parent = nodes[r.nextInt(nodes.length)];
+                        t.setParent(nodes[i], (r.nextBoolean()) ? TransformHierarchy.NO_PARENT : parent);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Removed, or a descendant.
+                }
+            }
+
+            // Replace removed nodes, reusing their handles.
+            boolean[] removed = new boolean[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                try {
+                    t.getParent(nodes[i]);
+                } catch (IllegalArgumentException e) {
+                    removed[i] = true;
+                }
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                if (removed[i]) {
+                    nodes[i] = t.add(TransformHierarchy.NO_PARENT);
+                    randomize(t, nodes[i], r);
+                }
+            }
+
+            t.update();
+            assertEquals(nodes.length, t.size());
+            for (int node : nodes) {
+                assertWorld(t, node);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCycles () {
+        TransformHierarchy t = new TransformHierarchy();
+        int root = t.add(TransformHierarchy.NO_PARENT);
+        int child = t.add(t.add(root));
+
+        t.setParent(root, child);
+    }
+
+    @Test
+    public void parallelMatchesSequential () {
+        Random r = new Random(7L);
+        TransformHierarchy a = new TransformHierarchy();
+        TransformHierarchy b = new TransformHierarchy();
+        int[] nodes = new int[40000];
+
+        // A few deep roots over many small subtrees.
+        for (int i = 0; i < nodes.length; i++) {
+            int parent = (i < 4) ? TransformHierarchy.NO_PARENT
+                                 : nodes[(r.nextInt(10) == 0) ? r.nextInt(4) : i - 1 - r.nextInt(Math.min(i, 8))];
+            nodes[i] = a.add(parent);
+            assertEquals(nodes[i], b.add(parent));
+
+            long seed = r.nextLong();
+            randomize(a, nodes[i], new Random(seed));
+            randomize(b, nodes[i], new Random(seed));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int frame = 0; frame < 3; frame++) {
+                a.update();
+                b.update(pool);
+                assertEquals(a.getUpdatedCount(), b.getUpdatedCount());
+
+                Matrix4 ma = new Matrix4(), mb = new Matrix4();
+                for (int node : nodes) {
+                    assertTrue(a.getWorld(node, ma).equals(b.getWorld(node, mb)));
+                }
+
+                for (int i = 0; i < 200; i++) {
+                    int node = nodes[r.nextInt(nodes.length)];
+                    long seed = r.nextLong();
+                    randomize(a, node, new Random(seed));
+                    randomize(b, node, new Random(seed));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
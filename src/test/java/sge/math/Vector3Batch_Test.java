@@ -0,0 +1,114 @@
+package sge.math;
+
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Vector3Batch_Test {
+
+    private static Vector3Batch batch (final Vector3... vs) {
+        Vector3Batch b = new Vector3Batch(vs.length);
+        for (int i = 0; i < vs.length; i++) {
+            b.set(i, vs[i]);
+        }
+        return b;
+    }
+
+    @Test
+    public void testAdd () {
+        Vector3Batch a = batch(new Vector3(1.0f, 1.0f, 1.0f), new Vector3(1.0f, 2.0f, 3.0f));
+        Vector3Batch b = batch(new Vector3(2.0f, 3.0f, 4.0f), new Vector3(-1.0f, -2.0f, -3.0f));
+
+        a.add_(b);
+
+        assertEquals(new Vector3(3.0f, 4.0f, 5.0f), a.get(0));
+        assertEquals(Vector3.ZERO, a.get(1));
+    }
+
+    @Test
+    public void testAddScaled () {
+        Vector3Batch pos = batch(new Vector3(1.0f, 1.0f, 1.0f));
+        Vector3Batch vel = batch(new Vector3(2.0f, 4.0f, 8.0f));
+
+        pos.addScaled_(vel, 0.5f);
+
+        assertEquals(new Vector3(2.0f, 3.0f, 5.0f), pos.get(0));
+    }
+
+    @Test
+    public void testScaleAndSub () {
+        Vector3Batch a = batch(new Vector3(1.0f, 2.0f, 3.0f));
+
+        a.scale_(2.0f).sub_(batch(new Vector3(1.0f, 1.0f, 1.0f)));
+
+        assertEquals(new Vector3(1.0f, 3.0f, 5.0f), a.get(0));
+    }
+
+    @Test
+    public void testDot () {
+        Vector3 v1 = new Vector3(1.0f, 2.0f, 3.0f);
+        Vector3 v2 = new Vector3(-4.0f, 0.5f, 2.0f);
+        float[] result = new Vector3Batch(batch(v1, v2)).dot(batch(v2, v2), new float[2]);
+
+        assertEquals(v1.dot(v2), result[0], 0f);
+        assertEquals(v2.dot(v2), result[1], 0f);
+    }
+
+    @Test
+    public void testCross () {
+        Vector3 v1 = new Vector3(1.0f, 2.0f, 3.0f);
+        Vector3 v2 = new Vector3(-4.0f, 0.5f, 2.0f);
+        Vector3Batch a = batch(v1, v2);
+
+        a.cross_(batch(v2, v1));
+
+        assertEquals(v1.cross(v2), a.get(0));
+        assertEquals(v2.cross(v1), a.get(1));
+    }
+
+    @Test
+    public void testNormalize () {
+        Vector3Batch a = batch(new Vector3(3.0f, 4.0f, 0.0f), Vector3.ZERO, new Vector3(1.2f, 10.3f, 2.3f));
+        float[] lengths = a.normalize_().lengths(new float[3]);
+
+        assertEquals(new Vector3(0.6f, 0.8f, 0.0f), a.get(0));
+        assertEquals(Vector3.ZERO, a.get(1));
+        assertEquals(1.0f, lengths[0], 0.00001f);
+        assertEquals(0.0f, lengths[1], 0f);
+        assertEquals(1.0f, lengths[2], 0.00001f);
+    }
+
+    @Test
+    public void testTransform () {
+        Matrix4 m = Matrix4.initTranslation(1.0f, 2.0f, 3.0f).rotateZ(FMath.toRadians(90.0f));
+        Vector3 p = new Vector3(1.0f, 0.0f, 0.0f);
+        Vector4 expected = m.mult(p.toPoint());
+        Vector4 expectedDir = m.mult(p.toDirection());
+
+        Vector3Batch points = batch(p);
+        Vector3Batch dirs = batch(p);
+        points.transform_(m);
+        dirs.transformDirection_(m);
+
+        assertTrue(new Vector3(expected.x, expected.y, expected.z).compare(points.get(0), 0.00001f));
+        assertTrue(new Vector3(expectedDir.x, expectedDir.y, expectedDir.z).compare(dirs.get(0), 0.00001f));
+    }
+
+    @Test
+    public void testPut () {
+        FloatBuffer buffer = FloatBuffer.allocate(6);
+        batch(new Vector3(1.0f, 2.0f, 3.0f), new Vector3(4.0f, 5.0f, 6.0f)).put(buffer);
+
+        assertEquals(6, buffer.position());
+        assertEquals(4.0f, buffer.get(3), 0f);
+        assertEquals(6.0f, buffer.get(5), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeMismatch () {
+        new Vector3Batch(2).add_(new Vector3Batch(3));
+    }
+}
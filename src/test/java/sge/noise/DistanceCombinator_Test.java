@@ -0,0 +1,27 @@
+package sge.noise;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DistanceCombinator_Test {
+
+    private static final float[] DISTANCES = {0.25f, 0.5f, 1.0f, 2.0f};
+
+    @Test
+    public void combinators () {
+        assertEquals(0.25f, new F1Combinator().apply(DISTANCES, 4), 0.0f);
+        assertEquals(0.5f, new F2Combinator().apply(DISTANCES, 4), 0.0f);
+        assertEquals(1.0f, new F3Combinator().apply(DISTANCES, 4), 0.0f);
+        assertEquals(2.0f, new FNCombinator().apply(DISTANCES, 4), 0.0f);
+        assertEquals(0.25f, new F2F1DiffCombinator().apply(DISTANCES, 4), 0.0f);
+    }
+
+    @Test
+    public void fewerDistances () {
+        assertEquals(0.25f, new F2Combinator().apply(DISTANCES, 1), 0.0f);
+        assertEquals(0.5f, new F3Combinator().apply(DISTANCES, 2), 0.0f);
+        assertEquals(0.5f, new FNCombinator().apply(DISTANCES, 2), 0.0f);
+        assertEquals(0.25f, new F2F1DiffCombinator().apply(DISTANCES, 1), 0.0f);
+    }
+}
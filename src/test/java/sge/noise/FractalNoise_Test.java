@@ -0,0 +1,76 @@
+package sge.noise;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FractalNoise_Test {
+
+    private static final OctaveCombinator[] COMBINATORS = {
+        new FBMCombinator(), new RidgedCombinator(), new TurbulenceCombinator()
+    };
+
+    @Test
+    public void fill2DMatchesGet () {
+        for (OctaveCombinator c : COMBINATORS) {
+            FractalNoise f = new FractalNoise(0.05f, 1.0f, 0.5f, 4, 12345L).setOctaveCombinator(c);
+            int width = 23, height = 17;
+            float x0 = -3.5f, y0 = 7.25f, step = 0.37f;
+
+            float[] out = f.fill(new float[width * height], width, height, x0, y0, step);
+            for (int j = 0; j < height; j++) {
+                for (int i = 0; i < width; i++) {
+                    assertEquals(f.get(x0 + i * step, y0 + j * step), out[j * width + i], 0.0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fill3DAnd4DMatchGet () {
+        for (OctaveCombinator c : COMBINATORS) {
+            FractalNoise f = new FractalNoise(0.1f, 1.0f, 0.5f, 3, 77L).setOctaveCombinator(c);
+            int width = 9, height = 7, depth = 5;
+            float x0 = 1.5f, y0 = -2.0f, z0 = 0.25f, w = 3.75f, step = 0.61f;
+
+            float[] volume = f.fill(new float[width * height * depth], width, height, depth, x0, y0, z0, step);
+            float[] slice = f.fill(new float[width * height * depth], width, height, depth, x0, y0, z0, w, step);
+
+            for (int k = 0; k < depth; k++) {
+                for (int j = 0; j < height; j++) {
+                    for (int i = 0; i < width; i++) {
+                        int n = (k * height + j) * width + i;
+                        float x = x0 + i * step, y = y0 + j * step, z = z0 + k * step;
+
+                        assertEquals(f.get(x, y, z), volume[n], 0.0f);
+                        assertEquals(f.get(x, y, z, w), slice[n], 0.0f);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void octaveCombinators () {
+        assertEquals(0.5f, new FBMCombinator().apply(0.5f), 0.0f);
+        assertEquals(0.0f, new TurbulenceCombinator().apply(-0.5f), 0.0f);
+        assertEquals(1.0f, new RidgedCombinator().apply(0.0f), 0.0f);
+        assertEquals(-1.0f, new RidgedCombinator().apply(-1.0f), 0.0f);
+    }
+
+    @Test
+    public void octavesAddDetail () {
+        FractalNoise one = new FractalNoise(0.05f, 1.0f, 0.5f, 1, 5L);
+        FractalNoise four = new FractalNoise(0.05f, 1.0f, 0.5f, 4, 5L);
+        boolean differs = false;
+
+        for (int i = 0; i < 100; i++) {
+            float v = four.get(i * 0.37f, i * 0.11f, i * 0.23f);
+            assertTrue(v >= -1.0f && v <= 1.0f);
+            differs |= v != one.get(i * 0.37f, i * 0.11f, i * 0.23f);
+        }
+
+        assertTrue(differs);
+    }
+}
@@ -0,0 +1,105 @@
+package sge.noise;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class NoiseField_Test {
+
+    private static final int WIDTH = 301;
+    private static final int HEIGHT = 157;
+
+    private static float[] reference (final NoiseGenerator noise) {
+        float[] out = new float[WIDTH * HEIGHT];
+        return noise.fill(out, 0, WIDTH, 0, 0, WIDTH, HEIGHT, -3.5f, 11.25f, 0.37f);
+    }
+
+    private static void assertTilings (final NoiseGenerator noise) {
+        float[] expected = reference(noise);
+
+        for (int threads : new int[] {1, 2, 7}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                for (int tile : new int[] {1, 16, 50, 128, 1000}) {
+                    NoiseField field = new NoiseField(noise, pool).setTileSize(tile);
+                    float[] out = field.generate(null, WIDTH, HEIGHT, -3.5f, 11.25f, 0.37f);
+
+                    assertArrayEquals(expected, out, 0.0f);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void perlinMatchesAnyTiling () {
+        assertTilings(new Perlin(0.05f, 1.0f, 0.5f, 4, 12345L));
+    }
+
+    @Test
+    public void worleyMatchesAnyTiling () {
+        assertTilings(new Worley(0.05f, 1.0f, 12345L));
+    }
+
+    @Test
+    public void simpleNoiseMatchesAnyTiling () {
+        assertTilings(new SimpleNoise(0.05f, 1.0f, 12345L));
+    }
+
+    @Test
+    public void matchesGet () {
+        Perlin p = new Perlin(0.05f, 1.0f, 0.5f, 4, 99L);
+        float[] out = new NoiseField(p).setTileSize(32).generate(null, WIDTH, HEIGHT, 0.0f, 0.0f, 0.5f);
+
+        for (int j = 0; j < HEIGHT; j++) {
+            for (int i = 0; i < WIDTH; i++) {
+                assertEquals(p.get(i * 0.5f, j * 0.5f), out[j * WIDTH + i], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void plainExecutor () {
+        Worley w = new Worley(0.05f, 1.0f, 7L);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            float[] out = new NoiseField(w, executor).setTileSize(40)
+                    .generate(new float[WIDTH * HEIGHT], WIDTH, HEIGHT, -3.5f, 11.25f, 0.37f);
+            assertArrayEquals(reference(w), out, 0.0f);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void executorFailure () {
+        NoiseGenerator broken = new Perlin(0.05f, 1.0f, 0.5f, 4, 1L) {
+            @Override
+            public float[] fill (final float[] out, final int offset, final int stride, final int i0, final int j0,
+                                 final int width, final int height, final float x0, final float y0, final float step) {
+                throw new IllegalStateException("broken");
+            }
+        };
+        Executor direct = new Executor() {
+            @Override
+            public void execute (final Runnable command) {
+                command.run();
+            }
+        };
+
+        new NoiseField(broken, direct).setTileSize(16).generate(null, 64, 64, 0.0f, 0.0f, 1.0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTileSize () {
+        new NoiseField(new SimpleNoise(0.05f, 1.0f, 1L)).setTileSize(0);
+    }
+}
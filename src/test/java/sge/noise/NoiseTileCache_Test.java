@@ -0,0 +1,198 @@
+package sge.noise;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NoiseTileCache_Test {
+
+    private static final int TILE = 16;
+    private static final long TILE_BYTES = TILE * TILE * 4;
+
+    /** Perlin which counts the tiles it fills. */
+    private static class CountingPerlin extends Perlin {
+        final AtomicInteger fills = new AtomicInteger();
+
+        CountingPerlin () {
+            super(0.05f, 1.0f, 0.5f, 3, 12345L);
+        }
+
+        @Override
+        public float[] fill (final float[] out, final int offset, final int stride, final int i0, final int j0,
+                             final int width, final int height, final float x0, final float y0, final float step) {
+            fills.incrementAndGet();
+            return super.fill(out, offset, stride, i0, j0, width, height, x0, y0, step);
+        }
+    }
+
+    @Test
+    public void tilesMatchNoise () {
+        Perlin p = new Perlin(0.05f, 1.0f, 0.5f, 3, 12345L);
+        NoiseTileCache cache = new NoiseTileCache(TILE, 0.5f, 100 * TILE_BYTES);
+
+        float[] tile = cache.get(p, -2, 3, 1);
+        for (int j = 0; j < TILE; j++) {
+            for (int i = 0; i < TILE; i++) {
+                float x = (-2 * TILE + i) * 1.0f;
+                float y = (3 * TILE + j) * 1.0f;
+                assertEquals(p.get(x, y), tile[j * TILE + i], 0.0f);
+            }
+        }
+
+        // Tiles at lod 0 line up with a NoiseField over the same grid.
+        float[] field = new NoiseField(p).generate(null, 2 * TILE, TILE, 0.0f, 0.0f, 0.5f);
+        float[] right = cache.get(p, 1, 0, 0);
+        for (int j = 0; j < TILE; j++) {
+            for (int i = 0; i < TILE; i++) {
+                assertEquals(field[j * 2 * TILE + TILE + i], right[j * TILE + i], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void hitsAndMisses () {
+        CountingPerlin p = new CountingPerlin();
+        NoiseTileCache cache = new NoiseTileCache(TILE, 0.5f, 100 * TILE_BYTES);
+
+        float[] a = cache.get(p, 0, 0, 0);
+        assertSame(a, cache.get(p, 0, 0, 0));
+        cache.get(p, 0, 0, 1);
+        cache.get(p, 1, 0, 0);
+
+        assertEquals(3, p.fills.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(0.25f, cache.getHitRate(), 0.0f);
+        assertEquals(3, cache.size());
+        assertEquals(3 * TILE_BYTES, cache.getBytes());
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted () {
+        Perlin p = new Perlin(0.05f, 1.0f, 0.5f, 3, 12345L);
+        NoiseTileCache cache = new NoiseTileCache(TILE, 0.5f, 3 * TILE_BYTES);
+
+        assertEquals(3, cache.getMaxTiles());
+
+        cache.get(p, 0, 0, 0);
+        cache.get(p, 1, 0, 0);
+        cache.get(p, 2, 0, 0);
+        cache.get(p, 0, 0, 0);
+        cache.get(p, 3, 0, 0);
+
+        assertEquals(1, cache.getEvictions());
+        assertTrue(cache.contains(p, 0, 0, 0));
+        assertFalse(cache.contains(p, 1, 0, 0));
+        assertTrue(cache.contains(p, 2, 0, 0));
+        assertTrue(cache.contains(p, 3, 0, 0));
+    }
+
+    @Test
+    public void keyedOnGenerator () {
+        Perlin p = new Perlin(0.05f, 1.0f, 0.5f, 3, 1L);
+        Perlin q = new Perlin(0.05f, 1.0f, 0.5f, 3, 2L);
+        NoiseTileCache cache = new NoiseTileCache(TILE, 0.5f, 100 * TILE_BYTES);
+
+        float[] a = cache.get(p, 0, 0, 0);
+        float[] b = cache.get(q, 0, 0, 0);
+        assertFalse(a == b);
+
+        assertEquals(1, cache.invalidate(p));
+        assertFalse(cache.contains(p, 0, 0, 0));
+        assertTrue(cache.contains(q, 0, 0, 0));
+        assertArrayEquals(a, cache.get(p, 0, 0, 0), 0.0f);
+    }
+
+    @Test
+    public void keyedOnParameters () {
+        Perlin p = new Perlin(0.05f, 1.0f, 0.5f, 3, 1L);
+        NoiseTileCache cache = new NoiseTileCache(TILE, 0.5f, 100 * TILE_BYTES);
+        float[] a = cache.get(p, 0, 0, 0);
+
+        p.frequency = 0.1f;
+        assertFalse(cache.contains(p, 0, 0, 0));
+        float[] b = cache.get(p, 0, 0, 0);
+        assertArrayEquals(p.fill(new float[TILE * TILE], 0, TILE, 0, 0, TILE, TILE, 0.0f, 0.0f, 0.5f), b, 0.0f);
+
+        p.frequency = 0.05f;
+        assertSame(a, cache.get(p, 0, 0, 0));
+        assertEquals(2, cache.invalidate(p));
+    }
+
+    @Test
+    public void failedTileRetried () {
+        final AtomicInteger calls = new AtomicInteger();
+        Perlin flaky = new Perlin(0.05f, 1.0f, 0.5f, 3, 1L) {
+            @Override
+            public float[] fill (final float[] out, final int offset, final int stride, final int i0, final int j0,
+                                 final int width, final int height, final float x0, final float y0,
+                                 final float step) {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("flaky");
+                }
+                return super.fill(out, offset, stride, i0, j0, width, height, x0, y0, step);
+            }
+        };
+        NoiseTileCache cache = new NoiseTileCache(TILE, 0.5f, 100 * TILE_BYTES);
+
+        try {
+            cache.get(flaky, 0, 0, 0);
+            assertTrue(false);
+        } catch (IllegalStateException e) {
+            assertFalse(cache.contains(flaky, 0, 0, 0));
+        }
+
+        assertEquals(TILE * TILE, cache.get(flaky, 0, 0, 0).length);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void concurrentRequestsComputeOnce () throws InterruptedException {
+        final CountingPerlin p = new CountingPerlin();
+        final NoiseTileCache cache = new NoiseTileCache(TILE, 0.5f, 100 * TILE_BYTES);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<float[]> results = new ArrayList<float[]>();
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run () {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int i = 0; i < 4; i++) {
+                        float[] tile = cache.get(p, i, 0, 0);
+                        synchronized (results) {
+                            results.add(tile);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(32, results.size());
+        assertEquals(4, p.fills.get());
+        assertEquals(4, cache.getMisses());
+        assertEquals(28, cache.getHits());
+    }
+}
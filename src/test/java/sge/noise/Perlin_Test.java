@@ -0,0 +1,56 @@
+package sge.noise;
+
+import org.junit.Test;
+import sge.math.BatchKernels;
+
+import static org.junit.Assert.assertEquals;
+
+public class Perlin_Test {
+
+    private static void assertFill1D (final Perlin p, final float x0, final float step) {
+        float[] out = p.fill(new float[100], 100, x0, step);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(p.get(x0 + i * step), out[i], 0.0f);
+        }
+    }
+
+    private static void assertFill2D (final Perlin p, final float x0, final float y0, final float step) {
+        int width = 37, height = 23;
+        float[] out = p.fill(new float[width * height], width, height, x0, y0, step);
+
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                assertEquals(p.get(x0 + i * step, y0 + j * step), out[j * width + i], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void fillMatchesGet () {
+        Perlin p = new Perlin(0.05f, 1.0f, 0.5f, 4, 12345L);
+
+        assertFill1D(p, 0.0f, 0.37f);
+        assertFill1D(p, -20.0f, 1.5f);
+        assertFill2D(p, 0.0f, 0.0f, 0.37f);
+        assertFill2D(p, -13.25f, 7.5f, 0.11f);
+    }
+
+    @Test
+    public void fillSparseSamples () {
+        // Samples many cells apart, which skips the lattice row cache.
+        Perlin p = new Perlin(0.9f, 2.0f, 0.75f, 3, 99L);
+
+        assertFill2D(p, 3.0f, -40.0f, 17.0f);
+    }
+
+    @Test
+    public void latticeRowMatchesNoise () {
+        float[] row = new float[100];
+        BatchKernels.get().latticeRow(row, row.length, Noise.latticeIndex(-37, 31));
+
+        for (int i = 0; i < row.length; i++) {
+            assertEquals(Noise.noise(-37 + i, 31), row[i], 0.0f);
+        }
+    }
+}
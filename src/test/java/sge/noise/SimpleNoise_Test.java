@@ -0,0 +1,27 @@
+package sge.noise;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimpleNoise_Test {
+
+    @Test
+    public void fillMatchesGet () {
+        SimpleNoise n = new SimpleNoise(0.25f, 1.0f, 12345L);
+        int width = 31, height = 17;
+        float x0 = -5.5f, y0 = 2.25f, step = 0.7f;
+
+        float[] line = n.fill(new float[width], width, x0, step);
+        for (int i = 0; i < width; i++) {
+            assertEquals(n.get(x0 + i * step), line[i], 0.0f);
+        }
+
+        float[] grid = n.fill(new float[width * height], width, height, x0, y0, step);
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                assertEquals(n.get(x0 + i * step, y0 + j * step), grid[j * width + i], 0.0f);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package sge.noise;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Simplex_Test {
+
+    private static final int SAMPLES = 2000;
+
+    private static float coord (final int i, final float scale) {
+        return (i * 0.6180339f % 1.0f) * scale - scale / 2.0f;
+    }
+
+    @Test
+    public void inRange () {
+        Simplex s = new Simplex(1234L);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            float x = coord(i, 100.0f), y = coord(i * 7, 100.0f), z = coord(i * 13, 100.0f), w = coord(i * 29, 100.0f);
+
+            assertTrue(Math.abs(s.get(x, y)) <= 1.0f);
+            assertTrue(Math.abs(s.get(x, y, z)) <= 1.0f);
+            assertTrue(Math.abs(s.get(x, y, z, w)) <= 1.0f);
+        }
+    }
+
+    @Test
+    public void zeroAtOrigin () {
+        // The origin is a simplex corner, where the gradients don't contribute.
+        Simplex s = new Simplex(99L);
+
+        assertEquals(0.0f, s.get(0.0f, 0.0f), 0.0f);
+        assertEquals(0.0f, s.get(0.0f, 0.0f, 0.0f), 0.0f);
+        assertEquals(0.0f, s.get(0.0f, 0.0f, 0.0f, 0.0f), 0.0f);
+    }
+
+    @Test
+    public void seeded () {
+        Simplex a = new Simplex(42L);
+        Simplex b = new Simplex(42L);
+        Simplex c = new Simplex(43L);
+
+        assertEquals(a.get(1.3f, 2.7f, -0.4f), b.get(1.3f, 2.7f, -0.4f), 0.0f);
+        assertEquals(a.get(1.3f, 2.7f, -0.4f, 5.1f), b.get(1.3f, 2.7f, -0.4f, 5.1f), 0.0f);
+        assertNotEquals(a.get(1.3f, 2.7f, -0.4f), c.get(1.3f, 2.7f, -0.4f), 0.0f);
+    }
+
+    @Test
+    public void continuous () {
+        Simplex s = new Simplex(7L);
+        float d = 0.001f;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            float x = coord(i, 20.0f), y = coord(i * 7, 20.0f), z = coord(i * 13, 20.0f), w = coord(i * 29, 20.0f);
+
+            assertEquals(s.get(x, y), s.get(x + d, y), 0.05f);
+            assertEquals(s.get(x, y, z), s.get(x, y, z + d), 0.05f);
+            assertEquals(s.get(x, y, z, w), s.get(x, y, z, w + d), 0.05f);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package sge.noise;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Worley_Test {
+
+    @Test
+    public void fillMatchesGet () {
+        Worley w = new Worley(0.3f, 1.0f, 12345L);
+        int width = 29, height = 19;
+        float x0 = -3.5f, y0 = 1.25f, step = 0.45f;
+
+        float[] line = w.fill(new float[width], width, x0, step);
+        for (int i = 0; i < width; i++) {
+            assertEquals(w.get(x0 + i * step), line[i], 0.0f);
+        }
+
+        float[] grid = w.fill(new float[width * height], width, height, x0, y0, step);
+        for (int j = 0; j < height; j++) {
+            for (int i = 0; i < width; i++) {
+                assertEquals(w.get(x0 + i * step, y0 + j * step), grid[j * width + i], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void nearestDistancesInOrder () {
+        // Raw combinator values, before the noise is scaled and clamped.
+        Worley f1 = new Worley(0.3f, 0.1f, 42L);
+        Worley f2 = new Worley(0.3f, 0.1f, 42L).setDistanceCombinator(new F2Combinator());
+        Worley f3 = new Worley(0.3f, 0.1f, 42L).setDistanceCombinator(new F3Combinator());
+        Worley fn = new Worley(0.3f, 0.1f, 42L).setDistanceCombinator(new FNCombinator());
+
+        for (int j = 0; j < 20; j++) {
+            for (int i = 0; i < 20; i++) {
+                float x = i * 0.77f, y = j * 0.61f;
+
+                assertTrue(f1.get(x, y) <= f2.get(x, y));
+                assertTrue(f2.get(x, y) <= f3.get(x, y));
+                assertTrue(f3.get(x, y) <= fn.get(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void distanceFunctions () {
+        DistanceFunction[] functions = {
+            new EuclidianDistanceFunction(), new ManhattanDistanceFunction(), new ChebyshevDistanceFunction()
+        };
+
+        for (DistanceFunction d : functions) {
+            Worley w = new Worley(0.3f, 1.0f, 7L).setDistanceFunction(d);
+
+            for (int i = 0; i < 50; i++) {
+                float v = w.get(i * 0.43f, i * 0.29f);
+                assertTrue(v >= -1.0f && v <= 1.0f);
+                assertTrue(w.get(i * 0.43f) >= -1.0f);
+            }
+        }
+    }
+}
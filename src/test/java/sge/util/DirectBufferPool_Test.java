@@ -0,0 +1,143 @@
+package sge.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DirectBufferPool_Test {
+
+    @Test
+    public void sizeClasses () {
+        PooledBuffer<FloatBuffer> pf = DirectBufferPool.allocateFloatBuffer(9);
+        FloatBuffer f = pf.buffer();
+
+        assertTrue(f.isDirect());
+        assertEquals(16, f.capacity());
+        assertEquals(9, f.limit());
+        assertEquals(0, f.position());
+
+        PooledBuffer<ByteBuffer> pb = DirectBufferPool.allocateByteBuffer(64);
+        ByteBuffer b = pb.buffer();
+        assertEquals(64, b.capacity());
+        assertEquals(ByteOrder.nativeOrder(), b.order());
+
+        DirectBufferPool.release(pf);
+        DirectBufferPool.release(pb);
+    }
+
+    @Test
+    public void reuseReleasedBuffer () {
+        DirectBufferPool.clear();
+        PooledBuffer<FloatBuffer> f = DirectBufferPool.allocateFloatBuffer(16);
+        f.buffer().put(1.0f);
+        assertTrue(DirectBufferPool.release(f));
+
+        long hits = DirectBufferPool.getHits();
+        PooledBuffer<FloatBuffer> g = DirectBufferPool.allocateFloatBuffer(12);
+
+        assertSame(f, g);
+        assertEquals(12, g.buffer().limit());
+        assertEquals(0, g.buffer().position());
+        assertEquals(hits + 1, DirectBufferPool.getHits());
+
+        PooledBuffer<IntBuffer> i = DirectBufferPool.allocateIntBuffer(16);
+        assertTrue(DirectBufferPool.release(i));
+        assertSame(i, DirectBufferPool.allocateIntBuffer(16));
+
+        DirectBufferPool.release(g);
+        DirectBufferPool.release(i);
+    }
+
+    @Test
+    public void liveAndPooledBytes () {
+        DirectBufferPool.clear();
+        long live = DirectBufferPool.getBytesLive();
+        long pooled = DirectBufferPool.getBytesPooled();
+
+        PooledBuffer<IntBuffer> i = DirectBufferPool.allocateIntBuffer(100);
+        assertEquals(live + 128 * 4, DirectBufferPool.getBytesLive());
+
+        DirectBufferPool.release(i);
+        assertEquals(live, DirectBufferPool.getBytesLive());
+        assertEquals(pooled + 128 * 4, DirectBufferPool.getBytesPooled());
+
+        DirectBufferPool.clear();
+        assertEquals(pooled, DirectBufferPool.getBytesPooled());
+    }
+
+    @Test
+    public void finishedThreadsArentPooled () throws InterruptedException {
+        long pooled = DirectBufferPool.getBytesPooled();
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run () {
+                DirectBufferPool.release(DirectBufferPool.allocateFloatBuffer(64));
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals(pooled, DirectBufferPool.getBytesPooled());
+    }
+
+    @Test
+    public void rejectForeignBuffers () {
+        DirectBufferPool.clear();
+        long live = DirectBufferPool.getBytesLive();
+
+        // Never handed out by the pool.
+        PooledBuffer<FloatBuffer> foreign = new PooledBuffer<FloatBuffer>(
+                DirectBuffer.createFloatBuffer(16), PooledBuffer.FLOATS, 4, 64);
+        assertFalse(DirectBufferPool.release(foreign));
+        assertEquals(live, DirectBufferPool.getBytesLive());
+        assertFalse(foreign == DirectBufferPool.allocateFloatBuffer(16));
+    }
+
+    @Test
+    public void rejectDoubleRelease () {
+        DirectBufferPool.clear();
+        long live = DirectBufferPool.getBytesLive();
+        PooledBuffer<FloatBuffer> f = DirectBufferPool.allocateFloatBuffer(16);
+
+        assertTrue(DirectBufferPool.release(f));
+        assertFalse(DirectBufferPool.release(f));
+        assertEquals(live, DirectBufferPool.getBytesLive());
+
+        PooledBuffer<FloatBuffer> a = DirectBufferPool.allocateFloatBuffer(16);
+        PooledBuffer<FloatBuffer> b = DirectBufferPool.allocateFloatBuffer(16);
+        assertSame(f, a);
+        assertFalse(a == b);
+
+        // Released again once handed out again.
+        assertTrue(DirectBufferPool.release(a));
+        assertTrue(DirectBufferPool.release(b));
+        DirectBufferPool.clear();
+    }
+
+    @Test
+    public void poolLimit () {
+        long max = DirectBufferPool.getMaxPooledBytes();
+        DirectBufferPool.clear();
+
+        try {
+            DirectBufferPool.setMaxPooledBytes(64);
+            PooledBuffer<ByteBuffer> a = DirectBufferPool.allocateByteBuffer(64);
+            PooledBuffer<ByteBuffer> b = DirectBufferPool.allocateByteBuffer(64);
+
+            assertTrue(DirectBufferPool.release(a));
+            assertFalse(DirectBufferPool.release(b));
+        } finally {
+            DirectBufferPool.setMaxPooledBytes(max);
+            DirectBufferPool.clear();
+        }
+    }
+}